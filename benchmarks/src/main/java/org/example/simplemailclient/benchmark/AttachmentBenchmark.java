@@ -0,0 +1,61 @@
+package org.example.simplemailclient.benchmark;
+
+import org.example.simplemailclient.dto.AttachmentPart;
+import org.example.simplemailclient.service.AttachmentService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Locating and streaming a 1 MiB base64 attachment through {@link AttachmentService}:
+ * the lookup alone, the whole download, and a 64 KiB range from the middle.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class AttachmentBenchmark {
+
+    private static final int RANGE_LENGTH = 64 * 1024;
+
+    private AttachmentService attachmentService;
+    private long uid;
+    private AttachmentPart attachment;
+
+    @Setup(Level.Trial)
+    public void setUp(MailboxState mailbox) {
+        attachmentService = mailbox.server.getBean(AttachmentService.class);
+        uid = mailbox.server.getLargeAttachmentUid();
+        attachment = findAttachment().orElseThrow();
+    }
+
+    @Benchmark
+    public Optional<AttachmentPart> findAttachment() {
+        return attachmentService.findAttachment(MailServer.INBOX, uid, 0);
+    }
+
+    @Benchmark
+    public void downloadWhole() throws IOException {
+        attachmentService.streamAttachment(attachment, 0, -1, OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public void downloadRange() throws IOException {
+        attachmentService.streamAttachment(attachment, attachment.getSize() / 2, RANGE_LENGTH, OutputStream.nullOutputStream());
+    }
+}
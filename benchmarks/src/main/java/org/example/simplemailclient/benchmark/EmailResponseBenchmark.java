@@ -0,0 +1,71 @@
+package org.example.simplemailclient.benchmark;
+
+import com.sun.mail.imap.IMAPFolder;
+import com.sun.mail.imap.IMAPStore;
+import jakarta.mail.Folder;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import org.example.simplemailclient.imap.ImapConnectionPool;
+import org.example.simplemailclient.util.MessageUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link MessageUtil#createEmailResponse} on prefetched messages, so only the
+ * conversion itself is measured and not the IMAP round trips.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class EmailResponseBenchmark {
+
+    private static final int BATCH_SIZE = 100;
+
+    private IMAPStore store;
+    private IMAPFolder folder;
+    private List<Message> messages;
+
+    @Setup(Level.Trial)
+    public void setUp(MailboxState mailbox) throws MessagingException {
+        store = mailbox.server.getBean(ImapConnectionPool.class).connectDedicated();
+        folder = (IMAPFolder) store.getFolder(MailServer.INBOX);
+        folder.open(Folder.READ_ONLY);
+
+        int count = folder.getMessageCount();
+        messages = Arrays.asList(folder.getMessages(Math.max(1, count - BATCH_SIZE + 1), count));
+        MessageUtil.prefetch(folder, messages);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws MessagingException {
+        folder.close(false);
+        store.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void createEmailResponse(Blackhole blackhole) {
+        for (Message message : messages) {
+            blackhole.consume(MessageUtil.createEmailResponse(message, folder));
+        }
+    }
+}
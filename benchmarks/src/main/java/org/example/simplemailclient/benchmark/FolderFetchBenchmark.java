@@ -0,0 +1,69 @@
+package org.example.simplemailclient.benchmark;
+
+import org.example.simplemailclient.dto.UidPageRequest;
+import org.example.simplemailclient.enumeration.ResponseFormat;
+import org.example.simplemailclient.service.EmailService;
+import org.example.simplemailclient.util.EmailProjection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Folder listings through {@link EmailService}. The newest page is normally
+ * served by the header cache, a page from the middle of the mailbox is not.
+ * The projected variant fetches and writes four fields as CBOR.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class FolderFetchBenchmark {
+
+    private static final int PAGE_SIZE = 50;
+
+    private EmailService emailService;
+    private UidPageRequest newestPage;
+    private UidPageRequest middlePage;
+    private EmailProjection listProjection;
+
+    @Setup(Level.Trial)
+    public void setUp(MailboxState mailbox) {
+        emailService = mailbox.server.getBean(EmailService.class);
+        newestPage = new UidPageRequest(null, null, PAGE_SIZE);
+        middlePage = new UidPageRequest((long) mailbox.mailboxSize / 2, null, PAGE_SIZE);
+        listProjection = EmailProjection.parse("uid,from,subject,sentDate");
+    }
+
+    @Benchmark
+    public void fetchNewestPage() {
+        emailService.fetchEmailsFromFolder(MailServer.INBOX, newestPage, EmailProjection.ALL, ResponseFormat.JSON, OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public void fetchMiddlePage() {
+        emailService.fetchEmailsFromFolder(MailServer.INBOX, middlePage, EmailProjection.ALL, ResponseFormat.JSON, OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public void fetchMiddlePageProjectedCbor() {
+        emailService.fetchEmailsFromFolder(MailServer.INBOX, middlePage, listProjection, ResponseFormat.CBOR, OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public void fetchUnreadPage() {
+        emailService.fetchEmailsFromFolderByReadStatus(MailServer.INBOX, false, newestPage, EmailProjection.ALL, ResponseFormat.JSON, OutputStream.nullOutputStream());
+    }
+}
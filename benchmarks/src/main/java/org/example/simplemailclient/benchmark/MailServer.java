@@ -0,0 +1,210 @@
+package org.example.simplemailclient.benchmark;
+
+import com.icegreen.greenmail.imap.ImapHostManager;
+import com.icegreen.greenmail.store.MailFolder;
+import com.icegreen.greenmail.user.GreenMailUser;
+import com.icegreen.greenmail.util.DummySSLSocketFactory;
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetup;
+import jakarta.activation.DataHandler;
+import jakarta.mail.Flags;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Part;
+import jakarta.mail.Session;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeBodyPart;
+import jakarta.mail.internet.MimeMessage;
+import jakarta.mail.internet.MimeMultipart;
+import jakarta.mail.util.ByteArrayDataSource;
+import org.example.simplemailclient.SimpleMailClient;
+import org.example.simplemailclient.service.EmailService;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.Security;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+
+/**
+ * An in-process GreenMail IMAPS/SMTP server with a synthetic mailbox, and the
+ * application context pointed at it. Messages are appended straight into the
+ * server's store, so even a mailbox of a million messages seeds in seconds.
+ */
+public class MailServer implements AutoCloseable {
+
+    public static final String USER = "bench@example.com";
+    public static final String PASSWORD = "bench";
+    public static final String SINK = "sink@example.com";
+    public static final String INBOX = "INBOX";
+    public static final String TRASH = EmailService.FOLDER_TRASH;
+
+    private static final int IMAPS_PORT = 3993;
+    private static final int SMTP_PORT = 3025;
+    private static final int LARGE_ATTACHMENT_SIZE = 1024 * 1024;
+    private static final long START_DATE = 1_700_000_000_000L;
+
+    private final GreenMail greenMail;
+    private final GreenMailUser user;
+    private final GreenMailUser sink;
+    private final Session session = Session.getInstance(new Properties());
+    private final Path workDirectory;
+
+    private ConfigurableApplicationContext context;
+    private long largeAttachmentUid;
+    private int sequence;
+
+    private MailServer(Path workDirectory) {
+        this.workDirectory = workDirectory;
+        // GreenMail serves IMAPS with a self-signed certificate
+        Security.setProperty("ssl.SocketFactory.provider", DummySSLSocketFactory.class.getName());
+        greenMail = new GreenMail(new ServerSetup[]{
+                new ServerSetup(IMAPS_PORT, "127.0.0.1", ServerSetup.PROTOCOL_IMAPS),
+                new ServerSetup(SMTP_PORT, "127.0.0.1", ServerSetup.PROTOCOL_SMTP)
+        });
+        greenMail.start();
+        user = greenMail.setUser(USER, USER, PASSWORD);
+        sink = greenMail.setUser(SINK, SINK, PASSWORD);
+    }
+
+    public static MailServer start(int mailboxSize) throws Exception {
+        MailServer server = new MailServer(Files.createTempDirectory("mail-benchmark"));
+        try {
+            server.seed(mailboxSize);
+            server.startApplication();
+            return server;
+        } catch (Exception e) {
+            server.close();
+            throw e;
+        }
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public long getLargeAttachmentUid() {
+        return largeAttachmentUid;
+    }
+
+    // Appends fresh messages to the inbox and returns their UIDs.
+    public List<Long> append(int count) throws Exception {
+        MailFolder inbox = folder(INBOX);
+        List<Long> uids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            uids.add(inbox.appendMessage(createMessage(++sequence), new Flags(), new Date()));
+        }
+        return uids;
+    }
+
+    public void clearTrash() throws Exception {
+        folder(TRASH).deleteAllMessages();
+    }
+
+    public void clearSink() throws Exception {
+        greenMail.getManagers().getImapHostManager().getInbox(sink).deleteAllMessages();
+    }
+
+    @Override
+    public void close() {
+        if (context != null) {
+            context.close();
+        }
+        greenMail.stop();
+        FileSystemUtils.deleteRecursively(workDirectory.toFile());
+    }
+
+    private void seed(int mailboxSize) throws Exception {
+        ImapHostManager hostManager = greenMail.getManagers().getImapHostManager();
+        hostManager.createMailbox(user, TRASH);
+
+        MailFolder inbox = hostManager.getInbox(user);
+        Flags seen = new Flags(Flags.Flag.SEEN);
+        for (sequence = 1; sequence <= mailboxSize; sequence++) {
+            // a fifth of the mailbox is unread
+            inbox.appendMessage(createMessage(sequence), sequence % 5 == 0 ? new Flags() : seen, new Date(START_DATE + sequence * 60_000L));
+        }
+        largeAttachmentUid = inbox.appendMessage(createLargeAttachmentMessage(), seen, new Date());
+    }
+
+    private void startApplication() throws IOException {
+        context = new SpringApplicationBuilder(SimpleMailClient.class)
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                .run("--spring.mail.username=" + USER,
+                        "--spring.mail.password=" + PASSWORD,
+                        "--spring.mail.host=127.0.0.1",
+                        "--spring.mail.port=" + SMTP_PORT,
+                        "--imap.host=127.0.0.1",
+                        "--imap.port=" + IMAPS_PORT,
+                        "--imap.cache.directory=" + workDirectory.resolve("headers"),
+                        "--search.index.directory=" + workDirectory.resolve("index"),
+                        "--search.index.backfill=false",
+                        "--outbound.journal.directory=" + workDirectory.resolve("outbox"),
+                        "--outbound.bulk.directory=" + workDirectory.resolve("bulk"),
+                        "--logging.level.root=WARN");
+    }
+
+    private MailFolder folder(String name) throws Exception {
+        return greenMail.getManagers().getImapHostManager().getFolder(user, name, true);
+    }
+
+    private MimeMessage createMessage(int number) throws MessagingException {
+        MimeMessage message = new MimeMessage(session);
+        message.setFrom(new InternetAddress("sender" + number % 50 + "@example.com"));
+        message.setRecipients(Message.RecipientType.TO, USER);
+        message.setRecipients(Message.RecipientType.CC, "team" + number % 7 + "@example.com");
+        // one message in a hundred matches the search benchmarks
+        message.setSubject("Synthetic message " + number + (number % 100 == 0 ? " invoice" : ""));
+        message.setSentDate(new Date(START_DATE + number * 60_000L));
+
+        MimeBodyPart text = new MimeBodyPart();
+        text.setText("Plain body of message " + number, "UTF-8");
+        MimeBodyPart html = new MimeBodyPart();
+        html.setContent("<html><body><p>HTML body of message " + number + "</p></body></html>", "text/html; charset=UTF-8");
+        MimeMultipart alternative = new MimeMultipart("alternative", text, html);
+
+        if (number % 10 != 0) {
+            message.setContent(alternative);
+        } else {
+            MimeBodyPart body = new MimeBodyPart();
+            body.setContent(alternative);
+            MimeBodyPart attachment = new MimeBodyPart();
+            attachment.setContent("attachment of message " + number, "text/plain");
+            attachment.setFileName("notes-" + number + ".txt");
+            attachment.setDisposition(Part.ATTACHMENT);
+            message.setContent(new MimeMultipart(body, attachment));
+        }
+        message.saveChanges();
+        return message;
+    }
+
+    private MimeMessage createLargeAttachmentMessage() throws MessagingException {
+        byte[] content = new byte[LARGE_ATTACHMENT_SIZE];
+        new Random(42).nextBytes(content);
+
+        MimeBodyPart text = new MimeBodyPart();
+        text.setText("A message with a large attachment", "UTF-8");
+        MimeBodyPart attachment = new MimeBodyPart();
+        attachment.setDataHandler(new DataHandler(new ByteArrayDataSource(content, "application/octet-stream")));
+        attachment.setFileName("large.bin");
+        attachment.setDisposition(Part.ATTACHMENT);
+
+        MimeMessage message = new MimeMessage(session);
+        message.setFrom(new InternetAddress("sender@example.com"));
+        message.setRecipients(Message.RecipientType.TO, USER);
+        message.setSubject("Large attachment");
+        message.setContent(new MimeMultipart(text, attachment));
+        message.saveChanges();
+        return message;
+    }
+}
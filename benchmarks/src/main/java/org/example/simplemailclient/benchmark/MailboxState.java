@@ -0,0 +1,32 @@
+package org.example.simplemailclient.benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * The embedded server and application shared by all benchmarks of one fork.
+ * Run with {@code -p mailboxSize=1000} for a quick pass; the million-message
+ * mailbox needs a few gigabytes of heap.
+ */
+@State(Scope.Benchmark)
+public class MailboxState {
+
+    @Param({"1000", "100000", "1000000"})
+    public int mailboxSize;
+
+    public MailServer server;
+
+    @Setup(Level.Trial)
+    public void start() throws Exception {
+        server = MailServer.start(mailboxSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        server.close();
+    }
+}
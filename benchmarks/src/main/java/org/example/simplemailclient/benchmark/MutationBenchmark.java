@@ -0,0 +1,76 @@
+package org.example.simplemailclient.benchmark;
+
+import org.example.simplemailclient.dto.FlagUpdateRequest;
+import org.example.simplemailclient.dto.FlagUpdateResult;
+import org.example.simplemailclient.dto.UidMoveResult;
+import org.example.simplemailclient.service.EmailService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * Bulk flag updates and bulk deletes of {@value #BATCH_SIZE} messages. Every
+ * delete gets a fresh batch appended outside the measured time, and the trash
+ * is emptied after each iteration so the mailbox does not grow.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class MutationBenchmark {
+
+    private static final int BATCH_SIZE = 500;
+
+    private EmailService emailService;
+    private List<Long> flagUids;
+    private boolean flagged;
+
+    @Setup(Level.Trial)
+    public void setUp(MailboxState mailbox) {
+        emailService = mailbox.server.getBean(EmailService.class);
+        long lastUid = mailbox.server.getLargeAttachmentUid() - 1;
+        flagUids = LongStream.rangeClosed(Math.max(1, lastUid - BATCH_SIZE + 1), lastUid).boxed().toList();
+    }
+
+    @Benchmark
+    public FlagUpdateResult toggleFlagged() {
+        flagged = !flagged;
+        return emailService.updateFlags(new FlagUpdateRequest(MailServer.INBOX, flagUids, false, List.of("flagged"), flagged, null));
+    }
+
+    @Benchmark
+    public List<UidMoveResult> deleteToTrash(DeleteBatch batch) {
+        return emailService.deleteEmailsByUIDs(batch.uids, MailServer.INBOX);
+    }
+
+    @State(Scope.Thread)
+    public static class DeleteBatch {
+
+        private List<Long> uids;
+
+        @Setup(Level.Invocation)
+        public void append(MailboxState mailbox) throws Exception {
+            uids = mailbox.server.append(BATCH_SIZE);
+        }
+
+        @TearDown(Level.Iteration)
+        public void emptyTrash(MailboxState mailbox) throws Exception {
+            mailbox.server.clearTrash();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package org.example.simplemailclient.benchmark;
+
+import org.example.simplemailclient.dto.UidPageRequest;
+import org.example.simplemailclient.enumeration.ResponseFormat;
+import org.example.simplemailclient.enumeration.SearchField;
+import org.example.simplemailclient.service.EmailService;
+import org.example.simplemailclient.util.EmailProjection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Server-side SEARCH through {@link EmailService#searchEmails}. The subject
+ * matches one message in a hundred, the sender one in fifty.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class SearchBenchmark {
+
+    private EmailService emailService;
+    private UidPageRequest page;
+
+    @Setup(Level.Trial)
+    public void setUp(MailboxState mailbox) {
+        emailService = mailbox.server.getBean(EmailService.class);
+        page = new UidPageRequest(null, null, 50);
+    }
+
+    @Benchmark
+    public void searchBySubject() {
+        emailService.searchEmails(MailServer.INBOX, "invoice", SearchField.SUBJECT, page, EmailProjection.ALL, ResponseFormat.JSON, OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public void searchBySender() {
+        emailService.searchEmails(MailServer.INBOX, "sender7@example.com", SearchField.FROM, page, EmailProjection.ALL, ResponseFormat.JSON, OutputStream.nullOutputStream());
+    }
+}
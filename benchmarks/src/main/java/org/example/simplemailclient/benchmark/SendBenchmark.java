@@ -0,0 +1,79 @@
+package org.example.simplemailclient.benchmark;
+
+import org.example.simplemailclient.dto.EmailRequest;
+import org.example.simplemailclient.dto.OutboundStatus;
+import org.example.simplemailclient.enumeration.OutboundState;
+import org.example.simplemailclient.service.EmailService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link EmailService#sendEmail}: accepting a message into the journaled queue,
+ * and the full round trip until the SMTP worker reports it as sent. The mailbox
+ * size does not matter here, so the server is seeded with a small one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SendBenchmark {
+
+    private static final int MAILBOX_SIZE = 1000;
+
+    private MailServer server;
+    private EmailService emailService;
+    private EmailRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        server = MailServer.start(MAILBOX_SIZE);
+        emailService = server.getBean(EmailService.class);
+        request = new EmailRequest(List.of(MailServer.SINK), null, null, "Benchmark message",
+                "<p>A short HTML body for the send benchmark.</p>");
+    }
+
+    @TearDown(Level.Iteration)
+    public void emptySink() throws Exception {
+        server.clearSink();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        server.close();
+    }
+
+    @Benchmark
+    public OutboundStatus enqueue() {
+        return emailService.sendEmail(request);
+    }
+
+    @Benchmark
+    public OutboundStatus sendAndAwaitDelivery() {
+        String id = emailService.sendEmail(request).getId();
+        while (true) {
+            OutboundStatus status = emailService.getSendStatus(id).orElseThrow();
+            if (status.getState().isTerminal()) {
+                if (status.getState() != OutboundState.SENT) {
+                    throw new IllegalStateException("Send failed: " + status.getLastError());
+                }
+                return status;
+            }
+            Thread.onSpinWait();
+        }
+    }
+}
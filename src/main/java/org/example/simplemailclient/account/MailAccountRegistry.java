@@ -0,0 +1,89 @@
+package org.example.simplemailclient.account;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.example.simplemailclient.dto.MailAccount;
+import org.example.simplemailclient.imap.ImapConnectionPool;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The mailboxes this instance serves, keyed by username. The default account
+ * of spring.mail.* uses the application's connection pool; further accounts
+ * are read from a JSON file and each gets its own smaller pool with its own
+ * credentials, so one slow or throttled mailbox cannot take connections from
+ * another.
+ */
+@Component
+public class MailAccountRegistry {
+
+    @Value("${accounts.file:}")
+    private String accountsFile;
+
+    @Value("${accounts.pool.max-size:2}")
+    private int poolMaxSize;
+
+    private final ImapConnectionPool defaultPool;
+
+    private final ObjectMapper objectMapper;
+
+    private final Map<String, ImapConnectionPool> pools = new LinkedHashMap<>();
+
+    @Autowired
+    public MailAccountRegistry(ImapConnectionPool defaultPool, ObjectMapper objectMapper) {
+        this.defaultPool = defaultPool;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        pools.put(defaultPool.getUsername(), defaultPool);
+        if (accountsFile.isBlank()) {
+            return;
+        }
+        Path file = Paths.get(accountsFile);
+        if (!Files.exists(file)) {
+            throw new IllegalStateException("Accounts file " + file + " does not exist");
+        }
+        for (MailAccount account : objectMapper.readValue(file.toFile(), MailAccount[].class)) {
+            if (account.getUsername() == null || account.getPassword() == null) {
+                throw new IllegalStateException("Every account in " + file + " needs a username and a password");
+            }
+            if (pools.containsKey(account.getUsername())) {
+                continue;
+            }
+            pools.put(account.getUsername(), defaultPool.forAccount(account.getUsername(), account.getPassword(),
+                    account.getImapHost(), account.getImapPort(), poolMaxSize));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pools.values().stream()
+                .filter(pool -> pool != defaultPool)
+                .forEach(ImapConnectionPool::shutdown);
+    }
+
+    public List<String> getAccounts() {
+        return new ArrayList<>(pools.keySet());
+    }
+
+    public ImapConnectionPool getPool(String account) {
+        ImapConnectionPool pool = pools.get(account);
+        if (pool == null) {
+            throw new IllegalArgumentException("Unknown account: " + account);
+        }
+        return pool;
+    }
+}
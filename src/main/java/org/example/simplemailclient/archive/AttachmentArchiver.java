@@ -0,0 +1,296 @@
+package org.example.simplemailclient.archive;
+
+import com.sun.mail.imap.IMAPFolder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.BodyPart;
+import jakarta.mail.FetchProfile;
+import jakarta.mail.Folder;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Multipart;
+import jakarta.mail.Part;
+import jakarta.mail.UIDFolder;
+import jakarta.mail.internet.MimeBodyPart;
+import jakarta.mail.internet.MimeUtility;
+import org.example.simplemailclient.bulkhead.BulkheadRegistry;
+import org.example.simplemailclient.dto.ArchiveFailure;
+import org.example.simplemailclient.dto.ArchiveJobStatus;
+import org.example.simplemailclient.dto.ArchiveRequest;
+import org.example.simplemailclient.dto.StoredAttachment;
+import org.example.simplemailclient.enumeration.ArchiveState;
+import org.example.simplemailclient.enumeration.OperationType;
+import org.example.simplemailclient.imap.ImapConnectionPool;
+import org.example.simplemailclient.imap.ImapSectionInputStream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Extracts attachments into the {@link AttachmentStore}. Archive jobs split the
+ * UIDs into batches that a bounded pool of workers processes in parallel, each
+ * on its own pooled connection: one FETCH of the BODYSTRUCTUREs per batch, then
+ * every attachment section is streamed, decoded and hashed straight into the
+ * store. Attachments indexed by an earlier run are not fetched again.
+ */
+@Service
+public class AttachmentArchiver {
+
+    @Value("${attachment.archive.parallelism:2}")
+    private int parallelism;
+
+    @Value("${attachment.archive.batch-size:25}")
+    private int batchSize;
+
+    @Value("${attachment.archive.max-reported-failures:1000}")
+    private int maxReportedFailures;
+
+    @Value("${attachment.archive.status-retention:24h}")
+    private Duration statusRetention;
+
+    @Value("${imap.attachment.fetch-size:65536}")
+    private int fetchSize;
+
+    private final ImapConnectionPool connectionPool;
+
+    private final BulkheadRegistry bulkheads;
+
+    private final AttachmentStore attachmentStore;
+
+    private final Map<String, ArchiveJob> jobs = new ConcurrentHashMap<>();
+
+    private ExecutorService workers;
+
+    @Autowired
+    public AttachmentArchiver(ImapConnectionPool connectionPool, BulkheadRegistry bulkheads, AttachmentStore attachmentStore) {
+        this.connectionPool = connectionPool;
+        this.bulkheads = bulkheads;
+        this.attachmentStore = attachmentStore;
+    }
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "attachment-archive-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    public ArchiveJobStatus submit(ArchiveRequest request) {
+        if (request.getFolderName() == null || request.getUids() == null || request.getUids().isEmpty()) {
+            throw new IllegalArgumentException("A folder name and at least one UID are required");
+        }
+        long now = System.currentTimeMillis();
+        jobs.values().removeIf(job -> job.state == ArchiveState.COMPLETED && now - job.updatedAt >= statusRetention.toMillis());
+
+        List<Long> uids = request.getUids().stream().distinct().sorted().toList();
+        ArchiveJob job = new ArchiveJob(UUID.randomUUID().toString(), request.getFolderName(), uids.size());
+        jobs.put(job.id, job);
+
+        List<CompletableFuture<Void>> batches = new ArrayList<>();
+        for (int from = 0; from < uids.size(); from += batchSize) {
+            List<Long> batch = uids.subList(from, Math.min(from + batchSize, uids.size()));
+            batches.add(CompletableFuture.runAsync(() -> archiveBatch(job, batch), workers));
+        }
+        CompletableFuture.allOf(batches.toArray(new CompletableFuture<?>[0])).whenComplete((result, e) -> {
+            job.state = ArchiveState.COMPLETED;
+            job.updatedAt = System.currentTimeMillis();
+        });
+        return job.toStatus();
+    }
+
+    public Optional<ArchiveJobStatus> getStatus(String jobId) {
+        ArchiveJob job = jobs.get(jobId);
+        return job == null ? Optional.empty() : Optional.of(job.toStatus());
+    }
+
+    // Stores every attachment of one message on the caller's thread; attachmentIndex < 0 means all of them.
+    public List<StoredAttachment> archiveMessage(String folderName, long uid, int attachmentIndex) {
+        ArchiveJob tally = new ArchiveJob(null, folderName, 1);
+        try {
+            return bulkheads.execute(OperationType.FETCH, () -> connectionPool.executeIdempotent(connection -> {
+                IMAPFolder folder = connection.openFolder(folderName, Folder.READ_ONLY);
+                Message message = folder.getMessageByUID(uid);
+                if (message == null) {
+                    return List.of();
+                }
+                return extract(folder, folder.getUIDValidity(), message, attachmentIndex, tally);
+            }));
+        } catch (MessagingException | IOException e) {
+            throw new RuntimeException("Failed to store the attachments of message " + uid + ": " + e.getMessage(), e);
+        }
+    }
+
+    private void archiveBatch(ArchiveJob job, List<Long> uids) {
+        try {
+            connectionPool.execute(connection -> {
+                IMAPFolder folder = connection.openFolder(job.folderName, Folder.READ_ONLY);
+                long uidValidity = folder.getUIDValidity();
+
+                long[] uidArray = uids.stream().mapToLong(Long::longValue).toArray();
+                Message[] messages = folder.getMessagesByUID(uidArray);
+                List<Message> existing = new ArrayList<>();
+                for (int i = 0; i < messages.length; i++) {
+                    if (messages[i] == null) {
+                        job.fail(uidArray[i], "No such message");
+                    } else {
+                        existing.add(messages[i]);
+                    }
+                }
+
+                // the BODYSTRUCTUREs of the whole batch in one round trip
+                FetchProfile fetchProfile = new FetchProfile();
+                fetchProfile.add(UIDFolder.FetchProfileItem.UID);
+                fetchProfile.add(FetchProfile.Item.CONTENT_INFO);
+                Message[] batch = existing.toArray(new Message[0]);
+                folder.fetch(batch, fetchProfile);
+
+                for (Message message : batch) {
+                    try {
+                        extract(folder, uidValidity, message, -1, job);
+                    } catch (IOException e) {
+                        job.fail(folder.getUID(message), e.getMessage());
+                    }
+                    job.processed.incrementAndGet();
+                    job.updatedAt = System.currentTimeMillis();
+                }
+                return null;
+            });
+        } catch (MessagingException | IOException | RuntimeException e) {
+            for (long uid : uids) {
+                job.fail(uid, e.getMessage());
+            }
+        }
+    }
+
+    private List<StoredAttachment> extract(IMAPFolder folder, long uidValidity, Message message, int attachmentIndex,
+                                           ArchiveJob job) throws MessagingException, IOException {
+        if (!message.isMimeType("multipart/*")) {
+            return List.of();
+        }
+        long uid = folder.getUID(message);
+        List<SectionPart> parts = new ArrayList<>();
+        // for IMAP messages the multipart is built from BODYSTRUCTURE, no body bytes are read
+        collectAttachments((Multipart) message.getContent(), "", parts);
+        if (attachmentIndex >= 0) {
+            parts = attachmentIndex < parts.size() ? List.of(parts.get(attachmentIndex)) : List.of();
+        }
+
+        List<StoredAttachment> stored = new ArrayList<>();
+        for (SectionPart part : parts) {
+            job.attachments.incrementAndGet();
+            Optional<StoredAttachment> existing = attachmentStore.find(folder.getFullName(), uidValidity, uid, part.section());
+            if (existing.isPresent()) {
+                job.alreadyArchived.incrementAndGet();
+                stored.add(existing.get());
+                continue;
+            }
+
+            StoredAttachment attachment = new StoredAttachment(folder.getFullName(), uidValidity, uid, part.section(),
+                    part.bodyPart().getFileName(), part.bodyPart().getContentType(), -1, null, 0);
+            try (InputStream content = openDecoded(folder, message, part)) {
+                if (attachmentStore.store(attachment, content)) {
+                    job.blobsWritten.incrementAndGet();
+                    job.bytesWritten.addAndGet(attachment.getSize());
+                } else {
+                    job.deduplicated.incrementAndGet();
+                    job.bytesDeduplicated.addAndGet(attachment.getSize());
+                }
+            }
+            stored.add(attachment);
+        }
+        return stored;
+    }
+
+    // Partial BODY.PEEK fetches of the section on the connection the worker already holds.
+    private InputStream openDecoded(IMAPFolder folder, Message message, SectionPart part) throws MessagingException {
+        BodyPart bodyPart = part.bodyPart();
+        long encodedSize = bodyPart.getSize() >= 0 ? bodyPart.getSize() : Long.MAX_VALUE;
+        InputStream raw = new ImapSectionInputStream(folder, message, part.section(), 0, encodedSize, fetchSize);
+        String encoding = ((MimeBodyPart) bodyPart).getEncoding();
+        return encoding != null ? MimeUtility.decode(raw, encoding) : raw;
+    }
+
+    // Same depth-first order as the attachment download endpoint, so attachment indexes agree.
+    private void collectAttachments(Multipart multipart, String prefix, List<SectionPart> parts) throws MessagingException, IOException {
+        for (int i = 0; i < multipart.getCount(); i++) {
+            BodyPart bodyPart = multipart.getBodyPart(i);
+            String section = prefix + (i + 1);
+            if (bodyPart.isMimeType("multipart/*")) {
+                collectAttachments((Multipart) bodyPart.getContent(), section + ".", parts);
+            } else if (Part.ATTACHMENT.equalsIgnoreCase(bodyPart.getDisposition())) {
+                parts.add(new SectionPart(section, bodyPart));
+            }
+        }
+    }
+
+    private record SectionPart(String section, BodyPart bodyPart) {
+    }
+
+    private final class ArchiveJob {
+
+        private final String id;
+        private final String folderName;
+        private final long totalMessages;
+        private final long createdAt = System.currentTimeMillis();
+        private final AtomicLong processed = new AtomicLong();
+        private final AtomicLong attachments = new AtomicLong();
+        private final AtomicLong blobsWritten = new AtomicLong();
+        private final AtomicLong deduplicated = new AtomicLong();
+        private final AtomicLong alreadyArchived = new AtomicLong();
+        private final AtomicLong bytesWritten = new AtomicLong();
+        private final AtomicLong bytesDeduplicated = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final List<ArchiveFailure> failures = Collections.synchronizedList(new ArrayList<>());
+
+        private volatile ArchiveState state = ArchiveState.RUNNING;
+        private volatile long updatedAt = createdAt;
+
+        private ArchiveJob(String id, String folderName, long totalMessages) {
+            this.id = id;
+            this.folderName = folderName;
+            this.totalMessages = totalMessages;
+        }
+
+        private void fail(long uid, String error) {
+            failed.incrementAndGet();
+            if (failures.size() < maxReportedFailures) {
+                failures.add(new ArchiveFailure(uid, error));
+            }
+            updatedAt = System.currentTimeMillis();
+        }
+
+        private ArchiveJobStatus toStatus() {
+            List<ArchiveFailure> failuresCopy;
+            synchronized (failures) {
+                failuresCopy = new ArrayList<>(failures);
+            }
+            return new ArchiveJobStatus(id, state, folderName, totalMessages, processed.get(), attachments.get(),
+                    blobsWritten.get(), deduplicated.get(), alreadyArchived.get(), bytesWritten.get(),
+                    bytesDeduplicated.get(), failed.get(), failuresCopy, createdAt, updatedAt);
+        }
+    }
+}
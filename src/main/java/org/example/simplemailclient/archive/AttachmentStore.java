@@ -0,0 +1,234 @@
+package org.example.simplemailclient.archive;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.example.simplemailclient.dto.StoredAttachment;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Content-addressable store for decoded attachments. Every blob is named by the
+ * SHA-256 of its content and kept once under blobs/ab/cd/abcd..., however many
+ * messages carry it. An append-only JSON-lines index maps (folder, UIDVALIDITY,
+ * UID, section) to the blob; it is replayed on startup.
+ */
+@Component
+public class AttachmentStore {
+
+    private static final String INDEX_FILE = "index.jsonl";
+    private static final String BLOB_DIRECTORY = "blobs";
+    private static final String TEMP_DIRECTORY = "tmp";
+
+    private static final Pattern SHA256 = Pattern.compile("[0-9a-f]{64}");
+
+    @Value("${attachment.store.directory:${user.home}/.simple-mail-client/attachments}")
+    private String directory;
+
+    // content up to this size is hashed in memory, so a duplicate is never written at all
+    @Value("${attachment.store.memory-threshold:1MB}")
+    private DataSize memoryThreshold;
+
+    private final ObjectMapper objectMapper;
+
+    private final Map<AttachmentKey, StoredAttachment> index = new ConcurrentHashMap<>();
+
+    private Path blobDirectory;
+    private Path tempDirectory;
+    private Path indexFile;
+    private FileChannel indexChannel;
+
+    @Autowired
+    public AttachmentStore(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        blobDirectory = Paths.get(directory, BLOB_DIRECTORY);
+        tempDirectory = Paths.get(directory, TEMP_DIRECTORY);
+        indexFile = Paths.get(directory, INDEX_FILE);
+        Files.createDirectories(blobDirectory);
+        // leftovers of writes interrupted by a crash
+        FileSystemUtils.deleteRecursively(tempDirectory);
+        Files.createDirectories(tempDirectory);
+
+        if (Files.exists(indexFile)) {
+            replay();
+        }
+        indexChannel = FileChannel.open(indexFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        indexChannel.force(false);
+        indexChannel.close();
+    }
+
+    public Optional<StoredAttachment> find(String folderName, long uidValidity, long uid, String section) {
+        return Optional.ofNullable(index.get(new AttachmentKey(folderName, uidValidity, uid, section)));
+    }
+
+    // Attachments stored for the message under the newest UIDVALIDITY seen for it, in section order.
+    public List<StoredAttachment> findByMessage(String folderName, long uid) {
+        List<StoredAttachment> found = index.values().stream()
+                .filter(attachment -> attachment.getFolderName().equals(folderName) && attachment.getUid() == uid)
+                .toList();
+        long uidValidity = found.stream().mapToLong(StoredAttachment::getUidValidity).max().orElse(0);
+        return found.stream()
+                .filter(attachment -> attachment.getUidValidity() == uidValidity)
+                .sorted(Comparator.comparing(StoredAttachment::getSection))
+                .toList();
+    }
+
+    public Optional<Path> getBlob(String sha256) {
+        if (sha256 == null || !SHA256.matcher(sha256).matches()) {
+            return Optional.empty();
+        }
+        Path blob = blobPath(sha256);
+        return Files.exists(blob) ? Optional.of(blob) : Optional.empty();
+    }
+
+    /**
+     * Hashes the content while reading it, stores it unless a blob with the same
+     * hash exists, and indexes the attachment. Fills in its size and hash and
+     * returns true when a new blob was written.
+     */
+    public boolean store(StoredAttachment attachment, InputStream content) throws IOException {
+        MessageDigest digest = sha256();
+        int threshold = (int) Math.min(Integer.MAX_VALUE - 1, memoryThreshold.toBytes());
+        byte[] head = content.readNBytes(threshold + 1);
+
+        boolean written;
+        if (head.length <= threshold) {
+            String hash = HexFormat.of().formatHex(digest.digest(head));
+            attachment.setSize(head.length);
+            attachment.setSha256(hash);
+            written = !Files.exists(blobPath(hash));
+            if (written) {
+                writeBlob(hash, head);
+            }
+        } else {
+            // too large to buffer: spool to a temp file while hashing, then keep it only if it is new
+            Path tempFile = tempDirectory.resolve(UUID.randomUUID().toString());
+            long size;
+            try {
+                digest.update(head);
+                try (OutputStream output = Files.newOutputStream(tempFile);
+                     InputStream rest = new DigestInputStream(content, digest)) {
+                    output.write(head);
+                    size = head.length + rest.transferTo(output);
+                }
+                String hash = HexFormat.of().formatHex(digest.digest());
+                attachment.setSize(size);
+                attachment.setSha256(hash);
+                written = !Files.exists(blobPath(hash));
+                if (written) {
+                    moveIntoPlace(tempFile, hash);
+                }
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+        }
+
+        attachment.setStoredAt(System.currentTimeMillis());
+        AttachmentKey key = keyOf(attachment);
+        if (index.putIfAbsent(key, attachment) == null) {
+            // the blob is in place before its index record, a crash leaves at most an unreferenced blob
+            append(attachment);
+        }
+        return written;
+    }
+
+    private void writeBlob(String hash, byte[] content) throws IOException {
+        Path tempFile = tempDirectory.resolve(UUID.randomUUID().toString());
+        try {
+            Files.write(tempFile, content);
+            moveIntoPlace(tempFile, hash);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    // Two writers of the same content may race here; both files are identical, so the last move simply wins.
+    private void moveIntoPlace(Path tempFile, String hash) throws IOException {
+        Path blob = blobPath(hash);
+        Files.createDirectories(blob.getParent());
+        Files.move(tempFile, blob, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Path blobPath(String hash) {
+        return blobDirectory.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+
+    private synchronized void append(StoredAttachment attachment) throws IOException {
+        byte[] line = (objectMapper.writeValueAsString(attachment) + "\n").getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.wrap(line);
+        while (buffer.hasRemaining()) {
+            indexChannel.write(buffer);
+        }
+    }
+
+    private void replay() throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(indexFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                StoredAttachment attachment;
+                try {
+                    attachment = objectMapper.readValue(line, StoredAttachment.class);
+                } catch (JsonProcessingException e) {
+                    // a torn last line from a crash in the middle of a write
+                    continue;
+                }
+                index.put(keyOf(attachment), attachment);
+            }
+        }
+    }
+
+    private static AttachmentKey keyOf(StoredAttachment attachment) {
+        return new AttachmentKey(attachment.getFolderName(), attachment.getUidValidity(), attachment.getUid(),
+                attachment.getSection());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record AttachmentKey(String folderName, long uidValidity, long uid, String section) {
+    }
+}
@@ -0,0 +1,166 @@
+package org.example.simplemailclient.bulkhead;
+
+import jakarta.mail.MessagingException;
+import org.example.simplemailclient.dto.ConcurrencyLimitStats;
+import org.example.simplemailclient.enumeration.FailureKind;
+import org.example.simplemailclient.enumeration.MailProtocol;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * AIMD limit on the calls one account has in flight over one protocol. A call
+ * that completes within the latency threshold while the limit was in use adds
+ * 1/limit, so the limit grows by about one per round of calls. A throttle
+ * reply halves it, a slow call or a dropped connection takes a tenth off.
+ * After a throttle no call starts until a jittered pause has passed, which
+ * doubles with every throttle in a row.
+ */
+public class AdaptiveLimiter {
+
+    private static final double THROTTLE_DECREASE = 0.5;
+    private static final double OVERLOAD_DECREASE = 0.9;
+
+    private final String account;
+    private final MailProtocol protocol;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final long throttlePauseNanos;
+    private final long maxThrottlePauseNanos;
+
+    private final ReentrantLock lock = new ReentrantLock(true);
+    private final Condition changed = lock.newCondition();
+
+    private double limit;
+    private int inFlight;
+    private int consecutiveThrottles;
+    private long pausedUntilNanos = System.nanoTime();
+    private long throttledCount;
+    private long overloadCount;
+
+    public AdaptiveLimiter(String account, MailProtocol protocol, int minLimit, int maxLimit, Duration latencyThreshold,
+                           Duration throttlePause, Duration maxThrottlePause) {
+        this.account = account;
+        this.protocol = protocol;
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.latencyThresholdNanos = latencyThreshold.toNanos();
+        this.throttlePauseNanos = throttlePause.toNanos();
+        this.maxThrottlePauseNanos = maxThrottlePause.toNanos();
+        this.limit = this.maxLimit;
+    }
+
+    // Takes a slot if one is free right now.
+    public boolean tryAcquire() {
+        lock.lock();
+        try {
+            return admit(System.nanoTime());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Waits for a slot until the deadline; gives up at once when a throttle pause outlasts it.
+    public boolean acquire(long deadlineNanos) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (true) {
+                long now = System.nanoTime();
+                if (admit(now)) {
+                    return true;
+                }
+                long remaining = deadlineNanos - now;
+                if (remaining <= 0 || pausedUntilNanos - deadlineNanos > 0) {
+                    return false;
+                }
+                long pause = pausedUntilNanos - now;
+                changed.awaitNanos(pause > 0 ? Math.min(pause, remaining) : remaining);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Frees the slot and adjusts the limit. latencyNanos is negative when the
+     * holder did no mail I/O (a cache hit), which says nothing about the server.
+     */
+    public void release(long latencyNanos, FailureKind failure) {
+        lock.lock();
+        try {
+            int inFlightBefore = inFlight--;
+            if (failure == FailureKind.THROTTLED) {
+                throttledCount++;
+                limit = Math.max(minLimit, limit * THROTTLE_DECREASE);
+                consecutiveThrottles++;
+                long pause = Math.min(maxThrottlePauseNanos, throttlePauseNanos << Math.min(consecutiveThrottles - 1, 20));
+                long until = System.nanoTime() + pause / 2 + ThreadLocalRandom.current().nextLong(pause / 2 + 1);
+                if (until - pausedUntilNanos > 0) {
+                    pausedUntilNanos = until;
+                }
+            } else if (failure == FailureKind.TRANSIENT || latencyNanos > latencyThresholdNanos) {
+                overloadCount++;
+                limit = Math.max(minLimit, limit * OVERLOAD_DECREASE);
+            } else if (latencyNanos >= 0) {
+                consecutiveThrottles = 0;
+                // only grow while the limit is actually what holds callers back
+                if (inFlightBefore * 2 >= limit) {
+                    limit = Math.min(maxLimit, limit + 1 / limit);
+                }
+            }
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Runs the call in a slot, waiting as long as it takes; the SMTP senders have nothing else to do meanwhile.
+    public <T> T execute(BlockingCall<T> call) throws MessagingException, IOException, InterruptedException {
+        // a deadline past the longest pause, so waiting never spins
+        while (!acquire(System.nanoTime() + maxThrottlePauseNanos + TimeUnit.MINUTES.toNanos(1))) {
+            // still full, keep waiting
+        }
+        long started = System.nanoTime();
+        try {
+            T result = call.call();
+            release(System.nanoTime() - started, null);
+            return result;
+        } catch (MessagingException | IOException | RuntimeException e) {
+            release(System.nanoTime() - started, MailFailures.classify(e));
+            throw e;
+        }
+    }
+
+    public boolean isPaused() {
+        lock.lock();
+        try {
+            return pausedUntilNanos - System.nanoTime() > 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public ConcurrencyLimitStats getStats() {
+        lock.lock();
+        try {
+            long pausedFor = Math.max(0, pausedUntilNanos - System.nanoTime());
+            return new ConcurrencyLimitStats(account, protocol, (int) limit, minLimit, maxLimit, inFlight, throttledCount,
+                    overloadCount, TimeUnit.NANOSECONDS.toMillis(pausedFor));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean admit(long now) {
+        if (pausedUntilNanos - now > 0 || inFlight >= (int) limit) {
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+}
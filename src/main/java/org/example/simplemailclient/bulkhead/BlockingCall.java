@@ -0,0 +1,11 @@
+package org.example.simplemailclient.bulkhead;
+
+import jakarta.mail.MessagingException;
+
+import java.io.IOException;
+
+@FunctionalInterface
+public interface BlockingCall<T> {
+
+    T call() throws MessagingException, IOException;
+}
@@ -0,0 +1,191 @@
+package org.example.simplemailclient.bulkhead;
+
+import jakarta.mail.MessagingException;
+import org.example.simplemailclient.dto.BulkheadStats;
+import org.example.simplemailclient.enumeration.FailureKind;
+import org.example.simplemailclient.enumeration.OperationType;
+import org.example.simplemailclient.exception.BulkheadFullException;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * Caps how many calls of one operation class may run at once for one account.
+ * Callers over the limit wait in a bounded queue for at most the queue timeout
+ * and are rejected after that, instead of piling up behind slow mail I/O. Calls
+ * also need a slot of the account's {@link AdaptiveLimiter} for the protocol,
+ * which shrinks when the server throttles us.
+ */
+public class Bulkhead {
+
+    private final String account;
+    private final OperationType operation;
+    private final int maxConcurrent;
+    private final int maxQueued;
+    private final Duration queueTimeout;
+    private final Semaphore permits;
+    // null for operations without mail I/O of their own
+    private final AdaptiveLimiter limiter;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong acceptedCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong timedOutCount = new AtomicLong();
+    private final AtomicLong retriedCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+
+    public Bulkhead(String account, OperationType operation, int maxConcurrent, int maxQueued, Duration queueTimeout,
+                    AdaptiveLimiter limiter, int maxAttempts, Duration initialBackoff, Duration maxBackoff) {
+        this.account = account;
+        this.operation = operation;
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueued = maxQueued;
+        this.queueTimeout = queueTimeout;
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.limiter = limiter;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+    }
+
+    // Idempotent operations are tried again after throttling and transient failures, with jittered exponential backoff.
+    public <T> T execute(BlockingCall<T> call) throws MessagingException, IOException {
+        for (int attempt = 1; ; attempt++) {
+            try (Permit permit = enter()) {
+                return permit.execute(call);
+            } catch (MessagingException | IOException | RuntimeException e) {
+                if (!operation.isIdempotent() || attempt >= maxAttempts || e instanceof BulkheadFullException
+                        || MailFailures.classify(e) == FailureKind.PERMANENT) {
+                    throw e;
+                }
+                retriedCount.incrementAndGet();
+                sleep(backoff(attempt));
+            }
+        }
+    }
+
+    // For work that cannot be wrapped in one call, such as a streamed response; closing the permit leaves the bulkhead.
+    public Permit enter() {
+        acquire();
+        active.incrementAndGet();
+        return new Permit();
+    }
+
+    public BulkheadStats getStats() {
+        long accepted = acceptedCount.get();
+        double averageWaitMillis = accepted == 0 ? 0 : totalWaitNanos.get() / 1_000_000.0 / accepted;
+        int running = active.get();
+        return new BulkheadStats(account, operation, maxConcurrent, maxQueued, running, queued.get(),
+                (double) running / maxConcurrent, accepted, rejectedCount.get(), timedOutCount.get(),
+                retriedCount.get(), averageWaitMillis, maxWaitNanos.get() / 1_000_000.0);
+    }
+
+    private void acquire() {
+        long waitStart = System.nanoTime();
+        boolean ownPermit = permits.tryAcquire();
+        if (ownPermit && (limiter == null || limiter.tryAcquire())) {
+            acceptedCount.incrementAndGet();
+            return;
+        }
+
+        if (queued.incrementAndGet() > maxQueued) {
+            queued.decrementAndGet();
+            if (ownPermit) {
+                permits.release();
+            }
+            rejectedCount.incrementAndGet();
+            throw new BulkheadFullException("Too many " + operation.name().toLowerCase() + " requests waiting for " + account);
+        }
+        long deadline = waitStart + queueTimeout.toNanos();
+        boolean acquired = false;
+        try {
+            if (!ownPermit) {
+                ownPermit = permits.tryAcquire(queueTimeout.toNanos(), TimeUnit.NANOSECONDS);
+            }
+            acquired = ownPermit && (limiter == null || limiter.acquire(deadline));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BulkheadFullException("Interrupted while waiting to run a " + operation.name().toLowerCase() + " request");
+        } finally {
+            queued.decrementAndGet();
+            if (ownPermit && !acquired) {
+                permits.release();
+            }
+        }
+        if (!acquired) {
+            timedOutCount.incrementAndGet();
+            if (limiter != null && limiter.isPaused()) {
+                throw new BulkheadFullException("The mail server is throttling " + account + ", try again later");
+            }
+            throw new BulkheadFullException("Timed out waiting to run a " + operation.name().toLowerCase() + " request for " + account);
+        }
+
+        long waitNanos = System.nanoTime() - waitStart;
+        acceptedCount.incrementAndGet();
+        totalWaitNanos.addAndGet(waitNanos);
+        maxWaitNanos.accumulate(waitNanos);
+    }
+
+    // Full jitter: anywhere between zero and the exponential backoff, so retrying callers spread out.
+    private long backoff(int attempt) {
+        long ceiling = Math.min(maxBackoff.toMillis(), initialBackoff.toMillis() << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BulkheadFullException("Interrupted while backing off a " + operation.name().toLowerCase() + " request");
+        }
+    }
+
+    public final class Permit implements AutoCloseable {
+
+        private boolean released;
+        // time and outcome of the mail I/O done under this permit, -1 while there was none
+        private long latencyNanos = -1;
+        private FailureKind failure;
+
+        private Permit() {
+        }
+
+        // Runs mail I/O under the permit and reports its latency and failures to the adaptive limit.
+        public <T> T execute(BlockingCall<T> call) throws MessagingException, IOException {
+            long started = System.nanoTime();
+            try {
+                T result = call.call();
+                latencyNanos = System.nanoTime() - started;
+                return result;
+            } catch (MessagingException | IOException | RuntimeException e) {
+                latencyNanos = System.nanoTime() - started;
+                failure = MailFailures.classify(e);
+                throw e;
+            }
+        }
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                active.decrementAndGet();
+                if (limiter != null) {
+                    limiter.release(latencyNanos, failure);
+                }
+                permits.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package org.example.simplemailclient.bulkhead;
+
+import jakarta.mail.MessagingException;
+import org.example.simplemailclient.dto.BulkheadStats;
+import org.example.simplemailclient.dto.ConcurrencyLimitStats;
+import org.example.simplemailclient.enumeration.MailProtocol;
+import org.example.simplemailclient.enumeration.OperationType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One {@link Bulkhead} per account and operation class, created on first use, so
+ * a flood of one kind of request can only exhaust its own share of the mail
+ * connections. The bulkheads of one account and protocol share an
+ * {@link AdaptiveLimiter}, since the server throttles the account as a whole.
+ */
+@Component
+public class BulkheadRegistry {
+
+    @Value("${spring.mail.username}")
+    private String defaultAccount;
+
+    @Value("${bulkhead.queue-timeout:5s}")
+    private Duration queueTimeout;
+
+    @Value("${bulkhead.fetch.max-concurrent:3}")
+    private int fetchMaxConcurrent;
+
+    @Value("${bulkhead.fetch.max-queued:50}")
+    private int fetchMaxQueued;
+
+    @Value("${bulkhead.search.max-concurrent:2}")
+    private int searchMaxConcurrent;
+
+    @Value("${bulkhead.search.max-queued:20}")
+    private int searchMaxQueued;
+
+    @Value("${bulkhead.mutate.max-concurrent:2}")
+    private int mutateMaxConcurrent;
+
+    @Value("${bulkhead.mutate.max-queued:20}")
+    private int mutateMaxQueued;
+
+    @Value("${bulkhead.send.max-concurrent:4}")
+    private int sendMaxConcurrent;
+
+    @Value("${bulkhead.send.max-queued:100}")
+    private int sendMaxQueued;
+
+    @Value("${bulkhead.adaptive.enabled:true}")
+    private boolean adaptiveEnabled;
+
+    @Value("${bulkhead.adaptive.min-limit:1}")
+    private int minLimit;
+
+    // the pool cannot run more IMAP calls than it has connections
+    @Value("${bulkhead.adaptive.imap.max-limit:${imap.pool.max-size:4}}")
+    private int imapMaxLimit;
+
+    // every SMTP connection of the account: the outbound workers and the bulk send transports
+    @Value("${bulkhead.adaptive.smtp.max-limit:6}")
+    private int smtpMaxLimit;
+
+    // a call slower than this counts as a sign of overload
+    @Value("${bulkhead.adaptive.latency-threshold:10s}")
+    private Duration latencyThreshold;
+
+    @Value("${bulkhead.adaptive.throttle-pause:1s}")
+    private Duration throttlePause;
+
+    @Value("${bulkhead.adaptive.max-throttle-pause:60s}")
+    private Duration maxThrottlePause;
+
+    @Value("${bulkhead.retry.max-attempts:3}")
+    private int retryMaxAttempts;
+
+    @Value("${bulkhead.retry.initial-backoff:200ms}")
+    private Duration retryInitialBackoff;
+
+    @Value("${bulkhead.retry.max-backoff:5s}")
+    private Duration retryMaxBackoff;
+
+    private final Map<String, Bulkhead> bulkheads = new ConcurrentHashMap<>();
+
+    private final Map<String, AdaptiveLimiter> limiters = new ConcurrentHashMap<>();
+
+    public <T> T execute(OperationType operation, BlockingCall<T> call) throws MessagingException, IOException {
+        return execute(defaultAccount, operation, call);
+    }
+
+    public <T> T execute(String account, OperationType operation, BlockingCall<T> call) throws MessagingException, IOException {
+        return get(account, operation).execute(call);
+    }
+
+    public Bulkhead.Permit enter(OperationType operation) {
+        return get(defaultAccount, operation).enter();
+    }
+
+    public Bulkhead get(String account, OperationType operation) {
+        return bulkheads.computeIfAbsent(account + "/" + operation, key -> switch (operation) {
+            case FETCH -> createBulkhead(account, operation, fetchMaxConcurrent, fetchMaxQueued);
+            case SEARCH -> createBulkhead(account, operation, searchMaxConcurrent, searchMaxQueued);
+            case MUTATE -> createBulkhead(account, operation, mutateMaxConcurrent, mutateMaxQueued);
+            case SEND -> createBulkhead(account, operation, sendMaxConcurrent, sendMaxQueued);
+        });
+    }
+
+    public AdaptiveLimiter getLimiter(MailProtocol protocol) {
+        return getLimiter(defaultAccount, protocol);
+    }
+
+    public AdaptiveLimiter getLimiter(String account, MailProtocol protocol) {
+        return limiters.computeIfAbsent(account + "/" + protocol, key -> {
+            int maxLimit = protocol == MailProtocol.IMAP ? imapMaxLimit : smtpMaxLimit;
+            // disabled means a fixed limit at the maximum that still honours throttle pauses
+            return new AdaptiveLimiter(account, protocol, adaptiveEnabled ? minLimit : maxLimit, maxLimit, latencyThreshold,
+                    throttlePause, maxThrottlePause);
+        });
+    }
+
+    public List<BulkheadStats> getStats() {
+        return bulkheads.values().stream()
+                .map(Bulkhead::getStats)
+                .sorted(Comparator.comparing(BulkheadStats::getAccount).thenComparing(BulkheadStats::getOperation))
+                .toList();
+    }
+
+    public List<ConcurrencyLimitStats> getLimiterStats() {
+        return limiters.values().stream()
+                .map(AdaptiveLimiter::getStats)
+                .sorted(Comparator.comparing(ConcurrencyLimitStats::getAccount).thenComparing(ConcurrencyLimitStats::getProtocol))
+                .toList();
+    }
+
+    private Bulkhead createBulkhead(String account, OperationType operation, int maxConcurrent, int maxQueued) {
+        AdaptiveLimiter limiter = operation.getProtocol() != null ? getLimiter(account, operation.getProtocol()) : null;
+        return new Bulkhead(account, operation, maxConcurrent, maxQueued, queueTimeout, limiter, retryMaxAttempts,
+                retryInitialBackoff, retryMaxBackoff);
+    }
+}
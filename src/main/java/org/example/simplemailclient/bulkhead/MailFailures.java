@@ -0,0 +1,63 @@
+package org.example.simplemailclient.bulkhead;
+
+import com.sun.mail.iap.ConnectionException;
+import com.sun.mail.smtp.SMTPAddressFailedException;
+import com.sun.mail.smtp.SMTPSendFailedException;
+import com.sun.mail.smtp.SMTPSenderFailedException;
+import com.sun.mail.util.MailConnectException;
+import jakarta.mail.FolderClosedException;
+import jakarta.mail.StoreClosedException;
+import org.example.simplemailclient.enumeration.FailureKind;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Sorts mail errors into throttling, transient and permanent failures by
+ * walking the exception chain for IMAP response codes, SMTP reply codes and
+ * connection errors.
+ */
+public class MailFailures {
+
+    // IMAP response codes (RFC 5530) and Gmail wording that mean "slow down"
+    private static final List<String> THROTTLE_MARKERS = List.of("[THROTTLED]", "[LIMIT]", "[UNAVAILABLE]",
+            "EXCEEDED COMMAND OR BANDWIDTH LIMITS", "TOO MANY SIMULTANEOUS CONNECTIONS");
+
+    // deep enough for MessagingException -> ProtocolException -> IOException chains
+    private static final int MAX_DEPTH = 8;
+
+    public static FailureKind classify(Throwable error) {
+        FailureKind kind = FailureKind.PERMANENT;
+        Throwable current = error;
+        for (int depth = 0; current != null && depth < MAX_DEPTH; depth++, current = current.getCause()) {
+            String message = current.getMessage() != null ? current.getMessage().toUpperCase(Locale.ROOT) : "";
+            if (THROTTLE_MARKERS.stream().anyMatch(message::contains)) {
+                return FailureKind.THROTTLED;
+            }
+            int smtpCode = smtpReturnCode(current);
+            if (smtpCode >= 400 && smtpCode < 500) {
+                return FailureKind.THROTTLED;
+            }
+            if (current instanceof ConnectionException || current instanceof StoreClosedException
+                    || current instanceof FolderClosedException || current instanceof MailConnectException
+                    || current instanceof IOException) {
+                kind = FailureKind.TRANSIENT;
+            }
+        }
+        return kind;
+    }
+
+    private static int smtpReturnCode(Throwable error) {
+        if (error instanceof SMTPSendFailedException failed) {
+            return failed.getReturnCode();
+        }
+        if (error instanceof SMTPAddressFailedException failed) {
+            return failed.getReturnCode();
+        }
+        if (error instanceof SMTPSenderFailedException failed) {
+            return failed.getReturnCode();
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,248 @@
+package org.example.simplemailclient.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.example.simplemailclient.dto.BodyCacheStats;
+import org.example.simplemailclient.dto.MessageBody;
+import org.example.simplemailclient.enumeration.BodyType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Size-bounded LRU cache of decoded message bodies keyed by (folder, UIDVALIDITY,
+ * UID, body type). Entries are weighed by their text size. When spilling is
+ * enabled, evicted bodies move to a second, larger LRU tier on disk instead of
+ * being dropped; the disk tier is discarded on restart.
+ */
+@Component
+public class BodyCache {
+
+    // rough per-entry overhead of key, value and map node
+    private static final int ENTRY_OVERHEAD = 256;
+
+    @Value("${imap.body-cache.max-size:32MB}")
+    private DataSize maxSize;
+
+    @Value("${imap.body-cache.spill.enabled:false}")
+    private boolean spillEnabled;
+
+    @Value("${imap.body-cache.spill.directory:${java.io.tmpdir}/simple-mail-client/bodies}")
+    private String spillDirectory;
+
+    @Value("${imap.body-cache.spill.max-size:256MB}")
+    private DataSize spillMaxSize;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final LinkedHashMap<BodyKey, MessageBody> entries = new LinkedHashMap<>(256, 0.75f, true);
+
+    private final LinkedHashMap<BodyKey, SpilledBody> spilled = new LinkedHashMap<>(256, 0.75f, true);
+
+    // last UIDVALIDITY seen per folder, so lookups need no IMAP round trip
+    private final Map<String, Long> uidValidities = new ConcurrentHashMap<>();
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong spillHitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    private long weight;
+    private long spilledBytes;
+
+    @PostConstruct
+    public void init() throws IOException {
+        if (spillEnabled) {
+            // the spill index lives in memory only, files from a previous run are unreachable
+            FileSystemUtils.deleteRecursively(Paths.get(spillDirectory));
+            Files.createDirectories(Paths.get(spillDirectory));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException {
+        if (spillEnabled) {
+            FileSystemUtils.deleteRecursively(Paths.get(spillDirectory));
+        }
+    }
+
+    public Optional<MessageBody> get(String folderName, long uid, BodyType type) {
+        Long uidValidity = uidValidities.get(folderName);
+        if (uidValidity == null) {
+            missCount.incrementAndGet();
+            return Optional.empty();
+        }
+        BodyKey key = new BodyKey(folderName, uidValidity, uid, type);
+
+        SpilledBody spilledBody;
+        synchronized (this) {
+            MessageBody body = entries.get(key);
+            if (body != null) {
+                hitCount.incrementAndGet();
+                return Optional.of(body);
+            }
+            spilledBody = spilled.remove(key);
+            if (spilledBody != null) {
+                spilledBytes -= spilledBody.size();
+            }
+        }
+
+        if (spilledBody != null) {
+            try {
+                MessageBody body = objectMapper.readValue(spilledBody.file().toFile(), MessageBody.class);
+                Files.deleteIfExists(spilledBody.file());
+                spillHitCount.incrementAndGet();
+                put(key, body);
+                return Optional.of(body);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        missCount.incrementAndGet();
+        return Optional.empty();
+    }
+
+    public void put(String folderName, long uidValidity, long uid, BodyType type, MessageBody body) {
+        Long previous = uidValidities.put(folderName, uidValidity);
+        if (previous != null && previous != uidValidity) {
+            removeFolder(folderName);
+        }
+        put(new BodyKey(folderName, uidValidity, uid, type), body);
+    }
+
+    @EventListener
+    public void onFolderSynced(FolderSyncedEvent event) {
+        uidValidities.put(event.getFolderName(), event.getUidValidity());
+        if (event.isReset()) {
+            removeFolder(event.getFolderName());
+        } else if (!event.getRemovedUids().isEmpty()) {
+            Set<Long> removed = new HashSet<>(event.getRemovedUids());
+            removeIf(key -> key.folderName().equals(event.getFolderName()) && removed.contains(key.uid()));
+        }
+    }
+
+    public synchronized BodyCacheStats getStats() {
+        return new BodyCacheStats(entries.size(), weight, maxSize.toBytes(), spilled.size(), spilledBytes,
+                hitCount.get(), spillHitCount.get(), missCount.get(), evictionCount.get());
+    }
+
+    private void put(BodyKey key, MessageBody body) {
+        List<Map.Entry<BodyKey, MessageBody>> evicted = new ArrayList<>();
+        synchronized (this) {
+            MessageBody replaced = entries.put(key, body);
+            if (replaced != null) {
+                weight -= weigh(replaced);
+            }
+            weight += weigh(body);
+
+            Iterator<Map.Entry<BodyKey, MessageBody>> iterator = entries.entrySet().iterator();
+            while (weight > maxSize.toBytes() && iterator.hasNext()) {
+                Map.Entry<BodyKey, MessageBody> eldest = iterator.next();
+                iterator.remove();
+                weight -= weigh(eldest.getValue());
+                evictionCount.incrementAndGet();
+                evicted.add(eldest);
+            }
+        }
+        if (spillEnabled) {
+            evicted.forEach(entry -> spill(entry.getKey(), entry.getValue()));
+        }
+    }
+
+    // Writes happen outside the lock; the entry becomes visible once the file is complete.
+    private void spill(BodyKey key, MessageBody body) {
+        Path file = Paths.get(spillDirectory, UUID.randomUUID() + ".json");
+        try {
+            objectMapper.writeValue(file.toFile(), body);
+            long size = Files.size(file);
+
+            List<Path> dropped = new ArrayList<>();
+            synchronized (this) {
+                SpilledBody replaced = spilled.put(key, new SpilledBody(file, size));
+                if (replaced != null) {
+                    spilledBytes -= replaced.size();
+                    dropped.add(replaced.file());
+                }
+                spilledBytes += size;
+
+                Iterator<SpilledBody> iterator = spilled.values().iterator();
+                while (spilledBytes > spillMaxSize.toBytes() && iterator.hasNext()) {
+                    SpilledBody eldest = iterator.next();
+                    iterator.remove();
+                    spilledBytes -= eldest.size();
+                    dropped.add(eldest.file());
+                }
+            }
+            for (Path path : dropped) {
+                Files.deleteIfExists(path);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void removeFolder(String folderName) {
+        removeIf(key -> key.folderName().equals(folderName));
+    }
+
+    private void removeIf(Predicate<BodyKey> filter) {
+        List<Path> dropped = new ArrayList<>();
+        synchronized (this) {
+            Iterator<Map.Entry<BodyKey, MessageBody>> iterator = entries.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<BodyKey, MessageBody> entry = iterator.next();
+                if (filter.test(entry.getKey())) {
+                    iterator.remove();
+                    weight -= weigh(entry.getValue());
+                }
+            }
+            Iterator<Map.Entry<BodyKey, SpilledBody>> spilledIterator = spilled.entrySet().iterator();
+            while (spilledIterator.hasNext()) {
+                Map.Entry<BodyKey, SpilledBody> entry = spilledIterator.next();
+                if (filter.test(entry.getKey())) {
+                    spilledIterator.remove();
+                    spilledBytes -= entry.getValue().size();
+                    dropped.add(entry.getValue().file());
+                }
+            }
+        }
+        for (Path path : dropped) {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private static long weigh(MessageBody body) {
+        // Strings of non-Latin-1 text take two bytes per char
+        return ENTRY_OVERHEAD + 2L * (body.getText() != null ? body.getText().length() : 0);
+    }
+
+    private record BodyKey(String folderName, long uidValidity, long uid, BodyType type) {
+    }
+
+    private record SpilledBody(Path file, long size) {
+    }
+}
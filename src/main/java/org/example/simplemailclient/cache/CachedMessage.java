@@ -0,0 +1,28 @@
+package org.example.simplemailclient.cache;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.simplemailclient.dto.EmailResponse;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CachedMessage {
+
+    private EmailResponse email;
+    private List<String> flags;
+
+    @JsonIgnore
+    public long getUid() {
+        return email.getUid();
+    }
+
+    @JsonIgnore
+    public boolean isSeen() {
+        return flags.contains("\\Seen");
+    }
+}
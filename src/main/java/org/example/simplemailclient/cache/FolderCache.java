@@ -0,0 +1,74 @@
+package org.example.simplemailclient.cache;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Locally cached headers of one folder, valid for a single UIDVALIDITY.
+ * Readers take the current {@link Window} once and answer from it; a sync
+ * that reloads the folder builds a new window and publishes it in one step,
+ * so a reader never pairs the bounds of one window with the messages of
+ * another. Incremental syncs change the messages of the current window.
+ */
+@Data
+@NoArgsConstructor
+public class FolderCache {
+
+    // bumped when the cached fields change, older files are discarded and rebuilt
+    public static final int VERSION = 4;
+
+    private int version;
+    private String folderName;
+    private long uidValidity;
+    private long highestModSeq;
+    private long lastUid;
+    private int serverMessageCount;
+
+    private volatile Window window = Window.empty();
+
+    private volatile long lastSyncAt;
+
+    private volatile boolean stale;
+
+    // changed since the snapshot file was last written
+    private volatile boolean unsaved;
+
+    public FolderCache(String folderName) {
+        this.folderName = folderName;
+        this.version = VERSION;
+    }
+
+    FolderCache(String folderName, HeaderSnapshot snapshot) {
+        this(folderName);
+        this.uidValidity = snapshot.getUidValidity();
+        this.highestModSeq = snapshot.getHighestModSeq();
+        this.lastUid = snapshot.getLastUid();
+        this.serverMessageCount = snapshot.getServerMessageCount();
+        this.window = new Window(snapshot, new ConcurrentSkipListMap<>(), snapshot.getLowestUid(), snapshot.isComplete());
+    }
+
+    // Readers see an empty window, which answers nothing, until the folder is loaded again.
+    void reset(long uidValidity) {
+        this.uidValidity = uidValidity;
+        this.highestModSeq = 0;
+        this.lastUid = 0;
+        this.serverMessageCount = 0;
+        this.window = Window.empty();
+    }
+
+    /**
+     * The cached messages: every message with a UID of at least {@code lowestUid};
+     * {@code complete} is set when that covers the whole folder. After a restart
+     * they are read from the mapped {@code snapshot}, which is null once the
+     * folder has been synced in this run.
+     */
+    public record Window(HeaderSnapshot snapshot, ConcurrentSkipListMap<Long, CachedMessage> messages, long lowestUid,
+                         boolean complete) {
+
+        static Window empty() {
+            return new Window(null, new ConcurrentSkipListMap<>(), Long.MAX_VALUE, false);
+        }
+    }
+}
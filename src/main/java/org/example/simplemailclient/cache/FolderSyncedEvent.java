@@ -0,0 +1,22 @@
+package org.example.simplemailclient.cache;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class FolderSyncedEvent {
+
+    private String folderName;
+    private long uidValidity;
+    private boolean reset;
+    private List<Long> addedUids = new ArrayList<>();
+    private List<Long> removedUids = new ArrayList<>();
+
+    public FolderSyncedEvent(String folderName) {
+        this.folderName = folderName;
+    }
+}
@@ -0,0 +1,509 @@
+package org.example.simplemailclient.cache;
+
+import com.sun.mail.iap.Response;
+import com.sun.mail.imap.IMAPFolder;
+import com.sun.mail.imap.protocol.FLAGS;
+import com.sun.mail.imap.protocol.FetchResponse;
+import com.sun.mail.imap.protocol.Status;
+import com.sun.mail.imap.protocol.UID;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.Flags;
+import jakarta.mail.Folder;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.UIDFolder;
+import org.example.simplemailclient.dto.EmailResponse;
+import org.example.simplemailclient.imap.ImapConnectionPool;
+import org.example.simplemailclient.util.MessageUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Persistent per-folder header cache keyed by (folder, UIDVALIDITY, UID).
+ * A refresh only transfers what changed since the previous sync: new UIDs,
+ * flag changes (via CHANGEDSINCE when the server has CONDSTORE) and expunged
+ * UIDs. A UIDVALIDITY change drops everything cached for the folder.
+ * <p>
+ * Only a folder with nothing cached is synced on the request thread. Once a
+ * folder has been loaded, reads are answered from what is cached and a due
+ * refresh runs on a background thread; our own writes refresh the folders
+ * they changed before they return, so a read that follows them sees the change.
+ * <p>
+ * Folders that changed are written to a {@link HeaderSnapshot} every
+ * {@code imap.cache.snapshot-interval} and on shutdown. On startup the
+ * snapshots are memory-mapped and answer reads right away; once the
+ * application is ready the folders are synced one after another in the
+ * background, instead of all logging in at the first requests.
+ */
+@Component
+public class HeaderCache {
+
+    private static final String CONDSTORE = "CONDSTORE";
+
+    private static final String SNAPSHOT_EXTENSION = ".snapshot";
+
+    @Value("${imap.cache.directory:${user.home}/.simple-mail-client/headers}")
+    private String directory;
+
+    @Value("${imap.cache.refresh-interval:15s}")
+    private Duration refreshInterval;
+
+    @Value("${imap.cache.initial-sync-limit:500}")
+    private int initialSyncLimit;
+
+    @Value("${imap.cache.snapshot-interval:1m}")
+    private Duration snapshotInterval;
+
+    private final ImapConnectionPool connectionPool;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final ConcurrentMap<String, FolderCache> folders = new ConcurrentHashMap<>();
+
+    // folders with a background refresh queued or running
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    // warm-up, refreshes and snapshot writes, one connection at a time
+    private ScheduledExecutorService background;
+
+    @Autowired
+    public HeaderCache(ImapConnectionPool connectionPool, ApplicationEventPublisher eventPublisher) {
+        this.connectionPool = connectionPool;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostConstruct
+    public void init() {
+        background = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "header-cache-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        background.scheduleWithFixedDelay(this::saveChanged, snapshotInterval.toMillis(), snapshotInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+
+        Path snapshotDirectory = Paths.get(directory);
+        if (!Files.isDirectory(snapshotDirectory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(snapshotDirectory)) {
+            files.map(file -> file.getFileName().toString())
+                    .filter(fileName -> fileName.endsWith(SNAPSHOT_EXTENSION))
+                    .map(fileName -> URLDecoder.decode(fileName.substring(0, fileName.length() - SNAPSHOT_EXTENSION.length()),
+                            StandardCharsets.UTF_8))
+                    .forEach(folderName -> folders.computeIfAbsent(folderName, this::load));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        background.shutdownNow();
+        saveChanged();
+    }
+
+    // Brings the folders restored from snapshots up to date, one connection at a time.
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        for (FolderCache cache : folders.values()) {
+            if (cache.getWindow().snapshot() == null) {
+                continue;
+            }
+            background.submit(() -> {
+                try {
+                    syncIf(cache, current -> current.getWindow().snapshot() != null);
+                } catch (MessagingException | IOException | RuntimeException e) {
+                    e.printStackTrace();
+                }
+            });
+        }
+    }
+
+    /**
+     * Returns one page of cached headers, newest first, or empty when the cached window
+     * cannot answer it completely. {@code seen} filters by read status when not null.
+     */
+    public Optional<List<EmailResponse>> findPage(String folderName, Long beforeUid, Long afterUid, int pageSize, Boolean seen)
+            throws MessagingException, IOException {
+        FolderCache.Window window = getSynced(folderName).getWindow();
+        HeaderSnapshot snapshot = window.snapshot();
+        Predicate<CachedMessage> filter = seen == null ? message -> true : message -> message.isSeen() == seen;
+
+        NavigableMap<Long, CachedMessage> range = window.messages();
+        if (beforeUid != null) {
+            range = range.headMap(beforeUid, false);
+        }
+
+        if (afterUid != null) {
+            // messages between afterUid and the start of the cached window are unknown
+            if (!window.complete() && afterUid + 1 < window.lowestUid()) {
+                return Optional.empty();
+            }
+            List<EmailResponse> emails = snapshot != null
+                    ? snapshot.oldest(afterUid, beforeUid, pageSize, seen)
+                    : range.tailMap(afterUid, false).values().stream()
+                    .filter(filter)
+                    .limit(pageSize)
+                    .map(CachedMessage::getEmail)
+                    .collect(Collectors.toCollection(ArrayList::new));
+            Collections.reverse(emails);
+            return Optional.of(emails);
+        }
+
+        List<EmailResponse> emails = snapshot != null
+                ? snapshot.newest(beforeUid, pageSize, seen)
+                : range.descendingMap().values().stream()
+                .filter(filter)
+                .limit(pageSize)
+                .map(CachedMessage::getEmail)
+                .toList();
+
+        // older messages outside the cached window might still belong to this page
+        if (emails.size() < pageSize && !window.complete()) {
+            return Optional.empty();
+        }
+        return Optional.of(emails);
+    }
+
+    public Optional<EmailResponse> findByUid(String folderName, long uid) throws MessagingException, IOException {
+        return find(getSynced(folderName).getWindow(), uid);
+    }
+
+    public void ensureSynced(String folderName) throws MessagingException, IOException {
+        getSynced(folderName);
+    }
+
+    // What the last sync left in the cache, oldest first; no IMAP round trip.
+    public List<EmailResponse> getCachedEmails(String folderName) {
+        FolderCache cache = folders.get(folderName);
+        if (cache == null) {
+            return List.of();
+        }
+        FolderCache.Window window = cache.getWindow();
+        HeaderSnapshot snapshot = window.snapshot();
+        if (snapshot != null) {
+            return snapshot.oldest(0, null, snapshot.size(), null);
+        }
+        return window.messages().values().stream().map(CachedMessage::getEmail).toList();
+    }
+
+    public Optional<EmailResponse> getCachedEmail(String folderName, long uid) {
+        FolderCache cache = folders.get(folderName);
+        return cache == null ? Optional.empty() : find(cache.getWindow(), uid);
+    }
+
+    private static Optional<EmailResponse> find(FolderCache.Window window, long uid) {
+        HeaderSnapshot snapshot = window.snapshot();
+        if (snapshot != null) {
+            return Optional.ofNullable(snapshot.find(uid));
+        }
+        return Optional.ofNullable(window.messages().get(uid)).map(CachedMessage::getEmail);
+    }
+
+    // The folder changed on the server; it is refreshed in the background, reads keep being served meanwhile.
+    public void markStale(String folderName) {
+        FolderCache cache = folders.get(folderName);
+        if (cache != null) {
+            cache.setStale(true);
+            refreshInBackground(cache);
+        }
+    }
+
+    // Syncs a loaded folder now; for our own writes, which return only once a following read sees them.
+    public void refresh(String folderName) {
+        FolderCache cache = folders.get(folderName);
+        if (cache == null || !isLoaded(cache)) {
+            return;
+        }
+        cache.setStale(true);
+        try {
+            syncIf(cache, this::needsSync);
+        } catch (MessagingException | IOException | RuntimeException e) {
+            // still stale, the next read queues a refresh
+            e.printStackTrace();
+        }
+    }
+
+    // Only a folder with nothing to serve waits for IMAP.
+    private FolderCache getSynced(String folderName) throws MessagingException, IOException {
+        FolderCache cache = folders.computeIfAbsent(folderName, this::load);
+        if (!isLoaded(cache)) {
+            syncIf(cache, current -> !isLoaded(current));
+        } else if (needsSync(cache)) {
+            refreshInBackground(cache);
+        }
+        return cache;
+    }
+
+    private void refreshInBackground(FolderCache cache) {
+        if (!refreshing.add(cache.getFolderName())) {
+            return;
+        }
+        try {
+            background.execute(() -> {
+                try {
+                    syncIf(cache, this::needsSync);
+                } catch (MessagingException | IOException | RuntimeException e) {
+                    e.printStackTrace();
+                } finally {
+                    refreshing.remove(cache.getFolderName());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // shutting down
+            refreshing.remove(cache.getFolderName());
+        }
+    }
+
+    // Runs the sync when the condition still holds once the folder's lock is taken.
+    private void syncIf(FolderCache cache, Predicate<FolderCache> condition) throws MessagingException, IOException {
+        FolderSyncedEvent event = null;
+        synchronized (cache) {
+            if (condition.test(cache)) {
+                cache.setStale(false);
+                FolderCache.Window window = cache.getWindow();
+                if (window.snapshot() != null) {
+                    // readers stay on the snapshot until the copy is complete
+                    ConcurrentSkipListMap<Long, CachedMessage> messages = new ConcurrentSkipListMap<>();
+                    window.snapshot().copyTo(messages);
+                    cache.setWindow(new FolderCache.Window(null, messages, window.lowestUid(), window.complete()));
+                }
+                long uidValidity = cache.getUidValidity();
+                long highestModSeq = cache.getHighestModSeq();
+                int serverMessageCount = cache.getServerMessageCount();
+                try {
+                    event = sync(cache);
+                } catch (MessagingException | IOException | RuntimeException e) {
+                    cache.setStale(true);
+                    throw e;
+                }
+                cache.setLastSyncAt(System.currentTimeMillis());
+                if (event.isReset() || !event.getAddedUids().isEmpty() || !event.getRemovedUids().isEmpty()
+                        || uidValidity != cache.getUidValidity() || highestModSeq != cache.getHighestModSeq()
+                        || serverMessageCount != cache.getServerMessageCount()) {
+                    cache.setUnsaved(true);
+                }
+            }
+        }
+        if (event != null) {
+            eventPublisher.publishEvent(event);
+        }
+    }
+
+    // Synced in this run, or restored from a snapshot.
+    private static boolean isLoaded(FolderCache cache) {
+        return cache.getLastSyncAt() != 0;
+    }
+
+    private boolean needsSync(FolderCache cache) {
+        return cache.isStale() || System.currentTimeMillis() - cache.getLastSyncAt() >= refreshInterval.toMillis();
+    }
+
+    private FolderSyncedEvent sync(FolderCache cache) throws MessagingException, IOException {
+        return connectionPool.executeIdempotent(connection -> {
+            FolderSyncedEvent event = new FolderSyncedEvent(cache.getFolderName());
+            IMAPFolder folder = connection.openFolder(cache.getFolderName(), Folder.READ_ONLY);
+
+            long uidValidity = folder.getUIDValidity();
+            if (cache.getUidValidity() != uidValidity) {
+                cache.reset(uidValidity);
+                event.setReset(true);
+            }
+            event.setUidValidity(uidValidity);
+
+            boolean condstore = connection.getStore().hasCapability(CONDSTORE);
+            long highestModSeq = condstore ? fetchHighestModSeq(folder) : 0;
+            int messageCount = folder.getMessageCount();
+
+            if (cache.getLastUid() == 0) {
+                loadInitialWindow(folder, cache, messageCount, event);
+            } else {
+                long previousLastUid = cache.getLastUid();
+                int added = loadNewMessages(folder, cache, event);
+                boolean expunged = messageCount != cache.getServerMessageCount() + added;
+
+                if (!condstore || cache.getHighestModSeq() == 0 || expunged) {
+                    resyncWindow(folder, cache, previousLastUid, event);
+                } else if (highestModSeq != cache.getHighestModSeq()) {
+                    Map<Long, Flags> changed = uidFetchFlags(folder, cache.getWindow().lowestUid(), previousLastUid,
+                            cache.getHighestModSeq());
+                    changed.forEach((uid, flags) -> updateFlags(cache, uid, flags));
+                }
+            }
+
+            cache.setHighestModSeq(highestModSeq);
+            cache.setServerMessageCount(messageCount);
+            return event;
+        });
+    }
+
+    // Builds the window off to the side; readers keep the previous one until it is published whole.
+    private void loadInitialWindow(IMAPFolder folder, FolderCache cache, int messageCount, FolderSyncedEvent event) throws MessagingException {
+        int start = Math.max(1, messageCount - initialSyncLimit + 1);
+        ConcurrentSkipListMap<Long, CachedMessage> window = new ConcurrentSkipListMap<>();
+        if (messageCount > 0) {
+            addMessages(folder, cache, window, Arrays.asList(folder.getMessages(start, messageCount)), event);
+        }
+        long lowestUid = start == 1 || window.isEmpty() ? 1 : window.firstKey();
+        cache.setWindow(new FolderCache.Window(null, window, lowestUid, start == 1));
+    }
+
+    private int loadNewMessages(IMAPFolder folder, FolderCache cache, FolderSyncedEvent event) throws MessagingException {
+        long lastUid = cache.getLastUid();
+        List<Message> messages = new ArrayList<>();
+        // "n:*" always matches the newest message, even if its UID is below n
+        for (Message message : folder.getMessagesByUID(lastUid + 1, UIDFolder.LASTUID)) {
+            if (message != null && folder.getUID(message) > lastUid) {
+                messages.add(message);
+            }
+        }
+        addMessages(folder, cache, cache.getWindow().messages(), messages, event);
+        return messages.size();
+    }
+
+    private void addMessages(IMAPFolder folder, FolderCache cache, Map<Long, CachedMessage> window, List<Message> messages,
+                             FolderSyncedEvent event) throws MessagingException {
+        MessageUtil.prefetch(folder, messages);
+        for (Message message : messages) {
+            EmailResponse email = MessageUtil.createEmailResponse(message, folder);
+            if (email == null) {
+                continue;
+            }
+            window.put(email.getUid(), new CachedMessage(email, MessageUtil.flagsToList(message.getFlags())));
+            cache.setLastUid(Math.max(cache.getLastUid(), email.getUid()));
+            event.getAddedUids().add(email.getUid());
+        }
+    }
+
+    // Refetches the flags of the whole cached window; UIDs missing from the answer were expunged.
+    private void resyncWindow(IMAPFolder folder, FolderCache cache, long lastUid, FolderSyncedEvent event) throws MessagingException {
+        FolderCache.Window window = cache.getWindow();
+        Map<Long, Flags> current = uidFetchFlags(folder, window.lowestUid(), lastUid, 0);
+        window.messages().subMap(window.lowestUid(), true, lastUid, true).keySet()
+                .removeIf(uid -> !current.containsKey(uid) && event.getRemovedUids().add(uid));
+        current.forEach((uid, flags) -> updateFlags(cache, uid, flags));
+    }
+
+    private void updateFlags(FolderCache cache, long uid, Flags flags) {
+        CachedMessage message = cache.getWindow().messages().get(uid);
+        List<String> current = MessageUtil.flagsToList(flags);
+        if (message != null && !current.equals(message.getFlags())) {
+            message.setFlags(current);
+            cache.setUnsaved(true);
+        }
+    }
+
+    private long fetchHighestModSeq(IMAPFolder folder) throws MessagingException {
+        Status status = (Status) folder.doCommand(protocol ->
+                protocol.status(folder.getFullName(), new String[]{"HIGHESTMODSEQ"}));
+        return status.highestmodseq;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Long, Flags> uidFetchFlags(IMAPFolder folder, long from, long to, long changedSince) throws MessagingException {
+        if (from > to) {
+            return Map.of();
+        }
+        return (Map<Long, Flags>) folder.doCommand(protocol -> {
+            String command = "UID FETCH " + from + ":" + to + " (FLAGS)"
+                    + (changedSince > 0 ? " (CHANGEDSINCE " + changedSince + ")" : "");
+            Response[] responses = protocol.command(command, null);
+
+            Map<Long, Flags> flags = new HashMap<>();
+            for (Response response : responses) {
+                if (response instanceof FetchResponse fetchResponse) {
+                    UID uid = fetchResponse.getItem(UID.class);
+                    FLAGS messageFlags = fetchResponse.getItem(FLAGS.class);
+                    if (uid != null && messageFlags != null) {
+                        flags.put(uid.uid, messageFlags);
+                    }
+                }
+            }
+
+            protocol.notifyResponseHandlers(responses);
+            protocol.handleResult(responses[responses.length - 1]);
+            return flags;
+        });
+    }
+
+    // A folder restored from its snapshot counts as synced until the warm-up or the refresh interval catches up.
+    private FolderCache load(String folderName) {
+        Path file = cacheFile(folderName);
+        if (Files.exists(file)) {
+            try {
+                HeaderSnapshot snapshot = HeaderSnapshot.open(file);
+                if (snapshot != null) {
+                    FolderCache cache = new FolderCache(folderName, snapshot);
+                    cache.setLastSyncAt(System.currentTimeMillis());
+                    return cache;
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        return new FolderCache(folderName);
+    }
+
+    // Writes the snapshots of the folders that changed since they were last written.
+    private void saveChanged() {
+        for (FolderCache cache : folders.values()) {
+            if (!cache.isUnsaved()) {
+                continue;
+            }
+            synchronized (cache) {
+                cache.setUnsaved(false);
+                save(cache);
+            }
+        }
+    }
+
+    private void save(FolderCache cache) {
+        try {
+            Path file = cacheFile(cache.getFolderName());
+            Files.createDirectories(file.getParent());
+            HeaderSnapshot.write(file, cache);
+        } catch (IOException | RuntimeException e) {
+            // a failure must not end the scheduled writes
+            cache.setUnsaved(true);
+            e.printStackTrace();
+        }
+    }
+
+    private Path cacheFile(String folderName) {
+        return Paths.get(directory, URLEncoder.encode(folderName, StandardCharsets.UTF_8) + SNAPSHOT_EXTENSION);
+    }
+}
@@ -0,0 +1,318 @@
+package org.example.simplemailclient.cache;
+
+import org.example.simplemailclient.dto.EmailResponse;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only, memory-mapped copy of a {@link FolderCache}. The file has a fixed
+ * header, an index of fixed-size records sorted by UID and the encoded headers.
+ * Lookups binary search the index and decode only the messages they return, so
+ * opening a snapshot costs the same for ten messages or a million. The \Seen
+ * flag is kept in the index, filtering by read status decodes nothing extra.
+ *
+ * <pre>
+ * header  magic, version, uidValidity, highestModSeq, lowestUid, lastUid,
+ *         serverMessageCount, complete, count, savedAt (64 bytes)
+ * index   count x (uid long, flags int, offset int, length int), ascending UID
+ * data    per message: from, to, cc, bcc, subject, sentDate, receivedDate,
+ *         attachments, sentTime, receivedTime, messageId, inReplyTo, references,
+ *         flags
+ * </pre>
+ */
+public final class HeaderSnapshot {
+
+    private static final int MAGIC = 0x534d4348;
+
+    private static final int HEADER_SIZE = 64;
+
+    private static final int INDEX_RECORD_SIZE = 20;
+
+    private static final int SEEN = 1;
+
+    private final MappedByteBuffer buffer;
+
+    private final int count;
+
+    private HeaderSnapshot(MappedByteBuffer buffer, int count) {
+        this.buffer = buffer;
+        this.count = count;
+    }
+
+    // null when the file was written by another version
+    static HeaderSnapshot open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                throw new IOException("Invalid header snapshot " + file);
+            }
+            // the mapping stays valid after the channel is closed and the file is replaced
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int count = buffer.getInt(48);
+            if (buffer.getInt(0) == MAGIC && buffer.getInt(4) != FolderCache.VERSION) {
+                return null;
+            }
+            if (buffer.getInt(0) != MAGIC || count < 0
+                    || HEADER_SIZE + (long) count * INDEX_RECORD_SIZE > size) {
+                throw new IOException("Invalid header snapshot " + file);
+            }
+            return new HeaderSnapshot(buffer, count);
+        }
+    }
+
+    // Writes to a temporary file first, a crash leaves the previous snapshot in place.
+    static void write(Path file, FolderCache cache) throws IOException {
+        FolderCache.Window window = cache.getWindow();
+        List<CachedMessage> messages = new ArrayList<>(window.messages().values());
+        ByteBuffer index = ByteBuffer.allocate(HEADER_SIZE + messages.size() * INDEX_RECORD_SIZE);
+        index.putInt(MAGIC)
+                .putInt(FolderCache.VERSION)
+                .putLong(cache.getUidValidity())
+                .putLong(cache.getHighestModSeq())
+                .putLong(window.lowestUid())
+                .putLong(cache.getLastUid())
+                .putInt(cache.getServerMessageCount())
+                .putInt(window.complete() ? 1 : 0)
+                .putInt(messages.size())
+                .putInt(0)
+                .putLong(System.currentTimeMillis());
+        index.position(HEADER_SIZE);
+
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.position(index.capacity());
+            OutputStream output = new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024);
+            ByteArrayOutputStream record = new ByteArrayOutputStream(512);
+            DataOutputStream encoder = new DataOutputStream(record);
+            long offset = index.capacity();
+            for (CachedMessage message : messages) {
+                record.reset();
+                encode(encoder, message);
+                if (offset + record.size() > Integer.MAX_VALUE) {
+                    throw new IOException("Header snapshot of " + cache.getFolderName() + " exceeds 2 GB");
+                }
+                index.putLong(message.getUid())
+                        .putInt(message.isSeen() ? SEEN : 0)
+                        .putInt((int) offset)
+                        .putInt(record.size());
+                record.writeTo(output);
+                offset += record.size();
+            }
+            output.flush();
+
+            index.flip();
+            long position = 0;
+            while (index.hasRemaining()) {
+                position += channel.write(index, position);
+            }
+            channel.force(false);
+        }
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public long getUidValidity() {
+        return buffer.getLong(8);
+    }
+
+    public long getHighestModSeq() {
+        return buffer.getLong(16);
+    }
+
+    public long getLowestUid() {
+        return buffer.getLong(24);
+    }
+
+    public long getLastUid() {
+        return buffer.getLong(32);
+    }
+
+    public int getServerMessageCount() {
+        return buffer.getInt(40);
+    }
+
+    public boolean isComplete() {
+        return buffer.getInt(44) != 0;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    EmailResponse find(long uid) {
+        int index = firstIndexAbove(uid - 1);
+        return index < count && uidAt(index) == uid ? decode(index).getEmail() : null;
+    }
+
+    // Newest first, below beforeUid when it is set.
+    List<EmailResponse> newest(Long beforeUid, int limit, Boolean seen) {
+        List<EmailResponse> emails = new ArrayList<>(Math.min(limit, count));
+        int index = beforeUid != null ? firstIndexAbove(beforeUid - 1) - 1 : count - 1;
+        for (; index >= 0 && emails.size() < limit; index--) {
+            if (matches(index, seen)) {
+                emails.add(decode(index).getEmail());
+            }
+        }
+        return emails;
+    }
+
+    // Oldest first, above afterUid and below beforeUid when it is set.
+    List<EmailResponse> oldest(long afterUid, Long beforeUid, int limit, Boolean seen) {
+        List<EmailResponse> emails = new ArrayList<>(Math.min(limit, count));
+        for (int index = firstIndexAbove(afterUid); index < count && emails.size() < limit; index++) {
+            if (beforeUid != null && uidAt(index) >= beforeUid) {
+                break;
+            }
+            if (matches(index, seen)) {
+                emails.add(decode(index).getEmail());
+            }
+        }
+        return emails;
+    }
+
+    // Decodes every message, for the first sync that moves the folder back onto the heap.
+    void copyTo(Map<Long, CachedMessage> messages) {
+        for (int index = 0; index < count; index++) {
+            messages.put(uidAt(index), decode(index));
+        }
+    }
+
+    private boolean matches(int index, Boolean seen) {
+        return seen == null || ((buffer.getInt(HEADER_SIZE + index * INDEX_RECORD_SIZE + 8) & SEEN) != 0) == seen;
+    }
+
+    private long uidAt(int index) {
+        return buffer.getLong(HEADER_SIZE + index * INDEX_RECORD_SIZE);
+    }
+
+    // The first index with a UID above the given one, count when there is none.
+    private int firstIndexAbove(long uid) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (uidAt(middle) <= uid) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private CachedMessage decode(int index) {
+        int record = HEADER_SIZE + index * INDEX_RECORD_SIZE;
+        Decoder decoder = new Decoder(buffer.getInt(record + 12));
+        EmailResponse email = new EmailResponse(buffer.getLong(record), decoder.string(), decoder.string(), decoder.string(),
+                decoder.string(), decoder.string(), decoder.string(), decoder.string(), decoder.strings(), decoder.time(),
+                decoder.time(), decoder.string(), decoder.string(), decoder.strings());
+        return new CachedMessage(email, decoder.strings());
+    }
+
+    private static void encode(DataOutputStream encoder, CachedMessage message) throws IOException {
+        EmailResponse email = message.getEmail();
+        writeString(encoder, email.getFrom());
+        writeString(encoder, email.getTo());
+        writeString(encoder, email.getCc());
+        writeString(encoder, email.getBcc());
+        writeString(encoder, email.getSubject());
+        writeString(encoder, email.getSentDate());
+        writeString(encoder, email.getReceivedDate());
+        writeStrings(encoder, email.getAttachments());
+        writeTime(encoder, email.getSentTime());
+        writeTime(encoder, email.getReceivedTime());
+        writeString(encoder, email.getMessageId());
+        writeString(encoder, email.getInReplyTo());
+        writeStrings(encoder, email.getReferences());
+        writeStrings(encoder, message.getFlags());
+    }
+
+    // null is written as length -1
+    private static void writeString(DataOutputStream encoder, String value) throws IOException {
+        if (value == null) {
+            encoder.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        encoder.writeInt(bytes.length);
+        encoder.write(bytes);
+    }
+
+    private static void writeStrings(DataOutputStream encoder, List<String> values) throws IOException {
+        encoder.writeInt(values == null ? -1 : values.size());
+        if (values != null) {
+            for (String value : values) {
+                writeString(encoder, value);
+            }
+        }
+    }
+
+    private static void writeTime(DataOutputStream encoder, Long value) throws IOException {
+        encoder.writeBoolean(value != null);
+        if (value != null) {
+            encoder.writeLong(value);
+        }
+    }
+
+    // Absolute reads only, the buffer is shared by concurrent readers.
+    private final class Decoder {
+
+        private int position;
+
+        private Decoder(int position) {
+            this.position = position;
+        }
+
+        private String string() {
+            int length = buffer.getInt(position);
+            position += 4;
+            if (length < 0) {
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            buffer.get(position, bytes);
+            position += length;
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private List<String> strings() {
+            int size = buffer.getInt(position);
+            position += 4;
+            if (size < 0) {
+                return null;
+            }
+            List<String> values = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                values.add(string());
+            }
+            return values;
+        }
+
+        private Long time() {
+            boolean present = buffer.get(position) != 0;
+            position += 1;
+            if (!present) {
+                return null;
+            }
+            long value = buffer.getLong(position);
+            position += 8;
+            return value;
+        }
+    }
+}
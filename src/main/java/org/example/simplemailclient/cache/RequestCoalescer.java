@@ -0,0 +1,137 @@
+package org.example.simplemailclient.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight front for mailbox reads. Concurrent calls with the same key
+ * share one load and its result, which keeps being served for a short TTL.
+ * Changing a folder through our own endpoints drops its entries, so a read
+ * issued after a mutation never joins a load that started before it.
+ */
+@Component
+public class RequestCoalescer {
+
+    @Value("${imap.coalescing.ttl:1s}")
+    private Duration ttl;
+
+    @Value("${imap.coalescing.max-entries:1000}")
+    private int maxEntries;
+
+    private final Map<ReadKey, Flight> flights = new ConcurrentHashMap<>();
+
+    private final Counter loads;
+
+    private final Counter shared;
+
+    @Autowired
+    public RequestCoalescer(MeterRegistry registry) {
+        this.loads = Counter.builder("mail.coalescing.requests")
+                .description("Reads that ran their own IMAP operation")
+                .tag("result", "loaded")
+                .register(registry);
+        this.shared = Counter.builder("mail.coalescing.requests")
+                .description("Reads served by an in-flight or recently completed identical read")
+                .tag("result", "shared")
+                .register(registry);
+    }
+
+    /**
+     * Runs the loader unless an identical read of the folder is in flight or
+     * completed within the TTL, in which case its result is returned. Failures
+     * are passed to every waiting caller but never kept.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String folderName, List<?> arguments, Supplier<T> loader) {
+        ReadKey key = new ReadKey(folderName, arguments);
+        Flight flight = new Flight();
+        long now = System.nanoTime();
+        Flight current = flights.compute(key, (k, existing) -> existing != null && existing.isFresh(now, ttl.toNanos()) ? existing : flight);
+        if (current != flight) {
+            shared.increment();
+            return (T) current.await();
+        }
+
+        loads.increment();
+        if (flights.size() > maxEntries) {
+            evict(now);
+        }
+        try {
+            T value = loader.get();
+            flight.complete(value);
+            if (ttl.isZero()) {
+                flights.remove(key, flight);
+            }
+            return value;
+        } catch (RuntimeException | Error e) {
+            flights.remove(key, flight);
+            flight.future.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    public void invalidate(String folderName) {
+        flights.keySet().removeIf(key -> key.folderName().equals(folderName));
+    }
+
+    // new or removed mail noticed by the header sync or IDLE
+    @EventListener
+    public void onFolderSynced(FolderSyncedEvent event) {
+        if (event.isReset() || !event.getAddedUids().isEmpty() || !event.getRemovedUids().isEmpty()) {
+            invalidate(event.getFolderName());
+        }
+    }
+
+    // Expired results first; in-flight loads are kept, their callers are waiting on them.
+    private void evict(long now) {
+        flights.values().removeIf(flight -> flight.future.isDone() && !flight.isFresh(now, ttl.toNanos()));
+        if (flights.size() > maxEntries) {
+            flights.values().removeIf(flight -> flight.future.isDone());
+        }
+    }
+
+    private record ReadKey(String folderName, List<?> arguments) {
+    }
+
+    private static final class Flight {
+
+        private final CompletableFuture<Object> future = new CompletableFuture<>();
+
+        private volatile long completedAt;
+
+        private void complete(Object value) {
+            completedAt = System.nanoTime();
+            future.complete(value);
+        }
+
+        private boolean isFresh(long now, long ttlNanos) {
+            return !future.isDone() || !future.isCompletedExceptionally() && now - completedAt < ttlNanos;
+        }
+
+        private Object await() {
+            try {
+                return future.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                if (e.getCause() instanceof Error cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+    }
+}
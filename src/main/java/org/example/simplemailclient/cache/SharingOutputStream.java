@@ -0,0 +1,75 @@
+package org.example.simplemailclient.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Streams a response to its client and keeps a copy, up to a limit, for the
+ * identical requests that joined the same load. When the client goes away the
+ * copy is still completed for them; the failure only surfaces once nobody can
+ * use the bytes any more.
+ */
+public class SharingOutputStream extends OutputStream {
+
+    private final OutputStream client;
+
+    private final int maxCopySize;
+
+    // null once the response outgrew the limit
+    private ByteArrayOutputStream copy = new ByteArrayOutputStream();
+
+    private IOException clientFailure;
+
+    public SharingOutputStream(OutputStream client, int maxCopySize) {
+        this.client = client;
+        this.maxCopySize = maxCopySize;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        if (clientFailure == null) {
+            try {
+                client.write(bytes, offset, length);
+            } catch (IOException e) {
+                clientFailure = e;
+            }
+        }
+        if (copy != null) {
+            if (copy.size() + length > maxCopySize) {
+                copy = null;
+            } else {
+                copy.write(bytes, offset, length);
+            }
+        }
+        throwIfUseless();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (clientFailure == null) {
+            try {
+                client.flush();
+            } catch (IOException e) {
+                clientFailure = e;
+            }
+        }
+        throwIfUseless();
+    }
+
+    // The bytes written, or null when they outgrew the limit.
+    public byte[] getCopy() {
+        return copy != null ? copy.toByteArray() : null;
+    }
+
+    private void throwIfUseless() throws IOException {
+        if (clientFailure != null && copy == null) {
+            throw clientFailure;
+        }
+    }
+}
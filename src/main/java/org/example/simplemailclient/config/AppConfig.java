@@ -1,9 +1,10 @@
 package org.example.simplemailclient.config;
 
+import org.example.simplemailclient.metrics.ImapTrace;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.core.task.TaskDecorator;
 import org.springframework.mail.javamail.JavaMailSenderImpl;
 import org.springframework.web.client.RestTemplate;
 
@@ -12,6 +13,12 @@ import java.util.Properties;
 @Configuration
 public class AppConfig {
 
+    @Value("${spring.mail.host:smtp.gmail.com}")
+    private String host;
+
+    @Value("${spring.mail.port:587}")
+    private int port;
+
     @Value("${spring.mail.username}")
     private String username;
 
@@ -23,12 +30,18 @@ public class AppConfig {
         return new RestTemplate();
     }
 
+    // Carries the request's IMAP trace over to the executor that writes streamed responses
+    @Bean
+    public TaskDecorator imapTraceTaskDecorator() {
+        return ImapTrace::wrap;
+    }
+
     @Bean
-    public JavaMailSender javaMailSender() {
+    public JavaMailSenderImpl javaMailSender() {
         JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
 
-        mailSender.setHost("smtp.gmail.com");
-        mailSender.setPort(587);
+        mailSender.setHost(host);
+        mailSender.setPort(port);
         mailSender.setUsername(username);
         mailSender.setPassword(password);
 
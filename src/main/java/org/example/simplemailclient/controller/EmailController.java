@@ -1,23 +1,83 @@
 package org.example.simplemailclient.controller;
 
+import org.example.simplemailclient.account.MailAccountRegistry;
+import org.example.simplemailclient.archive.AttachmentArchiver;
+import org.example.simplemailclient.archive.AttachmentStore;
+import org.example.simplemailclient.bulkhead.BulkheadRegistry;
+import org.example.simplemailclient.dto.ArchiveJobStatus;
+import org.example.simplemailclient.dto.ArchiveRequest;
+import org.example.simplemailclient.dto.AttachmentPart;
+import org.example.simplemailclient.dto.BodyCacheStats;
+import org.example.simplemailclient.dto.BulkSendStatus;
+import org.example.simplemailclient.dto.BulkheadStats;
+import org.example.simplemailclient.dto.ConcurrencyLimitStats;
+import org.example.simplemailclient.dto.ConnectionPoolStats;
 import org.example.simplemailclient.dto.DeleteRequest;
 import org.example.simplemailclient.dto.EmailRequest;
-import org.example.simplemailclient.dto.EmailResponse;
+import org.example.simplemailclient.dto.FlagUpdateRequest;
+import org.example.simplemailclient.dto.FlagUpdateResult;
+import org.example.simplemailclient.dto.FolderTree;
+import org.example.simplemailclient.dto.ImportResult;
+import org.example.simplemailclient.dto.MailQuery;
+import org.example.simplemailclient.dto.OutboundStatus;
 import org.example.simplemailclient.dto.ReadStatusUpdateRequest;
+import org.example.simplemailclient.dto.SearchResultPage;
+import org.example.simplemailclient.dto.StoredAttachment;
+import org.example.simplemailclient.dto.ThreadDetail;
+import org.example.simplemailclient.dto.ThreadPage;
+import org.example.simplemailclient.dto.UidMoveResult;
+import org.example.simplemailclient.dto.UidPageRequest;
+import org.example.simplemailclient.dto.UnifiedMailboxPage;
+import org.example.simplemailclient.enumeration.MailboxFormat;
+import org.example.simplemailclient.enumeration.ResponseFormat;
 import org.example.simplemailclient.enumeration.SearchField;
+import org.example.simplemailclient.imap.ImapConnectionPool;
+import org.example.simplemailclient.outbound.BulkSendService;
+import org.example.simplemailclient.query.MailQueryTranslator;
+import org.example.simplemailclient.query.MailSort;
+import org.example.simplemailclient.service.AttachmentService;
 import org.example.simplemailclient.service.EmailService;
+import org.example.simplemailclient.service.FolderTreeService;
+import org.example.simplemailclient.service.MailboxWatcher;
+import org.example.simplemailclient.service.MessageBodyService;
+import org.example.simplemailclient.service.UnifiedMailboxService;
+import org.example.simplemailclient.thread.ThreadIndex;
+import org.example.simplemailclient.transfer.MailboxExporter;
+import org.example.simplemailclient.transfer.MailboxImporter;
+import org.example.simplemailclient.util.EmailProjection;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.AddressException;
+import jakarta.mail.search.SearchTerm;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/email")
@@ -25,17 +85,75 @@ public class EmailController {
 
     private final EmailService emailService;
 
+    private final ImapConnectionPool connectionPool;
+
+    private final MailboxWatcher mailboxWatcher;
+
+    private final AttachmentService attachmentService;
+
+    private final BulkSendService bulkSendService;
+
+    private final BulkheadRegistry bulkheads;
+
+    private final MessageBodyService messageBodyService;
+
+    private final FolderTreeService folderTreeService;
+
+    private final AttachmentArchiver attachmentArchiver;
+
+    private final AttachmentStore attachmentStore;
+
+    private final UnifiedMailboxService unifiedMailboxService;
+
+    private final MailAccountRegistry accounts;
+
+    private final MailboxExporter mailboxExporter;
+
+    private final MailboxImporter mailboxImporter;
+
+    private final ThreadIndex threadIndex;
+
     @Autowired
-    public EmailController(EmailService emailService) {
+    public EmailController(EmailService emailService, ImapConnectionPool connectionPool, MailboxWatcher mailboxWatcher,
+                           AttachmentService attachmentService, BulkSendService bulkSendService, BulkheadRegistry bulkheads,
+                           MessageBodyService messageBodyService, FolderTreeService folderTreeService,
+                           AttachmentArchiver attachmentArchiver, AttachmentStore attachmentStore,
+                           UnifiedMailboxService unifiedMailboxService, MailAccountRegistry accounts,
+                           MailboxExporter mailboxExporter, MailboxImporter mailboxImporter, ThreadIndex threadIndex) {
         this.emailService = emailService;
+        this.connectionPool = connectionPool;
+        this.mailboxWatcher = mailboxWatcher;
+        this.attachmentService = attachmentService;
+        this.bulkSendService = bulkSendService;
+        this.bulkheads = bulkheads;
+        this.messageBodyService = messageBodyService;
+        this.folderTreeService = folderTreeService;
+        this.attachmentArchiver = attachmentArchiver;
+        this.attachmentStore = attachmentStore;
+        this.unifiedMailboxService = unifiedMailboxService;
+        this.accounts = accounts;
+        this.mailboxExporter = mailboxExporter;
+        this.mailboxImporter = mailboxImporter;
+        this.threadIndex = threadIndex;
     }
 
     // ------------- GET ENDPOINTS -------------
 
     @GetMapping("/folder")
-    public String fetchEmailsFromFolder(
-            @RequestParam("folderName") String folderName) {
-        return emailService.fetchEmailsFromFolder(folderName);
+    public ResponseEntity<StreamingResponseBody> fetchEmailsFromFolder(
+            @RequestParam("folderName") String folderName,
+            @RequestParam(value = "fields", required = false) String fields,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            UidPageRequest page) {
+        ResponseFormat format = negotiateFormat(accept);
+        EmailProjection projection = parseProjection(fields);
+        return stream(format, outputStream -> emailService.fetchEmailsFromFolder(folderName, page, projection, format, outputStream));
+    }
+
+    @GetMapping("/folders")
+    public FolderTree getFolderTree(
+            @RequestParam(value = "refresh", defaultValue = "false") boolean refresh) {
+        return folderTreeService.getFolderTree(refresh);
     }
 
     @GetMapping("/fetch/{uid}")
@@ -46,49 +164,334 @@ public class EmailController {
     }
 
     @GetMapping("/folder/read-status")
-    public String fetchEmailsFromFolderByReadStatus(
+    public ResponseEntity<StreamingResponseBody> fetchEmailsFromFolderByReadStatus(
             @RequestParam("folder") String folder,
-            @RequestParam("seen") boolean seen) {
-        return emailService.fetchEmailsFromFolderByReadStatus(folder, seen);
+            @RequestParam("seen") boolean seen,
+            @RequestParam(value = "fields", required = false) String fields,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            UidPageRequest page) {
+        ResponseFormat format = negotiateFormat(accept);
+        EmailProjection projection = parseProjection(fields);
+        return stream(format, outputStream -> emailService.fetchEmailsFromFolderByReadStatus(folder, seen, page, projection, format, outputStream));
     }
 
     @GetMapping("/fetch/html-content/{uid}")
     public String getHtmlContentByUid(
             @PathVariable("uid") long uid,
             @RequestParam("folderName") String folderName) {
-        return emailService.getHtmlContentByUid(uid, folderName);
+        return messageBodyService.getHtmlContentByUid(uid, folderName);
+    }
+
+    @GetMapping(value = "/fetch/text-content/{uid}", produces = MediaType.TEXT_PLAIN_VALUE)
+    public String getTextContentByUid(
+            @PathVariable("uid") long uid,
+            @RequestParam("folderName") String folderName) {
+        return messageBodyService.getTextContentByUid(uid, folderName);
     }
 
     @GetMapping("/save-attachment")
-    public void saveAttachment(
+    public List<StoredAttachment> saveAttachment(
             @RequestParam("folderName") String folderName,
             @RequestParam("uid") long uid,
             @RequestParam("attachmentIndex") int attachmentIndex) {
-        emailService.saveAttachment(folderName, uid, attachmentIndex);
+        return attachmentArchiver.archiveMessage(folderName, uid, attachmentIndex);
     }
 
     @GetMapping("/save-all-attachments")
-    public void saveAllAttachments(
+    public List<StoredAttachment> saveAllAttachments(
+            @RequestParam("folderName") String folderName,
+            @RequestParam("uid") long uid) {
+        return attachmentArchiver.archiveMessage(folderName, uid, -1);
+    }
+
+    @GetMapping("/stored-attachments")
+    public List<StoredAttachment> getStoredAttachments(
             @RequestParam("folderName") String folderName,
             @RequestParam("uid") long uid) {
-        emailService.saveAllAttachments(folderName, uid);
+        return attachmentStore.findByMessage(folderName, uid);
+    }
+
+    @GetMapping("/stored-attachments/{sha256}")
+    public ResponseEntity<Resource> downloadStoredAttachment(
+            @PathVariable("sha256") String sha256) {
+        return attachmentStore.getBlob(sha256)
+                .map(blob -> ResponseEntity.ok()
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .header(HttpHeaders.CACHE_CONTROL, "max-age=31536000, immutable")
+                        .<Resource>body(new FileSystemResource(blob)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/archive-attachments/{jobId}")
+    public ResponseEntity<ArchiveJobStatus> getArchiveStatus(
+            @PathVariable("jobId") String jobId) {
+        return ResponseEntity.of(attachmentArchiver.getStatus(jobId));
+    }
+
+    @GetMapping("/attachment/{uid}")
+    public ResponseEntity<StreamingResponseBody> downloadAttachment(
+            @PathVariable("uid") long uid,
+            @RequestParam("folderName") String folderName,
+            @RequestParam("attachmentIndex") int attachmentIndex,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range) {
+        Optional<AttachmentPart> found = attachmentService.findAttachment(folderName, uid, attachmentIndex);
+        if (found.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        AttachmentPart attachment = found.get();
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        long start = 0;
+        long length = attachment.getSize();
+        List<HttpRange> ranges = List.of();
+        try {
+            if (range != null && attachment.isRangeSupported()) {
+                ranges = HttpRange.parseRanges(range);
+            }
+            // multi-range requests are answered with the whole attachment
+            if (ranges.size() == 1) {
+                start = ranges.get(0).getRangeStart(attachment.getSize());
+                long end = ranges.get(0).getRangeEnd(attachment.getSize());
+                if (start > end) {
+                    return rangeNotSatisfiable(attachment);
+                }
+                length = end - start + 1;
+                response = ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                        .header(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + attachment.getSize());
+            }
+        } catch (IllegalArgumentException e) {
+            return rangeNotSatisfiable(attachment);
+        }
+
+        response.contentType(getMediaType(attachment.getContentType()))
+                .header(HttpHeaders.ACCEPT_RANGES, attachment.isRangeSupported() ? "bytes" : "none")
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(attachment.getFileName() != null ? attachment.getFileName() : "attachment", StandardCharsets.UTF_8)
+                        .build()
+                        .toString());
+        if (length >= 0) {
+            response.contentLength(length);
+        }
+
+        long offset = start;
+        long count = length;
+        return response.body(outputStream -> attachmentService.streamAttachment(attachment, offset, count, outputStream));
     }
 
     @GetMapping("/search")
-    public List<EmailResponse> searchEmails(
+    public ResponseEntity<StreamingResponseBody> searchEmails(
             @RequestParam("folderName") String folderName,
             @RequestParam("keyword") String keyword,
-            @RequestParam("searchField") SearchField searchField) {
-        return emailService.searchEmails(folderName, keyword, searchField);
+            @RequestParam("searchField") SearchField searchField,
+            @RequestParam(value = "fields", required = false) String fields,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            UidPageRequest page) {
+        ResponseFormat format = negotiateFormat(accept);
+        EmailProjection projection = parseProjection(fields);
+        return stream(format, outputStream -> emailService.searchEmails(folderName, keyword, searchField, page, projection, format, outputStream));
+    }
+
+    @GetMapping("/accounts")
+    public List<String> getAccounts() {
+        return accounts.getAccounts();
+    }
+
+    // The newest messages of a folder over all accounts; accounts that do not answer in time are reported, not awaited.
+    @GetMapping("/unified/folder")
+    public UnifiedMailboxPage getUnifiedFolder(
+            @RequestParam(value = "folderName", defaultValue = "INBOX") String folderName,
+            @RequestParam(value = "pageSize", required = false) Integer pageSize) {
+        return unifiedMailboxService.getUnifiedFolder(folderName, pageSize);
+    }
+
+    @GetMapping("/unified/search")
+    public UnifiedMailboxPage searchAllAccounts(
+            @RequestParam(value = "folderName", defaultValue = "INBOX") String folderName,
+            @RequestParam("keyword") String keyword,
+            @RequestParam("searchField") SearchField searchField,
+            @RequestParam(value = "pageSize", required = false) Integer pageSize) {
+        SearchTerm searchTerm;
+        try {
+            searchTerm = MailQueryTranslator.keywordTerm(searchField, keyword);
+        } catch (AddressException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid address: " + keyword);
+        }
+        return unifiedMailboxService.search(folderName, searchTerm, pageSize);
+    }
+
+    @GetMapping("/search/full-text")
+    public SearchResultPage searchFullText(
+            @RequestParam("folderName") String folderName,
+            @RequestParam(value = "query", required = false) String query,
+            @RequestParam(value = "after", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate after,
+            @RequestParam(value = "before", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate before,
+            @RequestParam(value = "limit", defaultValue = "20") int limit,
+            @RequestParam(value = "cursor", required = false) String cursor) {
+        try {
+            return emailService.searchFullText(folderName, query, after, before, limit, cursor);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    @GetMapping("/threads")
+    public ThreadPage getThreads(
+            @RequestParam("folderName") String folderName,
+            @RequestParam(value = "limit", defaultValue = "20") int limit,
+            @RequestParam(value = "cursor", required = false) String cursor) {
+        try {
+            return threadIndex.getThreads(folderName, limit, cursor);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    // threadId is any Message-ID of the thread, as listed by /threads
+    @GetMapping("/threads/detail")
+    public ResponseEntity<ThreadDetail> getThread(
+            @RequestParam("folderName") String folderName,
+            @RequestParam("threadId") String threadId,
+            @RequestParam(value = "offset", defaultValue = "0") int offset,
+            @RequestParam(value = "limit", defaultValue = "50") int limit) {
+        try {
+            return ResponseEntity.of(threadIndex.getThread(folderName, threadId, offset, limit));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeToFolderEvents(
+            @RequestParam("folderName") String folderName) {
+        return mailboxWatcher.subscribe(folderName);
+    }
+
+    @GetMapping("/send/{id}")
+    public ResponseEntity<OutboundStatus> getSendStatus(
+            @PathVariable("id") String id) {
+        return ResponseEntity.of(emailService.getSendStatus(id));
+    }
+
+    @GetMapping("/bulk-send/{jobId}")
+    public ResponseEntity<BulkSendStatus> getBulkSendStatus(
+            @PathVariable("jobId") String jobId) {
+        return ResponseEntity.of(bulkSendService.getStatus(jobId));
+    }
+
+    // Resume a cut-short export with afterUid set to the last X-UID received and the X-UIDVALIDITY of the first response.
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportFolder(
+            @RequestParam("folderName") String folderName,
+            @RequestParam(value = "format", defaultValue = "MBOX") MailboxFormat format,
+            @RequestParam(value = "afterUid", defaultValue = "0") long afterUid,
+            @RequestParam(value = "uidValidity", required = false) Long uidValidity) {
+        long currentUidValidity = mailboxExporter.getUidValidity(folderName);
+        if (uidValidity != null && uidValidity != currentUidValidity) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "The UIDVALIDITY of " + folderName
+                    + " changed, the export has to start over");
+        }
+        String fileName = folderName.replaceAll("[^\\w.-]+", "_") + format.getExtension();
+        return ResponseEntity.ok()
+                .contentType(format.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(fileName, StandardCharsets.UTF_8)
+                        .build()
+                        .toString())
+                .header("X-UIDVALIDITY", String.valueOf(currentUidValidity))
+                .body(outputStream -> mailboxExporter.export(folderName, format, afterUid, currentUidValidity, outputStream));
+    }
+
+    @GetMapping("/pool-stats")
+    public ConnectionPoolStats getConnectionPoolStats() {
+        return connectionPool.getStats();
+    }
+
+    @GetMapping("/body-cache-stats")
+    public BodyCacheStats getBodyCacheStats() {
+        return messageBodyService.getCacheStats();
+    }
+
+    @GetMapping("/bulkhead-stats")
+    public List<BulkheadStats> getBulkheadStats() {
+        return bulkheads.getStats();
+    }
+
+    @GetMapping("/concurrency-limits")
+    public List<ConcurrencyLimitStats> getConcurrencyLimits() {
+        return bulkheads.getLimiterStats();
     }
 
     // ------------- POST ENDPOINTS -------------
 
     @PostMapping("/send")
-    public ResponseEntity<String> sendEmail(
+    public ResponseEntity<OutboundStatus> sendEmail(
             @RequestBody EmailRequest emailRequest) {
-        emailService.sendEmail(emailRequest);
-        return ResponseEntity.ok("Email sent successfully!");
+        try {
+            return ResponseEntity.accepted().body(emailService.sendEmail(emailRequest));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    // newline-delimited JSON: the template on the first line, then one {"to", "variables"} row per line
+    @PostMapping(value = "/bulk-send", consumes = "application/x-ndjson")
+    public ResponseEntity<BulkSendStatus> bulkSend(InputStream body) throws IOException, MessagingException {
+        return ResponseEntity.accepted().body(bulkSendService.submit(body));
+    }
+
+    // The archive is the request body; after a failure resume with the skip value from the error.
+    @PostMapping(value = "/import", consumes = {"application/gzip", "application/mbox", "application/zip", "application/octet-stream"})
+    public ImportResult importFolder(
+            @RequestParam("folderName") String folderName,
+            @RequestParam(value = "format", defaultValue = "MBOX") MailboxFormat format,
+            @RequestParam(value = "skip", defaultValue = "0") long skip,
+            InputStream body) {
+        try {
+            return mailboxImporter.importArchive(folderName, format, skip, body);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    @PostMapping("/archive-attachments")
+    public ResponseEntity<ArchiveJobStatus> archiveAttachments(
+            @RequestBody ArchiveRequest request) {
+        try {
+            return ResponseEntity.accepted().body(attachmentArchiver.submit(request));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    // The query is the request body; the default sort "-arrival" pages by UID cursor, other sorts by offset.
+    @PostMapping("/search/query")
+    public ResponseEntity<StreamingResponseBody> searchByQuery(
+            @RequestParam("folderName") String folderName,
+            @RequestParam(value = "sort", required = false) String sort,
+            @RequestParam(value = "offset", defaultValue = "0") int offset,
+            @RequestParam(value = "fields", required = false) String fields,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestBody(required = false) MailQuery query,
+            UidPageRequest page) {
+        ResponseFormat format = negotiateFormat(accept);
+        EmailProjection projection = parseProjection(fields);
+        MailSort mailSort;
+        SearchTerm searchTerm;
+        try {
+            mailSort = MailSort.parse(sort);
+            searchTerm = MailQueryTranslator.toSearchTerm(query);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        if (offset < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "offset must not be negative");
+        }
+        boolean cursor = page.getBeforeUid() != null || page.getAfterUid() != null;
+        if (cursor && (offset > 0 || !mailSort.isArrival() || !mailSort.isDescending())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "beforeUid and afterUid only page the default sort, use offset");
+        }
+        return stream(format, outputStream -> emailService.searchByQuery(folderName, searchTerm, mailSort, offset, page, projection,
+                format, outputStream));
     }
 
     @PostMapping("/update-read-status/{uid}")
@@ -107,6 +510,12 @@ public class EmailController {
         return ResponseEntity.ok("Read status updated successfully for specified messages.");
     }
 
+    @PostMapping("/flags")
+    public FlagUpdateResult updateFlags(
+            @RequestBody FlagUpdateRequest request) {
+        return emailService.updateFlags(request);
+    }
+
     // ------------- DELETE ENDPOINTS -----------
 
     @DeleteMapping("/delete/{uid}")
@@ -117,8 +526,65 @@ public class EmailController {
     }
 
     @DeleteMapping("/delete-multiple")
-    public String deleteEmails(
+    public List<UidMoveResult> deleteEmails(
             @RequestBody DeleteRequest deleteRequest) {
         return emailService.deleteEmailsByUIDs(deleteRequest.getUids(), deleteRequest.getFolderName());
     }
-}
\ No newline at end of file
+
+    private ResponseEntity<StreamingResponseBody> stream(ResponseFormat format, StreamingResponseBody body) {
+        return ResponseEntity.ok()
+                .contentType(format.getMediaType())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                .body(body);
+    }
+
+    private EmailProjection parseProjection(String fields) {
+        try {
+            return EmailProjection.parse(fields);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    // Picks the supported format with the highest quality in the Accept header; JSON when none matches.
+    private ResponseFormat negotiateFormat(String accept) {
+        if (accept == null) {
+            return ResponseFormat.JSON;
+        }
+        List<MediaType> acceptedTypes;
+        try {
+            acceptedTypes = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return ResponseFormat.JSON;
+        }
+
+        ResponseFormat best = ResponseFormat.JSON;
+        double bestQuality = -1;
+        for (MediaType acceptedType : acceptedTypes) {
+            for (ResponseFormat format : ResponseFormat.values()) {
+                if (acceptedType.includes(format.getMediaType()) && acceptedType.getQualityValue() > bestQuality) {
+                    best = format;
+                    bestQuality = acceptedType.getQualityValue();
+                }
+            }
+        }
+        return best;
+    }
+
+    private ResponseEntity<StreamingResponseBody> rangeNotSatisfiable(AttachmentPart attachment) {
+        return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                .header(HttpHeaders.CONTENT_RANGE, "bytes */" + attachment.getSize())
+                .build();
+    }
+
+    private MediaType getMediaType(String contentType) {
+        if (contentType == null) {
+            return MediaType.APPLICATION_OCTET_STREAM;
+        }
+        try {
+            return MediaType.parseMediaType(contentType);
+        } catch (InvalidMediaTypeException e) {
+            return MediaType.APPLICATION_OCTET_STREAM;
+        }
+    }
+}
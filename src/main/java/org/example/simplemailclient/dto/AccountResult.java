@@ -0,0 +1,18 @@
+package org.example.simplemailclient.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.simplemailclient.enumeration.AccountResultState;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AccountResult {
+
+    private String account;
+    private AccountResultState state;
+    private int messageCount;
+    private String error;
+    private long elapsedMillis;
+}
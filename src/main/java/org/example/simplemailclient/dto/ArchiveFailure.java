@@ -0,0 +1,14 @@
+package org.example.simplemailclient.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ArchiveFailure {
+
+    private long uid;
+    private String error;
+}
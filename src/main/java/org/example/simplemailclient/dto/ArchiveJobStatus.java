@@ -0,0 +1,34 @@
+package org.example.simplemailclient.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.simplemailclient.enumeration.ArchiveState;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ArchiveJobStatus {
+
+    private String jobId;
+    private ArchiveState state;
+    private String folderName;
+    private long totalMessages;
+    private long processedMessages;
+    private long attachments;
+    // attachments whose content was new and written as a blob
+    private long blobsWritten;
+    // attachments whose content was already stored under another message or part
+    private long deduplicated;
+    // attachments indexed by an earlier run, not fetched again
+    private long alreadyArchived;
+    private long bytesWritten;
+    private long bytesDeduplicated;
+    private long failed;
+    // capped at attachment.archive.max-reported-failures, the failed counter is always exact
+    private List<ArchiveFailure> failures;
+    private long createdAt;
+    private long updatedAt;
+}
@@ -0,0 +1,16 @@
+package org.example.simplemailclient.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ArchiveRequest {
+
+    private String folderName;
+    private List<Long> uids;
+}
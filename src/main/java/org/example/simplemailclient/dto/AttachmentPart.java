@@ -0,0 +1,27 @@
+package org.example.simplemailclient.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AttachmentPart {
+
+    private String folderName;
+    private long uid;
+    private String section;
+    private String fileName;
+    private String contentType;
+    private String encoding;
+    private long encodedSize;
+    // decoded size, or -1 when it cannot be derived without reading the whole part
+    private long size;
+    // base64 characters per line, 0 when the part is a single line
+    private int lineLength;
+
+    public boolean isRangeSupported() {
+        return size >= 0;
+    }
+}
@@ -0,0 +1,21 @@
+package org.example.simplemailclient.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BodyCacheStats {
+
+    private int entries;
+    private long weightBytes;
+    private long maxWeightBytes;
+    private int spilledEntries;
+    private long spilledBytes;
+    private long hitCount;
+    private long spillHitCount;
+    private long missCount;
+    private long evictionCount;
+}
@@ -0,0 +1,16 @@
+package org.example.simplemailclient.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkSendFailure {
+
+    // 1-based position of the recipient row in the request
+    private long row;
+    private String to;
+    private String error;
+}
@@ -0,0 +1,26 @@
+package org.example.simplemailclient.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.simplemailclient.enumeration.BulkSendState;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkSendStatus {
+
+    private String jobId;
+    private BulkSendState state;
+    private long total;
+    private long sent;
+    private long failed;
+    // capped at outbound.bulk.max-reported-failures, the failed counter is always exact
+    private List<BulkSendFailure> failures;
+    // why the job stopped, set when it FAILED
+    private String error;
+    private long createdAt;
+    private long updatedAt;
+}
@@ -0,0 +1,19 @@
+package org.example.simplemailclient.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkSendTemplate {
+
+    private List<String> cc;
+    private List<String> bcc;
+    // subject and HTML text may contain {{variable}} placeholders
+    private String subject;
+    private String text;
+}
@@ -0,0 +1,26 @@
+package org.example.simplemailclient.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.simplemailclient.enumeration.OperationType;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkheadStats {
+
+    private String account;
+    private OperationType operation;
+    private int maxConcurrent;
+    private int maxQueued;
+    private int active;
+    private int queued;
+    private double saturation;
+    private long acceptedCount;
+    private long rejectedCount;
+    private long timedOutCount;
+    private long retriedCount;
+    private double averageWaitMillis;
+    private double maxWaitMillis;
+}
@@ -0,0 +1,17 @@
+package org.example.simplemailclient.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CommandTrace {
+
+    private String command;
+    private String status;
+    private double offsetMillis;
+    private double durationMillis;
+    private String thread;
+}
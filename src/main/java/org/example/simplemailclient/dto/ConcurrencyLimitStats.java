@@ -0,0 +1,22 @@
+package org.example.simplemailclient.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.simplemailclient.enumeration.MailProtocol;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ConcurrencyLimitStats {
+
+    private String account;
+    private MailProtocol protocol;
+    private int limit;
+    private int minLimit;
+    private int maxLimit;
+    private int inFlight;
+    private long throttledCount;
+    private long overloadCount;
+    private long pausedForMillis;
+}
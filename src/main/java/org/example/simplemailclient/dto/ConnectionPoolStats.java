@@ -0,0 +1,20 @@
+package org.example.simplemailclient.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ConnectionPoolStats {
+
+    private int maxSize;
+    private int borrowed;
+    private int idle;
+    private long borrowCount;
+    private long createdCount;
+    private long evictedCount;
+    private double averageWaitMillis;
+    private double maxWaitMillis;
+}
@@ -20,4 +20,11 @@ public class EmailResponse {
     private String sentDate;
     private String receivedDate;
     private List<String> attachments;
+    // epoch milliseconds of sentDate and receivedDate
+    private Long sentTime;
+    private Long receivedTime;
+    // threading headers, message ids keep their angle brackets
+    private String messageId;
+    private String inReplyTo;
+    private List<String> references;
 }
\ No newline at end of file
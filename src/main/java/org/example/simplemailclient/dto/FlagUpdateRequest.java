@@ -0,0 +1,24 @@
+package org.example.simplemailclient.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class FlagUpdateRequest {
+
+    private String folderName;
+    private List<Long> uids;
+    // applies the update to every message in the folder (1:*) instead of the given UIDs
+    private boolean allMessages;
+    // system flags by name (seen, flagged, answered, deleted, draft) or keywords
+    private List<String> flags;
+    // true sets the flags, false clears them
+    private boolean add;
+    // only touch messages whose MODSEQ is not higher than this (CONDSTORE)
+    private Long unchangedSince;
+}
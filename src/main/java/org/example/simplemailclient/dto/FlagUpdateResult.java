@@ -0,0 +1,18 @@
+package org.example.simplemailclient.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class FlagUpdateResult {
+
+    // messages whose flags this request actually changed, not those that already had them
+    private List<Long> changedUids;
+    // messages left untouched because they changed after unchangedSince
+    private List<Long> modifiedUids;
+}
@@ -0,0 +1,23 @@
+package org.example.simplemailclient.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class FolderInfo {
+
+    private String fullName;
+    private String name;
+    private List<String> attributes;
+    private boolean selectable;
+    // null for folders that cannot be selected
+    private Integer messages;
+    private Integer unseen;
+    private Integer recent;
+    private List<FolderInfo> children;
+}
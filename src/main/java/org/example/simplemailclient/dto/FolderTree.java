@@ -0,0 +1,17 @@
+package org.example.simplemailclient.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class FolderTree {
+
+    private long listedAt;
+    private long countsUpdatedAt;
+    private List<FolderInfo> folders;
+}
@@ -0,0 +1,23 @@
+package org.example.simplemailclient.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.simplemailclient.enumeration.MailboxFormat;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ImportResult {
+
+    private String folderName;
+    private MailboxFormat format;
+    // messages of the archive consumed so far, the skip value that resumes after them
+    private long position;
+    private long importedCount;
+    private long importedBytes;
+    private long elapsedMillis;
+    private double messagesPerSecond;
+    // UID of the last appended message, -1 when the server does not report APPENDUID
+    private long lastUid;
+}
@@ -0,0 +1,18 @@
+package org.example.simplemailclient.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class MailAccount {
+
+    private String username;
+    private String password;
+    // null uses imap.host
+    private String imapHost;
+    // -1 uses the default IMAPS port
+    private int imapPort = -1;
+}
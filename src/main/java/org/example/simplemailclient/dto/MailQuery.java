@@ -0,0 +1,50 @@
+package org.example.simplemailclient.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Search criteria; every field that is set must match. and, or and not nest
+ * further queries, so {"or": [{"from": "a"}, {"from": "b"}], "flags": {"seen": false}}
+ * reads as (FROM a OR FROM b) AND UNSEEN.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class MailQuery {
+
+    private List<MailQuery> and;
+    private List<MailQuery> or;
+    private MailQuery not;
+
+    private String from;
+    private String to;
+    private String cc;
+    private String bcc;
+    private String subject;
+    private String body;
+
+    // matches messages whose header contains headerValue; an empty value only requires the header
+    private String header;
+    private String headerValue;
+
+    // internal (arrival) date, since inclusive, before exclusive
+    private LocalDate since;
+    private LocalDate before;
+
+    // Date header
+    private LocalDate sentSince;
+    private LocalDate sentBefore;
+
+    // RFC822.SIZE in bytes, exclusive bounds
+    private Long larger;
+    private Long smaller;
+
+    // flag name -> whether it must be set, e.g. {"seen": false, "flagged": true}
+    private Map<String, Boolean> flags;
+}
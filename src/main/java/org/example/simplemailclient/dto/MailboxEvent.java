@@ -0,0 +1,19 @@
+package org.example.simplemailclient.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.simplemailclient.enumeration.MailboxEventType;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class MailboxEvent {
+
+    private MailboxEventType type;
+    private String folderName;
+    private List<Long> uids;
+    private long timestamp;
+}
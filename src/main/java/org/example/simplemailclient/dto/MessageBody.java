@@ -0,0 +1,16 @@
+package org.example.simplemailclient.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class MessageBody {
+
+    // IMAP section the text was fetched from, e.g. "1.2", or "TEXT" for a single-part message
+    private String section;
+    private String contentType;
+    private String text;
+}
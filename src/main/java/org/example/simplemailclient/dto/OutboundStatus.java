@@ -0,0 +1,20 @@
+package org.example.simplemailclient.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.simplemailclient.enumeration.OutboundState;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class OutboundStatus {
+
+    private String id;
+    private OutboundState state;
+    private int attempts;
+    private String lastError;
+    private long createdAt;
+    private long updatedAt;
+    private long nextAttemptAt;
+}
@@ -0,0 +1,24 @@
+package org.example.simplemailclient.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RequestTrace {
+
+    private String method;
+    private String path;
+    private String uri;
+    private int status;
+    private long startedAt;
+    private double durationMillis;
+    private int roundTrips;
+    private long bytesRead;
+    private long bytesWritten;
+    private List<CommandTrace> commands;
+}
@@ -0,0 +1,17 @@
+package org.example.simplemailclient.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SearchResultPage {
+
+    private List<EmailResponse> results;
+    private long totalHits;
+    private String nextCursor;
+}
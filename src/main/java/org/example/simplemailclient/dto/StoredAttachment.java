@@ -0,0 +1,25 @@
+package org.example.simplemailclient.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One attachment in the local attachment store. Any number of attachments can
+ * point at the same blob, which is named by the SHA-256 of its decoded content.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class StoredAttachment {
+
+    private String folderName;
+    private long uidValidity;
+    private long uid;
+    private String section;
+    private String fileName;
+    private String contentType;
+    private long size;
+    private String sha256;
+    private long storedAt;
+}
@@ -0,0 +1,20 @@
+package org.example.simplemailclient.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ThreadDetail {
+
+    private String threadId;
+    private String subject;
+    private int messageCount;
+    // depth-first, replies ordered by date
+    private List<ThreadMessage> messages;
+    private Integer nextOffset;
+}
@@ -0,0 +1,15 @@
+package org.example.simplemailclient.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ThreadMessage {
+
+    // 0 for the top of the thread, replies one level deeper than what they answer
+    private int depth;
+    private EmailResponse email;
+}
@@ -0,0 +1,17 @@
+package org.example.simplemailclient.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ThreadPage {
+
+    private List<ThreadSummary> threads;
+    private int totalThreads;
+    private String nextCursor;
+}
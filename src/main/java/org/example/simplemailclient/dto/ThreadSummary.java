@@ -0,0 +1,22 @@
+package org.example.simplemailclient.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ThreadSummary {
+
+    // the Message-ID at the top of the thread; any Message-ID of the thread finds it as well
+    private String threadId;
+    private String subject;
+    private int messageCount;
+    private List<String> participants;
+    private long latestUid;
+    // epoch milliseconds of the newest message
+    private Long latestTime;
+}
@@ -0,0 +1,18 @@
+package org.example.simplemailclient.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.simplemailclient.enumeration.MoveStatus;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UidMoveResult {
+
+    private long uid;
+    private MoveStatus status;
+    // UID in the destination folder, null when the server does not report it
+    private Long destinationUid;
+    private String error;
+}
@@ -0,0 +1,15 @@
+package org.example.simplemailclient.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UidPageRequest {
+
+    private Long beforeUid;
+    private Long afterUid;
+    private Integer pageSize;
+}
@@ -0,0 +1,18 @@
+package org.example.simplemailclient.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UnifiedMailboxPage {
+
+    private List<UnifiedEmail> emails;
+    // one entry per account; the page is partial when any of them did not answer in time
+    private List<AccountResult> accounts;
+    private boolean partial;
+}
@@ -0,0 +1,7 @@
+package org.example.simplemailclient.enumeration;
+
+public enum AccountResultState {
+    OK,
+    TIMED_OUT,
+    FAILED
+}
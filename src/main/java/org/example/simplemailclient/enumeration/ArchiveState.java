@@ -0,0 +1,7 @@
+package org.example.simplemailclient.enumeration;
+
+public enum ArchiveState {
+
+    RUNNING,
+    COMPLETED
+}
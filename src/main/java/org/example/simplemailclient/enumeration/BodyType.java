@@ -0,0 +1,18 @@
+package org.example.simplemailclient.enumeration;
+
+public enum BodyType {
+
+    HTML("html"),
+    PLAIN("plain");
+
+    private final String subtype;
+
+    BodyType(String subtype) {
+        this.subtype = subtype;
+    }
+
+    // the MIME subtype under text/
+    public String getSubtype() {
+        return subtype;
+    }
+}
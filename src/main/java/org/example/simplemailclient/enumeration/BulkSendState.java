@@ -0,0 +1,9 @@
+package org.example.simplemailclient.enumeration;
+
+public enum BulkSendState {
+
+    SENDING,
+    COMPLETED,
+    // stopped before every row was handed to a sender, see the error
+    FAILED
+}
@@ -0,0 +1,46 @@
+package org.example.simplemailclient.enumeration;
+
+import java.util.Locale;
+
+public enum EmailField {
+
+    UID("uid", null),
+    FROM("from", "From"),
+    TO("to", "To"),
+    CC("cc", "Cc"),
+    BCC("bcc", "Bcc"),
+    SUBJECT("subject", "Subject"),
+    SENT_DATE("sentDate", "Date"),
+    RECEIVED_DATE("receivedDate", null),
+    ATTACHMENTS("attachments", null),
+    MESSAGE_ID("messageId", "Message-ID"),
+    IN_REPLY_TO("inReplyTo", "In-Reply-To"),
+    REFERENCES("references", "References");
+
+    private final String propertyName;
+    // the message header the field is read from, null when it comes from other FETCH items
+    private final String headerName;
+
+    EmailField(String propertyName, String headerName) {
+        this.propertyName = propertyName;
+        this.headerName = headerName;
+    }
+
+    public String getPropertyName() {
+        return propertyName;
+    }
+
+    public String getHeaderName() {
+        return headerName;
+    }
+
+    // Accepts the JSON property name ("sentDate") as well as the constant name ("SENT_DATE").
+    public static EmailField fromName(String name) {
+        for (EmailField field : values()) {
+            if (field.propertyName.equalsIgnoreCase(name) || field.name().equals(name.toUpperCase(Locale.ROOT))) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("Unknown field: " + name);
+    }
+}
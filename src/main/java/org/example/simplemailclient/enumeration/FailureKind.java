@@ -0,0 +1,10 @@
+package org.example.simplemailclient.enumeration;
+
+public enum FailureKind {
+    // the server asked us to slow down: [THROTTLED], [LIMIT], [UNAVAILABLE] or a 4xx SMTP reply
+    THROTTLED,
+    // dropped connections and I/O errors, worth another attempt
+    TRANSIENT,
+    // will fail the same way again
+    PERMANENT
+}
@@ -0,0 +1,6 @@
+package org.example.simplemailclient.enumeration;
+
+public enum MailProtocol {
+    IMAP,
+    SMTP
+}
@@ -0,0 +1,8 @@
+package org.example.simplemailclient.enumeration;
+
+public enum MailboxEventType {
+
+    NEW_MAIL,
+    EXPUNGE,
+    FLAGS_CHANGED
+}
@@ -0,0 +1,27 @@
+package org.example.simplemailclient.enumeration;
+
+import org.springframework.http.MediaType;
+
+public enum MailboxFormat {
+
+    // mboxrd, gzip-compressed
+    MBOX(new MediaType("application", "gzip"), ".mbox.gz"),
+    // one <uid>.eml entry per message
+    EML_ZIP(new MediaType("application", "zip"), ".zip");
+
+    private final MediaType mediaType;
+    private final String extension;
+
+    MailboxFormat(MediaType mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+}
@@ -0,0 +1,7 @@
+package org.example.simplemailclient.enumeration;
+
+public enum MoveStatus {
+    MOVED,
+    NOT_FOUND,
+    FAILED
+}
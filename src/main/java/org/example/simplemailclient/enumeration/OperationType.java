@@ -0,0 +1,27 @@
+package org.example.simplemailclient.enumeration;
+
+public enum OperationType {
+    FETCH(MailProtocol.IMAP, true),
+    SEARCH(MailProtocol.IMAP, true),
+    MUTATE(MailProtocol.IMAP, false),
+    // only the journal append; SMTP delivery happens on the outbound workers
+    SEND(null, false);
+
+    // the protocol whose adaptive limit the operation counts against, null if it does no mail I/O itself
+    private final MailProtocol protocol;
+    // safe to run again after a transient failure
+    private final boolean idempotent;
+
+    OperationType(MailProtocol protocol, boolean idempotent) {
+        this.protocol = protocol;
+        this.idempotent = idempotent;
+    }
+
+    public MailProtocol getProtocol() {
+        return protocol;
+    }
+
+    public boolean isIdempotent() {
+        return idempotent;
+    }
+}
@@ -0,0 +1,14 @@
+package org.example.simplemailclient.enumeration;
+
+public enum OutboundState {
+
+    QUEUED,
+    SENDING,
+    RETRY_SCHEDULED,
+    SENT,
+    FAILED;
+
+    public boolean isTerminal() {
+        return this == SENT || this == FAILED;
+    }
+}
@@ -0,0 +1,25 @@
+package org.example.simplemailclient.enumeration;
+
+import org.springframework.http.MediaType;
+
+public enum ResponseFormat {
+
+    JSON(MediaType.APPLICATION_JSON),
+    CBOR(MediaType.APPLICATION_CBOR),
+    SMILE(new MediaType("application", "x-jackson-smile"));
+
+    private final MediaType mediaType;
+
+    ResponseFormat(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    // Binary formats carry dates as epoch milliseconds instead of strings
+    public boolean isBinary() {
+        return this != JSON;
+    }
+}
@@ -0,0 +1,24 @@
+package org.example.simplemailclient.enumeration;
+
+import java.util.Locale;
+
+// Sort criteria of RFC 5256
+public enum SortKey {
+
+    ARRIVAL,
+    DATE,
+    FROM,
+    SUBJECT,
+    SIZE,
+    TO,
+    CC;
+
+    public static SortKey fromName(String name) {
+        for (SortKey key : values()) {
+            if (key.name().equals(name.toUpperCase(Locale.ROOT))) {
+                return key;
+            }
+        }
+        throw new IllegalArgumentException("Unknown sort key: " + name);
+    }
+}
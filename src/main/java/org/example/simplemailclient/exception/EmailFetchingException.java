@@ -0,0 +1,8 @@
+package org.example.simplemailclient.exception;
+
+public class EmailFetchingException extends RuntimeException {
+
+    public EmailFetchingException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,11 @@
+package org.example.simplemailclient.imap;
+
+import jakarta.mail.MessagingException;
+
+import java.io.IOException;
+
+@FunctionalInterface
+public interface ImapCallback<T> {
+
+    T doInImap(ImapConnection connection) throws MessagingException, IOException;
+}
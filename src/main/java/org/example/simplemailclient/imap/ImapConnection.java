@@ -0,0 +1,122 @@
+package org.example.simplemailclient.imap;
+
+import com.sun.mail.imap.IMAPFolder;
+import com.sun.mail.imap.IMAPStore;
+import jakarta.mail.MessagingException;
+import org.example.simplemailclient.metrics.ImapMetrics;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * An authenticated IMAP store borrowed from the {@link ImapConnectionPool}.
+ * Folders opened through it stay open between borrows and are reused as long
+ * as the same access mode is requested again.
+ */
+public class ImapConnection implements AutoCloseable {
+
+    private final ImapConnectionPool pool;
+    private final IMAPStore store;
+    private final int maxOpenFolders;
+    private final ImapMetrics metrics;
+    private final Map<String, IMAPFolder> openFolders = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long lastUsedAt;
+    private long lastValidatedAt;
+    private boolean broken;
+
+    ImapConnection(ImapConnectionPool pool, IMAPStore store, int maxOpenFolders, ImapMetrics metrics) {
+        this.pool = pool;
+        this.store = store;
+        this.maxOpenFolders = maxOpenFolders;
+        this.metrics = metrics;
+        this.lastUsedAt = System.currentTimeMillis();
+        this.lastValidatedAt = lastUsedAt;
+    }
+
+    public IMAPStore getStore() {
+        return store;
+    }
+
+    public IMAPFolder openFolder(String folderName, int folderAccessMode) throws MessagingException {
+        String key = folderAccessMode + ":" + folderName;
+        IMAPFolder folder = openFolders.get(key);
+        if (folder != null && folder.isOpen()) {
+            return folder;
+        }
+        openFolders.remove(key);
+
+        long started = System.nanoTime();
+        folder = (IMAPFolder) store.getFolder(folderName);
+        folder.open(folderAccessMode);
+        openFolders.put(key, folder);
+        closeEldestFolders();
+        metrics.recordPhase("open-folder", started);
+        return folder;
+    }
+
+    public void markBroken() {
+        this.broken = true;
+    }
+
+    boolean isBroken() {
+        return broken;
+    }
+
+    long getLastUsedAt() {
+        return lastUsedAt;
+    }
+
+    long getLastValidatedAt() {
+        return lastValidatedAt;
+    }
+
+    void touch() {
+        lastUsedAt = System.currentTimeMillis();
+    }
+
+    boolean validate() {
+        // IMAPStore.isConnected() issues a NOOP on the store's protocol connection
+        boolean alive = store.isConnected();
+        if (alive) {
+            lastValidatedAt = System.currentTimeMillis();
+        }
+        return alive;
+    }
+
+    void disconnect() {
+        for (IMAPFolder folder : openFolders.values()) {
+            closeQuietly(folder);
+        }
+        openFolders.clear();
+        try {
+            store.close();
+        } catch (MessagingException ignored) {
+            // the connection is being discarded anyway
+        }
+    }
+
+    private void closeEldestFolders() {
+        Iterator<IMAPFolder> iterator = openFolders.values().iterator();
+        while (openFolders.size() > maxOpenFolders && iterator.hasNext()) {
+            closeQuietly(iterator.next());
+            iterator.remove();
+        }
+    }
+
+    private void closeQuietly(IMAPFolder folder) {
+        try {
+            if (folder.isOpen()) {
+                folder.close(false);
+            }
+        } catch (MessagingException ignored) {
+            // a folder that cannot be closed cleanly is dropped with its connection
+        }
+    }
+
+    @Override
+    public void close() {
+        pool.release(this);
+    }
+}
@@ -0,0 +1,317 @@
+package org.example.simplemailclient.imap;
+
+import com.sun.mail.iap.ConnectionException;
+import com.sun.mail.imap.IMAPStore;
+import com.sun.mail.util.FolderClosedIOException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.FolderClosedException;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Provider;
+import jakarta.mail.Session;
+import jakarta.mail.StoreClosedException;
+import org.example.simplemailclient.dto.ConnectionPoolStats;
+import org.example.simplemailclient.metrics.CountingSocketFactory;
+import org.example.simplemailclient.metrics.ImapMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * Keeps a bounded set of authenticated IMAP stores alive and hands them out to
+ * callers. Idle stores are health-checked with NOOP before reuse and evicted
+ * once they have been unused for longer than the configured idle timeout.
+ * The bean serves the default account; pools of further accounts are derived
+ * from it with {@link #forAccount} and share its session and evictor thread.
+ */
+@Component
+public class ImapConnectionPool {
+
+    private static final String PROTOCOL = "imaps";
+
+    @Value("${spring.mail.username}")
+    private String username;
+
+    @Value("${spring.mail.password}")
+    private String password;
+
+    @Value("${imap.host:imap.gmail.com}")
+    private String host;
+
+    // -1 uses the default IMAPS port
+    @Value("${imap.port:-1}")
+    private int port;
+
+    @Value("${imap.pool.max-size:4}")
+    private int maxSize;
+
+    @Value("${imap.pool.idle-timeout:5m}")
+    private Duration idleTimeout;
+
+    @Value("${imap.pool.borrow-timeout:30s}")
+    private Duration borrowTimeout;
+
+    @Value("${imap.pool.validation-interval:30s}")
+    private Duration validationInterval;
+
+    @Value("${imap.pool.max-open-folders:2}")
+    private int maxOpenFolders;
+
+    private final ImapMetrics metrics;
+
+    private final Deque<ImapConnection> idleConnections = new ArrayDeque<>();
+
+    private final AtomicInteger borrowed = new AtomicInteger();
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong evictedCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+
+    private Session session;
+    private Semaphore permits;
+    private ScheduledExecutorService evictor;
+    private ScheduledFuture<?> eviction;
+    // false for pools derived from another one, which owns the evictor thread
+    private boolean ownsEvictor = true;
+
+    @Autowired
+    public ImapConnectionPool(ImapMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * A pool for another account with the same settings apart from the size.
+     * It starts empty, so an account costs no connection until it is used.
+     */
+    public ImapConnectionPool forAccount(String username, String password, String host, int port, int maxSize) {
+        ImapConnectionPool pool = new ImapConnectionPool(metrics);
+        pool.username = username;
+        pool.password = password;
+        pool.host = host != null ? host : this.host;
+        pool.port = port;
+        pool.maxSize = maxSize;
+        pool.idleTimeout = idleTimeout;
+        pool.borrowTimeout = borrowTimeout;
+        pool.validationInterval = validationInterval;
+        pool.maxOpenFolders = maxOpenFolders;
+        pool.session = session;
+        pool.permits = new Semaphore(maxSize, true);
+        pool.evictor = evictor;
+        pool.ownsEvictor = false;
+        pool.scheduleEviction();
+        return pool;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    @PostConstruct
+    public void init() throws MessagingException {
+        Properties properties = new Properties();
+        properties.put("mail.store.protocol", PROTOCOL);
+        properties.put("mail." + PROTOCOL + ".socketFactory", new CountingSocketFactory(metrics));
+        properties.put(ImapMetrics.SESSION_PROPERTY, metrics);
+        session = Session.getInstance(properties);
+        session.setProvider(new Provider(Provider.Type.STORE, PROTOCOL, InstrumentedImapStore.class.getName(),
+                "org.example", null));
+        permits = new Semaphore(maxSize, true);
+
+        evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "imap-pool-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduleEviction();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (ownsEvictor) {
+            evictor.shutdownNow();
+        } else {
+            eviction.cancel(false);
+        }
+        synchronized (idleConnections) {
+            idleConnections.forEach(ImapConnection::disconnect);
+            idleConnections.clear();
+        }
+    }
+
+    /**
+     * Runs the callback once. A connection the callback found dropped is
+     * closed instead of going back to the pool, and the error is passed on:
+     * the command may have reached the server, so a move, expunge or append
+     * must not be sent a second time.
+     */
+    public <T> T execute(ImapCallback<T> callback) throws MessagingException, IOException {
+        try (ImapConnection connection = borrow()) {
+            try {
+                return callback.doInImap(connection);
+            } catch (MessagingException | FolderClosedIOException e) {
+                if (isConnectionFailure(e)) {
+                    connection.markBroken();
+                }
+                throw e;
+            }
+        }
+    }
+
+    // For reads without side effects: when the pooled connection was dropped by the server, retries once on a fresh one.
+    public <T> T executeIdempotent(ImapCallback<T> callback) throws MessagingException, IOException {
+        try {
+            return execute(callback);
+        } catch (FolderClosedException | StoreClosedException | FolderClosedIOException e) {
+            return execute(callback);
+        }
+    }
+
+    // Errors that leave the connection unusable, as opposed to a NO or BAD answer on a working one.
+    private static boolean isConnectionFailure(Exception error) {
+        for (Throwable current = error; current != null; current = current.getCause()) {
+            if (current instanceof FolderClosedException || current instanceof StoreClosedException
+                    || current instanceof FolderClosedIOException || current instanceof ConnectionException
+                    || current instanceof SocketException || current instanceof SocketTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public ImapConnection borrow() throws MessagingException {
+        long waitStart = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(borrowTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new MessagingException("Timed out waiting for a free IMAP connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MessagingException("Interrupted while waiting for a free IMAP connection", e);
+        }
+        recordWait(System.nanoTime() - waitStart);
+
+        try {
+            ImapConnection connection = takeIdleConnection();
+            if (connection == null) {
+                connection = createConnection();
+            }
+            borrowed.incrementAndGet();
+            borrowCount.incrementAndGet();
+            return connection;
+        } catch (MessagingException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    void release(ImapConnection connection) {
+        borrowed.decrementAndGet();
+        try {
+            if (connection.isBroken()) {
+                connection.disconnect();
+                evictedCount.incrementAndGet();
+                return;
+            }
+            connection.touch();
+            synchronized (idleConnections) {
+                idleConnections.push(connection);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    public ConnectionPoolStats getStats() {
+        int idle;
+        synchronized (idleConnections) {
+            idle = idleConnections.size();
+        }
+        long borrows = borrowCount.get();
+        double averageWaitMillis = borrows == 0 ? 0 : totalWaitNanos.get() / 1_000_000.0 / borrows;
+        return new ConnectionPoolStats(maxSize, borrowed.get(), idle, borrows, createdCount.get(), evictedCount.get(),
+                averageWaitMillis, maxWaitNanos.get() / 1_000_000.0);
+    }
+
+    private ImapConnection takeIdleConnection() {
+        long now = System.currentTimeMillis();
+        while (true) {
+            ImapConnection connection;
+            synchronized (idleConnections) {
+                connection = idleConnections.poll();
+            }
+            if (connection == null) {
+                return null;
+            }
+            if (now - connection.getLastValidatedAt() < validationInterval.toMillis() || connection.validate()) {
+                return connection;
+            }
+            connection.disconnect();
+            evictedCount.incrementAndGet();
+        }
+    }
+
+    // Opens a store outside the pool for long-running work such as IDLE that would otherwise pin a pooled connection.
+    public IMAPStore connectDedicated() throws MessagingException {
+        IMAPStore store = (IMAPStore) session.getStore(PROTOCOL);
+        store.connect(host, port, username, password);
+        return store;
+    }
+
+    private ImapConnection createConnection() throws MessagingException {
+        long started = System.nanoTime();
+        IMAPStore store = connectDedicated();
+        createdCount.incrementAndGet();
+        metrics.recordPhase("connect", started);
+
+        return new ImapConnection(this, store, maxOpenFolders, metrics);
+    }
+
+    private void scheduleEviction() {
+        long period = Math.max(1000, idleTimeout.toMillis() / 2);
+        eviction = evictor.scheduleWithFixedDelay(this::evictIdleConnections, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    private void evictIdleConnections() {
+        long cutoff = System.currentTimeMillis() - idleTimeout.toMillis();
+        List<ImapConnection> expired = new ArrayList<>();
+        synchronized (idleConnections) {
+            Iterator<ImapConnection> iterator = idleConnections.iterator();
+            while (iterator.hasNext()) {
+                ImapConnection connection = iterator.next();
+                if (connection.getLastUsedAt() < cutoff) {
+                    iterator.remove();
+                    expired.add(connection);
+                }
+            }
+        }
+        for (ImapConnection connection : expired) {
+            connection.disconnect();
+            evictedCount.incrementAndGet();
+        }
+    }
+
+    private void recordWait(long waitNanos) {
+        totalWaitNanos.addAndGet(waitNanos);
+        maxWaitNanos.accumulate(waitNanos);
+    }
+}
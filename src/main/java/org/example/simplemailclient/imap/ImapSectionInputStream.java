@@ -0,0 +1,115 @@
+package org.example.simplemailclient.imap;
+
+import com.sun.mail.imap.IMAPFolder;
+import com.sun.mail.imap.protocol.BODY;
+import jakarta.mail.Folder;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import org.example.simplemailclient.bulkhead.BulkheadRegistry;
+import org.example.simplemailclient.enumeration.OperationType;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads the raw (still transfer-encoded) bytes of one MIME section with partial
+ * {@code BODY.PEEK[section]<offset.length>} fetches. Every chunk borrows a pooled
+ * connection and a FETCH bulkhead permit only for its own fetch, so a slow reader
+ * never pins a connection and its pace does not count as server latency.
+ * Callers that already hold an open folder can read through it instead.
+ */
+public class ImapSectionInputStream extends InputStream {
+
+    private final ImapConnectionPool connectionPool;
+    private final BulkheadRegistry bulkheads;
+    private final String folderName;
+    private final long uid;
+    private final IMAPFolder openFolder;
+    private final int messageNumber;
+    private final String section;
+    private final long end;
+    private final int chunkSize;
+
+    private long offset;
+    private ByteArrayInputStream chunk = new ByteArrayInputStream(new byte[0]);
+    private boolean exhausted;
+
+    public ImapSectionInputStream(ImapConnectionPool connectionPool, BulkheadRegistry bulkheads, String folderName, long uid,
+                                  String section, long start, long end, int chunkSize) {
+        this.connectionPool = connectionPool;
+        this.bulkheads = bulkheads;
+        this.folderName = folderName;
+        this.uid = uid;
+        this.openFolder = null;
+        this.messageNumber = -1;
+        this.section = section;
+        this.offset = start;
+        this.end = end;
+        this.chunkSize = chunkSize;
+    }
+
+    // Reads through a folder the caller keeps open for the lifetime of the stream.
+    public ImapSectionInputStream(IMAPFolder openFolder, Message message, String section, long start, long end,
+                                  int chunkSize) throws MessagingException {
+        this.connectionPool = null;
+        this.bulkheads = null;
+        this.folderName = openFolder.getFullName();
+        this.uid = openFolder.getUID(message);
+        this.openFolder = openFolder;
+        this.messageNumber = message.getMessageNumber();
+        this.section = section;
+        this.offset = start;
+        this.end = end;
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        return read(single, 0, 1) == -1 ? -1 : single[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] buffer, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (chunk.available() == 0 && !fetchNextChunk()) {
+            return -1;
+        }
+        return chunk.read(buffer, off, len);
+    }
+
+    private boolean fetchNextChunk() throws IOException {
+        if (exhausted || offset >= end) {
+            return false;
+        }
+        int length = (int) Math.min(chunkSize, end - offset);
+        try {
+            byte[] bytes = openFolder != null
+                    ? peek(openFolder, messageNumber, length)
+                    : bulkheads.execute(OperationType.FETCH, () -> connectionPool.executeIdempotent(connection -> {
+                        IMAPFolder folder = connection.openFolder(folderName, Folder.READ_ONLY);
+                        Message message = folder.getMessageByUID(uid);
+                        if (message == null) {
+                            throw new MessagingException("Message " + uid + " no longer exists in " + folderName);
+                        }
+                        return peek(folder, message.getMessageNumber(), length);
+                    }));
+
+            // a short answer means the server has no more bytes for this section
+            exhausted = bytes.length < length;
+            offset += bytes.length;
+            chunk = new ByteArrayInputStream(bytes);
+            return bytes.length > 0;
+        } catch (MessagingException e) {
+            throw new IOException("Failed to fetch section " + section + " of message " + uid, e);
+        }
+    }
+
+    private byte[] peek(IMAPFolder folder, int messageNumber, int length) throws MessagingException {
+        BODY body = (BODY) folder.doCommand(protocol -> protocol.peekBody(messageNumber, section, (int) offset, length));
+        return body == null || body.getByteArray() == null ? new byte[0] : body.getByteArray().getNewBytes();
+    }
+}
@@ -0,0 +1,106 @@
+package org.example.simplemailclient.imap;
+
+import com.sun.mail.iap.Argument;
+import com.sun.mail.iap.ProtocolException;
+import com.sun.mail.iap.Response;
+import com.sun.mail.imap.protocol.IMAPProtocol;
+import com.sun.mail.util.MailLogger;
+import org.example.simplemailclient.metrics.ImapMetrics;
+
+import java.io.IOException;
+import java.util.Properties;
+
+/**
+ * Records the latency and outcome of every tagged IMAP command. SASL
+ * authentication bypasses {@link #command(String, Argument)} and is recorded
+ * separately as AUTHENTICATE.
+ */
+class InstrumentedImapProtocol extends IMAPProtocol {
+
+    private static final String AUTHENTICATE = "AUTHENTICATE";
+
+    // null while the superclass constructor reads the greeting and CAPABILITY
+    private final ImapMetrics metrics;
+
+    InstrumentedImapProtocol(String name, String host, int port, Properties props, boolean isSSL, MailLogger logger,
+                             ImapMetrics metrics) throws IOException, ProtocolException {
+        super(name, host, port, props, isSSL, logger);
+        this.metrics = metrics;
+    }
+
+    @Override
+    public synchronized Response[] command(String command, Argument args) {
+        long start = System.nanoTime();
+        Response[] responses = super.command(command, args);
+        if (metrics != null) {
+            metrics.recordCommand(commandName(command), status(responses), start, System.nanoTime() - start);
+        }
+        return responses;
+    }
+
+    @Override
+    public synchronized void authlogin(String u, String p) throws ProtocolException {
+        long start = System.nanoTime();
+        String status = "FAILED";
+        try {
+            super.authlogin(u, p);
+            status = "OK";
+        } finally {
+            recordAuthentication(status, start);
+        }
+    }
+
+    @Override
+    public synchronized void authplain(String authzid, String u, String p) throws ProtocolException {
+        long start = System.nanoTime();
+        String status = "FAILED";
+        try {
+            super.authplain(authzid, u, p);
+            status = "OK";
+        } finally {
+            recordAuthentication(status, start);
+        }
+    }
+
+    @Override
+    public synchronized void authoauth2(String u, String p) throws ProtocolException {
+        long start = System.nanoTime();
+        String status = "FAILED";
+        try {
+            super.authoauth2(u, p);
+            status = "OK";
+        } finally {
+            recordAuthentication(status, start);
+        }
+    }
+
+    private void recordAuthentication(String status, long start) {
+        metrics.recordCommand(AUTHENTICATE, status, start, System.nanoTime() - start);
+    }
+
+    // The command word, with the UID prefix kept, e.g. "UID FETCH"; arguments would explode the tag cardinality.
+    private static String commandName(String command) {
+        int end = command.indexOf(' ');
+        if (end > 0 && command.regionMatches(true, 0, "UID ", 0, 4)) {
+            end = command.indexOf(' ', end + 1);
+        }
+        return end < 0 ? command : command.substring(0, end);
+    }
+
+    private static String status(Response[] responses) {
+        if (responses == null || responses.length == 0) {
+            return "NONE";
+        }
+        Response response = responses[responses.length - 1];
+        if (response.isOK()) {
+            return "OK";
+        } else if (response.isNO()) {
+            return "NO";
+        } else if (response.isBAD()) {
+            return "BAD";
+        } else if (response.isBYE()) {
+            return "BYE";
+        }
+        return "NONE";
+    }
+}
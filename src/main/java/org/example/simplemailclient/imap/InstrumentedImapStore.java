@@ -0,0 +1,33 @@
+package org.example.simplemailclient.imap;
+
+import com.sun.mail.iap.ProtocolException;
+import com.sun.mail.imap.IMAPSSLStore;
+import com.sun.mail.imap.protocol.IMAPProtocol;
+import jakarta.mail.Session;
+import jakarta.mail.URLName;
+import org.example.simplemailclient.metrics.ImapMetrics;
+
+import java.io.IOException;
+
+/**
+ * IMAPS store whose protocol connections time every command. JavaMail creates
+ * it by reflection from the provider the pool registers on its session, so the
+ * metrics reach it through the session properties.
+ */
+public class InstrumentedImapStore extends IMAPSSLStore {
+
+    private final ImapMetrics metrics;
+
+    public InstrumentedImapStore(Session session, URLName url) {
+        super(session, url);
+        this.metrics = (ImapMetrics) session.getProperties().get(ImapMetrics.SESSION_PROPERTY);
+    }
+
+    @Override
+    protected IMAPProtocol newIMAPProtocol(String host, int port) throws IOException, ProtocolException {
+        if (metrics == null) {
+            return super.newIMAPProtocol(host, port);
+        }
+        return new InstrumentedImapProtocol(name, host, port, session.getProperties(), isSSL, logger, metrics);
+    }
+}
@@ -0,0 +1,127 @@
+package org.example.simplemailclient.metrics;
+
+import javax.net.SocketFactory;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+
+/**
+ * Creates plain sockets that report every byte read and written to
+ * {@link ImapMetrics}. JavaMail layers TLS on top of a socket that is not
+ * already an SSL socket, so the counts are what actually crosses the wire.
+ */
+public class CountingSocketFactory extends SocketFactory {
+
+    private final ImapMetrics metrics;
+
+    public CountingSocketFactory(ImapMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Socket createSocket() {
+        return new CountingSocket();
+    }
+
+    @Override
+    public Socket createSocket(String host, int port) throws IOException {
+        Socket socket = new CountingSocket();
+        socket.connect(new InetSocketAddress(host, port));
+        return socket;
+    }
+
+    @Override
+    public Socket createSocket(String host, int port, InetAddress localHost, int localPort) throws IOException {
+        Socket socket = new CountingSocket();
+        socket.bind(new InetSocketAddress(localHost, localPort));
+        socket.connect(new InetSocketAddress(host, port));
+        return socket;
+    }
+
+    @Override
+    public Socket createSocket(InetAddress host, int port) throws IOException {
+        Socket socket = new CountingSocket();
+        socket.connect(new InetSocketAddress(host, port));
+        return socket;
+    }
+
+    @Override
+    public Socket createSocket(InetAddress address, int port, InetAddress localAddress, int localPort) throws IOException {
+        Socket socket = new CountingSocket();
+        socket.bind(new InetSocketAddress(localAddress, localPort));
+        socket.connect(new InetSocketAddress(address, port));
+        return socket;
+    }
+
+    private final class CountingSocket extends Socket {
+
+        private InputStream input;
+        private OutputStream output;
+
+        @Override
+        public synchronized InputStream getInputStream() throws IOException {
+            if (input == null) {
+                input = new CountingInputStream(super.getInputStream());
+            }
+            return input;
+        }
+
+        @Override
+        public synchronized OutputStream getOutputStream() throws IOException {
+            if (output == null) {
+                output = new CountingOutputStream(super.getOutputStream());
+            }
+            return output;
+        }
+    }
+
+    private final class CountingInputStream extends FilterInputStream {
+
+        private CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                metrics.recordBytesRead(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int count = super.read(b, off, len);
+            if (count > 0) {
+                metrics.recordBytesRead(count);
+            }
+            return count;
+        }
+    }
+
+    private final class CountingOutputStream extends FilterOutputStream {
+
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            metrics.recordBytesWritten(1);
+        }
+
+        // FilterOutputStream writes arrays byte by byte, pass them through whole
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            metrics.recordBytesWritten(len);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package org.example.simplemailclient.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.example.simplemailclient.dto.RequestTrace;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micrometer meters for the IMAP hot path: latency per IMAP command, time per
+ * service phase, bytes on the wire, and round trips and bytes per HTTP request.
+ * Timers publish fixed histogram buckets instead of client-side percentiles, so
+ * recording stays a few atomic increments.
+ */
+@Component
+public class ImapMetrics {
+
+    // Session property under which the instrumented IMAP store finds this bean
+    public static final String SESSION_PROPERTY = "org.example.simplemailclient.imap.metrics";
+
+    private static final String UNKNOWN_URI = "UNKNOWN";
+
+    @Value("${metrics.trace.sample-rate:0}")
+    private double traceSampleRate;
+
+    @Value("${metrics.trace.max-traces:100}")
+    private int maxTraces;
+
+    private final MeterRegistry registry;
+
+    private final Counter bytesRead;
+
+    private final Counter bytesWritten;
+
+    private final Map<String, Timer> commandTimers = new ConcurrentHashMap<>();
+
+    private final Map<String, Timer> phaseTimers = new ConcurrentHashMap<>();
+
+    private final Map<String, DistributionSummary> roundTripSummaries = new ConcurrentHashMap<>();
+
+    private final Map<String, DistributionSummary> requestBytesSummaries = new ConcurrentHashMap<>();
+
+    private final Deque<RequestTrace> recentTraces = new ArrayDeque<>();
+
+    @Autowired
+    public ImapMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.bytesRead = Counter.builder("imap.bytes.read")
+                .description("Bytes read from IMAP connections, including TLS framing")
+                .baseUnit("bytes")
+                .register(registry);
+        this.bytesWritten = Counter.builder("imap.bytes.written")
+                .description("Bytes written to IMAP connections, including TLS framing")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    public void recordCommand(String command, String status, long startNanos, long durationNanos) {
+        commandTimers.computeIfAbsent(command + " " + status, key -> Timer.builder("imap.commands")
+                        .description("IMAP command latency")
+                        .tag("command", command)
+                        .tag("status", status)
+                        .publishPercentileHistogram()
+                        .minimumExpectedValue(Duration.ofMillis(1))
+                        .maximumExpectedValue(Duration.ofSeconds(30))
+                        .register(registry))
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+
+        ImapTrace trace = ImapTrace.current();
+        if (trace != null) {
+            trace.recordCommand(command, status, startNanos, durationNanos);
+        }
+    }
+
+    // Records the time since startNanos against the phase and returns the current time, to start the next phase.
+    public long recordPhase(String phase, long startNanos) {
+        long now = System.nanoTime();
+        phaseTimers.computeIfAbsent(phase, key -> Timer.builder("mail.phase")
+                        .description("Time spent per mail service phase")
+                        .tag("phase", phase)
+                        .publishPercentileHistogram()
+                        .minimumExpectedValue(Duration.ofMillis(1))
+                        .maximumExpectedValue(Duration.ofSeconds(30))
+                        .register(registry))
+                .record(now - startNanos, TimeUnit.NANOSECONDS);
+        return now;
+    }
+
+    public void recordBytesRead(long count) {
+        bytesRead.increment(count);
+        ImapTrace trace = ImapTrace.current();
+        if (trace != null) {
+            trace.addBytesRead(count);
+        }
+    }
+
+    public void recordBytesWritten(long count) {
+        bytesWritten.increment(count);
+        ImapTrace trace = ImapTrace.current();
+        if (trace != null) {
+            trace.addBytesWritten(count);
+        }
+    }
+
+    public ImapTrace startTrace(String method, String path) {
+        boolean sampled = traceSampleRate > 0 && ThreadLocalRandom.current().nextDouble() < traceSampleRate;
+        return new ImapTrace(method, path, sampled);
+    }
+
+    public void finishTrace(ImapTrace trace, String uri, int status) {
+        long durationNanos = trace.elapsedNanos();
+        String uriTag = uri != null ? uri : UNKNOWN_URI;
+
+        roundTripSummaries.computeIfAbsent(uriTag, key -> DistributionSummary.builder("imap.request.round.trips")
+                        .description("IMAP round trips per HTTP request")
+                        .tag("uri", uriTag)
+                        .publishPercentileHistogram()
+                        .maximumExpectedValue(1000.0)
+                        .register(registry))
+                .record(trace.getRoundTrips());
+        requestBytesSummaries.computeIfAbsent(uriTag, key -> DistributionSummary.builder("imap.request.bytes")
+                        .description("IMAP bytes read and written per HTTP request")
+                        .tag("uri", uriTag)
+                        .baseUnit("bytes")
+                        .publishPercentileHistogram()
+                        .maximumExpectedValue(100_000_000.0)
+                        .register(registry))
+                .record(trace.getBytesRead() + trace.getBytesWritten());
+
+        if (trace.isSampled()) {
+            RequestTrace requestTrace = trace.toRequestTrace(uri, status, durationNanos);
+            synchronized (recentTraces) {
+                recentTraces.addFirst(requestTrace);
+                while (recentTraces.size() > maxTraces) {
+                    recentTraces.removeLast();
+                }
+            }
+        }
+    }
+
+    // Most recent first
+    public List<RequestTrace> getRecentTraces() {
+        synchronized (recentTraces) {
+            return new ArrayList<>(recentTraces);
+        }
+    }
+}
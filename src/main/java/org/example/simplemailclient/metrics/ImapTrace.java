@@ -0,0 +1,115 @@
+package org.example.simplemailclient.metrics;
+
+import org.example.simplemailclient.dto.CommandTrace;
+import org.example.simplemailclient.dto.RequestTrace;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The IMAP work done on behalf of one HTTP request: round trips and wire bytes
+ * always, and the full command timeline when the request was sampled. It is
+ * bound to the handling thread and carried over to the thread that writes a
+ * streamed response.
+ */
+public class ImapTrace {
+
+    private static final ThreadLocal<ImapTrace> CURRENT = new ThreadLocal<>();
+
+    private final String method;
+    private final String path;
+    private final boolean sampled;
+    private final long startedAt = System.currentTimeMillis();
+    private final long startNanos = System.nanoTime();
+    private final AtomicInteger roundTrips = new AtomicInteger();
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
+    private final List<CommandTrace> commands;
+
+    ImapTrace(String method, String path, boolean sampled) {
+        this.method = method;
+        this.path = path;
+        this.sampled = sampled;
+        this.commands = sampled ? new ArrayList<>() : null;
+    }
+
+    public static ImapTrace current() {
+        return CURRENT.get();
+    }
+
+    // Binds the trace to the calling thread and returns the one it replaces, to be restored afterwards.
+    public static ImapTrace bind(ImapTrace trace) {
+        ImapTrace previous = CURRENT.get();
+        if (trace == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(trace);
+        }
+        return previous;
+    }
+
+    public static Runnable wrap(Runnable task) {
+        ImapTrace trace = current();
+        if (trace == null) {
+            return task;
+        }
+        return () -> {
+            ImapTrace previous = bind(trace);
+            try {
+                task.run();
+            } finally {
+                bind(previous);
+            }
+        };
+    }
+
+    public boolean isSampled() {
+        return sampled;
+    }
+
+    int getRoundTrips() {
+        return roundTrips.get();
+    }
+
+    long getBytesRead() {
+        return bytesRead.sum();
+    }
+
+    long getBytesWritten() {
+        return bytesWritten.sum();
+    }
+
+    void recordCommand(String command, String status, long startNanos, long durationNanos) {
+        roundTrips.incrementAndGet();
+        if (sampled) {
+            CommandTrace trace = new CommandTrace(command, status, (startNanos - this.startNanos) / 1_000_000.0,
+                    durationNanos / 1_000_000.0, Thread.currentThread().getName());
+            synchronized (commands) {
+                commands.add(trace);
+            }
+        }
+    }
+
+    void addBytesRead(long count) {
+        bytesRead.add(count);
+    }
+
+    void addBytesWritten(long count) {
+        bytesWritten.add(count);
+    }
+
+    long elapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    RequestTrace toRequestTrace(String uri, int status, long durationNanos) {
+        List<CommandTrace> commandsCopy;
+        synchronized (commands) {
+            commandsCopy = new ArrayList<>(commands);
+        }
+        return new RequestTrace(method, path, uri, status, startedAt, durationNanos / 1_000_000.0,
+                roundTrips.get(), bytesRead.sum(), bytesWritten.sum(), commandsCopy);
+    }
+}
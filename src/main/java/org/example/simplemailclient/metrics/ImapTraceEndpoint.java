@@ -0,0 +1,30 @@
+package org.example.simplemailclient.metrics;
+
+import org.example.simplemailclient.dto.RequestTrace;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Actuator endpoint listing the most recent sampled request traces with their
+ * IMAP command timelines. Sampling is off unless metrics.trace.sample-rate is set.
+ */
+@Component
+@Endpoint(id = "imaptrace")
+public class ImapTraceEndpoint {
+
+    private final ImapMetrics metrics;
+
+    @Autowired
+    public ImapTraceEndpoint(ImapMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @ReadOperation
+    public List<RequestTrace> traces() {
+        return metrics.getRecentTraces();
+    }
+}
@@ -0,0 +1,88 @@
+package org.example.simplemailclient.metrics;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Opens an {@link ImapTrace} for every API request and closes it once the
+ * response is complete, which for streamed responses is after the async part
+ * has finished writing.
+ */
+@Component
+public class ImapTraceFilter extends OncePerRequestFilter {
+
+    private static final String API_PREFIX = "/api/";
+
+    private final ImapMetrics metrics;
+
+    @Autowired
+    public ImapTraceFilter(ImapMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith(API_PREFIX);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        ImapTrace trace = metrics.startTrace(request.getMethod(), request.getRequestURI());
+        ImapTrace previous = ImapTrace.bind(trace);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ImapTrace.bind(previous);
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new TraceCompletionListener(trace));
+            } else {
+                finish(trace, request, response);
+            }
+        }
+    }
+
+    private void finish(ImapTrace trace, HttpServletRequest request, HttpServletResponse response) {
+        metrics.finishTrace(trace, (String) request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE),
+                response.getStatus());
+    }
+
+    private final class TraceCompletionListener implements AsyncListener {
+
+        private final ImapTrace trace;
+
+        private TraceCompletionListener(ImapTrace trace) {
+            this.trace = trace;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            finish(trace, (HttpServletRequest) event.getSuppliedRequest(), (HttpServletResponse) event.getSuppliedResponse());
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            // onComplete follows
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            // onComplete follows
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package org.example.simplemailclient.outbound;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.AddressException;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import org.example.simplemailclient.bulkhead.AdaptiveLimiter;
+import org.example.simplemailclient.bulkhead.BulkheadRegistry;
+import org.example.simplemailclient.dto.BulkRecipient;
+import org.example.simplemailclient.dto.BulkSendFailure;
+import org.example.simplemailclient.dto.BulkSendStatus;
+import org.example.simplemailclient.dto.BulkSendTemplate;
+import org.example.simplemailclient.enumeration.BulkSendState;
+import org.example.simplemailclient.enumeration.MailProtocol;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Mail-merge over a stream of recipient rows. The rows are spooled to disk while
+ * the request is read and then streamed from there through a bounded queue to
+ * several senders, each with its own SMTP connection, so memory stays flat no
+ * matter how many recipients a job has.
+ */
+@Service
+public class BulkSendService {
+
+    private static final String ROWS_FILE = "rows.ndjson";
+
+    @Value("${outbound.bulk.directory:${user.home}/.simple-mail-client/bulk}")
+    private String directory;
+
+    @Value("${outbound.bulk.transports:4}")
+    private int transports;
+
+    @Value("${outbound.bulk.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${outbound.bulk.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${outbound.bulk.retry-backoff:2s}")
+    private Duration retryBackoff;
+
+    @Value("${outbound.bulk.max-reported-failures:1000}")
+    private int maxReportedFailures;
+
+    @Value("${outbound.status-retention:24h}")
+    private Duration statusRetention;
+
+    @Value("${outbound.smtp.max-messages-per-connection:100}")
+    private int maxMessagesPerConnection;
+
+    @Value("${outbound.smtp.validation-interval:30s}")
+    private Duration validationInterval;
+
+    private final JavaMailSenderImpl mailSender;
+
+    private final ObjectMapper objectMapper;
+
+    private final BulkheadRegistry bulkheads;
+
+    private final Map<String, BulkJob> jobs = new ConcurrentHashMap<>();
+
+    private final ExecutorService jobExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "bulk-send-job");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public BulkSendService(JavaMailSenderImpl mailSender, ObjectMapper objectMapper, BulkheadRegistry bulkheads) {
+        this.mailSender = mailSender;
+        this.objectMapper = objectMapper;
+        this.bulkheads = bulkheads;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobExecutor.shutdownNow();
+    }
+
+    // The body is newline-delimited JSON: the template first, then one recipient row per line.
+    public BulkSendStatus submit(InputStream body) throws IOException, MessagingException {
+        long now = System.currentTimeMillis();
+        jobs.values().removeIf(job -> {
+            boolean expired = job.state != BulkSendState.SENDING && now - job.updatedAt >= statusRetention.toMillis();
+            if (expired) {
+                FileSystemUtils.deleteRecursively(job.directory.toFile());
+            }
+            return expired;
+        });
+
+        String jobId = UUID.randomUUID().toString();
+        Path jobDirectory = Paths.get(directory, jobId);
+        Files.createDirectories(jobDirectory);
+
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            if (parser.nextToken() == null) {
+                throw new IllegalArgumentException("The request has no template");
+            }
+            MailTemplate template = MailTemplate.compile(objectMapper.readValue(parser, BulkSendTemplate.class),
+                    mailSender.getSession(), messageIdDomain());
+            BulkJob job = new BulkJob(jobId, jobDirectory, template);
+
+            try (BufferedWriter rows = Files.newBufferedWriter(jobDirectory.resolve(ROWS_FILE), StandardCharsets.UTF_8)) {
+                long row = 0;
+                while (parser.nextToken() != null) {
+                    BulkRecipient recipient = objectMapper.readValue(parser, BulkRecipient.class);
+                    row++;
+                    String error = validate(recipient);
+                    if (error != null) {
+                        job.fail(row, recipient.getTo(), error);
+                        continue;
+                    }
+                    rows.write(Long.toString(row));
+                    rows.write('\t');
+                    rows.write(objectMapper.writeValueAsString(recipient));
+                    rows.newLine();
+                }
+                job.total = row;
+            }
+
+            jobs.put(jobId, job);
+            jobExecutor.submit(() -> run(job));
+            return job.toStatus();
+        } catch (IOException | MessagingException | RuntimeException e) {
+            FileSystemUtils.deleteRecursively(jobDirectory.toFile());
+            throw e;
+        }
+    }
+
+    public Optional<BulkSendStatus> getStatus(String jobId) {
+        BulkJob job = jobs.get(jobId);
+        return job == null ? Optional.empty() : Optional.of(job.toStatus());
+    }
+
+    private String validate(BulkRecipient recipient) {
+        if (recipient.getTo() == null) {
+            return "No recipient address";
+        }
+        try {
+            new InternetAddress(recipient.getTo(), true);
+            return null;
+        } catch (AddressException e) {
+            return "Invalid address: " + e.getMessage();
+        }
+    }
+
+    private void run(BulkJob job) {
+        BlockingQueue<SpooledRow> queue = new ArrayBlockingQueue<>(queueCapacity);
+        List<Thread> senders = new ArrayList<>();
+        for (int i = 0; i < transports; i++) {
+            Thread sender = new Thread(() -> drain(job, queue), "bulk-send-" + i);
+            sender.setDaemon(true);
+            sender.start();
+            senders.add(sender);
+        }
+
+        String error = null;
+        try (BufferedReader rows = Files.newBufferedReader(job.directory.resolve(ROWS_FILE), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = rows.readLine()) != null) {
+                int tab = line.indexOf('\t');
+                SpooledRow row = new SpooledRow(Long.parseLong(line.substring(0, tab)),
+                        objectMapper.readValue(line.substring(tab + 1), BulkRecipient.class));
+                if (!hand(queue, row, senders)) {
+                    error = "All senders stopped before row " + row.row();
+                    break;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+            error = "Error reading the spooled rows: " + e.getMessage();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            error = "Interrupted";
+        }
+
+        try {
+            for (int i = 0; i < senders.size(); i++) {
+                if (!hand(queue, SpooledRow.END, senders)) {
+                    break;
+                }
+            }
+            for (Thread sender : senders) {
+                sender.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        job.finish(error);
+        // a failed job keeps its spool until its status expires
+        if (error == null) {
+            FileSystemUtils.deleteRecursively(job.directory.toFile());
+        }
+    }
+
+    // Waits for room in the queue as long as a sender is left to take from it; false once they have all stopped.
+    private boolean hand(BlockingQueue<SpooledRow> queue, SpooledRow row, List<Thread> senders) throws InterruptedException {
+        while (!queue.offer(row, 1, TimeUnit.SECONDS)) {
+            if (senders.stream().noneMatch(Thread::isAlive)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void drain(BulkJob job, BlockingQueue<SpooledRow> queue) {
+        try (SmtpConnection connection = new SmtpConnection(mailSender, maxMessagesPerConnection, validationInterval)) {
+            while (true) {
+                SpooledRow row = queue.take();
+                if (row == SpooledRow.END) {
+                    return;
+                }
+                send(job, connection, row);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Every message takes a slot of the account's SMTP limit, so throttling replies slow bulk jobs down as well.
+    private void send(BulkJob job, SmtpConnection connection, SpooledRow row) throws InterruptedException {
+        AdaptiveLimiter limiter = bulkheads.getLimiter(MailProtocol.SMTP);
+        for (int attempt = 1; ; attempt++) {
+            try {
+                MimeMessage message = job.template.createMessage(row.recipient());
+                limiter.execute(() -> {
+                    connection.send(message);
+                    return null;
+                });
+                job.sent.incrementAndGet();
+                job.updatedAt = System.currentTimeMillis();
+                return;
+            } catch (IllegalArgumentException e) {
+                job.fail(row.row(), row.recipient().getTo(), e.getMessage());
+                return;
+            } catch (MessagingException | IOException e) {
+                if ((e instanceof MessagingException messagingException && SmtpConnection.isPermanent(messagingException))
+                        || attempt >= maxAttempts) {
+                    job.fail(row.row(), row.recipient().getTo(), e.getMessage());
+                    return;
+                }
+                Thread.sleep(retryBackoff.toMillis() * attempt);
+            }
+        }
+    }
+
+    private String messageIdDomain() {
+        String username = mailSender.getUsername();
+        return username != null && username.contains("@") ? username.substring(username.indexOf('@') + 1) : "localhost";
+    }
+
+    private record SpooledRow(long row, BulkRecipient recipient) {
+
+        private static final SpooledRow END = new SpooledRow(-1, null);
+    }
+
+    private final class BulkJob {
+
+        private final String id;
+        private final Path directory;
+        private final MailTemplate template;
+        private final long createdAt = System.currentTimeMillis();
+        private final AtomicLong sent = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final List<BulkSendFailure> failures = Collections.synchronizedList(new ArrayList<>());
+
+        private volatile BulkSendState state = BulkSendState.SENDING;
+        private volatile String error;
+        private volatile long total;
+        private volatile long updatedAt = createdAt;
+
+        private BulkJob(String id, Path directory, MailTemplate template) {
+            this.id = id;
+            this.directory = directory;
+            this.template = template;
+        }
+
+        private void fail(long row, String to, String error) {
+            failed.incrementAndGet();
+            if (failures.size() < maxReportedFailures) {
+                failures.add(new BulkSendFailure(row, to, error));
+            }
+            updatedAt = System.currentTimeMillis();
+        }
+
+        private void finish(String error) {
+            this.error = error;
+            state = error == null ? BulkSendState.COMPLETED : BulkSendState.FAILED;
+            updatedAt = System.currentTimeMillis();
+        }
+
+        private BulkSendStatus toStatus() {
+            List<BulkSendFailure> failuresCopy;
+            synchronized (failures) {
+                failuresCopy = new ArrayList<>(failures);
+            }
+            return new BulkSendStatus(id, state, total, sent.get(), failed.get(), failuresCopy, error, createdAt,
+                    updatedAt);
+        }
+    }
+}
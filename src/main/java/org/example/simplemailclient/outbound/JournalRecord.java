@@ -0,0 +1,21 @@
+package org.example.simplemailclient.outbound;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.simplemailclient.dto.EmailRequest;
+import org.example.simplemailclient.dto.OutboundStatus;
+
+/**
+ * One line of the outbound journal. The request is only written with the first
+ * record of a message; later records carry the new status alone.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class JournalRecord {
+
+    private String id;
+    private EmailRequest request;
+    private OutboundStatus status;
+}
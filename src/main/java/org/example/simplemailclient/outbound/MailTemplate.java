@@ -0,0 +1,148 @@
+package org.example.simplemailclient.outbound;
+
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import jakarta.mail.util.SharedByteArrayInputStream;
+import org.example.simplemailclient.dto.BulkRecipient;
+import org.example.simplemailclient.dto.BulkSendTemplate;
+import org.springframework.web.util.HtmlUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * A bulk-send template compiled once per job. Subject and body are split into
+ * literal and {{variable}} segments up front; a body without variables is MIME
+ * encoded once and every message shares those bytes instead of re-encoding them.
+ */
+public class MailTemplate {
+
+    private final Session session;
+    private final String messageIdDomain;
+    private final List<Segment> subject;
+    private final List<Segment> body;
+    private final InternetAddress[] cc;
+    private final InternetAddress[] bcc;
+    // Content-Type, Content-Transfer-Encoding and the encoded body, or null when the body has variables
+    private final byte[] encodedBody;
+
+    private MailTemplate(Session session, String messageIdDomain, List<Segment> subject, List<Segment> body,
+                         InternetAddress[] cc, InternetAddress[] bcc, byte[] encodedBody) {
+        this.session = session;
+        this.messageIdDomain = messageIdDomain;
+        this.subject = subject;
+        this.body = body;
+        this.cc = cc;
+        this.bcc = bcc;
+        this.encodedBody = encodedBody;
+    }
+
+    public static MailTemplate compile(BulkSendTemplate template, Session session, String messageIdDomain)
+            throws MessagingException, IOException {
+        List<Segment> subject = parse(template.getSubject() != null ? template.getSubject() : "");
+        List<Segment> body = parse(template.getText() != null ? template.getText() : "");
+
+        byte[] encodedBody = null;
+        if (body.stream().noneMatch(Segment::isVariable)) {
+            MimeMessage bodyOnly = new MimeMessage(session);
+            bodyOnly.setText(render(body, Map.of(), true), "UTF-8", "html");
+            bodyOnly.saveChanges();
+            bodyOnly.removeHeader("Message-ID");
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            bodyOnly.writeTo(bytes);
+            encodedBody = bytes.toByteArray();
+        }
+
+        return new MailTemplate(session, messageIdDomain, subject, body,
+                parseAddresses(template.getCc()), parseAddresses(template.getBcc()), encodedBody);
+    }
+
+    public MimeMessage createMessage(BulkRecipient recipient) throws MessagingException {
+        Map<String, String> variables = recipient.getVariables() != null ? recipient.getVariables() : Map.of();
+
+        MimeMessage message;
+        if (encodedBody != null) {
+            // parsing a shared stream keeps a reference to the encoded bytes instead of copying them
+            message = new MimeMessage(session, new SharedByteArrayInputStream(encodedBody));
+            message.setHeader("Message-ID", "<" + UUID.randomUUID() + "@" + messageIdDomain + ">");
+        } else {
+            message = new MimeMessage(session);
+            message.setText(render(body, variables, true), "UTF-8", "html");
+        }
+
+        message.setRecipient(Message.RecipientType.TO, new InternetAddress(recipient.getTo(), true));
+        if (cc.length > 0) {
+            message.setRecipients(Message.RecipientType.CC, cc);
+        }
+        if (bcc.length > 0) {
+            message.setRecipients(Message.RecipientType.BCC, bcc);
+        }
+        message.setSubject(render(subject, variables, false), "UTF-8");
+        message.setSentDate(new Date());
+
+        if (encodedBody == null) {
+            message.saveChanges();
+        }
+        return message;
+    }
+
+    private static String render(List<Segment> segments, Map<String, String> variables, boolean html) {
+        StringBuilder text = new StringBuilder();
+        for (Segment segment : segments) {
+            if (!segment.isVariable()) {
+                text.append(segment.value());
+                continue;
+            }
+            String value = variables.get(segment.value());
+            if (value == null) {
+                throw new IllegalArgumentException("Missing variable " + segment.value());
+            }
+            text.append(html ? HtmlUtils.htmlEscape(value) : value);
+        }
+        return text.toString();
+    }
+
+    private static List<Segment> parse(String text) {
+        List<Segment> segments = new ArrayList<>();
+        int position = 0;
+        while (position < text.length()) {
+            int start = text.indexOf("{{", position);
+            if (start < 0) {
+                segments.add(new Segment(text.substring(position), false));
+                break;
+            }
+            int end = text.indexOf("}}", start + 2);
+            if (end < 0) {
+                throw new IllegalArgumentException("Unclosed placeholder at position " + start);
+            }
+            if (start > position) {
+                segments.add(new Segment(text.substring(position, start), false));
+            }
+            segments.add(new Segment(text.substring(start + 2, end).trim(), true));
+            position = end + 2;
+        }
+        return segments;
+    }
+
+    private static InternetAddress[] parseAddresses(List<String> addresses) throws MessagingException {
+        if (addresses == null) {
+            return new InternetAddress[0];
+        }
+        InternetAddress[] parsed = new InternetAddress[addresses.size()];
+        for (int i = 0; i < parsed.length; i++) {
+            parsed[i] = new InternetAddress(addresses.get(i), true);
+        }
+        return parsed;
+    }
+
+    private record Segment(String value, boolean isVariable) {
+    }
+}
@@ -0,0 +1,135 @@
+package org.example.simplemailclient.outbound;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Append-only JSON-lines journal of outbound messages. Every record is forced to
+ * disk before it is acknowledged, so queued mail survives a crash or restart.
+ * The journal is rewritten with only the live records once it grows too large.
+ */
+@Component
+public class OutboundJournal {
+
+    private static final String JOURNAL_FILE = "outbox.journal";
+
+    @Value("${outbound.journal.directory:${user.home}/.simple-mail-client/outbox}")
+    private String directory;
+
+    @Value("${outbound.journal.fsync:true}")
+    private boolean fsync;
+
+    @Value("${outbound.journal.compact-threshold:10000}")
+    private int compactThreshold;
+
+    private final ObjectMapper objectMapper;
+
+    private Path journalFile;
+    private FileChannel channel;
+    private int recordCount;
+
+    @Autowired
+    public OutboundJournal(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        journalFile = Paths.get(directory, JOURNAL_FILE);
+        Files.createDirectories(journalFile.getParent());
+        channel = openForAppend();
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    // Latest state of every message in the journal; the request of the first record is kept.
+    public synchronized Map<String, JournalRecord> replay() throws IOException {
+        Map<String, JournalRecord> records = new LinkedHashMap<>();
+        recordCount = 0;
+        try (BufferedReader reader = Files.newBufferedReader(journalFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                JournalRecord record;
+                try {
+                    record = objectMapper.readValue(line, JournalRecord.class);
+                } catch (JsonProcessingException e) {
+                    // a torn last line from a crash in the middle of a write
+                    continue;
+                }
+                recordCount++;
+                JournalRecord previous = records.get(record.getId());
+                if (previous != null && record.getRequest() == null) {
+                    record.setRequest(previous.getRequest());
+                }
+                records.put(record.getId(), record);
+            }
+        }
+        return records;
+    }
+
+    public synchronized void append(JournalRecord record) throws IOException {
+        write(channel, record);
+        if (fsync) {
+            channel.force(false);
+        }
+        recordCount++;
+    }
+
+    public synchronized boolean needsCompaction() {
+        return recordCount > compactThreshold;
+    }
+
+    // Replaces the journal with one full record per message, written to a temp file and moved into place.
+    public synchronized void compact(Collection<JournalRecord> records) throws IOException {
+        Path tempFile = journalFile.resolveSibling(JOURNAL_FILE + ".tmp");
+        try (FileChannel tempChannel = FileChannel.open(tempFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (JournalRecord record : records) {
+                write(tempChannel, record);
+            }
+            tempChannel.force(true);
+        }
+
+        channel.close();
+        Files.move(tempFile, journalFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = openForAppend();
+        recordCount = records.size();
+    }
+
+    private FileChannel openForAppend() throws IOException {
+        return FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private void write(FileChannel target, JournalRecord record) throws IOException {
+        byte[] line = (objectMapper.writeValueAsString(record) + "\n").getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.wrap(line);
+        while (buffer.hasRemaining()) {
+            target.write(buffer);
+        }
+    }
+}
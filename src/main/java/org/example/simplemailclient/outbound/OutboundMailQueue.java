@@ -0,0 +1,313 @@
+package org.example.simplemailclient.outbound;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.AddressException;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import org.example.simplemailclient.bulkhead.BulkheadRegistry;
+import org.example.simplemailclient.dto.EmailRequest;
+import org.example.simplemailclient.dto.OutboundStatus;
+import org.example.simplemailclient.enumeration.MailProtocol;
+import org.example.simplemailclient.enumeration.OutboundState;
+import org.example.simplemailclient.exception.EmailSendingException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outbound mail queue backed by the {@link OutboundJournal}. Requests are
+ * acknowledged as soon as they are journaled; a fixed set of workers then sends
+ * them, each over its own long-lived SMTP transport, and retries temporary
+ * failures with jittered exponential backoff. Sends take a slot of the account's
+ * SMTP {@link org.example.simplemailclient.bulkhead.AdaptiveLimiter}, so 4xx
+ * replies slow all workers down.
+ */
+@Service
+public class OutboundMailQueue {
+
+    @Value("${outbound.workers:2}")
+    private int workers;
+
+    @Value("${outbound.smtp.max-messages-per-connection:100}")
+    private int maxMessagesPerConnection;
+
+    @Value("${outbound.smtp.idle-timeout:60s}")
+    private Duration idleTimeout;
+
+    @Value("${outbound.smtp.validation-interval:30s}")
+    private Duration validationInterval;
+
+    @Value("${outbound.retry.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${outbound.retry.initial-backoff:30s}")
+    private Duration initialBackoff;
+
+    @Value("${outbound.retry.max-backoff:30m}")
+    private Duration maxBackoff;
+
+    @Value("${outbound.status-retention:24h}")
+    private Duration statusRetention;
+
+    private final JavaMailSenderImpl mailSender;
+
+    private final OutboundJournal journal;
+
+    private final BulkheadRegistry bulkheads;
+
+    private final Map<String, JournalRecord> records = new ConcurrentHashMap<>();
+
+    // held while a record goes into both the map and the journal, and while the journal is rewritten from the map
+    private final Object journalLock = new Object();
+
+    private final DelayQueue<PendingSend> pending = new DelayQueue<>();
+
+    private final List<Thread> workerThreads = new ArrayList<>();
+
+    private volatile boolean running = true;
+
+    @Autowired
+    public OutboundMailQueue(JavaMailSenderImpl mailSender, OutboundJournal journal, BulkheadRegistry bulkheads) {
+        this.mailSender = mailSender;
+        this.journal = journal;
+        this.bulkheads = bulkheads;
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        long now = System.currentTimeMillis();
+        for (JournalRecord record : journal.replay().values()) {
+            OutboundStatus status = record.getStatus();
+            if (status.getState().isTerminal()) {
+                if (now - status.getUpdatedAt() < statusRetention.toMillis()) {
+                    records.put(record.getId(), record);
+                }
+                continue;
+            }
+            // SENDING means the process stopped mid-send; the message goes out again (at-least-once)
+            if (status.getState() == OutboundState.SENDING) {
+                status.setState(OutboundState.QUEUED);
+            }
+            records.put(record.getId(), record);
+            pending.add(new PendingSend(record.getId(), status.getNextAttemptAt()));
+        }
+        journal.compact(records.values());
+
+        for (int i = 0; i < workers; i++) {
+            Thread thread = new Thread(new SendWorker(), "outbound-sender-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            workerThreads.add(thread);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        workerThreads.forEach(Thread::interrupt);
+    }
+
+    public OutboundStatus enqueue(EmailRequest request) {
+        validate(request);
+
+        long now = System.currentTimeMillis();
+        String id = UUID.randomUUID().toString();
+        OutboundStatus status = new OutboundStatus(id, OutboundState.QUEUED, 0, null, now, now, now);
+        // in the map first: a compaction that starts after the append must find the record
+        synchronized (journalLock) {
+            records.put(id, new JournalRecord(id, request, status));
+            try {
+                journal.append(new JournalRecord(id, request, status));
+            } catch (IOException e) {
+                records.remove(id);
+                throw new EmailSendingException("Failed to queue email");
+            }
+        }
+        pending.add(new PendingSend(id, now));
+        return copyOf(status);
+    }
+
+    public Optional<OutboundStatus> getStatus(String id) {
+        JournalRecord record = records.get(id);
+        return record == null ? Optional.empty() : Optional.of(copyOf(record.getStatus()));
+    }
+
+    // Everything createMimeMessage needs, so a journaled request can always be built; IllegalArgumentException is a 400.
+    private void validate(EmailRequest request) {
+        if (request.getTo() == null || request.getTo().isEmpty()) {
+            throw new IllegalArgumentException("Failed to send email: no recipients");
+        }
+        if (request.getSubject() == null) {
+            throw new IllegalArgumentException("Failed to send email: no subject");
+        }
+        if (request.getText() == null) {
+            throw new IllegalArgumentException("Failed to send email: no text");
+        }
+        List<String> addresses = new ArrayList<>(request.getTo());
+        if (request.getCc() != null) {
+            addresses.addAll(request.getCc());
+        }
+        if (request.getBcc() != null) {
+            addresses.addAll(request.getBcc());
+        }
+        for (String address : addresses) {
+            try {
+                new InternetAddress(address, true);
+            } catch (AddressException e) {
+                throw new IllegalArgumentException("Failed to send email: invalid address " + address);
+            }
+        }
+    }
+
+    private MimeMessage createMimeMessage(EmailRequest emailRequest) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, false);
+
+        helper.setTo(emailRequest.getTo().toArray(new String[0]));
+
+        if (emailRequest.getCc() != null && !emailRequest.getCc().isEmpty()) {
+            helper.setCc(emailRequest.getCc().toArray(new String[0]));
+        }
+
+        if (emailRequest.getBcc() != null && !emailRequest.getBcc().isEmpty()) {
+            helper.setBcc(emailRequest.getBcc().toArray(new String[0]));
+        }
+
+        helper.setSubject(emailRequest.getSubject());
+        helper.setText(emailRequest.getText(), true);
+        message.saveChanges();
+        return message;
+    }
+
+    private void updateStatus(JournalRecord record, OutboundState state, int attempts, String error, long nextAttemptAt) {
+        OutboundStatus previous = record.getStatus();
+        OutboundStatus status = new OutboundStatus(previous.getId(), state, attempts, error,
+                previous.getCreatedAt(), System.currentTimeMillis(), nextAttemptAt);
+        synchronized (journalLock) {
+            records.put(record.getId(), new JournalRecord(record.getId(), record.getRequest(), status));
+
+            // SENDING is only kept in memory, a crash during the send replays the previous state
+            if (state == OutboundState.SENDING) {
+                return;
+            }
+            try {
+                journal.append(new JournalRecord(record.getId(), null, status));
+                if (journal.needsCompaction()) {
+                    compact();
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    // Callers hold the journal lock, so no record is added between the snapshot of the map and the rewrite.
+    private void compact() throws IOException {
+        long now = System.currentTimeMillis();
+        records.values().removeIf(record -> record.getStatus().getState().isTerminal()
+                && now - record.getStatus().getUpdatedAt() >= statusRetention.toMillis());
+        journal.compact(records.values());
+    }
+
+    // Equal jitter: at least half the exponential backoff, so messages failed together are not retried together.
+    private long backoff(int attempts) {
+        long delay = Math.min(initialBackoff.toMillis() << Math.min(attempts - 1, 20), maxBackoff.toMillis());
+        return delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+    }
+
+    private OutboundStatus copyOf(OutboundStatus status) {
+        return new OutboundStatus(status.getId(), status.getState(), status.getAttempts(), status.getLastError(),
+                status.getCreatedAt(), status.getUpdatedAt(), status.getNextAttemptAt());
+    }
+
+    private final class SendWorker implements Runnable {
+
+        private final SmtpConnection connection = new SmtpConnection(mailSender, maxMessagesPerConnection, validationInterval);
+
+        @Override
+        public void run() {
+            try {
+                while (running) {
+                    PendingSend next = pending.poll(idleTimeout.toMillis(), TimeUnit.MILLISECONDS);
+                    if (next == null) {
+                        connection.close();
+                    } else {
+                        send(next.id);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                connection.close();
+            }
+        }
+
+        private void send(String id) throws InterruptedException {
+            JournalRecord record = records.get(id);
+            if (record == null || record.getStatus().getState().isTerminal()) {
+                return;
+            }
+
+            int attempts = record.getStatus().getAttempts() + 1;
+            updateStatus(record, OutboundState.SENDING, attempts, record.getStatus().getLastError(), 0);
+            try {
+                MimeMessage message = createMimeMessage(record.getRequest());
+                bulkheads.getLimiter(MailProtocol.SMTP).execute(() -> {
+                    connection.send(message);
+                    return null;
+                });
+                updateStatus(record, OutboundState.SENT, attempts, null, 0);
+            } catch (MessagingException | IOException e) {
+                if ((e instanceof MessagingException messagingException && SmtpConnection.isPermanent(messagingException))
+                        || attempts >= maxAttempts) {
+                    updateStatus(record, OutboundState.FAILED, attempts, e.getMessage(), 0);
+                } else {
+                    long nextAttemptAt = System.currentTimeMillis() + backoff(attempts);
+                    updateStatus(record, OutboundState.RETRY_SCHEDULED, attempts, e.getMessage(), nextAttemptAt);
+                    pending.add(new PendingSend(id, nextAttemptAt));
+                }
+            } catch (RuntimeException e) {
+                // a message that cannot be built or sent would fail the same way on every retry and every restart
+                updateStatus(record, OutboundState.FAILED, attempts, String.valueOf(e.getMessage()), 0);
+            }
+        }
+    }
+
+    private static final class PendingSend implements Delayed {
+
+        private final String id;
+        private final long dueAt;
+
+        private PendingSend(String id, long dueAt) {
+            this.id = id;
+            this.dueAt = dueAt;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueAt - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(dueAt, ((PendingSend) other).dueAt);
+        }
+    }
+}
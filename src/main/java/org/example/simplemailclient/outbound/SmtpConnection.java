@@ -0,0 +1,96 @@
+package org.example.simplemailclient.outbound;
+
+import com.sun.mail.smtp.SMTPAddressFailedException;
+import com.sun.mail.smtp.SMTPSendFailedException;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.AddressException;
+import jakarta.mail.internet.MimeMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.time.Duration;
+
+/**
+ * A long-lived SMTP transport that sends many messages over one authenticated
+ * connection. Not thread-safe: every sending thread owns its own instance.
+ */
+public class SmtpConnection implements AutoCloseable {
+
+    private final JavaMailSenderImpl mailSender;
+    private final int maxMessagesPerConnection;
+    private final long validationIntervalMillis;
+
+    private Transport transport;
+    private int sentOnConnection;
+    private long lastUsedAt;
+
+    public SmtpConnection(JavaMailSenderImpl mailSender, int maxMessagesPerConnection, Duration validationInterval) {
+        this.mailSender = mailSender;
+        this.maxMessagesPerConnection = maxMessagesPerConnection;
+        this.validationIntervalMillis = validationInterval.toMillis();
+    }
+
+    public void send(MimeMessage message) throws MessagingException {
+        Transport connected = getTransport();
+        try {
+            connected.sendMessage(message, message.getAllRecipients());
+        } catch (MessagingException e) {
+            if (!isPermanent(e)) {
+                // the connection may be what failed, the next message starts on a fresh one
+                close();
+            }
+            throw e;
+        }
+        sentOnConnection++;
+        lastUsedAt = System.currentTimeMillis();
+    }
+
+    // 5xx replies and malformed addresses will fail the same way again; everything else is worth retrying.
+    public static boolean isPermanent(MessagingException e) {
+        if (e instanceof SMTPSendFailedException failed) {
+            return failed.getReturnCode() >= 500;
+        }
+        if (e instanceof SMTPAddressFailedException failed) {
+            return failed.getReturnCode() >= 500;
+        }
+        if (e instanceof SendFailedException failed) {
+            return failed.getNextException() instanceof SMTPAddressFailedException addressFailed
+                    && addressFailed.getReturnCode() >= 500;
+        }
+        return e instanceof AddressException;
+    }
+
+    @Override
+    public void close() {
+        if (transport != null) {
+            try {
+                transport.close();
+            } catch (MessagingException ignored) {
+                // the connection is being discarded anyway
+            }
+            transport = null;
+        }
+    }
+
+    private Transport getTransport() throws MessagingException {
+        if (transport != null) {
+            boolean exhausted = sentOnConnection >= maxMessagesPerConnection;
+            boolean needsValidation = System.currentTimeMillis() - lastUsedAt > validationIntervalMillis;
+            // SMTPTransport.isConnected() sends a NOOP
+            if (exhausted || needsValidation && !transport.isConnected()) {
+                close();
+            }
+        }
+        if (transport == null) {
+            Transport created = mailSender.getProtocol() != null
+                    ? mailSender.getSession().getTransport(mailSender.getProtocol())
+                    : mailSender.getSession().getTransport();
+            created.connect(mailSender.getHost(), mailSender.getPort(), mailSender.getUsername(), mailSender.getPassword());
+            transport = created;
+            sentOnConnection = 0;
+            lastUsedAt = System.currentTimeMillis();
+        }
+        return transport;
+    }
+}
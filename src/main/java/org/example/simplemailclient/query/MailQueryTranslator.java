@@ -0,0 +1,169 @@
+package org.example.simplemailclient.query;
+
+import jakarta.mail.Flags;
+import jakarta.mail.Message;
+import jakarta.mail.internet.AddressException;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.search.AndTerm;
+import jakarta.mail.search.BodyTerm;
+import jakarta.mail.search.ComparisonTerm;
+import jakarta.mail.search.FlagTerm;
+import jakarta.mail.search.FromStringTerm;
+import jakarta.mail.search.FromTerm;
+import jakarta.mail.search.HeaderTerm;
+import jakarta.mail.search.NotTerm;
+import jakarta.mail.search.OrTerm;
+import jakarta.mail.search.ReceivedDateTerm;
+import jakarta.mail.search.RecipientStringTerm;
+import jakarta.mail.search.RecipientTerm;
+import jakarta.mail.search.SearchTerm;
+import jakarta.mail.search.SentDateTerm;
+import jakarta.mail.search.SizeTerm;
+import jakarta.mail.search.SubjectTerm;
+import org.example.simplemailclient.dto.MailQuery;
+import org.example.simplemailclient.enumeration.SearchField;
+import org.example.simplemailclient.util.MessageUtil;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Turns a {@link MailQuery} into a JavaMail search term tree, which the IMAP
+ * provider writes out as a single SEARCH criteria list.
+ */
+public class MailQueryTranslator {
+
+    // Null when the query has no criteria, i.e. matches every message.
+    public static SearchTerm toSearchTerm(MailQuery query) {
+        if (query == null) {
+            return null;
+        }
+        List<SearchTerm> terms = criteria(query);
+        return terms.isEmpty() ? null : allOf(terms);
+    }
+
+    // The single-field term of the keyword search endpoints.
+    public static SearchTerm keywordTerm(SearchField field, String keyword) throws AddressException {
+        return switch (field) {
+            case SUBJECT -> new SubjectTerm(keyword);
+            case TO -> new RecipientTerm(Message.RecipientType.TO, new InternetAddress(keyword));
+            case FROM -> new FromTerm(new InternetAddress(keyword));
+            case CC -> new RecipientTerm(Message.RecipientType.CC, new InternetAddress(keyword));
+            case BCC -> new RecipientTerm(Message.RecipientType.BCC, new InternetAddress(keyword));
+        };
+    }
+
+    private static SearchTerm translateNested(MailQuery query) {
+        if (query == null) {
+            throw new IllegalArgumentException("Nested queries must not be null");
+        }
+        List<SearchTerm> terms = criteria(query);
+        if (terms.isEmpty()) {
+            throw new IllegalArgumentException("Nested queries need at least one criterion");
+        }
+        return allOf(terms);
+    }
+
+    private static List<SearchTerm> criteria(MailQuery query) {
+        List<SearchTerm> terms = new ArrayList<>();
+        if (query.getAnd() != null && !query.getAnd().isEmpty()) {
+            terms.add(allOf(query.getAnd().stream().map(MailQueryTranslator::translateNested).toList()));
+        }
+        if (query.getOr() != null && !query.getOr().isEmpty()) {
+            List<SearchTerm> alternatives = query.getOr().stream().map(MailQueryTranslator::translateNested).toList();
+            terms.add(alternatives.size() == 1 ? alternatives.get(0) : new OrTerm(alternatives.toArray(new SearchTerm[0])));
+        }
+        if (query.getNot() != null) {
+            terms.add(new NotTerm(translateNested(query.getNot())));
+        }
+
+        if (query.getFrom() != null) {
+            terms.add(new FromStringTerm(query.getFrom()));
+        }
+        if (query.getTo() != null) {
+            terms.add(new RecipientStringTerm(Message.RecipientType.TO, query.getTo()));
+        }
+        if (query.getCc() != null) {
+            terms.add(new RecipientStringTerm(Message.RecipientType.CC, query.getCc()));
+        }
+        if (query.getBcc() != null) {
+            terms.add(new RecipientStringTerm(Message.RecipientType.BCC, query.getBcc()));
+        }
+        if (query.getSubject() != null) {
+            terms.add(new SubjectTerm(query.getSubject()));
+        }
+        if (query.getBody() != null) {
+            terms.add(new BodyTerm(query.getBody()));
+        }
+        if (query.getHeader() != null) {
+            if (query.getHeader().isBlank()) {
+                throw new IllegalArgumentException("Header name must not be blank");
+            }
+            terms.add(new HeaderTerm(query.getHeader(), query.getHeaderValue() != null ? query.getHeaderValue() : ""));
+        } else if (query.getHeaderValue() != null) {
+            throw new IllegalArgumentException("headerValue requires a header name");
+        }
+
+        if (query.getSince() != null) {
+            terms.add(new ReceivedDateTerm(ComparisonTerm.GE, toDate(query.getSince())));
+        }
+        if (query.getBefore() != null) {
+            terms.add(new ReceivedDateTerm(ComparisonTerm.LT, toDate(query.getBefore())));
+        }
+        if (query.getSentSince() != null) {
+            terms.add(new SentDateTerm(ComparisonTerm.GE, toDate(query.getSentSince())));
+        }
+        if (query.getSentBefore() != null) {
+            terms.add(new SentDateTerm(ComparisonTerm.LT, toDate(query.getSentBefore())));
+        }
+
+        if (query.getLarger() != null) {
+            terms.add(new SizeTerm(ComparisonTerm.GT, toSize(query.getLarger())));
+        }
+        if (query.getSmaller() != null) {
+            terms.add(new SizeTerm(ComparisonTerm.LT, toSize(query.getSmaller())));
+        }
+
+        if (query.getFlags() != null) {
+            for (Map.Entry<String, Boolean> flag : query.getFlags().entrySet()) {
+                if (flag.getValue() == null) {
+                    throw new IllegalArgumentException("Flag " + flag.getKey() + " needs true or false");
+                }
+                terms.add(new FlagTerm(toFlags(flag.getKey()), flag.getValue()));
+            }
+        }
+        return terms;
+    }
+
+    private static SearchTerm allOf(List<SearchTerm> terms) {
+        return terms.size() == 1 ? terms.get(0) : new AndTerm(terms.toArray(new SearchTerm[0]));
+    }
+
+    private static Flags toFlags(String flag) {
+        String name = MessageUtil.toImapFlagName(flag);
+        return switch (name) {
+            case "\\Seen" -> new Flags(Flags.Flag.SEEN);
+            case "\\Answered" -> new Flags(Flags.Flag.ANSWERED);
+            case "\\Deleted" -> new Flags(Flags.Flag.DELETED);
+            case "\\Draft" -> new Flags(Flags.Flag.DRAFT);
+            case "\\Flagged" -> new Flags(Flags.Flag.FLAGGED);
+            default -> new Flags(name);
+        };
+    }
+
+    // SEARCH compares dates only; the provider formats them in the default time zone
+    private static Date toDate(LocalDate date) {
+        return Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+
+    private static int toSize(long size) {
+        if (size < 0 || size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Size out of range: " + size);
+        }
+        return (int) size;
+    }
+}
@@ -0,0 +1,60 @@
+package org.example.simplemailclient.query;
+
+import org.example.simplemailclient.enumeration.SortKey;
+
+import java.util.Objects;
+
+/**
+ * A sort order such as "-date" (newest Date header first) or "subject". The
+ * default, "-arrival", is the order of the plain folder listing.
+ */
+public class MailSort {
+
+    public static final MailSort NEWEST_FIRST = new MailSort(SortKey.ARRIVAL, true);
+
+    private final SortKey key;
+
+    private final boolean descending;
+
+    public MailSort(SortKey key, boolean descending) {
+        this.key = key;
+        this.descending = descending;
+    }
+
+    // A sort key name, prefixed with "-" for descending order; blank means newest first.
+    public static MailSort parse(String sort) {
+        if (sort == null || sort.isBlank()) {
+            return NEWEST_FIRST;
+        }
+        String name = sort.trim();
+        boolean descending = name.startsWith("-");
+        return new MailSort(SortKey.fromName(descending ? name.substring(1) : name), descending);
+    }
+
+    public SortKey getKey() {
+        return key;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    public boolean isArrival() {
+        return key == SortKey.ARRIVAL;
+    }
+
+    // The SORT program of RFC 5256, e.g. "(REVERSE DATE)"
+    public String toImapCriteria() {
+        return "(" + (descending ? "REVERSE " : "") + key.name() + ")";
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof MailSort sort && key == sort.key && descending == sort.descending;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(key, descending);
+    }
+}
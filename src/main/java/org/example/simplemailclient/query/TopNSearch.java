@@ -0,0 +1,380 @@
+package org.example.simplemailclient.query;
+
+import com.sun.mail.iap.Argument;
+import com.sun.mail.iap.ProtocolException;
+import com.sun.mail.iap.Response;
+import com.sun.mail.imap.IMAPFolder;
+import com.sun.mail.imap.protocol.ENVELOPE;
+import com.sun.mail.imap.protocol.FetchResponse;
+import com.sun.mail.imap.protocol.IMAPProtocol;
+import com.sun.mail.imap.protocol.IMAPResponse;
+import com.sun.mail.imap.protocol.INTERNALDATE;
+import com.sun.mail.imap.protocol.RFC822SIZE;
+import com.sun.mail.imap.protocol.SearchSequence;
+import com.sun.mail.imap.protocol.UID;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeUtility;
+import jakarta.mail.search.SearchTerm;
+import org.example.simplemailclient.enumeration.SortKey;
+import org.example.simplemailclient.util.ImapCommandUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Finds one page of matching UIDs without pulling every match to the client.
+ * The query goes out as a single SEARCH or SORT; with ESEARCH (RFC 4731),
+ * PARTIAL (RFC 9394) and ESORT/CONTEXT=SORT (RFC 5267) the server returns just
+ * the requested window. Without them the full result is scanned once, keeping
+ * only a bounded window or heap of page size entries.
+ */
+@Component
+public class TopNSearch {
+
+    private static final String ESEARCH = "ESEARCH";
+    private static final String PARTIAL = "PARTIAL";
+    private static final String CONTEXT_SEARCH = "CONTEXT=SEARCH";
+    private static final String SORT = "SORT";
+    private static final String ESORT = "ESORT";
+    private static final String CONTEXT_SORT = "CONTEXT=SORT";
+
+    private static final Pattern ALL_RESULT = Pattern.compile("\\bALL ([0-9:,]+)", Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern PARTIAL_RESULT = Pattern.compile("\\bPARTIAL \\(\\S+ ([0-9:,]+|NIL)\\)", Pattern.CASE_INSENSITIVE);
+
+    // Re:, Fwd: and [list] prefixes and a trailing (fwd) are ignored when sorting by subject (RFC 5256 base subject)
+    private static final Pattern SUBJECT_PREFIX = Pattern.compile("^(?:(?:re|fwd?)\\s*(?:\\[[^\\]]*\\])?\\s*:|\\[[^\\]]*\\])\\s*");
+
+    private static final Pattern SUBJECT_TRAILER = Pattern.compile("(?:\\s*\\(fwd\\))+$");
+
+    // capabilities to treat as absent, for servers that advertise a broken implementation
+    @Value("${imap.search.ignored-capabilities:}")
+    private List<String> ignoredCapabilities;
+
+    // messages per UID FETCH when sort keys have to be read and compared client-side
+    @Value("${imap.search.sort-fetch-size:500}")
+    private int sortFetchSize;
+
+    /**
+     * The newest matching UIDs below beforeUid, or with afterUid the oldest ones
+     * above it; either way newest first. Both bounds are exclusive.
+     */
+    @SuppressWarnings("unchecked")
+    public List<Long> arrivalPage(IMAPFolder folder, SearchTerm term, Long beforeUid, Long afterUid, int limit) throws MessagingException {
+        long low = afterUid != null ? afterUid + 1 : 1;
+        long high = beforeUid != null ? beforeUid - 1 : Long.MAX_VALUE;
+        if (high < low) {
+            return List.of();
+        }
+        boolean oldestFirst = afterUid != null;
+        String uidRange = afterUid == null && beforeUid == null ? null : low + ":" + (beforeUid != null ? high : "*");
+        String charset = term != null && !SearchSequence.isAscii(term) ? "UTF-8" : null;
+
+        List<Long> uids = (List<Long>) folder.doCommand(protocol -> {
+            Argument criteria = criteria(protocol, term, uidRange, charset);
+            if (has(protocol, PARTIAL) || oldestFirst && has(protocol, CONTEXT_SEARCH)) {
+                String range = oldestFirst ? "1:" + limit : "-1:-" + limit;
+                return window(esearchResult(search(protocol, "PARTIAL " + range, charset, criteria), PARTIAL_RESULT), false, 0, limit);
+            }
+            if (has(protocol, ESEARCH)) {
+                return window(esearchResult(search(protocol, "ALL", charset, criteria), ALL_RESULT), !oldestFirst, 0, limit);
+            }
+            List<Long> kept = new ArrayList<>(limit);
+            Deque<Long> newest = new ArrayDeque<>(limit);
+            forEachNumber(search(protocol, null, charset, criteria), "SEARCH", uid -> {
+                if (oldestFirst) {
+                    if (kept.size() < limit) {
+                        kept.add(uid);
+                    }
+                } else {
+                    if (newest.size() == limit) {
+                        newest.removeFirst();
+                    }
+                    newest.addLast(uid);
+                }
+            });
+            return oldestFirst ? kept : new ArrayList<>(newest);
+        });
+
+        // "n:*" also matches the highest UID when n is above it
+        return uids.stream()
+                .filter(uid -> uid >= low && uid <= high)
+                .sorted(Comparator.reverseOrder())
+                .limit(limit)
+                .toList();
+    }
+
+    // The matching UIDs at positions offset to offset + limit of the sort order.
+    @SuppressWarnings("unchecked")
+    public List<Long> sortedPage(IMAPFolder folder, SearchTerm term, MailSort sort, int offset, int limit) throws MessagingException {
+        String searchCharset = term != null && !SearchSequence.isAscii(term) ? "UTF-8" : null;
+
+        return (List<Long>) folder.doCommand(protocol -> {
+            if (has(protocol, SORT)) {
+                Argument sortCriteria = criteria(protocol, term, null, "UTF-8");
+                if (has(protocol, CONTEXT_SORT)) {
+                    String range = "PARTIAL " + (offset + 1) + ":" + ((long) offset + limit);
+                    return window(esearchResult(sort(protocol, range, sort, sortCriteria), PARTIAL_RESULT), false, 0, limit);
+                }
+                if (has(protocol, ESORT)) {
+                    return window(esearchResult(sort(protocol, "ALL", sort, sortCriteria), ALL_RESULT), false, offset, limit);
+                }
+                List<Long> page = new ArrayList<>(limit);
+                long[] position = {0};
+                forEachNumber(sort(protocol, null, sort, sortCriteria), SORT, uid -> {
+                    if (position[0]++ >= offset && page.size() < limit) {
+                        page.add(uid);
+                    }
+                });
+                return page;
+            }
+
+            Argument searchCriteria = criteria(protocol, term, null, searchCharset);
+            List<Long> matches = new ArrayList<>();
+            if (has(protocol, ESEARCH)) {
+                matches.addAll(window(esearchResult(search(protocol, "ALL", searchCharset, searchCriteria), ALL_RESULT),
+                        false, 0, Integer.MAX_VALUE));
+            } else {
+                forEachNumber(search(protocol, null, searchCharset, searchCriteria), "SEARCH", matches::add);
+            }
+            return topN(protocol, matches, sort, offset, limit);
+        });
+    }
+
+    // Client-side sort: streams the sort keys in chunks through a heap that never holds more than offset + limit entries.
+    private List<Long> topN(IMAPProtocol protocol, List<Long> uids, MailSort sort, int offset, int limit) throws ProtocolException {
+        Comparator<SortEntry> order = comparator(sort);
+        int keep = (int) Math.min(Integer.MAX_VALUE, (long) offset + limit);
+        PriorityQueue<SortEntry> heap = new PriorityQueue<>(order.reversed());
+
+        String items = switch (sort.getKey()) {
+            case ARRIVAL -> null;
+            case SIZE -> "(UID RFC822.SIZE)";
+            case DATE -> "(UID ENVELOPE INTERNALDATE)";
+            default -> "(UID ENVELOPE)";
+        };
+        for (int from = 0; from < uids.size(); from += sortFetchSize) {
+            List<Long> chunk = uids.subList(from, Math.min(from + sortFetchSize, uids.size()));
+            List<SortEntry> entries = items == null
+                    ? chunk.stream().map(uid -> new SortEntry("", uid, uid)).toList()
+                    : fetchSortEntries(protocol, chunk, items, sort.getKey());
+            for (SortEntry entry : entries) {
+                heap.add(entry);
+                if (heap.size() > keep) {
+                    heap.poll();
+                }
+            }
+        }
+
+        List<SortEntry> sorted = new ArrayList<>(heap);
+        sorted.sort(order);
+        return sorted.stream().skip(offset).map(SortEntry::uid).toList();
+    }
+
+    private List<SortEntry> fetchSortEntries(IMAPProtocol protocol, List<Long> uids, String items, SortKey key) throws ProtocolException {
+        String uidSet = ImapCommandUtil.toUidSetChunks(uids, Integer.MAX_VALUE).get(0);
+        Response[] responses = ImapCommandUtil.run(protocol, "UID FETCH", new Argument().writeAtom(uidSet).writeAtom(items));
+        List<SortEntry> entries = new ArrayList<>(uids.size());
+        for (Response response : responses) {
+            if (!(response instanceof FetchResponse fetchResponse) || fetchResponse.getItem(UID.class) == null) {
+                continue;
+            }
+            long uid = fetchResponse.getItem(UID.class).uid;
+            ENVELOPE envelope = fetchResponse.getItem(ENVELOPE.class);
+            entries.add(switch (key) {
+                case SIZE -> new SortEntry("", fetchResponse.getItem(RFC822SIZE.class).size, uid);
+                case DATE -> {
+                    // RFC 5256: the Date header, or the internal date when it is missing or unparseable
+                    INTERNALDATE internalDate = fetchResponse.getItem(INTERNALDATE.class);
+                    long time = envelope != null && envelope.date != null ? envelope.date.getTime()
+                            : internalDate != null ? internalDate.getDate().getTime() : 0;
+                    yield new SortEntry("", time, uid);
+                }
+                case FROM -> new SortEntry(mailbox(envelope != null ? envelope.from : null), 0, uid);
+                case TO -> new SortEntry(mailbox(envelope != null ? envelope.to : null), 0, uid);
+                case CC -> new SortEntry(mailbox(envelope != null ? envelope.cc : null), 0, uid);
+                case SUBJECT -> new SortEntry(baseSubject(envelope != null ? envelope.subject : null), 0, uid);
+                case ARRIVAL -> new SortEntry("", uid, uid);
+            });
+        }
+        return entries;
+    }
+
+    // REVERSE applies to the sort key only; equal keys stay in mailbox order
+    private static Comparator<SortEntry> comparator(MailSort sort) {
+        Comparator<SortEntry> byKey = Comparator.comparing(SortEntry::text).thenComparingLong(SortEntry::number);
+        return (sort.isDescending() ? byKey.reversed() : byKey).thenComparingLong(SortEntry::uid);
+    }
+
+    // The local part of the first address, compared case-insensitively
+    private static String mailbox(InternetAddress[] addresses) {
+        if (addresses == null || addresses.length == 0 || addresses[0].getAddress() == null) {
+            return "";
+        }
+        String address = addresses[0].getAddress();
+        int at = address.lastIndexOf('@');
+        return (at >= 0 ? address.substring(0, at) : address).toLowerCase(Locale.ROOT);
+    }
+
+    private static String baseSubject(String subject) {
+        if (subject == null) {
+            return "";
+        }
+        String text;
+        try {
+            text = MimeUtility.decodeText(subject);
+        } catch (UnsupportedEncodingException e) {
+            text = subject;
+        }
+        text = text.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+        String previous;
+        do {
+            previous = text;
+            text = SUBJECT_TRAILER.matcher(text).replaceFirst("");
+            Matcher prefix = SUBJECT_PREFIX.matcher(text);
+            if (prefix.find() && prefix.end() < text.length()) {
+                text = text.substring(prefix.end());
+            }
+            if (text.startsWith("[fwd:") && text.endsWith("]")) {
+                text = text.substring(5, text.length() - 1).trim();
+            }
+        } while (!text.equals(previous));
+        return text;
+    }
+
+    private boolean has(IMAPProtocol protocol, String capability) {
+        return protocol.hasCapability(capability) && ignoredCapabilities.stream().noneMatch(capability::equalsIgnoreCase);
+    }
+
+    // UID SEARCH [RETURN (options)] [CHARSET charset] criteria
+    private static Response[] search(IMAPProtocol protocol, String returnOptions, String charset, Argument criteria)
+            throws ProtocolException {
+        Argument arguments = new Argument();
+        if (returnOptions != null) {
+            arguments.writeAtom("RETURN").writeAtom("(" + returnOptions + ")");
+        }
+        if (charset != null) {
+            arguments.writeAtom("CHARSET").writeAtom(charset);
+        }
+        return ImapCommandUtil.run(protocol, "UID SEARCH", arguments.append(criteria));
+    }
+
+    // UID SORT [RETURN (options)] (program) UTF-8 criteria
+    private static Response[] sort(IMAPProtocol protocol, String returnOptions, MailSort sort, Argument criteria)
+            throws ProtocolException {
+        Argument arguments = new Argument();
+        if (returnOptions != null) {
+            arguments.writeAtom("RETURN").writeAtom("(" + returnOptions + ")");
+        }
+        arguments.writeAtom(sort.toImapCriteria()).writeAtom("UTF-8");
+        return ImapCommandUtil.run(protocol, "UID SORT", arguments.append(criteria));
+    }
+
+    // The search sequence of the protocol, which knows the server's date format and extensions.
+    private static Argument criteria(IMAPProtocol protocol, SearchTerm term, String uidRange, String charset) throws ProtocolException {
+        Argument criteria = new Argument();
+        if (uidRange != null) {
+            criteria.writeAtom("UID").writeAtom(uidRange);
+        }
+        if (term != null) {
+            try {
+                criteria.append(new SearchSequence(protocol).generateSequence(term, charset));
+            } catch (IOException | MessagingException e) {
+                throw new ProtocolException("Failed to encode the search criteria", e);
+            }
+        } else if (uidRange == null) {
+            criteria.writeAtom("ALL");
+        }
+        return criteria;
+    }
+
+    // The uid-set of an ESEARCH result item, null when the server returned no such item (no matches).
+    private static String esearchResult(Response[] responses, Pattern item) {
+        for (Response response : responses) {
+            if (response instanceof IMAPResponse imapResponse && imapResponse.keyEquals(ESEARCH)) {
+                Matcher matcher = item.matcher(response.toString());
+                if (matcher.find() && !"NIL".equalsIgnoreCase(matcher.group(1))) {
+                    return matcher.group(1);
+                }
+            }
+        }
+        return null;
+    }
+
+    // Numbers of a SEARCH or SORT response, without building the whole result array.
+    private static void forEachNumber(Response[] responses, String key, Consumer<Long> consumer) {
+        for (Response response : responses) {
+            if (response instanceof IMAPResponse imapResponse && imapResponse.keyEquals(key)) {
+                String text = response.toString();
+                int index = text.toUpperCase(Locale.ROOT).indexOf(key) + key.length();
+                int length = text.length();
+                while (index < length) {
+                    while (index < length && text.charAt(index) == ' ') {
+                        index++;
+                    }
+                    int start = index;
+                    while (index < length && Character.isDigit(text.charAt(index))) {
+                        index++;
+                    }
+                    if (start == index) {
+                        break;
+                    }
+                    consumer.accept(Long.parseLong(text, start, index, 10));
+                }
+            }
+        }
+    }
+
+    /**
+     * Walks a uid-set in its written order, or backwards from its end, and
+     * returns limit UIDs after skipping the first skip ones. Ranges are never
+     * expanded beyond what is returned.
+     */
+    private static List<Long> window(String uidSet, boolean fromEnd, int skip, int limit) {
+        List<Long> uids = new ArrayList<>();
+        if (uidSet == null) {
+            return uids;
+        }
+        List<long[]> ranges = new ArrayList<>();
+        for (String part : uidSet.split(",")) {
+            int colon = part.indexOf(':');
+            long start = Long.parseLong(colon < 0 ? part : part.substring(0, colon));
+            long end = colon < 0 ? start : Long.parseLong(part.substring(colon + 1));
+            ranges.add(fromEnd ? new long[]{end, start} : new long[]{start, end});
+        }
+        long skipped = 0;
+        for (int i = 0; i < ranges.size() && uids.size() < limit; i++) {
+            long[] range = ranges.get(fromEnd ? ranges.size() - 1 - i : i);
+            long step = range[1] >= range[0] ? 1 : -1;
+            long count = Math.abs(range[1] - range[0]) + 1;
+            if (skipped + count <= skip) {
+                skipped += count;
+                continue;
+            }
+            for (long uid = range[0] + step * (skip - skipped); uids.size() < limit; uid += step) {
+                uids.add(uid);
+                if (uid == range[1]) {
+                    break;
+                }
+            }
+            skipped = skip;
+        }
+        return uids;
+    }
+
+    private record SortEntry(String text, long number, long uid) {
+    }
+}
@@ -0,0 +1,143 @@
+package org.example.simplemailclient.search;
+
+import com.sun.mail.imap.IMAPFolder;
+import com.sun.mail.imap.IMAPMessage;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.Folder;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import org.example.simplemailclient.cache.FolderSyncedEvent;
+import org.example.simplemailclient.dto.EmailResponse;
+import org.example.simplemailclient.imap.ImapConnectionPool;
+import org.example.simplemailclient.util.MessageUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Keeps the search index in step with the header cache: messages added or
+ * removed by a sync are indexed or deleted, and older messages are backfilled
+ * in small chunks so event processing is never blocked for long.
+ */
+@Component
+public class MailIndexer {
+
+    @Value("${search.index.batch-size:50}")
+    private int batchSize;
+
+    @Value("${search.index.backfill:true}")
+    private boolean backfill;
+
+    @Value("${search.index.max-body-chars:65536}")
+    private int maxBodyChars;
+
+    private final ImapConnectionPool connectionPool;
+
+    private final MailSearchIndex searchIndex;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "mail-indexer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public MailIndexer(ImapConnectionPool connectionPool, MailSearchIndex searchIndex) {
+        this.connectionPool = connectionPool;
+        this.searchIndex = searchIndex;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @EventListener
+    public void onFolderSynced(FolderSyncedEvent event) {
+        executor.submit(() -> {
+            try {
+                if (event.isReset()) {
+                    searchIndex.deleteFolder(event.getFolderName());
+                }
+                searchIndex.delete(event.getFolderName(), event.getRemovedUids());
+                indexUids(event.getFolderName(), event.getAddedUids());
+                if (backfill && (event.isReset() || !event.getAddedUids().isEmpty())) {
+                    executor.submit(() -> backfillChunk(event.getFolderName()));
+                }
+            } catch (MessagingException | IOException e) {
+                e.printStackTrace();
+            }
+        });
+    }
+
+    private void indexUids(String folderName, List<Long> uids) throws MessagingException, IOException {
+        for (int from = 0; from < uids.size(); from += batchSize) {
+            long[] batch = uids.subList(from, Math.min(uids.size(), from + batchSize)).stream()
+                    .mapToLong(Long::longValue)
+                    .toArray();
+            connectionPool.executeIdempotent(connection -> {
+                IMAPFolder folder = connection.openFolder(folderName, Folder.READ_ONLY);
+                indexMessages(folderName, folder, Arrays.asList(folder.getMessagesByUID(batch)));
+                return null;
+            });
+        }
+    }
+
+    private void backfillChunk(String folderName) {
+        try {
+            long lowestUid = searchIndex.getLowestIndexedUid(folderName);
+            if (lowestUid <= 1) {
+                return;
+            }
+
+            boolean more = connectionPool.executeIdempotent(connection -> {
+                IMAPFolder folder = connection.openFolder(folderName, Folder.READ_ONLY);
+                Message lowest = folder.getMessageByUID(lowestUid);
+                int end = lowest != null ? lowest.getMessageNumber() - 1 : 0;
+                if (end < 1) {
+                    return false;
+                }
+                int start = Math.max(1, end - batchSize + 1);
+                indexMessages(folderName, folder, Arrays.asList(folder.getMessages(start, end)));
+                return start > 1;
+            });
+
+            if (more) {
+                executor.submit(() -> backfillChunk(folderName));
+            }
+        } catch (MessagingException | IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void indexMessages(String folderName, IMAPFolder folder, List<Message> messages) throws MessagingException, IOException {
+        List<Message> existing = messages.stream().filter(Objects::nonNull).toList();
+        MessageUtil.prefetch(folder, existing);
+
+        for (Message message : existing) {
+            EmailResponse email = MessageUtil.createEmailResponse(message, folder);
+            if (email == null) {
+                continue;
+            }
+            Date date = message.getReceivedDate() != null ? message.getReceivedDate() : message.getSentDate();
+            String body;
+            // BODY.PEEK, so indexing never marks messages as read
+            ((IMAPMessage) message).setPeek(true);
+            try {
+                body = MessageUtil.extractText(message, maxBodyChars);
+            } finally {
+                ((IMAPMessage) message).setPeek(false);
+            }
+            searchIndex.index(folderName, email, date != null ? date.getTime() : 0, body);
+        }
+    }
+}
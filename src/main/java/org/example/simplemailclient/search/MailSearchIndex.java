@@ -0,0 +1,243 @@
+package org.example.simplemailclient.search;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.TieredMergePolicy;
+import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
+import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopFieldDocs;
+import org.apache.lucene.store.FSDirectory;
+import org.example.simplemailclient.dto.EmailResponse;
+import org.example.simplemailclient.dto.SearchResultPage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lucene index over subject, addresses, body text and attachment names.
+ * Lucene keeps the index as immutable on-disk segments that are merged in the
+ * background; searches go through a near-real-time {@link SearcherManager}.
+ */
+@Component
+public class MailSearchIndex {
+
+    private static final String FIELD_ID = "id";
+    private static final String FIELD_FOLDER = "folder";
+    private static final String FIELD_UID = "uid";
+    private static final String FIELD_DATE = "date";
+    private static final String FIELD_EMAIL = "email";
+    private static final String[] TEXT_FIELDS = {"subject", "from", "to", "cc", "bcc", "body", "attachment"};
+
+    private static final Sort RELEVANCE_SORT = new Sort(SortField.FIELD_SCORE, new SortField(FIELD_UID, SortField.Type.LONG, true));
+
+    @Value("${search.index.directory:${user.home}/.simple-mail-client/index}")
+    private String directory;
+
+    @Value("${search.index.refresh-interval:1s}")
+    private Duration refreshInterval;
+
+    @Value("${search.index.commit-interval:30s}")
+    private Duration commitInterval;
+
+    private final Analyzer analyzer = new StandardAnalyzer();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private IndexWriter writer;
+    private SearcherManager searcherManager;
+    private ScheduledExecutorService maintenance;
+
+    @PostConstruct
+    public void init() throws IOException {
+        IndexWriterConfig config = new IndexWriterConfig(analyzer);
+        config.setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+        config.setMergePolicy(new TieredMergePolicy());
+        writer = new IndexWriter(FSDirectory.open(Paths.get(directory)), config);
+        searcherManager = new SearcherManager(writer, null);
+
+        maintenance = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "mail-index-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        maintenance.scheduleWithFixedDelay(this::refresh, refreshInterval.toMillis(), refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+        maintenance.scheduleWithFixedDelay(this::commit, commitInterval.toMillis(), commitInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        maintenance.shutdownNow();
+        searcherManager.close();
+        writer.close();
+    }
+
+    public void index(String folderName, EmailResponse email, long date, String body) throws IOException {
+        Document document = new Document();
+        document.add(new StringField(FIELD_ID, documentId(folderName, email.getUid()), Field.Store.NO));
+        document.add(new StringField(FIELD_FOLDER, folderName, Field.Store.NO));
+        document.add(new LongPoint(FIELD_UID, email.getUid()));
+        document.add(new NumericDocValuesField(FIELD_UID, email.getUid()));
+        document.add(new LongPoint(FIELD_DATE, date));
+        document.add(new StoredField(FIELD_EMAIL, objectMapper.writeValueAsString(email)));
+
+        addText(document, "subject", email.getSubject());
+        addText(document, "from", email.getFrom());
+        addText(document, "to", email.getTo());
+        addText(document, "cc", email.getCc());
+        addText(document, "bcc", email.getBcc());
+        addText(document, "body", body);
+        if (email.getAttachments() != null) {
+            email.getAttachments().forEach(name -> addText(document, "attachment", name));
+        }
+
+        writer.updateDocument(new Term(FIELD_ID, documentId(folderName, email.getUid())), document);
+    }
+
+    public void delete(String folderName, Collection<Long> uids) throws IOException {
+        for (Long uid : uids) {
+            writer.deleteDocuments(new Term(FIELD_ID, documentId(folderName, uid)));
+        }
+    }
+
+    public void deleteFolder(String folderName) throws IOException {
+        writer.deleteDocuments(new Term(FIELD_FOLDER, folderName));
+    }
+
+    // Lowest UID indexed for the folder, or 0 when nothing is indexed yet.
+    public long getLowestIndexedUid(String folderName) throws IOException {
+        searcherManager.maybeRefreshBlocking();
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            Sort ascending = new Sort(new SortField(FIELD_UID, SortField.Type.LONG));
+            TopFieldDocs top = searcher.search(new TermQuery(new Term(FIELD_FOLDER, folderName)), 1, ascending);
+            return top.scoreDocs.length == 0 ? 0 : (Long) ((FieldDoc) top.scoreDocs[0]).fields[0];
+        } finally {
+            searcherManager.release(searcher);
+        }
+    }
+
+    // Bad paging input (a limit below 1, a cursor this index did not hand out) is an IllegalArgumentException.
+    public SearchResultPage search(String folderName, String queryString, Long after, Long before, int limit, String cursor)
+            throws IOException, ParseException {
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be at least 1");
+        }
+        Query textQuery = queryString == null || queryString.isBlank()
+                ? new MatchAllDocsQuery()
+                : new MultiFieldQueryParser(TEXT_FIELDS, analyzer).parse(queryString);
+
+        BooleanQuery.Builder query = new BooleanQuery.Builder()
+                .add(textQuery, BooleanClause.Occur.MUST)
+                .add(new TermQuery(new Term(FIELD_FOLDER, folderName)), BooleanClause.Occur.FILTER);
+        if (after != null || before != null) {
+            long lower = after != null ? after : Long.MIN_VALUE;
+            long upper = before != null ? before : Long.MAX_VALUE;
+            query.add(LongPoint.newRangeQuery(FIELD_DATE, lower, upper), BooleanClause.Occur.FILTER);
+        }
+
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            TopFieldDocs top = cursor == null
+                    ? searcher.search(query.build(), limit, RELEVANCE_SORT, true)
+                    : searcher.searchAfter(decodeCursor(cursor, searcher), query.build(), limit, RELEVANCE_SORT, true);
+
+            List<EmailResponse> results = new ArrayList<>();
+            for (ScoreDoc scoreDoc : top.scoreDocs) {
+                String json = searcher.storedFields().document(scoreDoc.doc).get(FIELD_EMAIL);
+                results.add(objectMapper.readValue(json, EmailResponse.class));
+            }
+
+            String nextCursor = top.scoreDocs.length < limit ? null : encodeCursor((FieldDoc) top.scoreDocs[top.scoreDocs.length - 1]);
+            return new SearchResultPage(results, top.totalHits.value, nextCursor);
+        } finally {
+            searcherManager.release(searcher);
+        }
+    }
+
+    private void addText(Document document, String field, String value) {
+        if (value != null && !value.isEmpty()) {
+            document.add(new TextField(field, value, Field.Store.NO));
+        }
+    }
+
+    private String documentId(String folderName, long uid) {
+        return folderName + '\u0000' + uid;
+    }
+
+    // The cursor carries the sort values (score, uid) of the last hit, which stay valid across segment merges.
+    private String encodeCursor(FieldDoc last) {
+        String value = Float.floatToIntBits((Float) last.fields[0]) + ":" + last.fields[1];
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private FieldDoc decodeCursor(String cursor, IndexSearcher searcher) {
+        float score;
+        long uid;
+        try {
+            String[] value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":");
+            if (value.length != 2) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+            score = Float.intBitsToFloat(Integer.parseInt(value[0]));
+            uid = Long.parseLong(value[1]);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+        // the highest doc id makes the last hit itself compare as already seen
+        int lastDoc = Math.max(0, searcher.getIndexReader().maxDoc() - 1);
+        return new FieldDoc(lastDoc, score, new Object[]{score, uid});
+    }
+
+    private void refresh() {
+        try {
+            searcherManager.maybeRefresh();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void commit() {
+        try {
+            if (writer.hasUncommittedChanges()) {
+                writer.commit();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
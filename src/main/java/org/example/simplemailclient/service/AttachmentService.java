@@ -0,0 +1,202 @@
+package org.example.simplemailclient.service;
+
+import com.sun.mail.imap.IMAPFolder;
+import jakarta.mail.BodyPart;
+import jakarta.mail.Folder;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Multipart;
+import jakarta.mail.Part;
+import jakarta.mail.internet.MimeBodyPart;
+import jakarta.mail.internet.MimeUtility;
+import org.example.simplemailclient.bulkhead.BulkheadRegistry;
+import org.example.simplemailclient.dto.AttachmentPart;
+import org.example.simplemailclient.enumeration.OperationType;
+import org.example.simplemailclient.imap.ImapConnectionPool;
+import org.example.simplemailclient.imap.ImapSectionInputStream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Streams single attachments straight from the IMAP server. Only the MIME section
+ * of the attachment is fetched, in partial chunks, and it is decoded on the fly.
+ */
+@Service
+public class AttachmentService {
+
+    private static final String BASE64 = "base64";
+    private static final int PROBE_SIZE = 1024;
+
+    @Value("${imap.attachment.fetch-size:65536}")
+    private int fetchSize;
+
+    private final ImapConnectionPool connectionPool;
+
+    private final BulkheadRegistry bulkheads;
+
+    @Autowired
+    public AttachmentService(ImapConnectionPool connectionPool, BulkheadRegistry bulkheads) {
+        this.connectionPool = connectionPool;
+        this.bulkheads = bulkheads;
+    }
+
+    public Optional<AttachmentPart> findAttachment(String folderName, long uid, int attachmentIndex) {
+        try {
+            Optional<AttachmentPart> attachment = bulkheads.execute(OperationType.FETCH, () -> connectionPool.executeIdempotent(connection -> {
+                IMAPFolder folder = connection.openFolder(folderName, Folder.READ_ONLY);
+                Message message = folder.getMessageByUID(uid);
+                if (message == null || !message.isMimeType("multipart/*")) {
+                    return Optional.empty();
+                }
+
+                // for IMAP messages the multipart is built from BODYSTRUCTURE, no body bytes are read
+                List<AttachmentPart> attachments = new ArrayList<>();
+                collectAttachments(folderName, uid, (Multipart) message.getContent(), "", attachments);
+                return attachmentIndex >= 0 && attachmentIndex < attachments.size()
+                        ? Optional.of(attachments.get(attachmentIndex))
+                        : Optional.empty();
+            }));
+
+            if (attachment.isPresent()) {
+                resolveSize(attachment.get());
+            }
+            return attachment;
+        } catch (MessagingException | IOException e) {
+            throw new RuntimeException("Failed to read attachment " + attachmentIndex + " of message " + uid, e);
+        }
+    }
+
+    // Writes `length` decoded bytes starting at `start`; a negative length means up to the end of the attachment.
+    // Only the partial fetches hold a FETCH permit, one at a time; writing to the client runs outside the bulkhead,
+    // so a slow client neither holds a slot nor shows up as IMAP latency. A fetch that fails is retried before
+    // any of its bytes are written, the copy itself is never started again.
+    public void streamAttachment(AttachmentPart attachment, long start, long length, OutputStream outputStream) throws IOException {
+        try (InputStream input = openDecoded(attachment, start)) {
+            byte[] buffer = new byte[8192];
+            long remaining = length < 0 ? Long.MAX_VALUE : length;
+            while (remaining > 0) {
+                int bytesRead = input.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (bytesRead == -1) {
+                    break;
+                }
+                outputStream.write(buffer, 0, bytesRead);
+                remaining -= bytesRead;
+            }
+        }
+    }
+
+    private void collectAttachments(String folderName, long uid, Multipart multipart, String prefix,
+                                    List<AttachmentPart> attachments) throws MessagingException, IOException {
+        for (int i = 0; i < multipart.getCount(); i++) {
+            BodyPart bodyPart = multipart.getBodyPart(i);
+            String section = prefix + (i + 1);
+            if (bodyPart.isMimeType("multipart/*")) {
+                collectAttachments(folderName, uid, (Multipart) bodyPart.getContent(), section + ".", attachments);
+            } else if (Part.ATTACHMENT.equalsIgnoreCase(bodyPart.getDisposition())) {
+                attachments.add(new AttachmentPart(folderName, uid, section, bodyPart.getFileName(), bodyPart.getContentType(),
+                        ((MimeBodyPart) bodyPart).getEncoding(), bodyPart.getSize(), -1, 0));
+            }
+        }
+    }
+
+    private void resolveSize(AttachmentPart attachment) throws IOException {
+        switch (encodingOf(attachment)) {
+            case "7bit", "8bit", "binary" -> attachment.setSize(attachment.getEncodedSize());
+            case BASE64 -> resolveBase64Layout(attachment);
+            // quoted-printable sizes are only known after decoding everything
+            default -> attachment.setSize(-1);
+        }
+    }
+
+    // Base64 bodies are wrapped at a fixed line length, which makes decoded offsets computable from encoded ones.
+    private void resolveBase64Layout(AttachmentPart attachment) throws IOException {
+        long encodedSize = attachment.getEncodedSize();
+        byte[] head = readRaw(attachment, 0, Math.min(encodedSize, PROBE_SIZE));
+        int lineLength = indexOf(head, (byte) '\r');
+        if (lineLength < 0) {
+            if (encodedSize > head.length) {
+                // lines longer than the probe, the layout is unknown
+                return;
+            }
+            lineLength = 0;
+        } else if (lineLength == 0 || lineLength % 4 != 0) {
+            return;
+        }
+
+        byte[] tail = readRaw(attachment, Math.max(0, encodedSize - 8), encodedSize);
+        int trailing = 0;
+        while (trailing < tail.length && Character.isWhitespace(tail[tail.length - 1 - trailing])) {
+            trailing++;
+        }
+        int padding = 0;
+        while (padding < 2 && trailing + padding < tail.length && tail[tail.length - 1 - trailing - padding] == '=') {
+            padding++;
+        }
+
+        long trimmed = encodedSize - trailing;
+        long dataChars = lineLength > 0 ? trimmed - 2 * (trimmed / (lineLength + 2)) : trimmed;
+        if (dataChars % 4 == 0) {
+            attachment.setLineLength(lineLength);
+            attachment.setSize(dataChars / 4 * 3 - padding);
+        }
+    }
+
+    private InputStream openDecoded(AttachmentPart attachment, long start) throws IOException {
+        String encoding = encodingOf(attachment);
+        long encodedSize = attachment.getEncodedSize();
+        try {
+            if (!attachment.isRangeSupported()) {
+                return MimeUtility.decode(raw(attachment, 0, encodedSize), encoding);
+            }
+            if (!BASE64.equals(encoding)) {
+                return raw(attachment, start, encodedSize);
+            }
+
+            // every 4 encoded characters carry 3 bytes, and each full line is followed by CRLF
+            int lineLength = attachment.getLineLength();
+            long bytesPerLine = lineLength / 4 * 3;
+            long line = lineLength > 0 ? start / bytesPerLine : 0;
+            long withinLine = lineLength > 0 ? start % bytesPerLine : start;
+            long encodedStart = line * (lineLength + 2) + withinLine / 3 * 4;
+
+            InputStream decoded = MimeUtility.decode(raw(attachment, encodedStart, encodedSize), BASE64);
+            decoded.skipNBytes(withinLine % 3);
+            return decoded;
+        } catch (MessagingException e) {
+            throw new IOException("Unsupported transfer encoding " + encoding, e);
+        }
+    }
+
+    private InputStream raw(AttachmentPart attachment, long start, long end) {
+        return new ImapSectionInputStream(connectionPool, bulkheads, attachment.getFolderName(), attachment.getUid(),
+                attachment.getSection(), start, end, fetchSize);
+    }
+
+    private byte[] readRaw(AttachmentPart attachment, long start, long end) throws IOException {
+        try (InputStream input = raw(attachment, start, end)) {
+            return input.readAllBytes();
+        }
+    }
+
+    private String encodingOf(AttachmentPart attachment) {
+        return attachment.getEncoding() == null ? "7bit" : attachment.getEncoding().toLowerCase(Locale.ROOT);
+    }
+
+    private int indexOf(byte[] bytes, byte value) {
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
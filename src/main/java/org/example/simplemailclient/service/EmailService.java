@@ -1,313 +1,342 @@
 package org.example.simplemailclient.service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.sun.mail.iap.Response;
 import com.sun.mail.imap.IMAPFolder;
-import com.sun.mail.imap.IMAPStore;
-import jakarta.mail.Address;
-import jakarta.mail.BodyPart;
 import jakarta.mail.Flags;
 import jakarta.mail.Folder;
 import jakarta.mail.Message;
 import jakarta.mail.MessagingException;
-import jakarta.mail.Multipart;
-import jakarta.mail.Part;
-import jakarta.mail.Session;
-import jakarta.mail.internet.InternetAddress;
-import jakarta.mail.internet.MimeMessage;
 import jakarta.mail.search.FlagTerm;
-import jakarta.mail.search.FromTerm;
-import jakarta.mail.search.RecipientTerm;
 import jakarta.mail.search.SearchTerm;
-import jakarta.mail.search.SubjectTerm;
+import org.example.simplemailclient.bulkhead.Bulkhead;
+import org.example.simplemailclient.bulkhead.BulkheadRegistry;
+import org.example.simplemailclient.cache.HeaderCache;
+import org.example.simplemailclient.cache.RequestCoalescer;
+import org.example.simplemailclient.cache.SharingOutputStream;
 import org.example.simplemailclient.dto.EmailRequest;
 import org.example.simplemailclient.dto.EmailResponse;
+import org.example.simplemailclient.dto.FlagUpdateRequest;
+import org.example.simplemailclient.dto.FlagUpdateResult;
+import org.example.simplemailclient.dto.OutboundStatus;
+import org.example.simplemailclient.dto.SearchResultPage;
+import org.example.simplemailclient.dto.UidMoveResult;
+import org.example.simplemailclient.dto.UidPageRequest;
+import org.example.simplemailclient.enumeration.MoveStatus;
+import org.example.simplemailclient.enumeration.OperationType;
+import org.example.simplemailclient.enumeration.ResponseFormat;
 import org.example.simplemailclient.enumeration.SearchField;
+import org.example.simplemailclient.exception.EmailFetchingException;
 import org.example.simplemailclient.exception.EmailSendingException;
-import org.example.simplemailclient.util.MailUtil;
+import org.example.simplemailclient.imap.ImapCallback;
+import org.example.simplemailclient.imap.ImapConnectionPool;
+import org.example.simplemailclient.metrics.ImapMetrics;
+import org.example.simplemailclient.outbound.OutboundMailQueue;
+import org.example.simplemailclient.query.MailQueryTranslator;
+import org.example.simplemailclient.query.MailSort;
+import org.example.simplemailclient.query.TopNSearch;
+import org.example.simplemailclient.search.MailSearchIndex;
+import org.example.simplemailclient.util.EmailProjection;
+import org.example.simplemailclient.util.ImapCommandUtil;
+import org.example.simplemailclient.util.MessageUtil;
+import org.apache.lucene.queryparser.classic.ParseException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
 
-import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
-import java.util.Properties;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
 public class EmailService {
 
-    @Value("${spring.mail.username}")
-    private String username;
+    private final OutboundMailQueue outboundMailQueue;
 
-    @Value("${spring.mail.password}")
-    private String password;
+    private final ImapConnectionPool connectionPool;
 
-    private final JavaMailSender mailSender;
+    private final HeaderCache headerCache;
 
-    private final static int EMAIL_FETCH_LIMIT = 5;
+    private final MailSearchIndex searchIndex;
 
-    public static final String FOLDER_TRASH = "[Gmail]/Trash";
+    private final ObjectMapper objectMapper;
 
-    @Autowired
-    public EmailService(JavaMailSender mailSender) {
-        this.mailSender = mailSender;
-    }
+    private final BulkheadRegistry bulkheads;
 
-    public void sendEmail(EmailRequest emailRequest) {
-        try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, false);
-
-            helper.setTo(emailRequest.getTo().toArray(new String[0]));
+    private final ImapMetrics metrics;
 
-            if (emailRequest.getCc() != null && !emailRequest.getCc().isEmpty()) {
-                helper.setCc(emailRequest.getCc().toArray(new String[0]));
-            }
+    private final FolderTreeService folderTree;
 
-            if (emailRequest.getBcc() != null && !emailRequest.getBcc().isEmpty()) {
-                helper.setBcc(emailRequest.getBcc().toArray(new String[0]));
-            }
+    private final TopNSearch topNSearch;
 
-            helper.setSubject(emailRequest.getSubject());
-            helper.setText(emailRequest.getText(), true);
+    private final RequestCoalescer coalescer;
 
-            mailSender.send(message);
-        } catch (MessagingException e) {
-            throw new EmailSendingException("Failed to send email");
-        }
-    }
+    private final CBORFactory cborFactory = new CBORFactory();
 
-    public String fetchEmailsFromFolder(String folderName) {
-        try {
-            IMAPFolder folder = openFolder(folderName, Folder.READ_ONLY);
+    private final SmileFactory smileFactory = new SmileFactory();
 
-            int messageCount = folder.getMessageCount();
-            int start = Math.max(1, messageCount - EMAIL_FETCH_LIMIT + 1);
+    @Value("${imap.page.max-size:500}")
+    private int maxPageSize;
 
-            Message[] messages = folder.getMessages(start, messageCount);
+    @Value("${imap.page.fetch-chunk-size:100}")
+    private int fetchChunkSize;
 
-            List<Message> messageList = Arrays.asList(messages);
-            Collections.reverse(messageList);
+    @Value("${imap.command.max-uid-set-length:4000}")
+    private int maxUidSetLength;
 
-            return convertMessagesToJson(messageList, folder);
-        } catch (MessagingException | IOException e) {
-            throw new RuntimeException("Error fetching emails from " + folderName + ": " + e.getMessage(), e);
-        }
-    }
+    @Value("${imap.coalescing.max-shared-size:1MB}")
+    private DataSize maxSharedSize;
 
-    public String fetchEmailsFromFolderByReadStatus(String folderName, boolean seen) {
-        try {
-            IMAPFolder folder = openFolder(folderName, Folder.READ_ONLY);
-            FlagTerm flagTerm = new FlagTerm(new Flags(Flags.Flag.SEEN), seen);
-            Message[] messages = folder.search(flagTerm);
+    private final static int EMAIL_FETCH_LIMIT = 5;
 
-            List<Message> messageList = Arrays.asList(messages);
-            Collections.reverse(messageList);
+    public static final String FOLDER_TRASH = "[Gmail]/Trash";
 
-            int limit = Math.min(EMAIL_FETCH_LIMIT, messageList.size());
-            messageList = messageList.subList(0, limit);
+    @Autowired
+    public EmailService(OutboundMailQueue outboundMailQueue, ImapConnectionPool connectionPool, HeaderCache headerCache,
+                        MailSearchIndex searchIndex, ObjectMapper objectMapper, BulkheadRegistry bulkheads,
+                        ImapMetrics metrics, FolderTreeService folderTree, TopNSearch topNSearch,
+                        RequestCoalescer coalescer) {
+        this.outboundMailQueue = outboundMailQueue;
+        this.connectionPool = connectionPool;
+        this.headerCache = headerCache;
+        this.searchIndex = searchIndex;
+        this.objectMapper = objectMapper;
+        this.bulkheads = bulkheads;
+        this.metrics = metrics;
+        this.folderTree = folderTree;
+        this.topNSearch = topNSearch;
+        this.coalescer = coalescer;
+    }
 
-            return convertMessagesToJson(messageList, folder);
+    public OutboundStatus sendEmail(EmailRequest emailRequest) {
+        try {
+            return bulkheads.execute(OperationType.SEND, () -> outboundMailQueue.enqueue(emailRequest));
         } catch (MessagingException | IOException e) {
-            throw new RuntimeException("Error fetching emails from " + folderName + ": " + e.getMessage(), e);
+            throw new EmailSendingException("Failed to send email: " + e.getMessage());
         }
     }
 
-    private String convertMessagesToJson(List<Message> messages, IMAPFolder folder) throws MessagingException, IOException {
-        List<EmailResponse> emailList = messages.stream()
-                .map(message -> createEmailResponse(message, folder))
-                .collect(Collectors.toList());
-
-        ObjectMapper objectMapper = new ObjectMapper();
-        return objectMapper.writeValueAsString(emailList);
+    public Optional<OutboundStatus> getSendStatus(String id) {
+        return outboundMailQueue.getStatus(id);
     }
 
+    public void fetchEmailsFromFolder(String folderName, UidPageRequest page, EmailProjection projection, ResponseFormat format,
+                                      OutputStream outputStream) {
+        coalesce(folderName, Arrays.asList("folder", page, projection, format), outputStream,
+                buffer -> loadEmailsFromFolder(folderName, page, projection, format, buffer));
+    }
 
-    public String getEmailByUidInFolder(long uid, String folderName) {
-        try {
-            IMAPFolder folder = openFolder(folderName, Folder.READ_ONLY);
-            Message message = folder.getMessageByUID(uid);
-            EmailResponse email = createEmailResponse(message, folder);
+    private void loadEmailsFromFolder(String folderName, UidPageRequest page, EmailProjection projection, ResponseFormat format,
+                                      OutputStream outputStream) {
+        int pageSize = getPageSize(page);
+        try (Bulkhead.Permit permit = bulkheads.enter(OperationType.FETCH);
+             JsonGenerator generator = createGenerator(outputStream, format)) {
+            generator.writeStartArray();
 
-            folder.close(false);
+            Optional<List<EmailResponse>> cached = headerCache.findPage(folderName, page.getBeforeUid(), page.getAfterUid(), pageSize, null);
+            if (cached.isPresent()) {
+                writeEmails(cached.get(), projection, format, generator);
+            } else {
+                permit.execute(() -> connectionPool.execute(connection -> {
+                    IMAPFolder folder = connection.openFolder(folderName, Folder.READ_ONLY);
+
+                    int start = page.getAfterUid() != null ? MessageUtil.firstSequenceNumberAtOrAboveUid(folder, page.getAfterUid() + 1) : 1;
+                    int end = page.getBeforeUid() != null ? MessageUtil.firstSequenceNumberAtOrAboveUid(folder, page.getBeforeUid()) - 1 : folder.getMessageCount();
+                    if (page.getAfterUid() != null) {
+                        end = Math.min(end, start + pageSize - 1);
+                    } else {
+                        start = Math.max(start, end - pageSize + 1);
+                    }
+
+                    writeMessagesDescending(folder, start, end, projection, format, generator);
+                    return null;
+                }));
+            }
 
-            ObjectMapper objectMapper = new ObjectMapper();
-            return objectMapper.writeValueAsString(email);
-        } catch (Exception e) {
-            throw new RuntimeException("Error fetching email by UID: " + e.getMessage(), e);
+            generator.writeEndArray();
+        } catch (MessagingException | IOException e) {
+            throw new EmailFetchingException("Error fetching emails from " + folderName + ": " + e.getMessage(), e);
         }
     }
 
-    private IMAPFolder openFolder(String folderName, int folderAccessMode) throws MessagingException {
-        Properties properties = new Properties();
-        properties.put("mail.store.protocol", "imaps");
-        Session session = Session.getDefaultInstance(properties);
-        IMAPStore store = (IMAPStore) session.getStore("imaps");
-        store.connect("imap.gmail.com", username, password);
+    public void fetchEmailsFromFolderByReadStatus(String folderName, boolean seen, UidPageRequest page, EmailProjection projection,
+                                                  ResponseFormat format, OutputStream outputStream) {
+        coalesce(folderName, Arrays.asList("read-status", seen, page, projection, format), outputStream,
+                buffer -> loadEmailsFromFolderByReadStatus(folderName, seen, page, projection, format, buffer));
+    }
 
-        MailUtil.printAllFolders(store);
+    private void loadEmailsFromFolderByReadStatus(String folderName, boolean seen, UidPageRequest page, EmailProjection projection,
+                                                  ResponseFormat format, OutputStream outputStream) {
+        int pageSize = getPageSize(page);
+        try (Bulkhead.Permit permit = bulkheads.enter(OperationType.FETCH);
+             JsonGenerator generator = createGenerator(outputStream, format)) {
+            generator.writeStartArray();
 
-        IMAPFolder folder = (IMAPFolder) store.getFolder(folderName);
-        folder.open(folderAccessMode);
-        return folder;
-    }
+            Optional<List<EmailResponse>> cached = headerCache.findPage(folderName, page.getBeforeUid(), page.getAfterUid(), pageSize, seen);
+            if (cached.isPresent()) {
+                writeEmails(cached.get(), projection, format, generator);
+            } else {
+                permit.execute(() -> connectionPool.execute(connection -> {
+                    IMAPFolder folder = connection.openFolder(folderName, Folder.READ_ONLY);
+                    FlagTerm flagTerm = new FlagTerm(new Flags(Flags.Flag.SEEN), seen);
 
-    private EmailResponse createEmailResponse(Message message, IMAPFolder folder) {
-        try {
-            EmailResponse email = new EmailResponse();
-            long uid = folder.getUID(message);
-            email.setUid(uid);
-            email.setFrom(((InternetAddress) message.getFrom()[0]).getAddress());
-            email.setTo(getAddressesAsString(message.getRecipients(Message.RecipientType.TO)));
-            email.setCc(getAddressesAsString(message.getRecipients(Message.RecipientType.CC)));
-            email.setBcc(getAddressesAsString(message.getRecipients(Message.RecipientType.BCC)));
-            email.setSubject(message.getSubject());
-            email.setSentDate(message.getSentDate() != null ? message.getSentDate().toString() : null);
-            email.setReceivedDate(message.getReceivedDate() != null ? message.getReceivedDate().toString() : null);
-            email.setAttachments(getAttachments(message));
-            return email;
+                    writeMessages(folder, searchPage(folder, flagTerm, page, pageSize), projection, format, generator);
+                    return null;
+                }));
+            }
+
+            generator.writeEndArray();
         } catch (MessagingException | IOException e) {
-            e.printStackTrace();
-            return null;
+            throw new EmailFetchingException("Error fetching emails from " + folderName + ": " + e.getMessage(), e);
         }
     }
 
-    private String getAddressesAsString(Address[] addresses) {
-        if (addresses == null) return null;
-        return Arrays.stream(addresses)
-                .map(address -> ((InternetAddress) address).getAddress())
-                .collect(Collectors.joining(", "));
+    // Identical concurrent list requests share one IMAP operation. The caller that runs it streams as usual and keeps
+    // a copy for the callers that joined, who get it once the load is done; past max-shared-size they load their own.
+    private void coalesce(String folderName, List<?> arguments, OutputStream outputStream, Consumer<OutputStream> loader) {
+        boolean[] loaded = {false};
+        byte[] body = coalescer.execute(folderName, arguments, () -> {
+            loaded[0] = true;
+            SharingOutputStream sharing = new SharingOutputStream(outputStream, (int) maxSharedSize.toBytes());
+            loader.accept(sharing);
+            return sharing.getCopy();
+        });
+        if (loaded[0]) {
+            return;
+        }
+        if (body == null) {
+            loader.accept(outputStream);
+            return;
+        }
+        try {
+            outputStream.write(body);
+        } catch (IOException e) {
+            throw new RuntimeException("Error writing the response: " + e.getMessage(), e);
+        }
     }
 
-    private List<String> getAttachments(Message message) throws MessagingException, IOException {
-        List<String> attachments = new ArrayList<>();
-        if (message.isMimeType("multipart/*")) {
-            Multipart multipart = (Multipart) message.getContent();
-            for (int i = 0; i < multipart.getCount(); i++) {
-                BodyPart bodyPart = multipart.getBodyPart(i);
-                if (Part.ATTACHMENT.equalsIgnoreCase(bodyPart.getDisposition())) {
-                    attachments.add(bodyPart.getFileName());
-                }
-            }
+    private int getPageSize(UidPageRequest page) {
+        if (page.getPageSize() == null) {
+            return EMAIL_FETCH_LIMIT;
         }
-        return attachments;
+        return Math.max(1, Math.min(page.getPageSize(), maxPageSize));
     }
 
-    private List<BodyPart> getAttachments(Multipart multipart) throws MessagingException {
-        List<BodyPart> attachmentParts = new ArrayList<>();
+    private JsonGenerator createGenerator(OutputStream outputStream, ResponseFormat format) throws IOException {
+        JsonGenerator generator = switch (format) {
+            case JSON -> objectMapper.getFactory().createGenerator(outputStream);
+            case CBOR -> cborFactory.createGenerator(outputStream);
+            case SMILE -> smileFactory.createGenerator(outputStream);
+        };
+        // the servlet container owns the response stream
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        return generator;
+    }
 
-        for (int i = 0; i < multipart.getCount(); i++) {
-            BodyPart bodyPart = multipart.getBodyPart(i);
-            if (Part.ATTACHMENT.equalsIgnoreCase(bodyPart.getDisposition())) {
-                attachmentParts.add(bodyPart);
-            }
-        }
+    // One page of matches newest first; only the UIDs of that page come back from the server.
+    private List<Message> searchPage(IMAPFolder folder, SearchTerm searchTerm, UidPageRequest page, int pageSize) throws MessagingException {
+        List<Long> uids = topNSearch.arrivalPage(folder, searchTerm, page.getBeforeUid(), page.getAfterUid(), pageSize);
+        return getMessagesByUid(folder, uids);
+    }
 
-        return attachmentParts;
+    // Messages in the order of the UIDs; UIDs expunged meanwhile are left out.
+    private List<Message> getMessagesByUid(IMAPFolder folder, List<Long> uids) throws MessagingException {
+        Message[] messages = folder.getMessagesByUID(uids.stream().mapToLong(Long::longValue).toArray());
+        return Arrays.stream(messages).filter(Objects::nonNull).toList();
     }
 
-    public void saveAttachment(String folderName, long uid, int attachmentIndex) {
-        try {
-            IMAPFolder folder = openFolder(folderName, IMAPFolder.READ_ONLY);
-            Message message = folder.getMessageByUID(uid);
-            if (message.isMimeType("multipart/*")) {
-                Multipart multipart = (Multipart) message.getContent();
-                List<BodyPart> attachmentParts = getAttachments(multipart);
-                BodyPart bodyPart = attachmentParts.get(attachmentIndex);
-
-                saveAttachmentToFile(bodyPart);
-            }
-            folder.close(false);
-        } catch (IOException | MessagingException e) {
-            throw new RuntimeException(e);
+    private void writeMessagesDescending(IMAPFolder folder, int start, int end, EmailProjection projection, ResponseFormat format,
+                                         JsonGenerator generator) throws MessagingException, IOException {
+        for (int chunkEnd = end; chunkEnd >= start; chunkEnd -= fetchChunkSize) {
+            int chunkStart = Math.max(start, chunkEnd - fetchChunkSize + 1);
+            List<Message> chunk = Arrays.asList(folder.getMessages(chunkStart, chunkEnd));
+            Collections.reverse(chunk);
+            writeMessages(folder, chunk, projection, format, generator);
         }
     }
 
-    public void saveAllAttachments(String folderName, long uid) {
-        try {
-            IMAPFolder folder = openFolder(folderName, IMAPFolder.READ_ONLY);
-            Message message = folder.getMessageByUID(uid);
-
-            if (message.isMimeType("multipart/*")) {
-                Multipart multipart = (Multipart) message.getContent();
-                List<BodyPart> attachmentParts = getAttachments(multipart);
-
-                for (BodyPart bodyPart : attachmentParts) {
-                    saveAttachmentToFile(bodyPart);
-                }
+    // Converts the whole chunk before writing it, so fetching, conversion and JSON output are timed apart.
+    private void writeMessages(IMAPFolder folder, List<Message> messages, EmailProjection projection, ResponseFormat format,
+                               JsonGenerator generator) throws MessagingException, IOException {
+        long started = System.nanoTime();
+        MessageUtil.prefetch(folder, messages, projection);
+        started = metrics.recordPhase("prefetch", started);
+
+        List<EmailResponse> emails = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            EmailResponse email = MessageUtil.createEmailResponse(message, folder, projection);
+            if (email != null) {
+                emails.add(email);
             }
-
-            folder.close(false);
-        } catch (IOException | MessagingException e) {
-            throw new RuntimeException("Failed to save attachments", e);
         }
-    }
-
-    private void saveAttachmentToFile(BodyPart bodyPart) throws IOException, MessagingException {
-        InputStream inputStream = bodyPart.getInputStream();
-        File tempFile = new File(System.getProperty("user.home") + "/Documents/" + bodyPart.getFileName() + getFileExtension(bodyPart.getFileName()));
-        tempFile.deleteOnExit();
+        started = metrics.recordPhase("convert", started);
 
-        try (FileOutputStream outputStream = new FileOutputStream(tempFile)) {
-            byte[] buffer = new byte[4096];
-            int bytesRead;
-            while ((bytesRead = inputStream.read(buffer)) != -1) {
-                outputStream.write(buffer, 0, bytesRead);
-            }
+        for (EmailResponse email : emails) {
+            projection.write(email, generator, format.isBinary());
         }
+        generator.flush();
+        metrics.recordPhase("write-json", started);
     }
 
-    private String getFileExtension(String fileName) {
-        if (fileName != null && fileName.lastIndexOf('.') > 0) {
-            return fileName.substring(fileName.lastIndexOf('.'));
+    private void writeEmails(List<EmailResponse> emails, EmailProjection projection, ResponseFormat format, JsonGenerator generator)
+            throws IOException {
+        long started = System.nanoTime();
+        for (EmailResponse email : emails) {
+            projection.write(email, generator, format.isBinary());
         }
-        return "";
+        metrics.recordPhase("write-json", started);
     }
 
-    public String getHtmlContentByUid(long uid, String folderName) {
-        try {
-            IMAPFolder folder = openFolder(folderName, Folder.READ_ONLY);
-            Message message = folder.getMessageByUID(uid);
-
-            String body = getHtmlContentFromMessage(message);
-
-            folder.close(false);
-
-            return body;
-        } catch (Exception e) {
-            throw new RuntimeException("Error fetching email by UID: " + e.getMessage(), e);
-        }
+    public String getEmailByUidInFolder(long uid, String folderName) {
+        return coalescer.execute(folderName, Arrays.asList("message", uid), () -> loadEmailByUidInFolder(uid, folderName));
     }
 
-    public String getHtmlContentFromMessage(Message message) {
+    private String loadEmailByUidInFolder(long uid, String folderName) {
         try {
-            if (message.isMimeType("text/html")) {
-                return (String) message.getContent();
-            } else {
-                throw new IllegalArgumentException("Message content is not HTML.");
-            }
+            Optional<EmailResponse> cached = headerCache.findByUid(folderName, uid);
+            EmailResponse email = cached.isPresent() ? cached.get() : execute(OperationType.FETCH, connection -> {
+                IMAPFolder folder = connection.openFolder(folderName, Folder.READ_ONLY);
+                long started = System.nanoTime();
+                Message message = folder.getMessageByUID(uid);
+                if (message != null) {
+                    MessageUtil.prefetch(folder, List.of(message));
+                }
+                started = metrics.recordPhase("prefetch", started);
+                EmailResponse response = MessageUtil.createEmailResponse(message, folder);
+                metrics.recordPhase("convert", started);
+                return response;
+            });
+
+            long started = System.nanoTime();
+            String json = objectMapper.writeValueAsString(email);
+            metrics.recordPhase("write-json", started);
+            return json;
         } catch (Exception e) {
-            throw new RuntimeException("Error retrieving HTML content from message: " + e.getMessage(), e);
+            throw new EmailFetchingException("Error fetching email by UID: " + e.getMessage(), e);
         }
     }
 
     public void updateReadStatus(long uid, String folderName, boolean seen) {
         try {
-            IMAPFolder folder = openFolder(folderName, Folder.READ_WRITE);
-            Message message = folder.getMessageByUID(uid);
-
-            message.setFlag(Flags.Flag.SEEN, seen);
-
-            folder.close(false);
+            updateFlags(new FlagUpdateRequest(folderName, List.of(uid), false, List.of("seen"), seen, null));
         } catch (Exception e) {
             throw new RuntimeException("Error marking email as " + (seen ? "read" : "unread") + ": " + e.getMessage(), e);
         }
@@ -315,97 +344,217 @@ public class EmailService {
 
     public void updateReadStatusForMultipleMessages(List<Long> uids, String folderName, boolean seen) {
         try {
-            IMAPFolder folder = openFolder(folderName, Folder.READ_WRITE);
-
-            for (Long uid : uids) {
-                Message message = folder.getMessageByUID(uid);
-                message.setFlag(Flags.Flag.SEEN, seen);
-            }
-
-            folder.close(false);
+            updateFlags(new FlagUpdateRequest(folderName, uids, false, List.of("seen"), seen, null));
         } catch (Exception e) {
             throw new RuntimeException("Error marking emails as " + (seen ? "read" : "unread") + ": " + e.getMessage(), e);
         }
     }
 
+    // Sets or clears the flags on all requested messages with one compressed UID STORE per UID set chunk.
+    public FlagUpdateResult updateFlags(FlagUpdateRequest request) {
+        if (request.getFlags() == null || request.getFlags().isEmpty()) {
+            throw new IllegalArgumentException("No flags given");
+        }
+        List<String> flagNames = request.getFlags().stream().map(MessageUtil::toImapFlagName).distinct().toList();
+        String flagList = "(" + String.join(" ", flagNames) + ")";
+        String item = request.isAdd() ? "+FLAGS" : "-FLAGS";
+        List<String> uidSets = request.isAllMessages()
+                ? List.of("1:*")
+                : ImapCommandUtil.toUidSetChunks(request.getUids() != null ? request.getUids() : List.of(), maxUidSetLength);
 
-    public String deleteEmailByUID(long uid, String folderName) {
         try {
-            IMAPFolder folder = openFolder(folderName, Folder.READ_WRITE);
-            Message message = folder.getMessageByUID(uid);
-
-            if (message == null) return "Email not found.";
-
-            IMAPFolder trashFolder = openFolder(FOLDER_TRASH, Folder.READ_WRITE);
-            trashFolder.appendMessages(new Message[]{message});
+            FlagUpdateResult result = execute(OperationType.MUTATE, connection -> {
+                IMAPFolder folder = connection.openFolder(request.getFolderName(), Folder.READ_WRITE);
+
+                Set<Long> changedUids = new TreeSet<>();
+                List<Long> modifiedUids = new ArrayList<>();
+                for (String uidSet : uidSets) {
+                    // the STORE reports every matched message, and possibly others; the flags before it tell which ones it changed
+                    Map<Long, Flags> before = ImapCommandUtil.uidFetchFlags(folder, uidSet);
+                    Response[] responses = ImapCommandUtil.uidStore(folder, uidSet, request.getUnchangedSince(), item, flagList);
+                    List<Long> rejected = ImapCommandUtil.modifiedUids(responses);
+                    for (Long uid : ImapCommandUtil.fetchedFlags(responses).keySet()) {
+                        Flags previous = before.get(uid);
+                        if (previous != null && !rejected.contains(uid) && changesFlags(previous, flagNames, request.isAdd())) {
+                            changedUids.add(uid);
+                        }
+                    }
+                    modifiedUids.addAll(rejected);
+                }
+                return new FlagUpdateResult(List.copyOf(changedUids), modifiedUids);
+            });
 
-            folder.expunge();
-            folder.close(false);
+            headerCache.refresh(request.getFolderName());
+            folderTree.markStale(request.getFolderName());
+            coalescer.invalidate(request.getFolderName());
+            return result;
+        } catch (MessagingException | IOException e) {
+            throw new RuntimeException("Error updating flags in " + request.getFolderName() + ": " + e.getMessage(), e);
+        }
+    }
 
-            trashFolder.close(false);
-            return "Email successfully moved to Trash.";
+    // Whether adding (or removing) the flags alters these flags; IMAP compares flag names case-insensitively.
+    private static boolean changesFlags(Flags flags, List<String> flagNames, boolean add) {
+        Set<String> present = MessageUtil.flagsToList(flags).stream()
+                .map(name -> name.toLowerCase(Locale.ROOT))
+                .collect(Collectors.toSet());
+        long alreadyPresent = flagNames.stream().filter(name -> present.contains(name.toLowerCase(Locale.ROOT))).count();
+        return add ? alreadyPresent < flagNames.size() : alreadyPresent > 0;
+    }
 
-        } catch (MessagingException e) {
+    public String deleteEmailByUID(long uid, String folderName) {
+        try {
+            UidMoveResult result = moveMessages(List.of(uid), folderName, FOLDER_TRASH).get(0);
+            return switch (result.getStatus()) {
+                case MOVED -> "Email successfully moved to Trash.";
+                case NOT_FOUND -> "Email not found.";
+                case FAILED -> "Error while deleting email: " + result.getError();
+            };
+        } catch (MessagingException | IOException e) {
             return "Error while deleting email: " + e.getMessage();
         }
     }
 
-    public String deleteEmailsByUIDs(List<Long> uids, String folderName) {
-        StringBuilder result = new StringBuilder();
+    public List<UidMoveResult> deleteEmailsByUIDs(List<Long> uids, String folderName) {
         try {
-            IMAPFolder folder = openFolder(folderName, Folder.READ_WRITE);
-            IMAPFolder trashFolder = openFolder(FOLDER_TRASH, Folder.READ_WRITE);
-
-            for (Long uid : uids) {
-                Message message = folder.getMessageByUID(uid);
+            return moveMessages(uids, folderName, FOLDER_TRASH);
+        } catch (MessagingException | IOException e) {
+            throw new RuntimeException("Error while deleting emails: " + e.getMessage(), e);
+        }
+    }
 
-                if (message == null) {
-                    result.append("Email with UID ").append(uid).append(" not found.\n");
-                    continue;
+    // Moves the messages on the server with UID MOVE, or COPY + \Deleted + UID EXPUNGE where MOVE is missing.
+    private List<UidMoveResult> moveMessages(List<Long> uids, String folderName, String destinationFolder) throws MessagingException, IOException {
+        List<UidMoveResult> results = execute(OperationType.MUTATE, connection -> {
+            IMAPFolder folder = connection.openFolder(folderName, Folder.READ_WRITE);
+            boolean move = connection.getStore().hasCapability("MOVE");
+            boolean uidPlus = connection.getStore().hasCapability("UIDPLUS");
+
+            Map<Long, UidMoveResult> resultsByUid = new HashMap<>();
+            for (String uidSet : ImapCommandUtil.toUidSetChunks(uids, maxUidSetLength)) {
+                long[] chunk = ImapCommandUtil.toUids(uidSet);
+                try {
+                    // without UIDPLUS there is no COPYUID, so look up which UIDs exist before they are gone
+                    Set<Long> existing = uidPlus ? null : ImapCommandUtil.uidSearch(folder, uidSet);
+
+                    Map<Long, Long> copied;
+                    if (move) {
+                        copied = ImapCommandUtil.uidMove(folder, uidSet, destinationFolder);
+                    } else {
+                        copied = ImapCommandUtil.uidCopy(folder, uidSet, destinationFolder);
+                        ImapCommandUtil.uidStore(folder, uidSet, null, "+FLAGS.SILENT", "(\\Deleted)");
+                        if (uidPlus) {
+                            ImapCommandUtil.uidExpunge(folder, uidSet);
+                        } else {
+                            folder.expunge();
+                        }
+                    }
+
+                    for (long uid : chunk) {
+                        boolean moved = uidPlus ? copied.containsKey(uid) : existing.contains(uid);
+                        resultsByUid.put(uid, moved
+                                ? new UidMoveResult(uid, MoveStatus.MOVED, copied.get(uid), null)
+                                : new UidMoveResult(uid, MoveStatus.NOT_FOUND, null, null));
+                    }
+                } catch (MessagingException e) {
+                    for (long uid : chunk) {
+                        resultsByUid.put(uid, new UidMoveResult(uid, MoveStatus.FAILED, null, e.getMessage()));
+                    }
                 }
-
-                trashFolder.appendMessages(new Message[]{message});
             }
 
-            folder.expunge();
-            folder.close(false);
-            trashFolder.close(false);
+            return uids.stream().map(resultsByUid::get).toList();
+        });
 
-            return result.isEmpty() ? "Emails successfully moved to Trash." : result.toString();
-
-        } catch (MessagingException e) {
-            return "Error while deleting emails: " + e.getMessage();
-        }
+        headerCache.refresh(folderName);
+        headerCache.refresh(destinationFolder);
+        folderTree.markStale(folderName);
+        folderTree.markStale(destinationFolder);
+        coalescer.invalidate(folderName);
+        coalescer.invalidate(destinationFolder);
+        return results;
     }
 
-    public List<EmailResponse> searchEmails(String folderName, String keyword, SearchField field) {
-        List<EmailResponse> results = new ArrayList<>();
-        try {
-            IMAPFolder folder = openFolder(folderName, Folder.READ_ONLY);
-
-            SearchTerm searchTerm = switch (field) {
-                case SUBJECT -> new SubjectTerm(keyword);
-                case TO -> new RecipientTerm(Message.RecipientType.TO, new InternetAddress(keyword));
-                case FROM -> new FromTerm(new InternetAddress(keyword));
-                case CC -> new RecipientTerm(Message.RecipientType.CC, new InternetAddress(keyword));
-                case BCC -> new RecipientTerm(Message.RecipientType.BCC, new InternetAddress(keyword));
-            };
+    public void searchEmails(String folderName, String keyword, SearchField field, UidPageRequest page, EmailProjection projection,
+                             ResponseFormat format, OutputStream outputStream) {
+        coalesce(folderName, Arrays.asList("search", keyword, field, page, projection, format), outputStream,
+                buffer -> loadSearchResults(folderName, keyword, field, page, projection, format, buffer));
+    }
 
-            Message[] messages = folder.search(searchTerm);
+    private void loadSearchResults(String folderName, String keyword, SearchField field, UidPageRequest page, EmailProjection projection,
+                                   ResponseFormat format, OutputStream outputStream) {
+        int pageSize = getPageSize(page);
+        try (Bulkhead.Permit permit = bulkheads.enter(OperationType.SEARCH);
+             JsonGenerator generator = createGenerator(outputStream, format)) {
+            generator.writeStartArray();
+            permit.execute(() -> connectionPool.execute(connection -> {
+                IMAPFolder folder = connection.openFolder(folderName, Folder.READ_ONLY);
+
+                SearchTerm searchTerm = MailQueryTranslator.keywordTerm(field, keyword);
+
+                writeMessages(folder, searchPage(folder, searchTerm, page, pageSize), projection, format, generator);
+                return null;
+            }));
+            generator.writeEndArray();
+        } catch (MessagingException | IOException e) {
+            throw new EmailFetchingException("Error searching emails in " + folderName + ": " + e.getMessage(), e);
+        }
+    }
 
-            List<Message> messageList = Arrays.asList(messages);
-            Collections.reverse(messageList);
+    // A UID cursor pages through the default newest-first order only; other orders page by offset.
+    public void searchByQuery(String folderName, SearchTerm searchTerm, MailSort sort, int offset, UidPageRequest page,
+                              EmailProjection projection, ResponseFormat format, OutputStream outputStream) {
+        coalesce(folderName, Arrays.asList("query", searchTerm, sort, offset, page, projection, format), outputStream,
+                buffer -> loadQueryResults(folderName, searchTerm, sort, offset, page, projection, format, buffer));
+    }
 
-            results = messageList.stream()
-                    .limit(EMAIL_FETCH_LIMIT)
-                    .map(message -> createEmailResponse(message, folder))
-                    .filter(Objects::nonNull)
-                    .collect(Collectors.toList());
+    private void loadQueryResults(String folderName, SearchTerm searchTerm, MailSort sort, int offset, UidPageRequest page,
+                                  EmailProjection projection, ResponseFormat format, OutputStream outputStream) {
+        int pageSize = getPageSize(page);
+        try (Bulkhead.Permit permit = bulkheads.enter(OperationType.SEARCH);
+             JsonGenerator generator = createGenerator(outputStream, format)) {
+            generator.writeStartArray();
+            permit.execute(() -> connectionPool.execute(connection -> {
+                IMAPFolder folder = connection.openFolder(folderName, Folder.READ_ONLY);
+
+                long started = System.nanoTime();
+                List<Message> messages = sort.isArrival() && sort.isDescending() && offset == 0
+                        ? searchPage(folder, searchTerm, page, pageSize)
+                        : getMessagesByUid(folder, topNSearch.sortedPage(folder, searchTerm, sort, offset, pageSize));
+                metrics.recordPhase("search", started);
+
+                writeMessages(folder, messages, projection, format, generator);
+                return null;
+            }));
+            generator.writeEndArray();
+        } catch (MessagingException | IOException e) {
+            throw new EmailFetchingException("Error searching emails in " + folderName + ": " + e.getMessage(), e);
+        }
+    }
 
-            folder.close(false);
-        } catch (MessagingException e) {
-            e.printStackTrace();
+    public SearchResultPage searchFullText(String folderName, String query, LocalDate after, LocalDate before, int limit, String cursor) {
+        try {
+            // new mail reaches the index asynchronously after the header cache has seen it
+            bulkheads.execute(OperationType.SEARCH, () -> {
+                headerCache.ensureSynced(folderName);
+                return null;
+            });
+
+            Long afterMillis = after != null ? after.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli() : null;
+            Long beforeMillis = before != null ? before.plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli() - 1 : null;
+            return searchIndex.search(folderName, query, afterMillis, beforeMillis, Math.min(limit, maxPageSize), cursor);
+        } catch (ParseException e) {
+            throw new IllegalArgumentException("Invalid search query: " + e.getMessage(), e);
+        } catch (MessagingException | IOException e) {
+            throw new EmailFetchingException("Error searching emails in " + folderName + ": " + e.getMessage(), e);
         }
-        return results;
     }
-}
\ No newline at end of file
+
+    // Runs the callback on a pooled connection once the account's bulkhead for this operation class lets it in.
+    // Only idempotent operations are sent again on a fresh connection when the pooled one was dropped.
+    private <T> T execute(OperationType operation, ImapCallback<T> callback) throws MessagingException, IOException {
+        return bulkheads.execute(operation, () -> operation.isIdempotent()
+                ? connectionPool.executeIdempotent(callback)
+                : connectionPool.execute(callback));
+    }
+}
@@ -0,0 +1,243 @@
+package org.example.simplemailclient.service;
+
+import com.sun.mail.iap.Response;
+import com.sun.mail.imap.IMAPFolder;
+import com.sun.mail.imap.IMAPStore;
+import com.sun.mail.imap.protocol.ListInfo;
+import com.sun.mail.imap.protocol.Status;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import org.example.simplemailclient.cache.FolderSyncedEvent;
+import org.example.simplemailclient.dto.FolderInfo;
+import org.example.simplemailclient.dto.FolderTree;
+import org.example.simplemailclient.imap.ImapConnectionPool;
+import org.example.simplemailclient.metrics.ImapMetrics;
+import org.example.simplemailclient.util.ImapCommandUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Cached folder hierarchy with message, unseen and recent counts. The whole tree
+ * is read in one pass: a single LIST with RETURN (STATUS ...) on servers with
+ * LIST-STATUS, otherwise LIST followed by pipelined STATUS commands. It is
+ * relisted in the background; counts of folders reported as changed by IDLE,
+ * header syncs or our own mutations are refreshed shortly after.
+ */
+@Service
+public class FolderTreeService {
+
+    private static final String LIST_STATUS = "LIST-STATUS";
+
+    private static final String STATUS_ITEMS = "MESSAGES UNSEEN RECENT";
+
+    // STATUS commands written before reading replies, small enough that no socket buffer fills up meanwhile
+    private static final int PIPELINE_DEPTH = 100;
+
+    @Value("${imap.folders.refresh-interval:5m}")
+    private Duration refreshInterval;
+
+    @Value("${imap.folders.status-delay:1s}")
+    private Duration statusDelay;
+
+    private final ImapConnectionPool connectionPool;
+
+    private final ImapMetrics metrics;
+
+    private final Set<String> staleFolders = ConcurrentHashMap.newKeySet();
+
+    private final AtomicBoolean statusRefreshScheduled = new AtomicBoolean();
+
+    // null until the tree is first requested
+    private volatile Snapshot snapshot;
+
+    private ScheduledExecutorService scheduler;
+
+    @Autowired
+    public FolderTreeService(ImapConnectionPool connectionPool, ImapMetrics metrics) {
+        this.connectionPool = connectionPool;
+        this.metrics = metrics;
+    }
+
+    @PostConstruct
+    public void init() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "imap-folder-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = refreshInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::refreshInBackground, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    public FolderTree getFolderTree(boolean refresh) {
+        Snapshot current = snapshot;
+        try {
+            if (current == null || refresh) {
+                current = refresh(refresh);
+            }
+        } catch (MessagingException | IOException e) {
+            throw new RuntimeException("Error listing folders: " + e.getMessage(), e);
+        }
+        return current.toFolderTree();
+    }
+
+    // Schedules a STATUS of the folder; changes arriving within the delay share one pipelined round trip.
+    public void markStale(String folderName) {
+        if (snapshot == null) {
+            return;
+        }
+        staleFolders.add(folderName);
+        if (statusRefreshScheduled.compareAndSet(false, true)) {
+            scheduler.schedule(this::refreshStaleCounts, statusDelay.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @EventListener
+    public void onFolderSynced(FolderSyncedEvent event) {
+        if (event.isReset() || !event.getAddedUids().isEmpty() || !event.getRemovedUids().isEmpty()) {
+            markStale(event.getFolderName());
+        }
+    }
+
+    private synchronized Snapshot refresh(boolean force) throws MessagingException, IOException {
+        if (!force && snapshot != null) {
+            return snapshot;
+        }
+        snapshot = connectionPool.executeIdempotent(connection -> {
+            IMAPStore store = connection.getStore();
+            IMAPFolder root = (IMAPFolder) store.getDefaultFolder();
+            boolean listStatus = store.hasCapability(LIST_STATUS);
+
+            long started = System.nanoTime();
+            Response[] responses = ImapCommandUtil.list(root, listStatus ? STATUS_ITEMS : null);
+            Map<String, ListInfo> folders = new LinkedHashMap<>();
+            for (ListInfo info : ImapCommandUtil.listInfos(responses)) {
+                folders.put(info.name, info);
+            }
+            Map<String, Status> counts = new HashMap<>();
+            ImapCommandUtil.statuses(responses).forEach(status -> counts.put(status.mbox, status));
+            started = metrics.recordPhase("list-folders", started);
+
+            if (!listStatus) {
+                List<String> selectable = folders.values().stream()
+                        .filter(info -> info.canOpen)
+                        .map(info -> info.name)
+                        .toList();
+                fetchCounts(root, selectable).forEach(status -> counts.put(status.mbox, status));
+                metrics.recordPhase("folder-status", started);
+            }
+            long now = System.currentTimeMillis();
+            return new Snapshot(folders, counts, now, now);
+        });
+        return snapshot;
+    }
+
+    // Runs under the same lock as a full refresh, so the snapshot cannot be replaced meanwhile.
+    private synchronized void refreshStaleCounts() {
+        statusRefreshScheduled.set(false);
+        List<String> stale = new ArrayList<>(staleFolders);
+        staleFolders.removeAll(stale);
+
+        Snapshot current = snapshot;
+        List<String> folderNames = stale.stream()
+                .filter(name -> current.folders().containsKey(name) && current.folders().get(name).canOpen)
+                .toList();
+        if (folderNames.isEmpty()) {
+            return;
+        }
+        try {
+            List<Status> statuses = connectionPool.executeIdempotent(connection -> {
+                IMAPFolder root = (IMAPFolder) connection.getStore().getDefaultFolder();
+                long started = System.nanoTime();
+                List<Status> fetched = fetchCounts(root, folderNames);
+                metrics.recordPhase("folder-status", started);
+                return fetched;
+            });
+            Map<String, Status> counts = new HashMap<>(current.counts());
+            statuses.forEach(status -> counts.put(status.mbox, status));
+            snapshot = new Snapshot(current.folders(), counts, current.listedAt(), System.currentTimeMillis());
+        } catch (MessagingException | IOException | RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void refreshInBackground() {
+        if (snapshot == null) {
+            return;
+        }
+        try {
+            refresh(true);
+        } catch (MessagingException | IOException | RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private List<Status> fetchCounts(IMAPFolder root, List<String> folderNames) throws MessagingException {
+        List<Status> statuses = new ArrayList<>();
+        for (int from = 0; from < folderNames.size(); from += PIPELINE_DEPTH) {
+            List<String> batch = folderNames.subList(from, Math.min(from + PIPELINE_DEPTH, folderNames.size()));
+            long started = System.nanoTime();
+            statuses.addAll(ImapCommandUtil.pipelinedStatus(root, batch, STATUS_ITEMS));
+            // pipelined commands bypass the instrumented protocol, the batch is one round trip
+            metrics.recordCommand("STATUS", "OK", started, System.nanoTime() - started);
+        }
+        return statuses;
+    }
+
+    private record Snapshot(Map<String, ListInfo> folders, Map<String, Status> counts, long listedAt, long countsUpdatedAt) {
+
+        private FolderTree toFolderTree() {
+            Map<String, FolderInfo> infos = new LinkedHashMap<>();
+            for (ListInfo info : folders.values()) {
+                Status status = counts.get(info.name);
+                infos.put(info.name, new FolderInfo(info.name, leafName(info), Arrays.asList(info.attrs), info.canOpen,
+                        count(status != null ? status.total : -1), count(status != null ? status.unseen : -1),
+                        count(status != null ? status.recent : -1), new ArrayList<>()));
+            }
+
+            List<FolderInfo> roots = new ArrayList<>();
+            for (ListInfo info : folders.values()) {
+                int end = info.separator != '\0' ? info.name.lastIndexOf(info.separator) : -1;
+                FolderInfo parent = end > 0 ? infos.get(info.name.substring(0, end)) : null;
+                if (parent != null) {
+                    parent.getChildren().add(infos.get(info.name));
+                } else {
+                    roots.add(infos.get(info.name));
+                }
+            }
+            return new FolderTree(listedAt, countsUpdatedAt, roots);
+        }
+
+        private static String leafName(ListInfo info) {
+            return info.separator != '\0' ? info.name.substring(info.name.lastIndexOf(info.separator) + 1) : info.name;
+        }
+
+        // STATUS leaves items it did not return at -1
+        private static Integer count(int value) {
+            return value >= 0 ? value : null;
+        }
+    }
+}
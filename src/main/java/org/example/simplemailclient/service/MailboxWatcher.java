@@ -0,0 +1,286 @@
+package org.example.simplemailclient.service;
+
+import com.sun.mail.imap.IMAPFolder;
+import com.sun.mail.imap.IMAPStore;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.FetchProfile;
+import jakarta.mail.Folder;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.UIDFolder;
+import jakarta.mail.event.MessageChangedEvent;
+import jakarta.mail.event.MessageCountEvent;
+import jakarta.mail.event.MessageCountListener;
+import org.example.simplemailclient.cache.HeaderCache;
+import org.example.simplemailclient.cache.RequestCoalescer;
+import org.example.simplemailclient.dto.MailboxEvent;
+import org.example.simplemailclient.enumeration.MailboxEventType;
+import org.example.simplemailclient.imap.ImapConnectionPool;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches subscribed folders with IMAP IDLE on a dedicated connection per folder
+ * and pushes new-mail, expunge and flag-change events to SSE subscribers.
+ * Servers without IDLE support are polled with NOOP instead.
+ */
+@Service
+public class MailboxWatcher {
+
+    private static final String IDLE = "IDLE";
+
+    @Value("${imap.idle.rearm-interval:9m}")
+    private Duration rearmInterval;
+
+    @Value("${imap.idle.poll-interval:30s}")
+    private Duration pollInterval;
+
+    @Value("${imap.idle.reconnect-delay:10s}")
+    private Duration reconnectDelay;
+
+    @Value("${imap.idle.emitter-timeout:30m}")
+    private Duration emitterTimeout;
+
+    private final ImapConnectionPool connectionPool;
+
+    private final HeaderCache headerCache;
+
+    private final FolderTreeService folderTree;
+
+    private final RequestCoalescer coalescer;
+
+    private final ConcurrentMap<String, FolderWatch> watches = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService keepAliveScheduler;
+
+    @Autowired
+    public MailboxWatcher(ImapConnectionPool connectionPool, HeaderCache headerCache, FolderTreeService folderTree,
+                          RequestCoalescer coalescer) {
+        this.connectionPool = connectionPool;
+        this.headerCache = headerCache;
+        this.folderTree = folderTree;
+        this.coalescer = coalescer;
+    }
+
+    @PostConstruct
+    public void init() {
+        keepAliveScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "imap-idle-keepalive");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        watches.values().forEach(FolderWatch::stop);
+        watches.clear();
+        keepAliveScheduler.shutdownNow();
+    }
+
+    public SseEmitter subscribe(String folderName) {
+        SseEmitter emitter = new SseEmitter(emitterTimeout.toMillis());
+        emitter.onCompletion(() -> unsubscribe(folderName, emitter));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> unsubscribe(folderName, emitter));
+
+        watches.compute(folderName, (name, watch) -> {
+            if (watch == null) {
+                watch = new FolderWatch(name);
+                watch.start();
+            }
+            watch.emitters.add(emitter);
+            return watch;
+        });
+        return emitter;
+    }
+
+    private void unsubscribe(String folderName, SseEmitter emitter) {
+        watches.computeIfPresent(folderName, (name, watch) -> {
+            watch.emitters.remove(emitter);
+            if (watch.emitters.isEmpty()) {
+                watch.stop();
+                return null;
+            }
+            return watch;
+        });
+    }
+
+    private void publish(FolderWatch watch, MailboxEventType type, List<Long> uids) {
+        headerCache.markStale(watch.folderName);
+        folderTree.markStale(watch.folderName);
+        coalescer.invalidate(watch.folderName);
+
+        MailboxEvent event = new MailboxEvent(type, watch.folderName, uids, System.currentTimeMillis());
+        for (SseEmitter emitter : watch.emitters) {
+            try {
+                emitter.send(SseEmitter.event().name(type.name()).data(event));
+            } catch (IOException | IllegalStateException e) {
+                watch.emitters.remove(emitter);
+            }
+        }
+    }
+
+    private List<Long> getUids(IMAPFolder folder, Message[] messages) {
+        List<Long> uids = new ArrayList<>();
+        for (Message message : messages) {
+            try {
+                uids.add(folder.getUID(message));
+            } catch (MessagingException e) {
+                // expunged before its UID was known, nothing to report for it
+            }
+        }
+        return uids;
+    }
+
+    private final class FolderWatch implements Runnable, MessageCountListener {
+
+        private final String folderName;
+        private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+        private final Thread thread;
+
+        private volatile boolean running = true;
+        private volatile IMAPStore store;
+        private volatile IMAPFolder folder;
+        private ScheduledFuture<?> keepAlive;
+
+        private FolderWatch(String folderName) {
+            this.folderName = folderName;
+            this.thread = new Thread(this, "imap-idle-" + folderName);
+            this.thread.setDaemon(true);
+        }
+
+        private void start() {
+            thread.start();
+        }
+
+        private void stop() {
+            running = false;
+            thread.interrupt();
+            disconnect();
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                try {
+                    connect();
+                    boolean idleSupported = store.hasCapability(IDLE);
+                    while (running && folder.isOpen()) {
+                        if (idleSupported) {
+                            // returns whenever another thread issues a command, e.g. the keep-alive NOOP
+                            folder.idle();
+                        } else {
+                            Thread.sleep(pollInterval.toMillis());
+                            folder.getMessageCount();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (MessagingException | RuntimeException e) {
+                    if (running) {
+                        e.printStackTrace();
+                    }
+                } finally {
+                    disconnect();
+                }
+
+                if (running) {
+                    try {
+                        Thread.sleep(reconnectDelay.toMillis());
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }
+        }
+
+        private void connect() throws MessagingException {
+            store = connectionPool.connectDedicated();
+            folder = (IMAPFolder) store.getFolder(folderName);
+            folder.open(Folder.READ_ONLY);
+            // an expunged message can no longer be asked for its UID, so every UID is known before it is expunged
+            fetchUids(folder.getMessages());
+            folder.addMessageCountListener(this);
+            folder.addMessageChangedListener(this::messageChanged);
+
+            // servers drop IDLE after ~30 minutes (Gmail after ~10), so break it with a NOOP and let run() re-arm it
+            long rearmMillis = rearmInterval.toMillis();
+            keepAlive = keepAliveScheduler.scheduleWithFixedDelay(this::keepAlive, rearmMillis, rearmMillis, TimeUnit.MILLISECONDS);
+        }
+
+        private void keepAlive() {
+            try {
+                IMAPFolder current = folder;
+                if (current != null && current.isOpen()) {
+                    current.getMessageCount();
+                }
+            } catch (MessagingException e) {
+                disconnect();
+            }
+        }
+
+        private void disconnect() {
+            if (keepAlive != null) {
+                keepAlive.cancel(false);
+                keepAlive = null;
+            }
+            try {
+                if (folder != null && folder.isOpen()) {
+                    folder.close(false);
+                }
+                if (store != null) {
+                    store.close();
+                }
+            } catch (MessagingException ignored) {
+                // the connection is being discarded anyway
+            }
+        }
+
+        @Override
+        public void messagesAdded(MessageCountEvent e) {
+            Message[] messages = e.getMessages();
+            try {
+                fetchUids(messages);
+            } catch (MessagingException ignored) {
+                // getUids fetches whatever is still missing one by one
+            }
+            publish(this, MailboxEventType.NEW_MAIL, getUids(folder, messages));
+        }
+
+        // the UIDs were fetched while the messages still existed and stay cached on them
+        @Override
+        public void messagesRemoved(MessageCountEvent e) {
+            publish(this, MailboxEventType.EXPUNGE, getUids(folder, e.getMessages()));
+        }
+
+        private void fetchUids(Message[] messages) throws MessagingException {
+            FetchProfile fetchProfile = new FetchProfile();
+            fetchProfile.add(UIDFolder.FetchProfileItem.UID);
+            folder.fetch(messages, fetchProfile);
+        }
+
+        private void messageChanged(MessageChangedEvent e) {
+            if (e.getMessageChangeType() == MessageChangedEvent.FLAGS_CHANGED) {
+                publish(this, MailboxEventType.FLAGS_CHANGED, getUids(folder, new Message[]{e.getMessage()}));
+            }
+        }
+    }
+}
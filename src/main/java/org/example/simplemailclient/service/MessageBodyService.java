@@ -0,0 +1,192 @@
+package org.example.simplemailclient.service;
+
+import com.sun.mail.iap.ProtocolException;
+import com.sun.mail.iap.Response;
+import com.sun.mail.imap.IMAPFolder;
+import com.sun.mail.imap.protocol.BODY;
+import com.sun.mail.imap.protocol.BODYSTRUCTURE;
+import com.sun.mail.imap.protocol.FetchResponse;
+import jakarta.mail.Folder;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Part;
+import jakarta.mail.internet.MimeUtility;
+import org.example.simplemailclient.bulkhead.BulkheadRegistry;
+import org.example.simplemailclient.cache.BodyCache;
+import org.example.simplemailclient.dto.BodyCacheStats;
+import org.example.simplemailclient.dto.MessageBody;
+import org.example.simplemailclient.enumeration.BodyType;
+import org.example.simplemailclient.enumeration.OperationType;
+import org.example.simplemailclient.imap.ImapConnectionPool;
+import org.jsoup.Jsoup;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.web.util.HtmlUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+/**
+ * Reads the displayable body of a message. The BODYSTRUCTURE is walked to find
+ * the text/html or text/plain section, only that section is fetched, and its
+ * transfer encoding and charset are decoded as a stream. Results go to the
+ * {@link BodyCache}, so opening the same message again needs no IMAP command.
+ */
+@Service
+public class MessageBodyService {
+
+    // section of the body of a message that is not multipart
+    private static final String SINGLE_PART_SECTION = "TEXT";
+
+    private final ImapConnectionPool connectionPool;
+
+    private final BulkheadRegistry bulkheads;
+
+    private final BodyCache bodyCache;
+
+    @Autowired
+    public MessageBodyService(ImapConnectionPool connectionPool, BulkheadRegistry bulkheads, BodyCache bodyCache) {
+        this.connectionPool = connectionPool;
+        this.bulkheads = bulkheads;
+        this.bodyCache = bodyCache;
+    }
+
+    // The HTML body, or the plain text body escaped into a <pre> block when the message has no HTML part.
+    public String getHtmlContentByUid(long uid, String folderName) {
+        MessageBody body = getBody(folderName, uid, BodyType.HTML)
+                .orElseThrow(() -> new RuntimeException("Message " + uid + " has no text body"));
+        if (isType(body, BodyType.HTML)) {
+            return body.getText();
+        }
+        return "<pre>" + HtmlUtils.htmlEscape(body.getText()) + "</pre>";
+    }
+
+    // The plain text body, or the text of the HTML body when the message has no plain text part.
+    public String getTextContentByUid(long uid, String folderName) {
+        MessageBody body = getBody(folderName, uid, BodyType.PLAIN)
+                .orElseThrow(() -> new RuntimeException("Message " + uid + " has no text body"));
+        if (isType(body, BodyType.PLAIN)) {
+            return body.getText();
+        }
+        return Jsoup.parse(body.getText()).wholeText();
+    }
+
+    // The preferred body type if the message has it, otherwise the other one; empty if it has neither.
+    public Optional<MessageBody> getBody(String folderName, long uid, BodyType preferred) {
+        Optional<MessageBody> cached = bodyCache.get(folderName, uid, preferred);
+        if (cached.isPresent()) {
+            return cached;
+        }
+        try {
+            return bulkheads.execute(OperationType.FETCH, () -> connectionPool.executeIdempotent(connection -> {
+                IMAPFolder folder = connection.openFolder(folderName, Folder.READ_ONLY);
+                long uidValidity = folder.getUIDValidity();
+
+                Optional<MessageBody> body = fetchBody(folder, uid, preferred);
+                body.ifPresent(found -> bodyCache.put(folderName, uidValidity, uid, preferred, found));
+                return body;
+            }));
+        } catch (MessagingException | IOException e) {
+            throw new RuntimeException("Error fetching the body of message " + uid + ": " + e.getMessage(), e);
+        }
+    }
+
+    public BodyCacheStats getCacheStats() {
+        return bodyCache.getStats();
+    }
+
+    // Two round trips: UID FETCH BODYSTRUCTURE, then BODY.PEEK of the chosen section.
+    @SuppressWarnings("unchecked")
+    private Optional<MessageBody> fetchBody(IMAPFolder folder, long uid, BodyType preferred) throws MessagingException {
+        return (Optional<MessageBody>) folder.doCommand(protocol -> {
+            Response[] responses = protocol.command("UID FETCH " + uid + " (BODYSTRUCTURE)", null);
+            int messageNumber = -1;
+            BODYSTRUCTURE structure = null;
+            for (Response response : responses) {
+                if (response instanceof FetchResponse fetchResponse && fetchResponse.getItem(BODYSTRUCTURE.class) != null) {
+                    messageNumber = fetchResponse.getNumber();
+                    structure = fetchResponse.getItem(BODYSTRUCTURE.class);
+                }
+            }
+            protocol.notifyResponseHandlers(responses);
+            protocol.handleResult(responses[responses.length - 1]);
+            if (structure == null) {
+                return Optional.empty();
+            }
+
+            BodyType fallback = preferred == BodyType.HTML ? BodyType.PLAIN : BodyType.HTML;
+            TextSection section = findSection(structure, "", preferred);
+            if (section == null) {
+                section = findSection(structure, "", fallback);
+            }
+            if (section == null) {
+                return Optional.empty();
+            }
+
+            BODY body = protocol.peekBody(messageNumber, section.section());
+            if (body == null || body.getByteArray() == null) {
+                return Optional.empty();
+            }
+            try {
+                String text = decode(body.getByteArrayInputStream(), section);
+                return Optional.of(new MessageBody(section.section(), section.contentType(), text));
+            } catch (IOException | MessagingException e) {
+                throw new ProtocolException("Failed to decode section " + section.section(), e);
+            }
+        });
+    }
+
+    // Depth-first over the structure; attachments and attached messages are skipped.
+    private TextSection findSection(BODYSTRUCTURE structure, String prefix, BodyType type) {
+        if (structure.isMulti()) {
+            for (int i = 0; i < structure.bodies.length; i++) {
+                String section = prefix.isEmpty() ? Integer.toString(i + 1) : prefix + "." + (i + 1);
+                TextSection found = findSection(structure.bodies[i], section, type);
+                if (found != null) {
+                    return found;
+                }
+            }
+            return null;
+        }
+        if (structure.isNested() || Part.ATTACHMENT.equalsIgnoreCase(structure.disposition)
+                || !"text".equalsIgnoreCase(structure.type) || !type.getSubtype().equalsIgnoreCase(structure.subtype)) {
+            return null;
+        }
+        String charset = structure.cParams != null ? structure.cParams.get("charset") : null;
+        return new TextSection(prefix.isEmpty() ? SINGLE_PART_SECTION : prefix, structure.encoding, charset,
+                "text/" + type.getSubtype() + (charset != null ? "; charset=" + charset : ""));
+    }
+
+    private String decode(InputStream raw, TextSection section) throws IOException, MessagingException {
+        InputStream decoded = section.encoding() != null ? MimeUtility.decode(raw, section.encoding()) : raw;
+        StringWriter text = new StringWriter();
+        try (Reader reader = new InputStreamReader(decoded, charsetOf(section.charset()))) {
+            reader.transferTo(text);
+        }
+        return text.toString();
+    }
+
+    // Missing or unknown charsets are read as UTF-8, which also covers US-ASCII
+    private Charset charsetOf(String charset) {
+        if (charset == null) {
+            return StandardCharsets.UTF_8;
+        }
+        try {
+            return Charset.forName(MimeUtility.javaCharset(charset));
+        } catch (IllegalArgumentException e) {
+            return StandardCharsets.UTF_8;
+        }
+    }
+
+    private boolean isType(MessageBody body, BodyType type) {
+        return body.getContentType().startsWith("text/" + type.getSubtype());
+    }
+
+    private record TextSection(String section, String encoding, String charset, String contentType) {
+    }
+}
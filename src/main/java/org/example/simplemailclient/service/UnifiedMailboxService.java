@@ -0,0 +1,239 @@
+package org.example.simplemailclient.service;
+
+import com.sun.mail.imap.IMAPFolder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.Folder;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.search.SearchTerm;
+import org.example.simplemailclient.account.MailAccountRegistry;
+import org.example.simplemailclient.bulkhead.BulkheadRegistry;
+import org.example.simplemailclient.dto.AccountResult;
+import org.example.simplemailclient.dto.EmailResponse;
+import org.example.simplemailclient.dto.UnifiedEmail;
+import org.example.simplemailclient.dto.UnifiedMailboxPage;
+import org.example.simplemailclient.enumeration.AccountResultState;
+import org.example.simplemailclient.enumeration.OperationType;
+import org.example.simplemailclient.metrics.ImapMetrics;
+import org.example.simplemailclient.query.TopNSearch;
+import org.example.simplemailclient.util.MessageUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Views across all accounts of the {@link MailAccountRegistry}. Every account is
+ * queried in parallel on its own connection pool and bulkheads for its newest
+ * matches, already ordered newest first, and the lists are k-way merged on the
+ * received date. Accounts that miss the timeout or fail are left out and
+ * reported, so one slow mailbox only makes the page partial.
+ */
+@Service
+public class UnifiedMailboxService {
+
+    private static final Comparator<EmailResponse> NEWEST_FIRST =
+            Comparator.comparingLong(UnifiedMailboxService::timeOf).reversed();
+
+    @Value("${accounts.unified.parallelism:16}")
+    private int parallelism;
+
+    // a deadline for the whole fan-out, accounts still running then are cancelled
+    @Value("${accounts.unified.account-timeout:5s}")
+    private Duration accountTimeout;
+
+    @Value("${imap.page.max-size:500}")
+    private int maxPageSize;
+
+    private final static int EMAIL_FETCH_LIMIT = 5;
+
+    private final MailAccountRegistry accounts;
+
+    private final BulkheadRegistry bulkheads;
+
+    private final TopNSearch topNSearch;
+
+    private final ImapMetrics metrics;
+
+    private ExecutorService workers;
+
+    @Autowired
+    public UnifiedMailboxService(MailAccountRegistry accounts, BulkheadRegistry bulkheads, TopNSearch topNSearch,
+                                 ImapMetrics metrics) {
+        this.accounts = accounts;
+        this.bulkheads = bulkheads;
+        this.topNSearch = topNSearch;
+        this.metrics = metrics;
+    }
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "unified-mailbox-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    // The newest messages of the folder over all accounts.
+    public UnifiedMailboxPage getUnifiedFolder(String folderName, Integer pageSize) {
+        return fanOut(OperationType.FETCH, folderName, pageSize, (folder, limit) -> {
+            int count = folder.getMessageCount();
+            if (count == 0) {
+                return List.of();
+            }
+            return Arrays.asList(folder.getMessages(Math.max(1, count - limit + 1), count));
+        });
+    }
+
+    // The newest matches of the search term in the folder over all accounts.
+    public UnifiedMailboxPage search(String folderName, SearchTerm searchTerm, Integer pageSize) {
+        return fanOut(OperationType.SEARCH, folderName, pageSize, (folder, limit) -> {
+            List<Long> uids = topNSearch.arrivalPage(folder, searchTerm, null, null, limit);
+            Message[] messages = folder.getMessagesByUID(uids.stream().mapToLong(Long::longValue).toArray());
+            return Arrays.stream(messages).filter(Objects::nonNull).toList();
+        });
+    }
+
+    private UnifiedMailboxPage fanOut(OperationType operation, String folderName, Integer pageSize, MessageSelector selector) {
+        int limit = pageSize == null ? EMAIL_FETCH_LIMIT : Math.max(1, Math.min(pageSize, maxPageSize));
+        List<String> accountNames = accounts.getAccounts();
+        List<Callable<AccountPage>> tasks = accountNames.stream()
+                .map(account -> (Callable<AccountPage>) () -> load(account, operation, folderName, limit, selector))
+                .toList();
+
+        long started = System.nanoTime();
+        List<Future<AccountPage>> futures;
+        try {
+            futures = workers.invokeAll(tasks, accountTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while querying the accounts", e);
+        }
+        long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+
+        List<AccountPage> pages = new ArrayList<>();
+        List<AccountResult> results = new ArrayList<>();
+        for (int i = 0; i < futures.size(); i++) {
+            String account = accountNames.get(i);
+            try {
+                AccountPage page = futures.get(i).get();
+                pages.add(page);
+                results.add(new AccountResult(account, AccountResultState.OK, page.emails().size(), null, page.elapsedMillis()));
+            } catch (CancellationException e) {
+                results.add(new AccountResult(account, AccountResultState.TIMED_OUT, 0, "No answer within " + accountTimeout,
+                        elapsedMillis));
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                results.add(new AccountResult(account, AccountResultState.FAILED, 0, cause.getMessage(), elapsedMillis));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while querying the accounts", e);
+            }
+        }
+
+        long mergeStarted = System.nanoTime();
+        List<UnifiedEmail> merged = merge(pages, limit);
+        metrics.recordPhase("merge", mergeStarted);
+        boolean partial = results.stream().anyMatch(result -> result.getState() != AccountResultState.OK);
+        return new UnifiedMailboxPage(merged, results, partial);
+    }
+
+    private AccountPage load(String account, OperationType operation, String folderName, int limit, MessageSelector selector)
+            throws Exception {
+        long started = System.nanoTime();
+        List<EmailResponse> emails = bulkheads.execute(account, operation, () -> accounts.getPool(account).executeIdempotent(connection -> {
+            IMAPFolder folder = connection.openFolder(folderName, Folder.READ_ONLY);
+            List<Message> messages = selector.select(folder, limit);
+            MessageUtil.prefetch(folder, messages);
+
+            List<EmailResponse> converted = new ArrayList<>(messages.size());
+            for (Message message : messages) {
+                EmailResponse email = MessageUtil.createEmailResponse(message, folder);
+                if (email != null) {
+                    converted.add(email);
+                }
+            }
+            // arrival order and received date can disagree, the merge needs each list in date order
+            converted.sort(NEWEST_FIRST);
+            return converted;
+        }));
+        return new AccountPage(account, emails, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    // k-way merge: a heap holds the head of every account's list, O((limit + k) log k) for k accounts.
+    private static List<UnifiedEmail> merge(List<AccountPage> pages, int limit) {
+        PriorityQueue<Cursor> heads = new PriorityQueue<>(Math.max(1, pages.size()),
+                Comparator.comparing(Cursor::current, NEWEST_FIRST));
+        for (AccountPage page : pages) {
+            if (!page.emails().isEmpty()) {
+                heads.add(new Cursor(page));
+            }
+        }
+        List<UnifiedEmail> merged = new ArrayList<>(limit);
+        while (merged.size() < limit && !heads.isEmpty()) {
+            Cursor head = heads.poll();
+            merged.add(new UnifiedEmail(head.page.account(), head.current()));
+            if (head.advance()) {
+                heads.add(head);
+            }
+        }
+        return merged;
+    }
+
+    private static long timeOf(EmailResponse email) {
+        if (email.getReceivedTime() != null) {
+            return email.getReceivedTime();
+        }
+        return email.getSentTime() != null ? email.getSentTime() : 0;
+    }
+
+    @FunctionalInterface
+    private interface MessageSelector {
+
+        List<Message> select(IMAPFolder folder, int limit) throws MessagingException;
+    }
+
+    private record AccountPage(String account, List<EmailResponse> emails, long elapsedMillis) {
+    }
+
+    private static final class Cursor {
+
+        private final AccountPage page;
+        private int index;
+
+        private Cursor(AccountPage page) {
+            this.page = page;
+        }
+
+        private EmailResponse current() {
+            return page.emails().get(index);
+        }
+
+        private boolean advance() {
+            return ++index < page.emails().size();
+        }
+    }
+}
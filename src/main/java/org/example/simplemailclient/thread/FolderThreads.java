@@ -0,0 +1,344 @@
+package org.example.simplemailclient.thread;
+
+import org.example.simplemailclient.dto.EmailResponse;
+import org.example.simplemailclient.dto.ThreadDetail;
+import org.example.simplemailclient.dto.ThreadMessage;
+import org.example.simplemailclient.dto.ThreadPage;
+import org.example.simplemailclient.dto.ThreadSummary;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+/**
+ * The conversations of one folder, linked JWZ-style: every Message-ID gets a
+ * container, ids only known from References or In-Reply-To stay empty until
+ * their message arrives, and a message hangs below the last id it refers to.
+ * Messages without references join the conversation of an earlier message
+ * with the same subject when they are replies. A new message touches only the
+ * containers it names; when it joins two conversations the smaller one is
+ * moved into the larger, so no message moves more than log n times.
+ */
+class FolderThreads {
+
+    // newest activity first; sequence breaks ties so distinct conversations never compare equal
+    private static final Comparator<Conversation> NEWEST_FIRST = Comparator
+            .comparingLong((Conversation conversation) -> conversation.latestTime)
+            .thenComparingLong(conversation -> conversation.latestUid)
+            .thenComparingLong(conversation -> conversation.sequence)
+            .reversed();
+
+    private static final Pattern REPLY_PREFIX = Pattern.compile("^\\s*((re|fwd?|aw|wg|sv|antw)(\\[\\d+])?\\s*:\\s*)+",
+            Pattern.CASE_INSENSITIVE);
+
+    private final Map<String, Container> containers = new HashMap<>();
+
+    private final Map<Long, Container> byUid = new HashMap<>();
+
+    // the first message of a subject that is not itself a reply
+    private final Map<String, Container> bySubject = new HashMap<>();
+
+    // conversations with at least one message
+    private final NavigableSet<Conversation> byLatest = new TreeSet<>(NEWEST_FIRST);
+
+    private long nextSequence;
+
+    static FolderThreads of(List<EmailResponse> emails) {
+        FolderThreads threads = new FolderThreads();
+        emails.forEach(threads::add);
+        return threads;
+    }
+
+    synchronized void add(EmailResponse email) {
+        if (byUid.containsKey(email.getUid())) {
+            return;
+        }
+        String id = email.getMessageId() != null ? email.getMessageId() : uidId(email.getUid());
+        Container container = containers.get(id);
+        if (container != null && container.email != null) {
+            // another copy of the same message stands on its own
+            id = uidId(email.getUid());
+            container = containers.get(id);
+        }
+        if (container == null) {
+            container = newContainer(id);
+        }
+        container.email = email;
+        byUid.put(email.getUid(), container);
+
+        Conversation conversation = container.conversation;
+        byLatest.remove(conversation);
+        conversation.messageCount++;
+        if (isNewer(email, conversation)) {
+            conversation.latestTime = timeOf(email);
+            conversation.latestUid = email.getUid();
+        }
+        byLatest.add(conversation);
+
+        List<String> references = new ArrayList<>(email.getReferences() != null ? email.getReferences() : List.of());
+        if (email.getInReplyTo() != null && (references.isEmpty() || !references.get(references.size() - 1).equals(email.getInReplyTo()))) {
+            references.add(email.getInReplyTo());
+        }
+        Container previous = null;
+        for (String reference : references) {
+            Container referenced = containers.get(reference);
+            if (referenced == null) {
+                referenced = newContainer(reference);
+            }
+            if (previous != null) {
+                link(previous, referenced);
+            }
+            previous = referenced;
+        }
+
+        String subject = email.getSubject() != null ? email.getSubject().trim() : "";
+        String baseSubject = REPLY_PREFIX.matcher(subject).replaceFirst("").toLowerCase(Locale.ROOT);
+        if (previous != null) {
+            link(previous, container);
+        } else if (!baseSubject.isEmpty()) {
+            Container first = bySubject.get(baseSubject);
+            if (first == null && baseSubject.length() == subject.length()) {
+                bySubject.put(baseSubject, container);
+            } else if (first != null && baseSubject.length() != subject.length()) {
+                link(first, container);
+            }
+        }
+    }
+
+    synchronized void remove(long uid) {
+        Container container = byUid.remove(uid);
+        if (container == null) {
+            return;
+        }
+        // stays as an empty container, the replies below it keep their place
+        container.email = null;
+        Conversation conversation = container.conversation;
+        byLatest.remove(conversation);
+        conversation.messageCount--;
+        conversation.latestTime = Long.MIN_VALUE;
+        conversation.latestUid = 0;
+        for (Container member : conversation.members) {
+            if (member.email != null && isNewer(member.email, conversation)) {
+                conversation.latestTime = timeOf(member.email);
+                conversation.latestUid = member.email.getUid();
+            }
+        }
+        if (conversation.messageCount > 0) {
+            byLatest.add(conversation);
+        }
+    }
+
+    synchronized ThreadPage page(int limit, String cursor) {
+        NavigableSet<Conversation> remaining = cursor == null ? byLatest : byLatest.tailSet(decodeCursor(cursor), false);
+        List<ThreadSummary> threads = new ArrayList<>(Math.min(limit, remaining.size()));
+        Conversation last = null;
+        for (Conversation conversation : remaining) {
+            if (threads.size() == limit) {
+                break;
+            }
+            threads.add(summarize(conversation));
+            last = conversation;
+        }
+        String nextCursor = last != null && remaining.higher(last) != null ? encodeCursor(last) : null;
+        return new ThreadPage(threads, byLatest.size(), nextCursor);
+    }
+
+    // Any Message-ID of the thread, or "uid:<n>" for messages without one.
+    synchronized Optional<ThreadDetail> detail(String messageId, int offset, int limit) {
+        Container container = containers.get(messageId);
+        if (container == null || container.conversation.messageCount == 0) {
+            return Optional.empty();
+        }
+        Container top = topOf(container);
+        List<ThreadMessage> messages = new ArrayList<>();
+        Deque<Container> stack = new ArrayDeque<>();
+        Deque<Integer> depths = new ArrayDeque<>();
+        stack.push(top);
+        depths.push(0);
+        while (!stack.isEmpty()) {
+            Container current = stack.pop();
+            int depth = depths.pop();
+            // empty containers are left out, their replies move up a level
+            int childDepth = depth;
+            if (current.email != null) {
+                messages.add(new ThreadMessage(depth, current.email));
+                childDepth = depth + 1;
+            }
+            List<Container> children = new ArrayList<>(current.children);
+            children.sort(Comparator.comparingLong(FolderThreads::timeOf));
+            for (int i = children.size() - 1; i >= 0; i--) {
+                stack.push(children.get(i));
+                depths.push(childDepth);
+            }
+        }
+
+        int from = Math.min(offset, messages.size());
+        int to = Math.min(messages.size(), from + limit);
+        Integer nextOffset = to < messages.size() ? to : null;
+        return Optional.of(new ThreadDetail(top.messageId, subjectOf(top), messages.size(),
+                new ArrayList<>(messages.subList(from, to)), nextOffset));
+    }
+
+    private ThreadSummary summarize(Conversation conversation) {
+        Container top = topOf(conversation.members.get(0));
+        Set<String> participants = new LinkedHashSet<>();
+        conversation.members.stream()
+                .filter(member -> member.email != null)
+                .sorted(Comparator.comparingLong(FolderThreads::timeOf))
+                .forEach(member -> {
+                    if (member.email.getFrom() != null) {
+                        participants.add(member.email.getFrom());
+                    }
+                });
+        return new ThreadSummary(top.messageId, subjectOf(top), conversation.messageCount, new ArrayList<>(participants),
+                conversation.latestUid, conversation.latestTime != Long.MIN_VALUE ? conversation.latestTime : null);
+    }
+
+    // The subject of the top message, or of the oldest one when the top is only referenced.
+    private String subjectOf(Container top) {
+        if (top.email != null) {
+            return top.email.getSubject();
+        }
+        return top.conversation.members.stream()
+                .filter(member -> member.email != null)
+                .min(Comparator.comparingLong(FolderThreads::timeOf))
+                .map(member -> member.email.getSubject())
+                .orElse(null);
+    }
+
+    // Links only containers without a parent, and never below their own replies, so every conversation stays one tree.
+    private void link(Container parent, Container child) {
+        if (child.parent != null || parent == child || isAncestor(child, parent)) {
+            return;
+        }
+        child.parent = parent;
+        parent.children.add(child);
+        merge(parent.conversation, child.conversation);
+    }
+
+    private void merge(Conversation first, Conversation second) {
+        if (first == second) {
+            return;
+        }
+        Conversation larger = first.members.size() >= second.members.size() ? first : second;
+        Conversation smaller = larger == first ? second : first;
+        byLatest.remove(larger);
+        byLatest.remove(smaller);
+        for (Container member : smaller.members) {
+            member.conversation = larger;
+        }
+        larger.members.addAll(smaller.members);
+        larger.messageCount += smaller.messageCount;
+        if (NEWEST_FIRST.compare(smaller, larger) < 0 && smaller.messageCount > 0) {
+            larger.latestTime = smaller.latestTime;
+            larger.latestUid = smaller.latestUid;
+        }
+        if (larger.messageCount > 0) {
+            byLatest.add(larger);
+        }
+    }
+
+    private Container newContainer(String id) {
+        Container container = new Container(id);
+        container.conversation = new Conversation(nextSequence++);
+        container.conversation.members.add(container);
+        containers.put(id, container);
+        return container;
+    }
+
+    private static boolean isAncestor(Container ancestor, Container container) {
+        for (Container current = container.parent; current != null; current = current.parent) {
+            if (current == ancestor) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Container topOf(Container container) {
+        Container top = container;
+        while (top.parent != null) {
+            top = top.parent;
+        }
+        return top;
+    }
+
+    private static boolean isNewer(EmailResponse email, Conversation conversation) {
+        long time = timeOf(email);
+        return time > conversation.latestTime || time == conversation.latestTime && email.getUid() > conversation.latestUid;
+    }
+
+    // Empty containers sort after the messages.
+    private static long timeOf(Container container) {
+        return container.email != null ? timeOf(container.email) : Long.MAX_VALUE;
+    }
+
+    private static long timeOf(EmailResponse email) {
+        if (email.getReceivedTime() != null) {
+            return email.getReceivedTime();
+        }
+        return email.getSentTime() != null ? email.getSentTime() : 0;
+    }
+
+    private static String uidId(long uid) {
+        return "uid:" + uid;
+    }
+
+    // The sort values (latest time, latest UID, sequence) of the last thread on the page.
+    private static String encodeCursor(Conversation last) {
+        String value = last.latestTime + ":" + last.latestUid + ":" + last.sequence;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Conversation decodeCursor(String cursor) {
+        try {
+            String[] value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":");
+            Conversation position = new Conversation(Long.parseLong(value[2]));
+            position.latestTime = Long.parseLong(value[0]);
+            position.latestUid = Long.parseLong(value[1]);
+            return position;
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+
+    private static final class Container {
+
+        private final String messageId;
+        // null while the message is only referenced
+        private EmailResponse email;
+        private Container parent;
+        private final List<Container> children = new ArrayList<>(1);
+        private Conversation conversation;
+
+        private Container(String messageId) {
+            this.messageId = messageId;
+        }
+    }
+
+    private static final class Conversation {
+
+        private final long sequence;
+        private final List<Container> members = new ArrayList<>(1);
+        private int messageCount;
+        private long latestTime = Long.MIN_VALUE;
+        private long latestUid;
+
+        private Conversation(long sequence) {
+            this.sequence = sequence;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package org.example.simplemailclient.thread;
+
+import jakarta.mail.MessagingException;
+import org.example.simplemailclient.bulkhead.BulkheadRegistry;
+import org.example.simplemailclient.cache.FolderSyncedEvent;
+import org.example.simplemailclient.cache.HeaderCache;
+import org.example.simplemailclient.dto.ThreadDetail;
+import org.example.simplemailclient.dto.ThreadPage;
+import org.example.simplemailclient.enumeration.OperationType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Conversation threads per folder, built from the Message-ID, In-Reply-To and
+ * References headers in the header cache. A folder is threaded once, when it
+ * is first asked for; after that every header sync only adds and removes the
+ * messages it reported, without another IMAP round trip. Threads cover the
+ * messages the header cache holds.
+ */
+@Component
+public class ThreadIndex {
+
+    @Value("${imap.page.max-size:500}")
+    private int maxPageSize;
+
+    private final HeaderCache headerCache;
+
+    private final BulkheadRegistry bulkheads;
+
+    private final ConcurrentMap<String, FolderThreads> folders = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ThreadIndex(HeaderCache headerCache, BulkheadRegistry bulkheads) {
+        this.headerCache = headerCache;
+        this.bulkheads = bulkheads;
+    }
+
+    // Threads with the newest activity first.
+    public ThreadPage getThreads(String folderName, int limit, String cursor) {
+        return getFolder(folderName).page(clamp(limit), cursor);
+    }
+
+    // The thread of the message, in reply order.
+    public Optional<ThreadDetail> getThread(String folderName, String messageId, int offset, int limit) {
+        if (offset < 0) {
+            throw new IllegalArgumentException("offset must not be negative");
+        }
+        return getFolder(folderName).detail(messageId, offset, clamp(limit));
+    }
+
+    // Runs after the cache has taken the changes; waits for a folder that is being threaded right now.
+    @EventListener
+    public void onFolderSynced(FolderSyncedEvent event) {
+        if (event.isReset()) {
+            folders.remove(event.getFolderName());
+            return;
+        }
+        folders.computeIfPresent(event.getFolderName(), (folderName, threads) -> {
+            event.getRemovedUids().forEach(threads::remove);
+            for (Long uid : event.getAddedUids()) {
+                headerCache.getCachedEmail(folderName, uid).ifPresent(threads::add);
+            }
+            return threads;
+        });
+    }
+
+    private FolderThreads getFolder(String folderName) {
+        try {
+            bulkheads.execute(OperationType.FETCH, () -> {
+                headerCache.ensureSynced(folderName);
+                return null;
+            });
+        } catch (MessagingException | IOException e) {
+            throw new RuntimeException("Error reading the headers of " + folderName + ": " + e.getMessage(), e);
+        }
+        return folders.computeIfAbsent(folderName, name -> FolderThreads.of(headerCache.getCachedEmails(name)));
+    }
+
+    private int clamp(int limit) {
+        return Math.max(1, Math.min(limit, maxPageSize));
+    }
+}
@@ -0,0 +1,59 @@
+package org.example.simplemailclient.transfer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Date;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Reads the .eml entries of a zip archive in archive order; other entries are
+ * skipped. Bare LF line endings are turned into CRLF as APPEND expects.
+ */
+public class EmlZipReader implements MailboxReader {
+
+    private final ZipInputStream input;
+
+    public EmlZipReader(InputStream input) {
+        this.input = new ZipInputStream(input);
+    }
+
+    @Override
+    public MailboxEntry next() throws IOException {
+        ZipEntry entry;
+        while ((entry = input.getNextEntry()) != null) {
+            if (entry.isDirectory() || !entry.getName().toLowerCase().endsWith(".eml")) {
+                continue;
+            }
+            Date date = entry.getLastModifiedTime() != null ? new Date(entry.getLastModifiedTime().toMillis()) : null;
+            return new MailboxEntry(-1, null, date, false, toCrlf(input.readAllBytes()));
+        }
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        input.close();
+    }
+
+    private static byte[] toCrlf(byte[] content) {
+        ByteArrayOutputStream converted = null;
+        int start = 0;
+        for (int i = 0; i < content.length; i++) {
+            if (content[i] == '\n' && (i == 0 || content[i - 1] != '\r')) {
+                if (converted == null) {
+                    converted = new ByteArrayOutputStream(content.length + content.length / 32);
+                }
+                converted.write(content, start, i - start);
+                converted.write('\r');
+                start = i;
+            }
+        }
+        if (converted == null) {
+            return content;
+        }
+        converted.write(content, start, content.length - start);
+        return converted.toByteArray();
+    }
+}
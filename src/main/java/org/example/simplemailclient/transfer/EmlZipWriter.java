@@ -0,0 +1,50 @@
+package org.example.simplemailclient.transfer;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.attribute.FileTime;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Writes a zip archive with one deflated {@code <uid>.eml} entry per message,
+ * holding the message exactly as the server returned it. The entry time is the
+ * INTERNALDATE.
+ */
+public class EmlZipWriter implements MailboxWriter {
+
+    private final ZipOutputStream output;
+
+    public EmlZipWriter(OutputStream target) {
+        // the servlet container owns the response stream
+        this.output = new ZipOutputStream(new FilterOutputStream(target) {
+            @Override
+            public void write(byte[] bytes, int offset, int length) throws IOException {
+                out.write(bytes, offset, length);
+            }
+
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        });
+    }
+
+    @Override
+    public void write(MailboxEntry entry, InputStream content) throws IOException {
+        ZipEntry zipEntry = new ZipEntry(entry.uid() + ".eml");
+        if (entry.internalDate() != null) {
+            zipEntry.setLastModifiedTime(FileTime.fromMillis(entry.internalDate().getTime()));
+        }
+        output.putNextEntry(zipEntry);
+        content.transferTo(output);
+        output.closeEntry();
+    }
+
+    @Override
+    public void close() throws IOException {
+        output.close();
+    }
+}
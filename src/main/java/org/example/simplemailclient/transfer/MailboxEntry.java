@@ -0,0 +1,10 @@
+package org.example.simplemailclient.transfer;
+
+import java.util.Date;
+
+/**
+ * One message of a mailbox archive. The content is the raw RFC 822 message with
+ * CRLF line endings; it is null on export when the message is streamed instead.
+ */
+public record MailboxEntry(long uid, String sender, Date internalDate, boolean seen, byte[] content) {
+}
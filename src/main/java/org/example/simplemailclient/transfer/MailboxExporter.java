@@ -0,0 +1,189 @@
+package org.example.simplemailclient.transfer;
+
+import com.sun.mail.imap.IMAPFolder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.mail.FetchProfile;
+import jakarta.mail.Flags;
+import jakarta.mail.Folder;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.UIDFolder;
+import jakarta.mail.internet.InternetAddress;
+import org.example.simplemailclient.bulkhead.BulkheadRegistry;
+import org.example.simplemailclient.enumeration.MailboxFormat;
+import org.example.simplemailclient.enumeration.OperationType;
+import org.example.simplemailclient.imap.ImapConnection;
+import org.example.simplemailclient.imap.ImapConnectionPool;
+import org.example.simplemailclient.imap.ImapSectionInputStream;
+import org.example.simplemailclient.util.ImapCommandUtil;
+import org.example.simplemailclient.util.MessageUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streams a folder into an mbox or EML zip archive. Messages are read in UID
+ * order in batches: one FETCH of the sizes and envelopes, then one UID FETCH of
+ * the raw messages that fit into the batch byte budget. A batch is written to
+ * the response before the next one is fetched and no connection is held while
+ * writing, so memory stays at one batch however large the folder. Messages
+ * larger than the budget are streamed in partial fetches.
+ */
+@Service
+public class MailboxExporter {
+
+    // messages whose sizes are fetched per round trip
+    @Value("${transfer.export.scan-size:200}")
+    private int scanSize;
+
+    @Value("${transfer.export.max-batch-bytes:8MB}")
+    private DataSize maxBatchBytes;
+
+    // partial fetch size for messages over the batch budget
+    @Value("${transfer.export.chunk-size:1MB}")
+    private DataSize chunkSize;
+
+    @Value("${imap.command.max-uid-set-length:4000}")
+    private int maxUidSetLength;
+
+    private final ImapConnectionPool connectionPool;
+
+    private final BulkheadRegistry bulkheads;
+
+    private final Counter exportedMessages;
+
+    private final Counter exportedBytes;
+
+    @Autowired
+    public MailboxExporter(ImapConnectionPool connectionPool, BulkheadRegistry bulkheads, MeterRegistry registry) {
+        this.connectionPool = connectionPool;
+        this.bulkheads = bulkheads;
+        this.exportedMessages = Counter.builder("mail.transfer.messages")
+                .description("Messages exported or imported")
+                .tag("direction", "export")
+                .register(registry);
+        this.exportedBytes = Counter.builder("mail.transfer.bytes")
+                .description("Raw message bytes exported or imported")
+                .tag("direction", "export")
+                .register(registry);
+    }
+
+    public long getUidValidity(String folderName) {
+        try {
+            return bulkheads.execute(OperationType.FETCH, () -> connectionPool.executeIdempotent(connection ->
+                    connection.openFolder(folderName, Folder.READ_ONLY).getUIDValidity()));
+        } catch (MessagingException | IOException e) {
+            throw new RuntimeException("Error opening " + folderName + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Writes the messages with a UID above afterUid. An export cut short can be
+     * resumed with the last UID received, as long as the UIDVALIDITY is the same.
+     */
+    public void export(String folderName, MailboxFormat format, long afterUid, long uidValidity, OutputStream outputStream) {
+        try (MailboxWriter writer = format == MailboxFormat.MBOX ? new MboxWriter(outputStream) : new EmlZipWriter(outputStream)) {
+            long cursor = afterUid;
+            while (true) {
+                long from = cursor;
+                ExportBatch batch = bulkheads.execute(OperationType.FETCH, () -> connectionPool.executeIdempotent(connection ->
+                        nextBatch(connection, folderName, from, uidValidity)));
+                if (batch.lastUid() < 0) {
+                    break;
+                }
+                for (MailboxEntry entry : batch.entries()) {
+                    InputStream content = entry.content() != null
+                            ? new ByteArrayInputStream(entry.content())
+                            : new ImapSectionInputStream(connectionPool, bulkheads, folderName, entry.uid(), "", 0, Long.MAX_VALUE,
+                            (int) chunkSize.toBytes());
+                    try (content) {
+                        writer.write(entry, content);
+                    }
+                    exportedMessages.increment();
+                    exportedBytes.increment(entry.content() != null ? entry.content().length : 0);
+                }
+                cursor = batch.lastUid();
+            }
+        } catch (MessagingException | IOException e) {
+            throw new RuntimeException("Error exporting " + folderName + ": " + e.getMessage(), e);
+        }
+    }
+
+    // The next messages after the UID, as many as fit into the byte budget but at least one.
+    private ExportBatch nextBatch(ImapConnection connection, String folderName, long afterUid, long uidValidity)
+            throws MessagingException {
+        IMAPFolder folder = connection.openFolder(folderName, Folder.READ_ONLY);
+        if (folder.getUIDValidity() != uidValidity) {
+            throw new MessagingException("The UIDVALIDITY of " + folderName + " changed during the export");
+        }
+        int start = MessageUtil.firstSequenceNumberAtOrAboveUid(folder, afterUid + 1);
+        int end = Math.min(folder.getMessageCount(), start + scanSize - 1);
+        if (start > end) {
+            return new ExportBatch(List.of(), -1);
+        }
+
+        Message[] scanned = folder.getMessages(start, end);
+        FetchProfile fetchProfile = new FetchProfile();
+        fetchProfile.add(UIDFolder.FetchProfileItem.UID);
+        fetchProfile.add(FetchProfile.Item.FLAGS);
+        // ENVELOPE also brings INTERNALDATE and RFC822.SIZE
+        fetchProfile.add(FetchProfile.Item.ENVELOPE);
+        folder.fetch(scanned, fetchProfile);
+
+        List<Message> batch = new ArrayList<>();
+        List<Long> inline = new ArrayList<>();
+        long budget = maxBatchBytes.toBytes();
+        long bytes = 0;
+        for (Message message : scanned) {
+            long size = Math.max(0, message.getSize());
+            if (size <= budget && bytes + size > budget && !batch.isEmpty()) {
+                break;
+            }
+            batch.add(message);
+            if (size <= budget) {
+                inline.add(folder.getUID(message));
+                bytes += size;
+            }
+        }
+
+        Map<Long, byte[]> contents = new HashMap<>();
+        for (String uidSet : ImapCommandUtil.toUidSetChunks(inline, maxUidSetLength)) {
+            contents.putAll(ImapCommandUtil.uidFetchRaw(folder, uidSet));
+        }
+
+        List<MailboxEntry> entries = new ArrayList<>(batch.size());
+        for (Message message : batch) {
+            long uid = folder.getUID(message);
+            byte[] content = contents.get(uid);
+            if (content == null && message.getSize() <= budget) {
+                // expunged since the scan
+                continue;
+            }
+            entries.add(new MailboxEntry(uid, sender(message), message.getReceivedDate(),
+                    message.getFlags().contains(Flags.Flag.SEEN), content));
+        }
+        return new ExportBatch(entries, folder.getUID(batch.get(batch.size() - 1)));
+    }
+
+    private static String sender(Message message) throws MessagingException {
+        if (message.getFrom() != null && message.getFrom().length > 0 && message.getFrom()[0] instanceof InternetAddress address) {
+            return address.getAddress();
+        }
+        return null;
+    }
+
+    // lastUid is the last UID looked at, even when it was expunged meanwhile; -1 when no message is left
+    private record ExportBatch(List<MailboxEntry> entries, long lastUid) {
+    }
+}
@@ -0,0 +1,229 @@
+package org.example.simplemailclient.transfer;
+
+import com.sun.mail.iap.Argument;
+import com.sun.mail.iap.Literal;
+import com.sun.mail.iap.ProtocolException;
+import com.sun.mail.iap.Response;
+import com.sun.mail.imap.AppendUID;
+import com.sun.mail.imap.IMAPFolder;
+import com.sun.mail.imap.IMAPStore;
+import com.sun.mail.imap.protocol.BASE64MailboxEncoder;
+import com.sun.mail.imap.protocol.IMAPProtocol;
+import com.sun.mail.imap.protocol.INTERNALDATE;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.mail.Flags;
+import jakarta.mail.MessagingException;
+import org.example.simplemailclient.bulkhead.BulkheadRegistry;
+import org.example.simplemailclient.cache.RequestCoalescer;
+import org.example.simplemailclient.dto.ImportResult;
+import org.example.simplemailclient.enumeration.MailboxFormat;
+import org.example.simplemailclient.enumeration.OperationType;
+import org.example.simplemailclient.imap.ImapConnectionPool;
+import org.example.simplemailclient.service.FolderTreeService;
+import org.example.simplemailclient.util.ImapCommandUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Appends the messages of an uploaded mbox or EML zip archive to a folder. The
+ * archive is read one message at a time and appended in batches: a single
+ * MULTIAPPEND command per batch when the server supports it, otherwise one
+ * APPEND per message. Batches are bounded by count and bytes, so memory stays
+ * at one batch however large the archive is.
+ */
+@Service
+public class MailboxImporter {
+
+    private static final String MULTIAPPEND = "MULTIAPPEND";
+
+    private static final Pattern APPEND_UID = Pattern.compile("\\[APPENDUID \\d+ ([0-9:,]+)]", Pattern.CASE_INSENSITIVE);
+
+    @Value("${transfer.import.batch-size:50}")
+    private int batchSize;
+
+    @Value("${transfer.import.max-batch-bytes:8MB}")
+    private DataSize maxBatchBytes;
+
+    private final ImapConnectionPool connectionPool;
+
+    private final BulkheadRegistry bulkheads;
+
+    private final RequestCoalescer coalescer;
+
+    private final FolderTreeService folderTree;
+
+    private final Counter importedMessages;
+
+    private final Counter importedBytes;
+
+    @Autowired
+    public MailboxImporter(ImapConnectionPool connectionPool, BulkheadRegistry bulkheads, RequestCoalescer coalescer,
+                           FolderTreeService folderTree, MeterRegistry registry) {
+        this.connectionPool = connectionPool;
+        this.bulkheads = bulkheads;
+        this.coalescer = coalescer;
+        this.folderTree = folderTree;
+        this.importedMessages = Counter.builder("mail.transfer.messages")
+                .description("Messages exported or imported")
+                .tag("direction", "import")
+                .register(registry);
+        this.importedBytes = Counter.builder("mail.transfer.bytes")
+                .description("Raw message bytes exported or imported")
+                .tag("direction", "import")
+                .register(registry);
+    }
+
+    /**
+     * Imports the archive, leaving out its first skip messages. An import that
+     * failed part way is resumed with the position reported in the error.
+     */
+    public ImportResult importArchive(String folderName, MailboxFormat format, long skip, InputStream body) {
+        if (skip < 0) {
+            throw new IllegalArgumentException("skip must not be negative");
+        }
+        if (!folderExists(folderName)) {
+            throw new IllegalArgumentException("Folder " + folderName + " does not exist");
+        }
+
+        long started = System.nanoTime();
+        long position = 0;
+        long imported = 0;
+        long bytes = 0;
+        long lastUid = -1;
+        try (MailboxReader reader = format == MailboxFormat.MBOX ? new MboxReader(decompress(body)) : new EmlZipReader(body)) {
+            List<MailboxEntry> batch = new ArrayList<>();
+            long batchBytes = 0;
+            MailboxEntry entry;
+            while ((entry = reader.next()) != null) {
+                if (position + batch.size() < skip) {
+                    position++;
+                    continue;
+                }
+                if (!batch.isEmpty() && (batch.size() >= batchSize || batchBytes + entry.content().length > maxBatchBytes.toBytes())) {
+                    lastUid = append(folderName, batch, lastUid);
+                    position += batch.size();
+                    imported += batch.size();
+                    bytes += batchBytes;
+                    batch.clear();
+                    batchBytes = 0;
+                }
+                batch.add(entry);
+                batchBytes += entry.content().length;
+            }
+            if (!batch.isEmpty()) {
+                lastUid = append(folderName, batch, lastUid);
+                position += batch.size();
+                imported += batch.size();
+                bytes += batchBytes;
+            }
+        } catch (MessagingException | IOException | RuntimeException e) {
+            throw new RuntimeException("Import into " + folderName + " stopped after message " + position
+                    + " of the archive, resume with skip=" + position + ": " + e.getMessage(), e);
+        } finally {
+            if (imported > 0) {
+                coalescer.invalidate(folderName);
+                folderTree.markStale(folderName);
+            }
+        }
+
+        long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+        double messagesPerSecond = elapsedMillis == 0 ? imported : imported * 1000.0 / elapsedMillis;
+        return new ImportResult(folderName, format, position, imported, bytes, elapsedMillis, messagesPerSecond, lastUid);
+    }
+
+    private boolean folderExists(String folderName) {
+        try {
+            return bulkheads.execute(OperationType.FETCH, () -> connectionPool.executeIdempotent(connection ->
+                    connection.getStore().getFolder(folderName).exists()));
+        } catch (MessagingException | IOException e) {
+            throw new RuntimeException("Error opening " + folderName + ": " + e.getMessage(), e);
+        }
+    }
+
+    // Appends are not idempotent, so neither the MUTATE bulkhead nor the connection pool retries them.
+    private long append(String folderName, List<MailboxEntry> batch, long lastUid) throws MessagingException, IOException {
+        long appendedUid = bulkheads.execute(OperationType.MUTATE, () -> connectionPool.execute(connection -> {
+            IMAPStore store = connection.getStore();
+            boolean multiAppend = store.hasCapability(MULTIAPPEND);
+            IMAPFolder root = (IMAPFolder) store.getDefaultFolder();
+            return (Long) root.doCommand(protocol -> multiAppend
+                    ? multiAppend(protocol, folderName, batch)
+                    : appendEach(protocol, folderName, batch));
+        }));
+        for (MailboxEntry entry : batch) {
+            importedMessages.increment();
+            importedBytes.increment(entry.content().length);
+        }
+        return appendedUid >= 0 ? appendedUid : lastUid;
+    }
+
+    // MULTIAPPEND (RFC 3502): the batch is one command and is stored all or nothing.
+    private static long multiAppend(IMAPProtocol protocol, String folderName, List<MailboxEntry> batch) throws ProtocolException {
+        Argument arguments = new Argument().writeString(BASE64MailboxEncoder.encode(folderName));
+        for (MailboxEntry entry : batch) {
+            if (entry.seen()) {
+                arguments.writeAtom("(\\Seen)");
+            }
+            if (entry.internalDate() != null) {
+                arguments.writeString(INTERNALDATE.format(entry.internalDate()));
+            }
+            arguments.writeBytes(entry.content());
+        }
+        long lastUid = -1;
+        for (Response response : ImapCommandUtil.run(protocol, "APPEND", arguments)) {
+            Matcher matcher = APPEND_UID.matcher(response.toString());
+            if (response.isOK() && matcher.find()) {
+                long[] uids = ImapCommandUtil.toUids(matcher.group(1));
+                lastUid = uids.length > 0 ? uids[uids.length - 1] : -1;
+            }
+        }
+        return lastUid;
+    }
+
+    private static long appendEach(IMAPProtocol protocol, String folderName, List<MailboxEntry> batch) throws ProtocolException {
+        long lastUid = -1;
+        for (MailboxEntry entry : batch) {
+            Flags flags = entry.seen() ? new Flags(Flags.Flag.SEEN) : null;
+            AppendUID appended = protocol.appenduid(folderName, flags, entry.internalDate(), new ContentLiteral(entry.content()));
+            lastUid = appended != null ? appended.uid : -1;
+        }
+        return lastUid;
+    }
+
+    // mbox uploads may be gzip-compressed or plain
+    private static InputStream decompress(InputStream body) throws IOException {
+        BufferedInputStream input = new BufferedInputStream(body, 64 * 1024);
+        input.mark(2);
+        int first = input.read();
+        int second = input.read();
+        input.reset();
+        boolean gzip = first == (GZIPInputStream.GZIP_MAGIC & 0xff) && second == (GZIPInputStream.GZIP_MAGIC >> 8);
+        return gzip ? new GZIPInputStream(input, 64 * 1024) : input;
+    }
+
+    private record ContentLiteral(byte[] content) implements Literal {
+
+        @Override
+        public int size() {
+            return content.length;
+        }
+
+        @Override
+        public void writeTo(OutputStream outputStream) throws IOException {
+            outputStream.write(content);
+        }
+    }
+}
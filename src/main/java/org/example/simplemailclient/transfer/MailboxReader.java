@@ -0,0 +1,16 @@
+package org.example.simplemailclient.transfer;
+
+import java.io.IOException;
+
+/**
+ * Reads the messages of an archive one at a time, so only the current message
+ * is held in memory.
+ */
+public interface MailboxReader extends AutoCloseable {
+
+    // null after the last message
+    MailboxEntry next() throws IOException;
+
+    @Override
+    void close() throws IOException;
+}
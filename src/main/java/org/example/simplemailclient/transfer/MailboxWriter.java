@@ -0,0 +1,16 @@
+package org.example.simplemailclient.transfer;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Writes messages into an archive on a stream it does not own; closing the
+ * writer finishes the archive but leaves the stream open.
+ */
+public interface MailboxWriter extends AutoCloseable {
+
+    void write(MailboxEntry entry, InputStream content) throws IOException;
+
+    @Override
+    void close() throws IOException;
+}
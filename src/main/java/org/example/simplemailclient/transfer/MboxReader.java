@@ -0,0 +1,172 @@
+package org.example.simplemailclient.transfer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * Reads an mboxrd file as written by {@link MboxWriter}. Messages are split at
+ * From_ lines, one level of '>' quoting is removed from escaped From lines, and
+ * line endings become CRLF as APPEND expects. X-UID and Status headers are
+ * taken out of the message; Status tells whether it was read.
+ */
+public class MboxReader implements MailboxReader {
+
+    private static final DateTimeFormatter FROM_LINE_DATE = DateTimeFormatter.ofPattern("EEE MMM d HH:mm:ss yyyy", Locale.US);
+
+    private static final byte[] CRLF = {'\r', '\n'};
+
+    private final InputStream input;
+
+    private final byte[] buffer = new byte[64 * 1024];
+    private int position;
+    private int limit;
+
+    // the From_ line that ended the previous message
+    private byte[] nextFromLine;
+
+    public MboxReader(InputStream input) {
+        this.input = input;
+    }
+
+    @Override
+    public MailboxEntry next() throws IOException {
+        while (nextFromLine == null) {
+            byte[] line = readLine();
+            if (line == null) {
+                return null;
+            }
+            if (startsWith(line, "From ")) {
+                nextFromLine = line;
+            }
+        }
+        String fromLine = new String(nextFromLine, StandardCharsets.ISO_8859_1);
+        nextFromLine = null;
+
+        ByteArrayOutputStream message = new ByteArrayOutputStream(8192);
+        long uid = -1;
+        boolean seen = false;
+        boolean inHeaders = true;
+        // a blank line is held back, the last one only separates this message from the next
+        boolean blankPending = false;
+        byte[] line;
+        while ((line = readLine()) != null) {
+            if (startsWith(line, "From ")) {
+                nextFromLine = line;
+                break;
+            }
+            if (inHeaders) {
+                if (line.length == 0) {
+                    inHeaders = false;
+                } else if (startsWithIgnoreCase(line, "X-UID:")) {
+                    uid = parseUid(line);
+                    continue;
+                } else if (startsWithIgnoreCase(line, "Status:")) {
+                    seen = new String(line, StandardCharsets.ISO_8859_1).substring(7).contains("R");
+                    continue;
+                }
+            } else if (line.length == 0) {
+                if (blankPending) {
+                    message.write(CRLF);
+                }
+                blankPending = true;
+                continue;
+            }
+            if (blankPending) {
+                message.write(CRLF);
+                blankPending = false;
+            }
+            int start = line.length > 0 && line[0] == '>' && MboxWriter.isFromLine(line, line.length) ? 1 : 0;
+            message.write(line, start, line.length - start);
+            message.write(CRLF);
+        }
+
+        String[] parts = fromLine.split("\\s+", 3);
+        String sender = parts.length > 1 ? parts[1] : null;
+        Date date = parts.length > 2 ? parseDate(parts[2]) : null;
+        return new MailboxEntry(uid, sender, date, seen, message.toByteArray());
+    }
+
+    @Override
+    public void close() throws IOException {
+        input.close();
+    }
+
+    // The next line without its LF or CRLF; null at the end of the input.
+    private byte[] readLine() throws IOException {
+        ByteArrayOutputStream line = null;
+        while (true) {
+            if (position == limit) {
+                limit = input.read(buffer);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return line == null ? null : trimCarriageReturn(line.toByteArray());
+                }
+            }
+            int start = position;
+            while (position < limit && buffer[position] != '\n') {
+                position++;
+            }
+            if (line == null) {
+                line = new ByteArrayOutputStream(Math.max(16, position - start));
+            }
+            line.write(buffer, start, position - start);
+            if (position < limit) {
+                position++;
+                return trimCarriageReturn(line.toByteArray());
+            }
+        }
+    }
+
+    private static byte[] trimCarriageReturn(byte[] line) {
+        if (line.length > 0 && line[line.length - 1] == '\r') {
+            byte[] trimmed = new byte[line.length - 1];
+            System.arraycopy(line, 0, trimmed, 0, trimmed.length);
+            return trimmed;
+        }
+        return line;
+    }
+
+    private static long parseUid(byte[] line) {
+        try {
+            return Long.parseLong(new String(line, StandardCharsets.ISO_8859_1).substring(6).trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // asctime in UTC, the day of month may be padded with a space
+    private static Date parseDate(String text) {
+        try {
+            LocalDateTime dateTime = LocalDateTime.parse(text.trim().replaceAll("\\s+", " "), FROM_LINE_DATE);
+            return Date.from(dateTime.toInstant(ZoneOffset.UTC));
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static boolean startsWith(byte[] line, String prefix) {
+        if (line.length < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (line[i] != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean startsWithIgnoreCase(byte[] line, String prefix) {
+        return line.length >= prefix.length()
+                && new String(line, 0, prefix.length(), StandardCharsets.ISO_8859_1).equalsIgnoreCase(prefix);
+    }
+}
@@ -0,0 +1,112 @@
+package org.example.simplemailclient.transfer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes a gzip-compressed mboxrd file: every message starts with a From_ line,
+ * lines of the message that start with any number of '>' followed by "From "
+ * get one more '>', and line endings become LF. The UID and the \Seen flag go
+ * into X-UID and Status headers, as UW IMAP and Dovecot write them.
+ */
+public class MboxWriter implements MailboxWriter {
+
+    static final DateTimeFormatter FROM_LINE_DATE = DateTimeFormatter.ofPattern("EEE MMM ppd HH:mm:ss yyyy", Locale.US)
+            .withZone(ZoneOffset.UTC);
+
+    private static final byte[] FROM = "From ".getBytes(StandardCharsets.US_ASCII);
+
+    private final GZIPOutputStream output;
+
+    public MboxWriter(OutputStream target) throws IOException {
+        // the servlet container owns the response stream
+        this.output = new GZIPOutputStream(new FilterOutputStream(target) {
+            @Override
+            public void write(byte[] bytes, int offset, int length) throws IOException {
+                out.write(bytes, offset, length);
+            }
+
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        }, 64 * 1024);
+    }
+
+    @Override
+    public void write(MailboxEntry entry, InputStream content) throws IOException {
+        String sender = entry.sender() != null && !entry.sender().isBlank() ? entry.sender().replaceAll("\\s", "") : "MAILER-DAEMON";
+        Date date = entry.internalDate() != null ? entry.internalDate() : new Date(0);
+        writeLine("From " + sender + " " + FROM_LINE_DATE.format(date.toInstant()));
+        writeLine("X-UID: " + entry.uid());
+        writeLine("Status: " + (entry.seen() ? "RO" : "O"));
+
+        byte[] buffer = new byte[8192];
+        ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+        int read;
+        while ((read = content.read(buffer)) != -1) {
+            int start = 0;
+            for (int i = 0; i < read; i++) {
+                if (buffer[i] == '\n') {
+                    line.write(buffer, start, i - start);
+                    writeEscaped(line);
+                    output.write('\n');
+                    line.reset();
+                    start = i + 1;
+                }
+            }
+            line.write(buffer, start, read - start);
+        }
+        if (line.size() > 0) {
+            writeEscaped(line);
+            output.write('\n');
+        }
+        // the blank line that separates messages
+        output.write('\n');
+    }
+
+    @Override
+    public void close() throws IOException {
+        output.close();
+    }
+
+    private void writeEscaped(ByteArrayOutputStream line) throws IOException {
+        byte[] bytes = line.toByteArray();
+        int length = bytes.length > 0 && bytes[bytes.length - 1] == '\r' ? bytes.length - 1 : bytes.length;
+        if (isFromLine(bytes, length)) {
+            output.write('>');
+        }
+        output.write(bytes, 0, length);
+    }
+
+    private void writeLine(String line) throws IOException {
+        output.write(line.getBytes(StandardCharsets.UTF_8));
+        output.write('\n');
+    }
+
+    // ">*From " at the start of the line
+    static boolean isFromLine(byte[] bytes, int length) {
+        int start = 0;
+        while (start < length && bytes[start] == '>') {
+            start++;
+        }
+        if (length - start < FROM.length) {
+            return false;
+        }
+        for (int i = 0; i < FROM.length; i++) {
+            if (bytes[start + i] != FROM[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,134 @@
+package org.example.simplemailclient.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.sun.mail.imap.IMAPFolder;
+import jakarta.mail.FetchProfile;
+import jakarta.mail.UIDFolder;
+import org.example.simplemailclient.dto.EmailResponse;
+import org.example.simplemailclient.enumeration.EmailField;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The subset of {@link EmailResponse} fields a list request asked for. It
+ * decides which FETCH items are requested from the server and which fields are
+ * written, so a projection of a few header fields neither fetches the
+ * ENVELOPE and BODYSTRUCTURE nor serializes what was left out.
+ */
+public class EmailProjection {
+
+    public static final EmailProjection ALL = new EmailProjection(EnumSet.allOf(EmailField.class));
+
+    private final Set<EmailField> fields;
+
+    private final FetchProfile fetchProfile;
+
+    private EmailProjection(EnumSet<EmailField> fields) {
+        this.fields = Collections.unmodifiableSet(fields);
+        this.fetchProfile = fields.size() == EmailField.values().length ? MessageUtil.LIST_FETCH_PROFILE : createFetchProfile(fields);
+    }
+
+    // A comma separated list of field names; blank means all fields. The UID is always included.
+    public static EmailProjection parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return ALL;
+        }
+        EnumSet<EmailField> selected = EnumSet.of(EmailField.UID);
+        for (String name : fields.split(",")) {
+            if (!name.isBlank()) {
+                selected.add(EmailField.fromName(name.trim()));
+            }
+        }
+        return selected.size() == EmailField.values().length ? ALL : new EmailProjection(selected);
+    }
+
+    public boolean isAll() {
+        return this == ALL;
+    }
+
+    public boolean includes(EmailField field) {
+        return fields.contains(field);
+    }
+
+    public FetchProfile getFetchProfile() {
+        return fetchProfile;
+    }
+
+    // Projections are part of the keys under which identical list requests are coalesced
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof EmailProjection projection && fields.equals(projection.fields);
+    }
+
+    @Override
+    public int hashCode() {
+        return fields.hashCode();
+    }
+
+    // Writes the selected fields in declaration order; binary formats get dates as epoch milliseconds.
+    public void write(EmailResponse email, JsonGenerator generator, boolean epochMillis) throws IOException {
+        generator.writeStartObject();
+        for (EmailField field : fields) {
+            generator.writeFieldName(field.getPropertyName());
+            switch (field) {
+                case UID -> generator.writeNumber(email.getUid());
+                case FROM -> generator.writeString(email.getFrom());
+                case TO -> generator.writeString(email.getTo());
+                case CC -> generator.writeString(email.getCc());
+                case BCC -> generator.writeString(email.getBcc());
+                case SUBJECT -> generator.writeString(email.getSubject());
+                case SENT_DATE -> writeDate(generator, email.getSentDate(), email.getSentTime(), epochMillis);
+                case RECEIVED_DATE -> writeDate(generator, email.getReceivedDate(), email.getReceivedTime(), epochMillis);
+                case ATTACHMENTS -> writeStrings(generator, email.getAttachments());
+                case MESSAGE_ID -> generator.writeString(email.getMessageId());
+                case IN_REPLY_TO -> generator.writeString(email.getInReplyTo());
+                case REFERENCES -> writeStrings(generator, email.getReferences());
+            }
+        }
+        generator.writeEndObject();
+    }
+
+    private static void writeDate(JsonGenerator generator, String date, Long time, boolean epochMillis) throws IOException {
+        if (!epochMillis) {
+            generator.writeString(date);
+        } else if (time != null) {
+            generator.writeNumber(time);
+        } else {
+            generator.writeNull();
+        }
+    }
+
+    private static void writeStrings(JsonGenerator generator, List<String> values) throws IOException {
+        if (values == null) {
+            generator.writeNull();
+            return;
+        }
+        generator.writeStartArray();
+        for (String value : values) {
+            generator.writeString(value);
+        }
+        generator.writeEndArray();
+    }
+
+    private static FetchProfile createFetchProfile(Set<EmailField> fields) {
+        FetchProfile fetchProfile = new FetchProfile();
+        fetchProfile.add(UIDFolder.FetchProfileItem.UID);
+        for (EmailField field : fields) {
+            if (field.getHeaderName() != null) {
+                // fetched as BODY.PEEK[HEADER.FIELDS (...)] instead of the whole ENVELOPE
+                fetchProfile.add(field.getHeaderName());
+            }
+        }
+        if (fields.contains(EmailField.RECEIVED_DATE)) {
+            fetchProfile.add(IMAPFolder.FetchProfileItem.INTERNALDATE);
+        }
+        if (fields.contains(EmailField.ATTACHMENTS)) {
+            fetchProfile.add(FetchProfile.Item.CONTENT_INFO);
+        }
+        return fetchProfile;
+    }
+}
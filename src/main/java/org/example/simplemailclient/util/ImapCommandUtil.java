@@ -0,0 +1,255 @@
+package org.example.simplemailclient.util;
+
+import com.sun.mail.iap.Argument;
+import com.sun.mail.iap.ParsingException;
+import com.sun.mail.iap.ProtocolException;
+import com.sun.mail.iap.Response;
+import com.sun.mail.imap.IMAPFolder;
+import com.sun.mail.imap.protocol.BASE64MailboxEncoder;
+import com.sun.mail.imap.protocol.BODY;
+import com.sun.mail.imap.protocol.FLAGS;
+import com.sun.mail.imap.protocol.FetchResponse;
+import com.sun.mail.imap.protocol.IMAPProtocol;
+import com.sun.mail.imap.protocol.IMAPResponse;
+import com.sun.mail.imap.protocol.ListInfo;
+import com.sun.mail.imap.protocol.Status;
+import com.sun.mail.imap.protocol.UID;
+import com.sun.mail.imap.protocol.UIDSet;
+import jakarta.mail.Flags;
+import jakarta.mail.MessagingException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Raw UID commands that JavaMail only offers per message or by sequence number.
+ */
+public class ImapCommandUtil {
+
+    private static final Pattern MODIFIED = Pattern.compile("\\[MODIFIED ([0-9:,]+)]", Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern COPY_UID = Pattern.compile("\\[COPYUID \\d+ ([0-9:,]+) ([0-9:,]+)]", Pattern.CASE_INSENSITIVE);
+
+    // Compresses the UIDs into sets like 1:5,9,12:14 and splits them so no set is longer than maxLength characters.
+    public static List<String> toUidSetChunks(Collection<Long> uids, int maxLength) {
+        long[] sorted = uids.stream().mapToLong(Long::longValue).distinct().sorted().toArray();
+
+        List<String> chunks = new ArrayList<>();
+        StringBuilder chunk = new StringBuilder();
+        for (UIDSet range : UIDSet.createUIDSets(sorted)) {
+            String part = range.start == range.end ? String.valueOf(range.start) : range.start + ":" + range.end;
+            if (!chunk.isEmpty() && chunk.length() + 1 + part.length() > maxLength) {
+                chunks.add(chunk.toString());
+                chunk.setLength(0);
+            }
+            if (!chunk.isEmpty()) {
+                chunk.append(',');
+            }
+            chunk.append(part);
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk.toString());
+        }
+        return chunks;
+    }
+
+    public static long[] toUids(String uidSet) {
+        return UIDSet.toArray(UIDSet.parseUIDSets(uidSet));
+    }
+
+    // UID MOVE (RFC 6851); returns source UID -> destination UID as reported by COPYUID, empty without UIDPLUS.
+    public static Map<Long, Long> uidMove(IMAPFolder folder, String uidSet, String destinationFolder) throws MessagingException {
+        return copyUids(run(folder, "UID MOVE", new Argument().writeAtom(uidSet).writeString(BASE64MailboxEncoder.encode(destinationFolder))));
+    }
+
+    public static Map<Long, Long> uidCopy(IMAPFolder folder, String uidSet, String destinationFolder) throws MessagingException {
+        return copyUids(run(folder, "UID COPY", new Argument().writeAtom(uidSet).writeString(BASE64MailboxEncoder.encode(destinationFolder))));
+    }
+
+    // UID STORE, optionally conditional (RFC 7162); messages changed after unchangedSince are left alone and reported as MODIFIED.
+    public static Response[] uidStore(IMAPFolder folder, String uidSet, Long unchangedSince, String item, String flags) throws MessagingException {
+        Argument arguments = new Argument().writeAtom(uidSet);
+        if (unchangedSince != null) {
+            arguments.writeAtom("(UNCHANGEDSINCE " + unchangedSince + ")");
+        }
+        return run(folder, "UID STORE", arguments.writeAtom(item).writeAtom(flags));
+    }
+
+    // UID -> FLAGS of the FETCH responses, i.e. the messages a STORE without .SILENT reported back and their new flags.
+    public static Map<Long, Flags> fetchedFlags(Response[] responses) {
+        Map<Long, Flags> flags = new HashMap<>();
+        for (Response response : responses) {
+            if (response instanceof FetchResponse fetchResponse) {
+                UID uid = fetchResponse.getItem(UID.class);
+                FLAGS messageFlags = fetchResponse.getItem(FLAGS.class);
+                if (uid != null && messageFlags != null) {
+                    flags.put(uid.uid, messageFlags);
+                }
+            }
+        }
+        return flags;
+    }
+
+    // Current flags of the UID set in one round trip; expunged UIDs are missing.
+    public static Map<Long, Flags> uidFetchFlags(IMAPFolder folder, String uidSet) throws MessagingException {
+        return fetchedFlags(run(folder, "UID FETCH", new Argument().writeAtom(uidSet).writeAtom("(UID FLAGS)")));
+    }
+
+    public static List<Long> modifiedUids(Response[] responses) {
+        List<Long> uids = new ArrayList<>();
+        for (Response response : responses) {
+            Matcher matcher = MODIFIED.matcher(response.toString());
+            if (matcher.find()) {
+                Arrays.stream(toUids(matcher.group(1))).forEach(uids::add);
+            }
+        }
+        return uids;
+    }
+
+    // Whole raw messages of the UID set in one round trip; UID -> RFC 822 bytes, expunged UIDs are missing.
+    public static Map<Long, byte[]> uidFetchRaw(IMAPFolder folder, String uidSet) throws MessagingException {
+        Map<Long, byte[]> messages = new HashMap<>();
+        for (Response response : run(folder, "UID FETCH", new Argument().writeAtom(uidSet).writeAtom("(UID BODY.PEEK[])"))) {
+            if (response instanceof FetchResponse fetchResponse) {
+                UID uid = fetchResponse.getItem(UID.class);
+                BODY body = fetchResponse.getItem(BODY.class);
+                if (uid != null && body != null && body.getByteArray() != null) {
+                    messages.put(uid.uid, body.getByteArray().getNewBytes());
+                }
+            }
+        }
+        return messages;
+    }
+
+    // UID EXPUNGE (UIDPLUS) only removes the given messages, a plain EXPUNGE would also remove other \Deleted mail.
+    public static void uidExpunge(IMAPFolder folder, String uidSet) throws MessagingException {
+        run(folder, "UID EXPUNGE", new Argument().writeAtom(uidSet));
+    }
+
+    public static Set<Long> uidSearch(IMAPFolder folder, String uidSet) throws MessagingException {
+        Set<Long> uids = new HashSet<>();
+        for (Response response : run(folder, "UID SEARCH", new Argument().writeAtom("UID").writeAtom(uidSet))) {
+            if (response instanceof IMAPResponse imapResponse && imapResponse.keyEquals("SEARCH")) {
+                String[] tokens = response.toString().trim().split("\\s+");
+                for (int i = 2; i < tokens.length; i++) {
+                    uids.add(Long.parseLong(tokens[i]));
+                }
+            }
+        }
+        return uids;
+    }
+
+    // LIST "" "*"; with statusItems, RETURN (STATUS (...)) (RFC 5819) adds a STATUS response per selectable folder.
+    public static Response[] list(IMAPFolder folder, String statusItems) throws MessagingException {
+        Argument arguments = new Argument().writeString("").writeString("*");
+        if (statusItems != null) {
+            arguments.writeAtom("RETURN (STATUS (" + statusItems + "))");
+        }
+        return run(folder, "LIST", arguments);
+    }
+
+    /**
+     * STATUS for every mailbox in one round trip: all commands are written before
+     * the first reply is read. Mailboxes the server rejects are left out.
+     */
+    public static List<Status> pipelinedStatus(IMAPFolder folder, List<String> mailboxes, String statusItems) throws MessagingException {
+        if (mailboxes.isEmpty()) {
+            return List.of();
+        }
+        Response[] responses = (Response[]) folder.doCommand(protocol -> {
+            synchronized (protocol) {
+                try {
+                    Set<String> pendingTags = new HashSet<>();
+                    for (String mailbox : mailboxes) {
+                        Argument arguments = new Argument().writeString(BASE64MailboxEncoder.encode(mailbox)).writeAtom("(" + statusItems + ")");
+                        pendingTags.add(protocol.writeCommand("STATUS", arguments));
+                    }
+                    List<Response> replies = new ArrayList<>();
+                    while (!pendingTags.isEmpty()) {
+                        Response response = protocol.readResponse();
+                        if (response.isBYE()) {
+                            protocol.handleResult(response);
+                        }
+                        replies.add(response);
+                        if (response.isTagged()) {
+                            pendingTags.remove(response.getTag());
+                        }
+                    }
+                    Response[] result = replies.toArray(new Response[0]);
+                    protocol.notifyResponseHandlers(result);
+                    return result;
+                } catch (IOException e) {
+                    throw new ProtocolException("Pipelined STATUS failed: " + e.getMessage(), e);
+                }
+            }
+        });
+        return statuses(responses);
+    }
+
+    public static List<ListInfo> listInfos(Response[] responses) throws MessagingException {
+        List<ListInfo> folders = new ArrayList<>();
+        for (Response response : responses) {
+            if (response instanceof IMAPResponse imapResponse && imapResponse.keyEquals("LIST")) {
+                try {
+                    folders.add(new ListInfo(imapResponse));
+                } catch (ParsingException e) {
+                    throw new MessagingException("Unparseable LIST response: " + response, e);
+                }
+            }
+        }
+        return folders;
+    }
+
+    public static List<Status> statuses(Response[] responses) throws MessagingException {
+        List<Status> statuses = new ArrayList<>();
+        for (Response response : responses) {
+            if (response instanceof IMAPResponse imapResponse && imapResponse.keyEquals("STATUS")) {
+                try {
+                    statuses.add(new Status(imapResponse));
+                } catch (ParsingException e) {
+                    throw new MessagingException("Unparseable STATUS response: " + response, e);
+                }
+            }
+        }
+        return statuses;
+    }
+
+    private static Response[] run(IMAPFolder folder, String command, Argument arguments) throws MessagingException {
+        return (Response[]) folder.doCommand(protocol -> run(protocol, command, arguments));
+    }
+
+    public static Response[] run(IMAPProtocol protocol, String command, Argument arguments) throws ProtocolException {
+        Response[] responses = protocol.command(command, arguments);
+        // lets the folder see EXPUNGE and FETCH responses so its message cache stays consistent
+        protocol.notifyResponseHandlers(responses);
+        protocol.handleResult(responses[responses.length - 1]);
+        return responses;
+    }
+
+    private static Map<Long, Long> copyUids(Response[] responses) {
+        Map<Long, Long> copied = new HashMap<>();
+        for (Response response : responses) {
+            if (!response.isOK()) {
+                continue;
+            }
+            Matcher matcher = COPY_UID.matcher(response.toString());
+            if (matcher.find()) {
+                long[] source = toUids(matcher.group(1));
+                long[] destination = toUids(matcher.group(2));
+                for (int i = 0; i < source.length && i < destination.length; i++) {
+                    copied.put(source[i], destination[i]);
+                }
+            }
+        }
+        return copied;
+    }
+}
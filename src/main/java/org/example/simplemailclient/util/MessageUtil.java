@@ -0,0 +1,316 @@
+package org.example.simplemailclient.util;
+
+import com.sun.mail.imap.IMAPFolder;
+import com.sun.mail.imap.IMAPMessage;
+import jakarta.mail.Address;
+import jakarta.mail.BodyPart;
+import jakarta.mail.FetchProfile;
+import jakarta.mail.Flags;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Multipart;
+import jakarta.mail.Part;
+import jakarta.mail.UIDFolder;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MailDateFormat;
+import jakarta.mail.internet.MimeMessage;
+import jakarta.mail.internet.MimeUtility;
+import org.example.simplemailclient.dto.EmailResponse;
+import org.example.simplemailclient.enumeration.EmailField;
+import org.jsoup.Jsoup;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+public class MessageUtil {
+
+    public static final FetchProfile LIST_FETCH_PROFILE = createListFetchProfile();
+
+    private static final MailDateFormat MAIL_DATE_FORMAT = new MailDateFormat();
+
+    private static final Pattern KEYWORD = Pattern.compile("[^\\s(){%*\"\\\\\\]]+");
+
+    private static final Pattern MESSAGE_ID = Pattern.compile("<[^<>]+>");
+
+    private static FetchProfile createListFetchProfile() {
+        FetchProfile fetchProfile = new FetchProfile();
+        // ENVELOPE also brings INTERNALDATE and RFC822.SIZE, CONTENT_INFO maps to BODYSTRUCTURE
+        fetchProfile.add(FetchProfile.Item.ENVELOPE);
+        fetchProfile.add(FetchProfile.Item.FLAGS);
+        fetchProfile.add(FetchProfile.Item.CONTENT_INFO);
+        fetchProfile.add(UIDFolder.FetchProfileItem.UID);
+        // the ENVELOPE lacks References, and some servers leave its In-Reply-To empty
+        fetchProfile.add(EmailField.IN_REPLY_TO.getHeaderName());
+        fetchProfile.add(EmailField.REFERENCES.getHeaderName());
+        return fetchProfile;
+    }
+
+    // Loads ENVELOPE, FLAGS, UID and BODYSTRUCTURE for all messages with a single FETCH,
+    // so createEmailResponse can be served from the cached data without further round trips.
+    public static void prefetch(IMAPFolder folder, List<Message> messages) throws MessagingException {
+        prefetch(folder, messages, EmailProjection.ALL);
+    }
+
+    // Same single FETCH, restricted to the items the projection needs.
+    public static void prefetch(IMAPFolder folder, List<Message> messages, EmailProjection projection) throws MessagingException {
+        if (!messages.isEmpty()) {
+            folder.fetch(messages.toArray(new Message[0]), projection.getFetchProfile());
+        }
+    }
+
+    // Sequence number of the first message whose UID is at least the given one, or messageCount + 1 if there is none.
+    public static int firstSequenceNumberAtOrAboveUid(IMAPFolder folder, long uid) throws MessagingException {
+        Message exact = folder.getMessageByUID(uid);
+        if (exact != null) {
+            return exact.getMessageNumber();
+        }
+
+        // the UID itself is gone, binary search the sequence numbers (UIDs grow with them)
+        int low = 1;
+        int high = folder.getMessageCount();
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (folder.getUID(folder.getMessage(middle)) >= uid) {
+                high = middle - 1;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return low;
+    }
+
+    public static EmailResponse createEmailResponse(Message message, IMAPFolder folder) {
+        try {
+            EmailResponse email = new EmailResponse();
+            long uid = folder.getUID(message);
+            email.setUid(uid);
+            email.setFrom(((InternetAddress) message.getFrom()[0]).getAddress());
+            email.setTo(getAddressesAsString(message.getRecipients(Message.RecipientType.TO)));
+            email.setCc(getAddressesAsString(message.getRecipients(Message.RecipientType.CC)));
+            email.setBcc(getAddressesAsString(message.getRecipients(Message.RecipientType.BCC)));
+            email.setSubject(message.getSubject());
+            setSentDate(email, message.getSentDate());
+            setReceivedDate(email, message.getReceivedDate());
+            email.setAttachments(getAttachments(message));
+            email.setMessageId(message instanceof IMAPMessage imapMessage ? firstMessageId(imapMessage.getMessageID()) : null);
+            email.setInReplyTo(firstMessageId(((MimeMessage) message).getHeader(EmailField.IN_REPLY_TO.getHeaderName(), " ")));
+            email.setReferences(parseMessageIds(((MimeMessage) message).getHeader(EmailField.REFERENCES.getHeaderName(), " ")));
+            return email;
+        } catch (MessagingException | IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    // Fills only the projected fields, reading header fields from the headers fetched by prefetch instead of the ENVELOPE.
+    public static EmailResponse createEmailResponse(Message message, IMAPFolder folder, EmailProjection projection) {
+        if (projection.isAll()) {
+            return createEmailResponse(message, folder);
+        }
+        try {
+            EmailResponse email = new EmailResponse();
+            email.setUid(folder.getUID(message));
+            if (projection.includes(EmailField.FROM)) {
+                Address[] from = parseAddressHeader(message, "From");
+                email.setFrom(from != null && from.length > 0 ? ((InternetAddress) from[0]).getAddress() : null);
+            }
+            if (projection.includes(EmailField.TO)) {
+                email.setTo(getAddressesAsString(parseAddressHeader(message, "To")));
+            }
+            if (projection.includes(EmailField.CC)) {
+                email.setCc(getAddressesAsString(parseAddressHeader(message, "Cc")));
+            }
+            if (projection.includes(EmailField.BCC)) {
+                email.setBcc(getAddressesAsString(parseAddressHeader(message, "Bcc")));
+            }
+            if (projection.includes(EmailField.SUBJECT)) {
+                email.setSubject(decodeSubject(((MimeMessage) message).getHeader("Subject", null)));
+            }
+            if (projection.includes(EmailField.SENT_DATE)) {
+                setSentDate(email, parseDate(((MimeMessage) message).getHeader("Date", null)));
+            }
+            if (projection.includes(EmailField.RECEIVED_DATE)) {
+                setReceivedDate(email, message.getReceivedDate());
+            }
+            if (projection.includes(EmailField.ATTACHMENTS)) {
+                email.setAttachments(getAttachments(message));
+            }
+            if (projection.includes(EmailField.MESSAGE_ID)) {
+                email.setMessageId(firstMessageId(((MimeMessage) message).getHeader(EmailField.MESSAGE_ID.getHeaderName(), null)));
+            }
+            if (projection.includes(EmailField.IN_REPLY_TO)) {
+                email.setInReplyTo(firstMessageId(((MimeMessage) message).getHeader(EmailField.IN_REPLY_TO.getHeaderName(), " ")));
+            }
+            if (projection.includes(EmailField.REFERENCES)) {
+                email.setReferences(parseMessageIds(((MimeMessage) message).getHeader(EmailField.REFERENCES.getHeaderName(), " ")));
+            }
+            return email;
+        } catch (MessagingException | IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    public static List<String> flagsToList(Flags flags) {
+        List<String> names = new ArrayList<>();
+        for (Flags.Flag flag : flags.getSystemFlags()) {
+            names.add(systemFlagName(flag));
+        }
+        names.addAll(Arrays.asList(flags.getUserFlags()));
+        return names;
+    }
+
+    public static String systemFlagName(Flags.Flag flag) {
+        if (flag == Flags.Flag.SEEN) return "\\Seen";
+        if (flag == Flags.Flag.ANSWERED) return "\\Answered";
+        if (flag == Flags.Flag.DELETED) return "\\Deleted";
+        if (flag == Flags.Flag.DRAFT) return "\\Draft";
+        if (flag == Flags.Flag.FLAGGED) return "\\Flagged";
+        if (flag == Flags.Flag.RECENT) return "\\Recent";
+        return "\\*";
+    }
+
+    // Accepts system flags by name ("seen", "\\Seen") and keywords as IMAP atoms ("$Important").
+    public static String toImapFlagName(String flag) {
+        String name = flag.startsWith("\\") ? flag.substring(1) : flag;
+        return switch (name.toLowerCase(Locale.ROOT)) {
+            case "seen" -> "\\Seen";
+            case "answered" -> "\\Answered";
+            case "deleted" -> "\\Deleted";
+            case "draft" -> "\\Draft";
+            case "flagged" -> "\\Flagged";
+            default -> {
+                if (flag.startsWith("\\") || !KEYWORD.matcher(flag).matches()) {
+                    throw new IllegalArgumentException("Invalid flag: " + flag);
+                }
+                yield flag;
+            }
+        };
+    }
+
+    // Plain text of the message body for indexing; attachments are skipped and HTML is reduced to its text.
+    public static String extractText(Part part, int maxChars) throws MessagingException, IOException {
+        StringBuilder text = new StringBuilder();
+        appendText(part, text, maxChars);
+        return text.length() > maxChars ? text.substring(0, maxChars) : text.toString();
+    }
+
+    private static void appendText(Part part, StringBuilder text, int maxChars) throws MessagingException, IOException {
+        if (text.length() >= maxChars || Part.ATTACHMENT.equalsIgnoreCase(part.getDisposition())) {
+            return;
+        }
+
+        if (part.isMimeType("text/plain") || part.isMimeType("text/html")) {
+            Object content = part.getContent();
+            if (content instanceof String string) {
+                text.append(part.isMimeType("text/html") ? Jsoup.parse(string).text() : string).append('\n');
+            }
+        } else if (part.isMimeType("multipart/alternative")) {
+            Multipart multipart = (Multipart) part.getContent();
+            BodyPart preferred = null;
+            for (int i = 0; i < multipart.getCount(); i++) {
+                BodyPart bodyPart = multipart.getBodyPart(i);
+                if (preferred == null || bodyPart.isMimeType("text/plain")) {
+                    preferred = bodyPart;
+                }
+            }
+            if (preferred != null) {
+                appendText(preferred, text, maxChars);
+            }
+        } else if (part.isMimeType("multipart/*")) {
+            Multipart multipart = (Multipart) part.getContent();
+            for (int i = 0; i < multipart.getCount(); i++) {
+                appendText(multipart.getBodyPart(i), text, maxChars);
+            }
+        }
+    }
+
+    private static void setSentDate(EmailResponse email, Date sentDate) {
+        email.setSentDate(sentDate != null ? sentDate.toString() : null);
+        email.setSentTime(sentDate != null ? sentDate.getTime() : null);
+    }
+
+    private static void setReceivedDate(EmailResponse email, Date receivedDate) {
+        email.setReceivedDate(receivedDate != null ? receivedDate.toString() : null);
+        email.setReceivedTime(receivedDate != null ? receivedDate.getTime() : null);
+    }
+
+    private static Address[] parseAddressHeader(Message message, String name) throws MessagingException {
+        String value = ((MimeMessage) message).getHeader(name, ",");
+        return value != null ? InternetAddress.parseHeader(value, false) : null;
+    }
+
+    // The <id> tokens of a Message-ID, In-Reply-To or References header; comments and phrases are dropped.
+    public static List<String> parseMessageIds(String value) {
+        if (value == null) {
+            return null;
+        }
+        List<String> ids = new ArrayList<>();
+        Matcher matcher = MESSAGE_ID.matcher(value);
+        while (matcher.find()) {
+            ids.add(matcher.group());
+        }
+        return ids;
+    }
+
+    private static String firstMessageId(String value) {
+        List<String> ids = parseMessageIds(value);
+        return ids != null && !ids.isEmpty() ? ids.get(0) : null;
+    }
+
+    private static String decodeSubject(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return MimeUtility.decodeText(MimeUtility.unfold(value));
+        } catch (UnsupportedEncodingException e) {
+            return value;
+        }
+    }
+
+    private static Date parseDate(String value) {
+        if (value == null) {
+            return null;
+        }
+        // MailDateFormat is not thread safe
+        synchronized (MAIL_DATE_FORMAT) {
+            try {
+                return MAIL_DATE_FORMAT.parse(value);
+            } catch (ParseException e) {
+                return null;
+            }
+        }
+    }
+
+    private static String getAddressesAsString(Address[] addresses) {
+        if (addresses == null) return null;
+        return Arrays.stream(addresses)
+                .map(address -> ((InternetAddress) address).getAddress())
+                .collect(Collectors.joining(", "));
+    }
+
+    private static List<String> getAttachments(Message message) throws MessagingException, IOException {
+        List<String> attachments = new ArrayList<>();
+        if (message.isMimeType("multipart/*")) {
+            // for IMAP messages the multipart is built from the prefetched BODYSTRUCTURE, no body bytes are read
+            Multipart multipart = (Multipart) message.getContent();
+            for (int i = 0; i < multipart.getCount(); i++) {
+                BodyPart bodyPart = multipart.getBodyPart(i);
+                if (Part.ATTACHMENT.equalsIgnoreCase(bodyPart.getDisposition())) {
+                    attachments.add(bodyPart.getFileName());
+                }
+            }
+        }
+        return attachments;
+    }
+}
@@ -0,0 +1,206 @@
+package org.example.simplemailclient.bulkhead;
+
+import jakarta.mail.MessagingException;
+import org.example.simplemailclient.enumeration.FailureKind;
+import org.example.simplemailclient.enumeration.MailProtocol;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AdaptiveLimiterTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.SECONDS.toNanos(5);
+
+    @Test
+    void throttleHalvesTheLimitAndPausesNewCalls() {
+        AdaptiveLimiter limiter = limiter(1, 10);
+
+        assertThat(limiter.tryAcquire()).isTrue();
+        limiter.release(FAST, FailureKind.THROTTLED);
+
+        assertThat(limiter.getStats().getLimit()).isEqualTo(5);
+        assertThat(limiter.getStats().getThrottledCount()).isEqualTo(1);
+        assertThat(limiter.getStats().getPausedForMillis()).isPositive();
+        assertThat(limiter.isPaused()).isTrue();
+        assertThat(limiter.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void throttleNeverGoesBelowTheMinimum() {
+        AdaptiveLimiter limiter = limiter(3, 4);
+
+        for (int i = 0; i < 3; i++) {
+            limiter.release(FAST, FailureKind.THROTTLED);
+        }
+
+        assertThat(limiter.getStats().getLimit()).isEqualTo(3);
+    }
+
+    @Test
+    void slowCallsAndDroppedConnectionsTakeATenthOff() {
+        AdaptiveLimiter limiter = limiter(1, 10);
+
+        assertThat(limiter.tryAcquire()).isTrue();
+        limiter.release(SLOW, null);
+        assertThat(limiter.getStats().getLimit()).isEqualTo(9);
+
+        assertThat(limiter.tryAcquire()).isTrue();
+        limiter.release(FAST, FailureKind.TRANSIENT);
+        // 10 * 0.9 * 0.9
+        assertThat(limiter.getStats().getLimit()).isEqualTo(8);
+        assertThat(limiter.getStats().getOverloadCount()).isEqualTo(2);
+        assertThat(limiter.isPaused()).isFalse();
+    }
+
+    @Test
+    void fullLimitGrowsByAboutOnePerRound() {
+        AdaptiveLimiter limiter = limiter(1, 10);
+        for (int i = 0; i < 3; i++) {
+            assertThat(limiter.tryAcquire()).isTrue();
+            limiter.release(SLOW, null);
+        }
+        // 10 * 0.9^3 = 7.29
+        assertThat(limiter.getStats().getLimit()).isEqualTo(7);
+
+        fillAndRelease(limiter);
+        assertThat(limiter.getStats().getLimit()).isEqualTo(7);
+        fillAndRelease(limiter);
+        assertThat(limiter.getStats().getLimit()).isEqualTo(8);
+    }
+
+    @Test
+    void limitDoesNotGrowWhileMostlyUnused() {
+        AdaptiveLimiter limiter = limiter(1, 10);
+        assertThat(limiter.tryAcquire()).isTrue();
+        limiter.release(SLOW, null);
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(limiter.tryAcquire()).isTrue();
+            limiter.release(FAST, null);
+        }
+
+        assertThat(limiter.getStats().getLimit()).isEqualTo(9);
+    }
+
+    @Test
+    void limitNeverGrowsPastTheMaximum() {
+        AdaptiveLimiter limiter = limiter(1, 4);
+
+        for (int i = 0; i < 10; i++) {
+            fillAndRelease(limiter);
+        }
+
+        assertThat(limiter.getStats().getLimit()).isEqualTo(4);
+    }
+
+    @Test
+    void callsWithoutMailIoLeaveTheLimitAlone() {
+        AdaptiveLimiter limiter = limiter(1, 10);
+        assertThat(limiter.tryAcquire()).isTrue();
+        limiter.release(SLOW, null);
+
+        for (int i = 0; i < 9; i++) {
+            assertThat(limiter.tryAcquire()).isTrue();
+        }
+        for (int i = 0; i < 9; i++) {
+            limiter.release(-1, null);
+        }
+
+        assertThat(limiter.getStats().getLimit()).isEqualTo(9);
+        assertThat(limiter.getStats().getOverloadCount()).isEqualTo(1);
+        assertThat(limiter.getStats().getInFlight()).isZero();
+    }
+
+    @Test
+    void acquireTimesOutWhileEverySlotIsTaken() throws Exception {
+        AdaptiveLimiter limiter = limiter(1, 1);
+        assertThat(limiter.tryAcquire()).isTrue();
+
+        long started = System.nanoTime();
+        assertThat(limiter.acquire(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(50))).isFalse();
+
+        assertThat(System.nanoTime() - started).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(50));
+        assertThat(limiter.getStats().getInFlight()).isEqualTo(1);
+    }
+
+    @Test
+    void acquireWakesUpWhenASlotIsReleased() throws Exception {
+        AdaptiveLimiter limiter = limiter(1, 1);
+        assertThat(limiter.tryAcquire()).isTrue();
+
+        CompletableFuture<Boolean> waiting = CompletableFuture.supplyAsync(() -> {
+            try {
+                return limiter.acquire(System.nanoTime() + TimeUnit.SECONDS.toNanos(5));
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(50);
+        assertThat(waiting).isNotDone();
+        limiter.release(FAST, null);
+
+        assertThat(waiting.get(1, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void acquireGivesUpAtOnceWhenThePauseOutlastsTheDeadline() throws Exception {
+        AdaptiveLimiter limiter = limiter(1, 10);
+        assertThat(limiter.tryAcquire()).isTrue();
+        limiter.release(FAST, FailureKind.THROTTLED);
+
+        long started = System.nanoTime();
+        assertThat(limiter.acquire(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(20))).isFalse();
+
+        assertThat(System.nanoTime() - started).isLessThan(TimeUnit.MILLISECONDS.toNanos(20));
+    }
+
+    @Test
+    void executeReleasesTheSlotWhenTheCallFails() throws Exception {
+        AdaptiveLimiter limiter = limiter(1, 1);
+
+        assertThatThrownBy(() -> limiter.execute(() -> {
+            throw new IOException("connection reset");
+        })).isInstanceOf(IOException.class);
+        assertThat(limiter.getStats().getInFlight()).isZero();
+        assertThat(limiter.getStats().getOverloadCount()).isEqualTo(1);
+
+        assertThat(limiter.execute(() -> "sent")).isEqualTo("sent");
+        assertThat(limiter.getStats().getInFlight()).isZero();
+    }
+
+    @Test
+    void executeCountsAThrottleReply() {
+        AdaptiveLimiter limiter = limiter(1, 4);
+
+        assertThatThrownBy(() -> limiter.execute(() -> {
+            throw new MessagingException("[THROTTLED] Too many commands");
+        })).isInstanceOf(MessagingException.class);
+
+        assertThat(limiter.getStats().getThrottledCount()).isEqualTo(1);
+        assertThat(limiter.getStats().getLimit()).isEqualTo(2);
+        assertThat(limiter.getStats().getInFlight()).isZero();
+    }
+
+    // Takes every slot the limit allows, then lets them all complete quickly.
+    private static void fillAndRelease(AdaptiveLimiter limiter) {
+        int taken = 0;
+        while (limiter.tryAcquire()) {
+            taken++;
+        }
+        for (int i = 0; i < taken; i++) {
+            limiter.release(FAST, null);
+        }
+    }
+
+    private static AdaptiveLimiter limiter(int minLimit, int maxLimit) {
+        return new AdaptiveLimiter("user@example.com", MailProtocol.IMAP, minLimit, maxLimit, Duration.ofSeconds(1),
+                Duration.ofMillis(200), Duration.ofSeconds(1));
+    }
+}
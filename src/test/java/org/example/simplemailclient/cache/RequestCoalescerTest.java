@@ -0,0 +1,162 @@
+package org.example.simplemailclient.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RequestCoalescerTest {
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(8);
+
+    private RequestCoalescer coalescer;
+
+    @BeforeEach
+    void setUp() {
+        coalescer = new RequestCoalescer(registry);
+        ReflectionTestUtils.setField(coalescer, "ttl", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(coalescer, "maxEntries", 1000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentIdenticalReadsShareOneLoad() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> first = executor.submit(() -> coalescer.execute("INBOX", List.of("folder", 50), () -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            await(release);
+            return "page";
+        }));
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+
+        List<Future<String>> followers = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            followers.add(executor.submit(() -> coalescer.execute("INBOX", List.of("folder", 50), () -> {
+                loads.incrementAndGet();
+                return "other";
+            })));
+        }
+        // every follower has joined the flight before it completes
+        while (shared() < 7) {
+            Thread.sleep(5);
+        }
+        release.countDown();
+
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("page");
+        for (Future<String> follower : followers) {
+            assertThat(follower.get(5, TimeUnit.SECONDS)).isEqualTo("page");
+        }
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void completedResultIsServedWithinTheTtl() {
+        AtomicInteger loads = new AtomicInteger();
+
+        coalescer.execute("INBOX", List.of("folder", 50), loads::incrementAndGet);
+        Object second = coalescer.execute("INBOX", List.of("folder", 50), loads::incrementAndGet);
+        coalescer.execute("INBOX", List.of("folder", 20), loads::incrementAndGet);
+        coalescer.execute("Sent", List.of("folder", 50), loads::incrementAndGet);
+
+        assertThat(second).isEqualTo(1);
+        assertThat(loads).hasValue(3);
+    }
+
+    @Test
+    void expiredResultIsLoadedAgain() throws Exception {
+        ReflectionTestUtils.setField(coalescer, "ttl", Duration.ofMillis(20));
+        AtomicInteger loads = new AtomicInteger();
+
+        coalescer.execute("INBOX", List.of("folder"), loads::incrementAndGet);
+        Thread.sleep(50);
+        Object second = coalescer.execute("INBOX", List.of("folder"), loads::incrementAndGet);
+
+        assertThat(second).isEqualTo(2);
+    }
+
+    @Test
+    void invalidateDropsTheFolderOnly() {
+        AtomicInteger loads = new AtomicInteger();
+        coalescer.execute("INBOX", List.of("folder"), loads::incrementAndGet);
+        coalescer.execute("Sent", List.of("folder"), loads::incrementAndGet);
+
+        coalescer.invalidate("INBOX");
+
+        assertThat(coalescer.execute("INBOX", List.of("folder"), loads::incrementAndGet)).isEqualTo(3);
+        assertThat(coalescer.execute("Sent", List.of("folder"), loads::incrementAndGet)).isEqualTo(2);
+    }
+
+    @Test
+    void failuresReachTheWaitingCallersButAreNotKept() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<Object> first = executor.submit(() -> coalescer.execute("INBOX", List.of("search", "x"), () -> {
+            loading.countDown();
+            await(release);
+            throw new IllegalStateException("IMAP unavailable");
+        }));
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+        Future<Object> follower = executor.submit(() -> coalescer.execute("INBOX", List.of("search", "x"), () -> "other"));
+        while (shared() < 1) {
+            Thread.sleep(5);
+        }
+        release.countDown();
+
+        assertThatThrownBy(() -> first.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> follower.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+        assertThat(coalescer.execute("INBOX", List.of("search", "x"), () -> "recovered")).isEqualTo("recovered");
+    }
+
+    @Test
+    void syncedChangesInvalidateTheFolder() {
+        AtomicInteger loads = new AtomicInteger();
+        coalescer.execute("INBOX", List.of("folder"), loads::incrementAndGet);
+
+        FolderSyncedEvent unchanged = new FolderSyncedEvent("INBOX");
+        coalescer.onFolderSynced(unchanged);
+        assertThat(coalescer.execute("INBOX", List.of("folder"), loads::incrementAndGet)).isEqualTo(1);
+
+        FolderSyncedEvent newMail = new FolderSyncedEvent("INBOX");
+        newMail.getAddedUids().add(42L);
+        coalescer.onFolderSynced(newMail);
+        assertThat(coalescer.execute("INBOX", List.of("folder"), loads::incrementAndGet)).isEqualTo(2);
+    }
+
+    private double shared() {
+        return registry.get("mail.coalescing.requests").tag("result", "shared").counter().count();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
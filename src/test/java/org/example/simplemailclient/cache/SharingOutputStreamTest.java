@@ -0,0 +1,89 @@
+package org.example.simplemailclient.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SharingOutputStreamTest {
+
+    @Test
+    void clientGetsEveryByteAsItIsWritten() throws Exception {
+        ByteArrayOutputStream client = new ByteArrayOutputStream();
+        SharingOutputStream sharing = new SharingOutputStream(client, 16);
+
+        sharing.write(bytes("[1,"));
+        assertThat(client.toString(StandardCharsets.UTF_8)).isEqualTo("[1,");
+        sharing.write('2');
+        sharing.write(bytes("]"));
+
+        assertThat(client.toString(StandardCharsets.UTF_8)).isEqualTo("[1,2]");
+        assertThat(sharing.getCopy()).isEqualTo(bytes("[1,2]"));
+    }
+
+    @Test
+    void copyIsDroppedOnceItOutgrowsTheLimit() throws Exception {
+        ByteArrayOutputStream client = new ByteArrayOutputStream();
+        SharingOutputStream sharing = new SharingOutputStream(client, 4);
+
+        sharing.write(bytes("abcd"));
+        assertThat(sharing.getCopy()).isEqualTo(bytes("abcd"));
+        sharing.write(bytes("e"));
+
+        assertThat(sharing.getCopy()).isNull();
+        assertThat(client.toString(StandardCharsets.UTF_8)).isEqualTo("abcde");
+    }
+
+    @Test
+    void departedClientDoesNotCutTheCopyShort() throws Exception {
+        SharingOutputStream sharing = new SharingOutputStream(new DepartingClient(2), 16);
+
+        sharing.write(bytes("ab"));
+        sharing.write(bytes("cd"));
+        sharing.flush();
+
+        assertThat(sharing.getCopy()).isEqualTo(bytes("abcd"));
+    }
+
+    @Test
+    void departedClientFailsTheWriteWhenNothingIsCopied() throws Exception {
+        SharingOutputStream sharing = new SharingOutputStream(new DepartingClient(2), 3);
+
+        sharing.write(bytes("ab"));
+        sharing.write(bytes("c"));
+
+        assertThatThrownBy(() -> sharing.write(bytes("d"))).isInstanceOf(IOException.class);
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    // Takes the given number of bytes, then fails like a closed connection.
+    private static final class DepartingClient extends OutputStream {
+
+        private int remaining;
+
+        private DepartingClient(int remaining) {
+            this.remaining = remaining;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            if (remaining < length) {
+                throw new IOException("Broken pipe");
+            }
+            remaining -= length;
+        }
+    }
+}
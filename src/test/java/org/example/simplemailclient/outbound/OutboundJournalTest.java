@@ -0,0 +1,116 @@
+package org.example.simplemailclient.outbound;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.simplemailclient.dto.EmailRequest;
+import org.example.simplemailclient.dto.OutboundStatus;
+import org.example.simplemailclient.enumeration.OutboundState;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OutboundJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private OutboundJournal journal;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        journal = open();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        journal.close();
+    }
+
+    @Test
+    void replayKeepsTheFirstRequestAndTheLatestStatus() throws Exception {
+        journal.append(new JournalRecord("a", request("first"), status("a", OutboundState.QUEUED, 0)));
+        journal.append(new JournalRecord("b", request("second"), status("b", OutboundState.QUEUED, 0)));
+        journal.append(new JournalRecord("a", null, status("a", OutboundState.RETRY_SCHEDULED, 1)));
+        journal.append(new JournalRecord("a", null, status("a", OutboundState.SENT, 2)));
+
+        Map<String, JournalRecord> records = reopen().replay();
+
+        assertThat(records).containsOnlyKeys("a", "b");
+        assertThat(records.get("a").getRequest().getSubject()).isEqualTo("first");
+        assertThat(records.get("a").getStatus().getState()).isEqualTo(OutboundState.SENT);
+        assertThat(records.get("a").getStatus().getAttempts()).isEqualTo(2);
+        assertThat(records.get("b").getStatus().getState()).isEqualTo(OutboundState.QUEUED);
+    }
+
+    @Test
+    void replaySkipsATornLastLine() throws Exception {
+        journal.append(new JournalRecord("a", request("first"), status("a", OutboundState.QUEUED, 0)));
+        journal.close();
+        Files.writeString(directory.resolve("outbox.journal"), "{\"id\":\"b\",\"request\":{\"to\":[\"x@",
+                StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        journal = open();
+        Map<String, JournalRecord> records = journal.replay();
+
+        assertThat(records).containsOnlyKeys("a");
+    }
+
+    @Test
+    void compactionRewritesTheJournalWithTheGivenRecords() throws Exception {
+        for (int i = 0; i < 4; i++) {
+            journal.append(new JournalRecord("a", i == 0 ? request("first") : null, status("a", OutboundState.RETRY_SCHEDULED, i)));
+        }
+        journal.append(new JournalRecord("b", request("second"), status("b", OutboundState.SENT, 1)));
+        assertThat(journal.needsCompaction()).isTrue();
+
+        Map<String, JournalRecord> live = journal.replay();
+        live.remove("b");
+        journal.compact(live.values());
+
+        assertThat(journal.needsCompaction()).isFalse();
+        assertThat(Files.readAllLines(directory.resolve("outbox.journal"))).hasSize(1);
+
+        // appends after the compaction go to the new file
+        journal.append(new JournalRecord("a", null, status("a", OutboundState.SENT, 4)));
+        journal.append(new JournalRecord("c", request("third"), status("c", OutboundState.QUEUED, 0)));
+        Map<String, JournalRecord> records = reopen().replay();
+
+        assertThat(records).containsOnlyKeys("a", "c");
+        assertThat(records.get("a").getRequest().getSubject()).isEqualTo("first");
+        assertThat(records.get("a").getStatus().getState()).isEqualTo(OutboundState.SENT);
+        assertThat(records.get("c").getRequest().getSubject()).isEqualTo("third");
+    }
+
+    private OutboundJournal reopen() throws Exception {
+        journal.close();
+        journal = open();
+        return journal;
+    }
+
+    private OutboundJournal open() throws Exception {
+        OutboundJournal opened = new OutboundJournal(new ObjectMapper());
+        ReflectionTestUtils.setField(opened, "directory", directory.toString());
+        ReflectionTestUtils.setField(opened, "fsync", false);
+        ReflectionTestUtils.setField(opened, "compactThreshold", 3);
+        opened.init();
+        return opened;
+    }
+
+    private static EmailRequest request(String subject) {
+        return new EmailRequest(List.of("to@example.com"), null, null, subject, "text");
+    }
+
+    private static OutboundStatus status(String id, OutboundState state, int attempts) {
+        return new OutboundStatus(id, state, attempts, null, 1000, 1000 + attempts, 0);
+    }
+}
@@ -0,0 +1,104 @@
+package org.example.simplemailclient.search;
+
+import org.example.simplemailclient.dto.EmailResponse;
+import org.example.simplemailclient.dto.SearchResultPage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MailSearchIndexTest {
+
+    @TempDir
+    Path directory;
+
+    private MailSearchIndex index;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        index = new MailSearchIndex();
+        ReflectionTestUtils.setField(index, "directory", directory.toString());
+        ReflectionTestUtils.setField(index, "refreshInterval", Duration.ofHours(1));
+        ReflectionTestUtils.setField(index, "commitInterval", Duration.ofHours(1));
+        index.init();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        index.close();
+    }
+
+    @Test
+    void cursorPagesThroughEveryHitOnce() throws Exception {
+        for (long uid = 1; uid <= 25; uid++) {
+            index.index("INBOX", email(uid, "Quarterly report " + uid), uid * 1000, "numbers");
+        }
+        index.index("Archive", email(100, "Quarterly report 100"), 100_000, "numbers");
+        // also refreshes the searcher
+        assertThat(index.getLowestIndexedUid("INBOX")).isEqualTo(1);
+
+        List<Long> uids = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            SearchResultPage page = index.search("INBOX", "report", null, null, 10, cursor);
+            assertThat(page.getTotalHits()).isEqualTo(25);
+            page.getResults().forEach(email -> uids.add(email.getUid()));
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertThat(pages).isEqualTo(3);
+        assertThat(uids).hasSize(25).doesNotHaveDuplicates().isSortedAccordingTo(Comparator.reverseOrder());
+    }
+
+    @Test
+    void cursorOfALastFullPageLeadsToAnEmptyPage() throws Exception {
+        for (long uid = 1; uid <= 4; uid++) {
+            index.index("INBOX", email(uid, "Invoice " + uid), uid * 1000, null);
+        }
+        index.getLowestIndexedUid("INBOX");
+
+        SearchResultPage first = index.search("INBOX", "invoice", null, null, 2, null);
+        SearchResultPage second = index.search("INBOX", "invoice", null, null, 2, first.getNextCursor());
+        SearchResultPage third = index.search("INBOX", "invoice", null, null, 2, second.getNextCursor());
+
+        assertThat(first.getResults()).extracting(EmailResponse::getUid).containsExactly(4L, 3L);
+        assertThat(second.getResults()).extracting(EmailResponse::getUid).containsExactly(2L, 1L);
+        assertThat(third.getResults()).isEmpty();
+        assertThat(third.getNextCursor()).isNull();
+    }
+
+    @Test
+    void badPagingInputIsRejected() throws Exception {
+        index.index("INBOX", email(1, "Invoice 1"), 1000, null);
+        index.getLowestIndexedUid("INBOX");
+
+        assertThatThrownBy(() -> index.search("INBOX", "invoice", null, null, 0, null))
+                .isInstanceOf(IllegalArgumentException.class);
+        for (String cursor : List.of("!!", "bm90LWEtY3Vyc29y", "MToxOjE", "eDp5")) {
+            assertThatThrownBy(() -> index.search("INBOX", "invoice", null, null, 10, cursor))
+                    .as(cursor)
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageStartingWith("Invalid cursor");
+        }
+    }
+
+    private static EmailResponse email(long uid, String subject) {
+        EmailResponse email = new EmailResponse();
+        email.setUid(uid);
+        email.setFrom("sender@example.com");
+        email.setSubject(subject);
+        return email;
+    }
+}
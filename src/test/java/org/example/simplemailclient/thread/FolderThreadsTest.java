@@ -0,0 +1,175 @@
+package org.example.simplemailclient.thread;
+
+import org.example.simplemailclient.dto.EmailResponse;
+import org.example.simplemailclient.dto.ThreadDetail;
+import org.example.simplemailclient.dto.ThreadMessage;
+import org.example.simplemailclient.dto.ThreadPage;
+import org.example.simplemailclient.dto.ThreadSummary;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FolderThreadsTest {
+
+    @Test
+    void repliesThatArriveBeforeTheirParentEndUpBelowIt() {
+        FolderThreads threads = FolderThreads.of(List.of(
+                email(3, "Re: Plan", "bob", "<c>", "<b>", "<a>", "<b>"),
+                email(2, "Re: Plan", "carol", "<b>", "<a>", "<a>"),
+                email(1, "Plan", "alice", "<a>", null)));
+
+        ThreadPage page = threads.page(10, null);
+        assertThat(page.getTotalThreads()).isEqualTo(1);
+        ThreadSummary summary = page.getThreads().get(0);
+        assertThat(summary.getThreadId()).isEqualTo("<a>");
+        assertThat(summary.getSubject()).isEqualTo("Plan");
+        assertThat(summary.getMessageCount()).isEqualTo(3);
+        assertThat(summary.getParticipants()).containsExactly("alice", "carol", "bob");
+        assertThat(summary.getLatestUid()).isEqualTo(3);
+
+        ThreadDetail detail = threads.detail("<c>", 0, 10).orElseThrow();
+        assertThat(detail.getMessages()).extracting(message -> message.getEmail().getUid()).containsExactly(1L, 2L, 3L);
+        assertThat(detail.getMessages()).extracting(ThreadMessage::getDepth).containsExactly(0, 1, 2);
+    }
+
+    @Test
+    void repliesToAMissingMessageShareItsThread() {
+        FolderThreads threads = FolderThreads.of(List.of(
+                email(2, "Re: Report", "bob", "<b>", "<a>", "<a>"),
+                email(3, "Re: Report", "carol", "<c>", "<a>", "<a>")));
+
+        ThreadPage page = threads.page(10, null);
+        assertThat(page.getTotalThreads()).isEqualTo(1);
+        assertThat(page.getThreads().get(0).getThreadId()).isEqualTo("<a>");
+        assertThat(page.getThreads().get(0).getSubject()).isEqualTo("Re: Report");
+
+        // the empty container is left out, its replies move up a level
+        ThreadDetail detail = threads.detail("<a>", 0, 10).orElseThrow();
+        assertThat(detail.getMessageCount()).isEqualTo(2);
+        assertThat(detail.getMessages()).extracting(ThreadMessage::getDepth).containsExactly(0, 0);
+    }
+
+    @Test
+    void repliesWithoutReferencesAreGroupedBySubject() {
+        FolderThreads threads = FolderThreads.of(List.of(
+                email(1, "Lunch", "alice", "<a>", null),
+                email(2, "Re: Lunch", "bob", "<b>", null),
+                email(3, "RE: re: lunch", "carol", "<c>", null),
+                email(4, "Lunch plans", "dave", "<d>", null),
+                email(5, "Re: Dinner", "erin", "<e>", null)));
+
+        ThreadPage page = threads.page(10, null);
+
+        assertThat(page.getTotalThreads()).isEqualTo(3);
+        assertThat(page.getThreads()).extracting(ThreadSummary::getThreadId).containsExactly("<e>", "<d>", "<a>");
+        assertThat(page.getThreads().get(2).getMessageCount()).isEqualTo(3);
+    }
+
+    @Test
+    void copiesOfTheSameMessageStandOnTheirOwn() {
+        FolderThreads threads = FolderThreads.of(List.of(
+                email(1, "Hello", "alice", "<a>", null),
+                email(2, "Hello", "alice", "<a>", null)));
+
+        assertThat(threads.page(10, null).getThreads()).extracting(ThreadSummary::getThreadId).containsExactly("uid:2", "<a>");
+    }
+
+    @Test
+    void removedMessagesLeaveTheirRepliesInPlace() {
+        FolderThreads threads = FolderThreads.of(List.of(
+                email(1, "Plan", "alice", "<a>", null),
+                email(2, "Re: Plan", "bob", "<b>", "<a>", "<a>"),
+                email(3, "Re: Plan", "carol", "<c>", "<b>", "<a>", "<b>")));
+
+        threads.remove(2);
+        ThreadDetail detail = threads.detail("<c>", 0, 10).orElseThrow();
+        assertThat(detail.getMessageCount()).isEqualTo(2);
+        assertThat(detail.getMessages()).extracting(message -> message.getEmail().getUid()).containsExactly(1L, 3L);
+        assertThat(detail.getMessages()).extracting(ThreadMessage::getDepth).containsExactly(0, 1);
+
+        threads.remove(3);
+        ThreadSummary summary = threads.page(10, null).getThreads().get(0);
+        assertThat(summary.getMessageCount()).isEqualTo(1);
+        assertThat(summary.getLatestUid()).isEqualTo(1);
+
+        threads.remove(1);
+        assertThat(threads.page(10, null).getTotalThreads()).isZero();
+        assertThat(threads.detail("<a>", 0, 10)).isEmpty();
+
+        // a message arriving later still finds its place
+        threads.add(email(4, "Re: Plan", "dave", "<d>", "<c>", "<a>", "<b>", "<c>"));
+        assertThat(threads.detail("<d>", 0, 10).orElseThrow().getThreadId()).isEqualTo("<a>");
+    }
+
+    @Test
+    void cursorPagesThroughEveryThreadOnce() {
+        List<EmailResponse> emails = new ArrayList<>();
+        for (long uid = 1; uid <= 7; uid++) {
+            emails.add(email(uid, "Topic " + uid, "alice", "<" + uid + ">", null));
+        }
+        // a late reply moves thread 2 to the top
+        emails.add(email(8, "Re: Topic 2", "bob", "<8>", "<2>", "<2>"));
+        FolderThreads threads = FolderThreads.of(emails);
+
+        List<String> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            ThreadPage page = threads.page(3, cursor);
+            page.getThreads().forEach(thread -> seen.add(thread.getThreadId()));
+            cursor = page.getNextCursor();
+            pages++;
+            if (pages == 1) {
+                // new mail between pages lands before the cursor
+                threads.add(email(9, "Topic 9", "carol", "<9>", null));
+            }
+        } while (cursor != null);
+
+        assertThat(pages).isEqualTo(3);
+        assertThat(threads.page(3, null).getTotalThreads()).isEqualTo(8);
+        assertThat(seen).containsExactly("<2>", "<7>", "<6>", "<5>", "<4>", "<3>", "<1>");
+    }
+
+    @Test
+    void detailPagesByOffset() {
+        FolderThreads threads = FolderThreads.of(List.of(
+                email(1, "Plan", "alice", "<a>", null),
+                email(2, "Re: Plan", "bob", "<b>", "<a>", "<a>"),
+                email(3, "Re: Plan", "carol", "<c>", "<a>", "<a>")));
+
+        ThreadDetail first = threads.detail("<a>", 0, 2).orElseThrow();
+        ThreadDetail second = threads.detail("<a>", first.getNextOffset(), 2).orElseThrow();
+
+        assertThat(first.getMessages()).extracting(message -> message.getEmail().getUid()).containsExactly(1L, 2L);
+        assertThat(first.getNextOffset()).isEqualTo(2);
+        assertThat(second.getMessages()).extracting(message -> message.getEmail().getUid()).containsExactly(3L);
+        assertThat(second.getNextOffset()).isNull();
+        assertThat(threads.detail("<unknown>", 0, 2)).isEmpty();
+    }
+
+    @Test
+    void invalidCursorIsRejected() {
+        FolderThreads threads = FolderThreads.of(List.of(email(1, "Plan", "alice", "<a>", null)));
+
+        assertThatThrownBy(() -> threads.page(10, "not-a-cursor")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> threads.page(10, "!!")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    // Received uid minutes after the epoch, so a higher uid is newer.
+    private static EmailResponse email(long uid, String subject, String from, String messageId, String inReplyTo,
+                                       String... references) {
+        EmailResponse email = new EmailResponse();
+        email.setUid(uid);
+        email.setFrom(from);
+        email.setSubject(subject);
+        email.setReceivedTime(uid * 60_000);
+        email.setMessageId(messageId);
+        email.setInReplyTo(inReplyTo);
+        email.setReferences(List.of(references));
+        return email;
+    }
+}
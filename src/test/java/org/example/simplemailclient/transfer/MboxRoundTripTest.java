@@ -0,0 +1,112 @@
+package org.example.simplemailclient.transfer;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MboxRoundTripTest {
+
+    @Test
+    void messagesSurviveWritingAndReadingBack() throws Exception {
+        String quoting = """
+                From: alice@example.com
+                Subject: Quoting
+
+                From the start of a line.
+                >From an already quoted line.
+                >>From a line quoted twice.
+                 From an indented line.
+
+                Two blank lines follow.
+
+
+                End.
+                """.replace("\n", "\r\n");
+        String trailingBlank = "Subject: Trailing blank\r\n\r\nBody\r\n\r\n";
+        Date received = new Date(1_700_000_000_123L);
+        List<MailboxEntry> written = List.of(
+                new MailboxEntry(7, "alice@example.com", received, true, bytes(quoting)),
+                new MailboxEntry(8, "bob@example.com", received, false, bytes(trailingBlank)),
+                new MailboxEntry(9, "carol@example.com", received, true, bytes("Subject: Last\r\n\r\nNo CRLF at the end")));
+
+        List<MailboxEntry> read = roundTrip(written);
+
+        assertThat(read).hasSize(3);
+        assertThat(read).extracting(MailboxEntry::uid).containsExactly(7L, 8L, 9L);
+        assertThat(read).extracting(MailboxEntry::seen).containsExactly(true, false, true);
+        assertThat(read).extracting(MailboxEntry::sender)
+                .containsExactly("alice@example.com", "bob@example.com", "carol@example.com");
+        // the From_ line keeps whole seconds
+        assertThat(read.get(0).internalDate()).isEqualTo(new Date(1_700_000_000_000L));
+        assertThat(string(read.get(0).content())).isEqualTo(quoting);
+        assertThat(string(read.get(1).content())).isEqualTo(trailingBlank);
+        assertThat(string(read.get(2).content())).isEqualTo("Subject: Last\r\n\r\nNo CRLF at the end\r\n");
+    }
+
+    @Test
+    void missingSenderAndDateGetPlaceholders() throws Exception {
+        List<MailboxEntry> read = roundTrip(List.of(new MailboxEntry(1, " ", null, false, bytes("Subject: x\r\n\r\ny\r\n"))));
+
+        assertThat(read).hasSize(1);
+        assertThat(read.get(0).sender()).isEqualTo("MAILER-DAEMON");
+        assertThat(read.get(0).internalDate()).isEqualTo(new Date(0));
+        assertThat(string(read.get(0).content())).isEqualTo("Subject: x\r\n\r\ny\r\n");
+    }
+
+    @Test
+    void lfOnlyContentIsReadBackWithCrlf() throws Exception {
+        List<MailboxEntry> read = roundTrip(List.of(new MailboxEntry(1, "a@example.com", new Date(0), true,
+                bytes("Subject: unix\n\nFrom here\n"))));
+
+        assertThat(string(read.get(0).content())).isEqualTo("Subject: unix\r\n\r\nFrom here\r\n");
+    }
+
+    @Test
+    void fromLinesAreQuotedInTheFile() throws Exception {
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        try (MboxWriter writer = new MboxWriter(file)) {
+            writer.write(new MailboxEntry(3, "a@example.com", new Date(0), false, null),
+                    new ByteArrayInputStream(bytes("Subject: q\r\n\r\nFrom me\r\n>From you\r\n")));
+        }
+
+        String mbox = new String(new GZIPInputStream(new ByteArrayInputStream(file.toByteArray())).readAllBytes(),
+                StandardCharsets.UTF_8);
+
+        assertThat(mbox).isEqualTo("From a@example.com Thu Jan  1 00:00:00 1970\nX-UID: 3\nStatus: O\n"
+                + "Subject: q\n\n>From me\n>>From you\n\n");
+    }
+
+    private static List<MailboxEntry> roundTrip(List<MailboxEntry> entries) throws IOException {
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        try (MboxWriter writer = new MboxWriter(file)) {
+            for (MailboxEntry entry : entries) {
+                writer.write(entry, new ByteArrayInputStream(entry.content()));
+            }
+        }
+        List<MailboxEntry> read = new ArrayList<>();
+        try (MboxReader reader = new MboxReader(new GZIPInputStream(new ByteArrayInputStream(file.toByteArray())))) {
+            MailboxEntry entry;
+            while ((entry = reader.next()) != null) {
+                read.add(entry);
+            }
+        }
+        return read;
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(byte[] bytes) {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}